@@ -1,4 +1,4 @@
-import { Injectable } from '@angular/core';
+import { Injectable, NgZone } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable, of } from 'rxjs';
 import { catchError } from 'rxjs/operators';
@@ -10,7 +10,7 @@ import { environment } from '../../../environments/environment';
 export class ApiService {
   private baseUrl = environment.apiUrl || 'http://localhost:8080';
 
-  constructor(private http: HttpClient) {}
+  constructor(private http: HttpClient, private zone: NgZone) {}
 
   // ========== STATIONS (via map-service) ==========
   getStationsOverview(): Observable<StationOverview[]> {
@@ -32,8 +32,9 @@ export class ApiService {
     );
   }
 
-  getMeasurements(stationId: number): Observable<Measurement[]> {
-    return this.http.get<Measurement[]>(`${this.baseUrl}/sensor/api/measurements?stationId=${stationId}`).pipe(
+  // n dernières mesures, de la plus ancienne à la plus récente (servies depuis la mémoire)
+  getMeasurements(stationId: number, n = 50): Observable<Measurement[]> {
+    return this.http.get<Measurement[]>(`${this.baseUrl}/sensor/api/measurements/recent?stationId=${stationId}&n=${n}`).pipe(
       catchError(this.handleError<Measurement[]>('getMeasurements', []))
     );
   }
@@ -44,6 +45,25 @@ export class ApiService {
     );
   }
 
+  // Flux SSE des nouvelles mesures (toutes les stations si stationIds est vide).
+  // EventSource se reconnecte seul ; l'abonnement ferme la connexion à l'unsubscribe.
+  streamMeasurements(stationIds: number[] = []): Observable<MeasurementStreamEvent> {
+    const query = stationIds.length ? `?stationIds=${stationIds.join(',')}` : '';
+    return new Observable<MeasurementStreamEvent>(subscriber => {
+      const source = new EventSource(`${this.baseUrl}/sensor/api/measurements/stream${query}`);
+      source.addEventListener('measurement', (event: MessageEvent) => {
+        const measurement = JSON.parse(event.data) as Measurement;
+        this.zone.run(() => subscriber.next({ type: 'measurement', measurement }));
+      });
+      // Mesures perdues (client trop lent) : recharger l'état courant
+      source.addEventListener('resync', () => {
+        this.zone.run(() => subscriber.next({ type: 'resync' }));
+      });
+      source.onerror = () => console.warn('streamMeasurements: connexion interrompue, reconnexion...');
+      return () => source.close();
+    });
+  }
+
   addMeasurement(measurement: Partial<Measurement>): Observable<Measurement> {
     return this.http.post<Measurement>(`${this.baseUrl}/sensor/api/measurements`, measurement).pipe(
       catchError(this.handleError<Measurement>('addMeasurement'))
@@ -175,6 +195,10 @@ export interface StationOverview {
   lastMeasurementTime: string | null;
 }
 
+export type MeasurementStreamEvent =
+  | { type: 'measurement'; measurement: Measurement }
+  | { type: 'resync' };
+
 export interface StationDetail {
   stationId: number;
   code: string;
@@ -209,6 +233,8 @@ export interface Measurement {
   turbidity: number;
   dissolvedOxygen: number;
   conductivity: number;
+  // Indicateurs qualité (masque) : 1 hors bornes, 2 pic, 4 capteur bloqué, 8 variation trop rapide
+  qualityFlags?: number;
 }
 
 export interface QualityObservation {
@@ -4,8 +4,8 @@ import { Router, RouterModule } from '@angular/router';
 import { BaseChartDirective } from 'ng2-charts';
 import { ChartConfiguration, ChartData, ChartType } from 'chart.js';
 import { ApiService, StationOverview, Alert, QualityForecast } from '../../core/services/api.service';
-import { interval, Subscription, forkJoin } from 'rxjs';
-import { finalize } from 'rxjs/operators';
+import { Subject, Subscription, forkJoin } from 'rxjs';
+import { auditTime, finalize } from 'rxjs/operators';
 
 @Component({
   selector: 'app-dashboard',
@@ -23,7 +23,9 @@ export class DashboardComponent implements OnInit, OnDestroy {
   error: string | null = null;
   lastUpdate: Date = new Date();
   
+  private streamSubscription?: Subscription;
   private refreshSubscription?: Subscription;
+  private refresh$ = new Subject<void>();
 
   // Stats
   totalStations = 0;
@@ -90,13 +92,28 @@ export class DashboardComponent implements OnInit, OnDestroy {
 
   ngOnInit(): void {
     this.loadData();
-    // Rafraîchir toutes les 30 secondes
-    this.refreshSubscription = interval(30000).subscribe(() => {
-      this.loadData();
+    // Scores et alertes recalculés côté serveur : rechargés au plus toutes les 5 minutes,
+    // et seulement si de nouvelles mesures sont arrivées entre-temps
+    this.refreshSubscription = this.refresh$.pipe(auditTime(300000)).subscribe(() => this.loadData());
+    // Nouvelles mesures poussées par le serveur (SSE), appliquées localement sans rechargement
+    this.streamSubscription = this.apiService.streamMeasurements().subscribe(event => {
+      if (event.type === 'resync') {
+        // mesures perdues : on repart de l'état courant du serveur
+        this.loadData();
+        return;
+      }
+      const station = this.stations.find(s => s.stationId === event.measurement.stationId);
+      // l'état initial du flux (dernière mesure connue) ne change rien s'il est déjà affiché
+      if (station && (!station.lastMeasurementTime || station.lastMeasurementTime < event.measurement.timestamp)) {
+        station.lastMeasurementTime = event.measurement.timestamp;
+        this.cdr.detectChanges();
+        this.refresh$.next();
+      }
     });
   }
 
   ngOnDestroy(): void {
+    this.streamSubscription?.unsubscribe();
     this.refreshSubscription?.unsubscribe();
   }
 
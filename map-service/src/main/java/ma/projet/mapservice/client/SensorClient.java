@@ -3,27 +3,51 @@ package ma.projet.mapservice.client;
 import ma.projet.mapservice.web.dto.MeasurementDTO;
 import ma.projet.mapservice.web.dto.StationDTO;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * Feign Client pour communiquer avec sensor-service via Eureka
  */
-@FeignClient(name = "sensor-service")
+@FeignClient(name = "sensor-service", configuration = SensorClientConfig.class)
 public interface SensorClient {
 
     @GetMapping("/api/stations")
     List<StationDTO> getAllStations();
 
+    // GET conditionnel : 304 (FeignException) si ifNoneMatch est toujours la version courante
+    @GetMapping("/api/stations")
+    ResponseEntity<List<StationDTO>> getAllStationsIfChanged(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
     @GetMapping("/api/stations/{id}")
     StationDTO getStationById(@PathVariable("id") Long id);
 
     @GetMapping("/api/measurements/latest")
     MeasurementDTO getLatestMeasurement(@RequestParam("stationId") Long stationId);
 
+    @GetMapping("/api/measurements/latest")
+    List<MeasurementDTO> getLatestMeasurements(@RequestParam("stationIds") List<Long> stationIds);
+
+    @GetMapping("/api/measurements/latest/all")
+    List<MeasurementDTO> getAllLatestMeasurements();
+
+    // mesures brutes d'une plage (from/to obligatoires côté sensor-service)
     @GetMapping("/api/measurements")
-    List<MeasurementDTO> getMeasurementsByStation(@RequestParam("stationId") Long stationId);
+    List<MeasurementDTO> getMeasurementsByStation(
+            @RequestParam("stationId") Long stationId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to);
+
+    // n dernières mesures, de la plus ancienne à la plus récente (servies depuis la mémoire)
+    @GetMapping("/api/measurements/recent")
+    List<MeasurementDTO> getRecentMeasurements(@RequestParam("stationId") Long stationId, @RequestParam("n") int n);
 }
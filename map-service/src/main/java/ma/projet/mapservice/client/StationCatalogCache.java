@@ -0,0 +1,46 @@
+package ma.projet.mapservice.client;
+
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import ma.projet.mapservice.web.dto.StationDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Copie locale du catalogue des stations de sensor-service
+ *
+ * Chaque lecture revalide la copie par un GET conditionnel (If-None-Match) :
+ * tant que le catalogue ne change pas, sensor-service répond 304 sans corps
+ * et sans requête base.
+ */
+@Component
+@RequiredArgsConstructor
+public class StationCatalogCache {
+
+    private final SensorClient sensorClient;
+
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(List<StationDTO> stations, String etag) {
+    }
+
+    public List<StationDTO> getStations() {
+        Snapshot current = snapshot;
+        try {
+            ResponseEntity<List<StationDTO>> response =
+                    sensorClient.getAllStationsIfChanged(current != null ? current.etag() : null);
+            List<StationDTO> stations = response.getBody() != null ? List.copyOf(response.getBody()) : List.of();
+            snapshot = new Snapshot(stations, response.getHeaders().getETag());
+            return stations;
+        } catch (FeignException e) {
+            // Feign traite le 304 comme une erreur : la copie locale est à jour
+            if (e.status() == HttpStatus.NOT_MODIFIED.value() && current != null) {
+                return current.stations();
+            }
+            throw e;
+        }
+    }
+}
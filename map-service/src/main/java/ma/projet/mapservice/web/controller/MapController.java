@@ -3,12 +3,16 @@ package ma.projet.mapservice.web.controller;
 import ma.projet.mapservice.client.AlertClient;
 import ma.projet.mapservice.client.SensorClient;
 import ma.projet.mapservice.client.StModelClient;
+import ma.projet.mapservice.client.StationCatalogCache;
 import ma.projet.mapservice.web.dto.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/map")
@@ -18,6 +22,7 @@ public class MapController {
     private final SensorClient sensorClient;
     private final StModelClient stModelClient;
     private final AlertClient alertClient;
+    private final StationCatalogCache stationCatalog;
 
     private static final DateTimeFormatter TIME_FMT =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
@@ -26,10 +31,16 @@ public class MapController {
     @GetMapping("/stations")
     public List<StationOverviewDTO> getStationOverview() {
 
-        List<StationDTO> stations = sensorClient.getAllStations();
+        // catalogue revalidé par ETag (304 tant qu'il ne change pas)
+        List<StationDTO> stations = stationCatalog.getStations();
+
+        // un seul appel pour les dernières mesures de toutes les stations
+        // (une ligne par station : un doublon est une erreur du sensor-service, pas à masquer)
+        Map<Long, MeasurementDTO> latestByStation = sensorClient.getAllLatestMeasurements().stream()
+                .collect(Collectors.toMap(MeasurementDTO::getStationId, Function.identity()));
 
         return stations.stream().map(st -> {
-            MeasurementDTO latestMeas = sensorClient.getLatestMeasurement(st.getId());
+            MeasurementDTO latestMeas = latestByStation.get(st.getId());
             QualityObservationDTO latestObs = stModelClient.getLatestObservation(st.getId());
             List<AlertDTO> activeAlerts = alertClient.getActiveAlertsForStation(st.getId());
 
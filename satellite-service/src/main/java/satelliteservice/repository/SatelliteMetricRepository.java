@@ -1,11 +1,14 @@
 package satelliteservice.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import satelliteservice.domain.entity.SatelliteMetric;
 import satelliteservice.domain.entity.SatelliteScene;
 import satelliteservice.domain.enums.MetricType;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface SatelliteMetricRepository extends JpaRepository<SatelliteMetric, Long> {
@@ -19,4 +22,20 @@ public interface SatelliteMetricRepository extends JpaRepository<SatelliteMetric
     List<SatelliteMetric> findByScene(SatelliteScene scene);
 
     List<SatelliteMetric> findTop10ByStationIdOrderByCreatedAtDesc(Long stationId);
+
+    // ids des perStation dernières métriques de chaque station, en une requête
+    @Query(value = """
+            select id from (
+                select m.id, row_number() over (partition by m.station_id order by m.created_at desc, m.id desc) as rn
+                from satellite_metrics m
+                where m.station_id in (:stationIds)
+            ) ranked
+            where rn <= :perStation
+            """, nativeQuery = true)
+    List<Long> findLatestIdsForStations(@Param("stationIds") Collection<Long> stationIds,
+                                        @Param("perStation") int perStation);
+
+    // scène chargée dans la même requête (productId)
+    @Query("select m from SatelliteMetric m join fetch m.scene where m.id in :ids order by m.stationId, m.createdAt desc")
+    List<SatelliteMetric> findWithSceneByIdIn(@Param("ids") Collection<Long> ids);
 }
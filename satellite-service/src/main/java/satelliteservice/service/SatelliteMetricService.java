@@ -8,6 +8,7 @@ import satelliteservice.domain.enums.MetricType;
 import satelliteservice.repository.SatelliteMetricRepository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -17,6 +18,8 @@ public class SatelliteMetricService {
     private final SatelliteMetricRepository metricRepository;
     private final SatelliteSceneService sceneService;
 
+    private static final int LATEST_PER_STATION = 10;
+
     public SatelliteMetric createMetric(Long stationId,
                                         Long sceneId,
                                         MetricType type,
@@ -40,4 +43,16 @@ public class SatelliteMetricService {
     public List<SatelliteMetric> getLatestMetricsForStation(Long stationId) {
         return metricRepository.findTop10ByStationIdOrderByCreatedAtDesc(stationId);
     }
+
+    /**
+     * Dernières métriques de plusieurs stations (10 par station, comme pour une seule),
+     * en deux requêtes quel que soit le nombre de stations
+     */
+    public List<SatelliteMetric> getLatestMetricsForStations(Collection<Long> stationIds) {
+        if (stationIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = metricRepository.findLatestIdsForStations(stationIds, LATEST_PER_STATION);
+        return ids.isEmpty() ? List.of() : metricRepository.findWithSceneByIdIn(ids);
+    }
 }
@@ -50,14 +50,26 @@ public class SatelliteMetricController {
     @GetMapping("/station/{stationId}/latest")
     public List<StationMetricSummaryDto> getLatestForStation(@PathVariable Long stationId) {
         return metricService.getLatestMetricsForStation(stationId).stream()
-                .map(m -> StationMetricSummaryDto.builder()
-                        .stationId(m.getStationId())
-                        .metricType(m.getMetricType())
-                        .value(m.getValue())
-                        .unit(m.getUnit())
-                        .createdAt(m.getCreatedAt())
-                        .productId(m.getScene().getProductId())
-                        .build())
+                .map(this::toSummary)
                 .toList();
     }
+
+    // dernières métriques de plusieurs stations : /latest?stationIds=1,2,3 (recalcul groupé STModel)
+    @GetMapping("/latest")
+    public List<StationMetricSummaryDto> getLatestForStations(@RequestParam List<Long> stationIds) {
+        return metricService.getLatestMetricsForStations(stationIds).stream()
+                .map(this::toSummary)
+                .toList();
+    }
+
+    private StationMetricSummaryDto toSummary(SatelliteMetric m) {
+        return StationMetricSummaryDto.builder()
+                .stationId(m.getStationId())
+                .metricType(m.getMetricType())
+                .value(m.getValue())
+                .unit(m.getUnit())
+                .createdAt(m.getCreatedAt())
+                .productId(m.getScene().getProductId())
+                .build();
+    }
 }
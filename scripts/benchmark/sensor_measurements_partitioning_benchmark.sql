@@ -0,0 +1,102 @@
+-- ================================================
+-- Benchmark : sensor_measurements non partitionnée vs partitionnée par mois
+--
+-- Compare les deux requêtes chaudes de SensorMeasurementRepository sur 10,5M lignes :
+--   - dernière mesure d'une station (findFirstByStationOrderByTimestampDesc)
+--   - plage d'une semaine pour une station (findByStationAndTimestampBetween)
+--
+-- "avant" : schéma généré par ddl-auto=update (clé primaire sur id, aucun index)
+-- "après" : schema-postgresql.sql (partitions mensuelles + index (station_id, timestamp, id))
+--
+-- Utilisation (base jetable, ~3 Go de disque) :
+--   createdb sensor_bench
+--   psql -d sensor_bench -f scripts/benchmark/sensor_measurements_partitioning_benchmark.sql
+-- Chaque requête est exécutée une fois à froid puis mesurée ; relever "Execution Time".
+--
+-- Aucun chiffre de référence n'est fourni : relever les "Execution Time" sur la
+-- machine cible et les joindre à la revue avec les plans complets.
+-- Le gain attendu des lectures vient de l'index (station_id, timestamp, id), parcouru
+-- à rebours pour la dernière mesure ; le partitionnement limite les plages à quelques
+-- partitions et rend la rétention gratuite.
+-- ================================================
+
+DROP TABLE IF EXISTS bench_flat;
+DROP TABLE IF EXISTS bench_part;
+
+-- ---------- avant ----------
+CREATE TABLE bench_flat (
+    id               bigint PRIMARY KEY,
+    station_id       bigint           NOT NULL,
+    timestamp        timestamp(6)     NOT NULL,
+    ph               double precision NOT NULL,
+    temperature      double precision NOT NULL,
+    turbidity        double precision NOT NULL,
+    dissolved_oxygen double precision NOT NULL,
+    conductivity     double precision NOT NULL,
+    source           varchar(255)     NOT NULL
+);
+
+-- ---------- après ----------
+CREATE TABLE bench_part (LIKE bench_flat INCLUDING DEFAULTS, PRIMARY KEY (id, timestamp))
+    PARTITION BY RANGE (timestamp);
+CREATE INDEX bench_part_station_ts_id ON bench_part (station_id, timestamp, id);
+
+DO $$
+DECLARE
+    m date := date '2024-01-01';
+BEGIN
+    WHILE m < date '2025-01-01' LOOP
+        EXECUTE format('CREATE TABLE bench_part_y%sm%s PARTITION OF bench_part FOR VALUES FROM (%L) TO (%L)',
+                       to_char(m, 'YYYY'), to_char(m, 'MM'), m, m + interval '1 month');
+        m := m + interval '1 month';
+    END LOOP;
+END $$;
+
+-- 50 stations, une mesure toutes les 150 s pendant un an = 10 512 000 lignes
+INSERT INTO bench_flat
+SELECT row_number() OVER (),
+       st,
+       timestamp '2024-01-01' + (n * interval '150 seconds'),
+       6.8 + random() * 0.7,
+       20 + random() * 4,
+       3 + random() * 2,
+       6 + random() * 4,
+       316 + random() * 54,
+       'IOT_SIMULATED'
+FROM generate_series(0, 210239) AS n, generate_series(1, 50) AS st;
+
+INSERT INTO bench_part SELECT * FROM bench_flat;
+
+VACUUM ANALYZE bench_flat;
+VACUUM ANALYZE bench_part;
+
+-- ---------- dernière mesure d'une station ----------
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_flat WHERE station_id = 17 ORDER BY timestamp DESC, id DESC LIMIT 1;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_flat WHERE station_id = 17 ORDER BY timestamp DESC, id DESC LIMIT 1;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_part WHERE station_id = 17 ORDER BY timestamp DESC, id DESC LIMIT 1;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_part WHERE station_id = 17 ORDER BY timestamp DESC, id DESC LIMIT 1;
+
+-- ---------- plage d'une semaine ----------
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_flat WHERE station_id = 17
+  AND timestamp BETWEEN timestamp '2024-06-10' AND timestamp '2024-06-17';
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_flat WHERE station_id = 17
+  AND timestamp BETWEEN timestamp '2024-06-10' AND timestamp '2024-06-17';
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_part WHERE station_id = 17
+  AND timestamp BETWEEN timestamp '2024-06-10' AND timestamp '2024-06-17';
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_part WHERE station_id = 17
+  AND timestamp BETWEEN timestamp '2024-06-10' AND timestamp '2024-06-17';
+
+-- ---------- purge d'un mois (rétention) ----------
+EXPLAIN (ANALYZE)
+DELETE FROM bench_flat WHERE timestamp < timestamp '2024-02-01';
+-- équivalent partitionné : DROP TABLE bench_part_y2024m01 (opération sur le catalogue, quasi instantanée)
@@ -0,0 +1,53 @@
+-- ================================================
+-- sensor_db : passage de sensor_measurements à une table partitionnée par mois
+-- À exécuter une fois sur une base existante (table créée par ddl-auto=update),
+-- sensor-service arrêté. Les partitions futures et la rétention sont ensuite
+-- gérées par sensor-service (MeasurementPartitionService).
+-- ================================================
+
+BEGIN;
+
+ALTER TABLE sensor_measurements RENAME TO sensor_measurements_old;
+ALTER TABLE sensor_measurements_old RENAME CONSTRAINT sensor_measurements_pkey TO sensor_measurements_old_pkey;
+ALTER INDEX IF EXISTS idx_sensor_measurements_station_ts RENAME TO idx_sensor_measurements_old_station_ts;
+
+CREATE TABLE sensor_measurements (
+    id               bigint           NOT NULL,
+    station_id       bigint           NOT NULL
+        CONSTRAINT fk_sensor_measurements_station REFERENCES stations (id),
+    timestamp        timestamp(6)     NOT NULL,
+    ph               double precision NOT NULL,
+    temperature      double precision NOT NULL,
+    turbidity        double precision NOT NULL,
+    dissolved_oxygen double precision NOT NULL,
+    conductivity     double precision NOT NULL,
+    source           varchar(255)     NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE sensor_measurements_default PARTITION OF sensor_measurements DEFAULT;
+
+-- une partition par mois, de la plus ancienne mesure jusqu'à 3 mois à l'avance
+DO $$
+DECLARE
+    m date := date_trunc('month', COALESCE((SELECT MIN(timestamp) FROM sensor_measurements_old), now()));
+BEGIN
+    WHILE m <= date_trunc('month', now()) + interval '3 months' LOOP
+        EXECUTE format('CREATE TABLE sensor_measurements_y%sm%s PARTITION OF sensor_measurements FOR VALUES FROM (%L) TO (%L)',
+                       to_char(m, 'YYYY'), to_char(m, 'MM'), m, m + interval '1 month');
+        m := m + interval '1 month';
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_sensor_measurements_station_ts_id ON sensor_measurements (station_id, timestamp, id);
+
+INSERT INTO sensor_measurements (id, station_id, timestamp, ph, temperature, turbidity,
+                                 dissolved_oxygen, conductivity, source)
+SELECT id, station_id, timestamp, ph, temperature, turbidity, dissolved_oxygen, conductivity, source
+FROM sensor_measurements_old;
+
+DROP TABLE sensor_measurements_old;
+
+ANALYZE sensor_measurements;
+
+COMMIT;
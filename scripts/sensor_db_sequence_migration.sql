@@ -0,0 +1,10 @@
+-- ================================================
+-- sensor_db : passage de IDENTITY à une séquence "pooled"
+-- pour sensor_measurements (batching JDBC des insertions)
+-- À exécuter une fois sur une base existante, avant de démarrer sensor-service
+-- ================================================
+
+CREATE SEQUENCE IF NOT EXISTS sensor_measurements_seq INCREMENT BY 50;
+
+-- Repartir au-delà des identifiants déjà attribués par la colonne IDENTITY
+SELECT setval('sensor_measurements_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM sensor_measurements));
@@ -0,0 +1,72 @@
+package sensorservice.archive;
+
+/**
+ * Lecture bit à bit d'un tableau d'octets (poids fort en premier)
+ *
+ * Les lectures passent par un cache de 64 bits rechargé octet par octet,
+ * ce qui évite un accès tableau par bit lors du décodage séquentiel.
+ */
+public final class BitInput {
+
+    private final byte[] data;
+    private int nextByte;
+    private long cache;       // bits disponibles, alignés sur le poids fort
+    private int cachedBits;
+
+    public BitInput(byte[] data) {
+        this.data = data;
+    }
+
+    public boolean readBit() {
+        if (cachedBits == 0) {
+            refill();
+        }
+        boolean bit = cache < 0;
+        cache <<= 1;
+        cachedBits--;
+        return bit;
+    }
+
+    /**
+     * Lit {@code count} bits (count ≤ 64) et les renvoie dans les bits de poids faible
+     */
+    public long readBits(int count) {
+        if (count == 0) {
+            return 0;
+        }
+        if (count > cachedBits) {
+            refill();
+        }
+        if (count <= cachedBits) {
+            long value = cache >>> (64 - count);
+            cache = count == 64 ? 0 : cache << count;
+            cachedBits -= count;
+            return value;
+        }
+        // plus de bits que le cache n'en contient : lecture en deux fois
+        int high = cachedBits;
+        long value = readBits(high) << (count - high);
+        return value | readBits(count - high);
+    }
+
+    /**
+     * Compte les bits à 1 consécutifs (préfixes unaires), au plus {@code max}
+     */
+    public int readUnary(int max) {
+        int ones = 0;
+        while (ones < max && readBit()) {
+            ones++;
+        }
+        return ones;
+    }
+
+    private void refill() {
+        while (cachedBits <= 56 && nextByte < data.length) {
+            cache |= (data[nextByte++] & 0xFFL) << (56 - cachedBits);
+            cachedBits += 8;
+        }
+        if (cachedBits == 0) {
+            throw new IllegalStateException("Fin du bloc atteinte");
+        }
+    }
+}
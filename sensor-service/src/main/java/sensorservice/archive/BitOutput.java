@@ -0,0 +1,56 @@
+package sensorservice.archive;
+
+import java.util.Arrays;
+
+/**
+ * Écriture bit à bit dans un tableau d'octets extensible (poids fort en premier)
+ */
+public final class BitOutput {
+
+    private byte[] buffer;
+    private long bitPosition;
+
+    public BitOutput(int initialCapacityBytes) {
+        this.buffer = new byte[Math.max(16, initialCapacityBytes)];
+    }
+
+    public void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            buffer[(int) (bitPosition >>> 3)] |= (byte) (0x80 >>> (bitPosition & 7));
+        }
+        bitPosition++;
+    }
+
+    /**
+     * Écrit les {@code count} bits de poids faible de {@code value} (count ≤ 64)
+     */
+    public void writeBits(long value, int count) {
+        ensureCapacity(count);
+        int remaining = count;
+        while (remaining > 0) {
+            int byteIndex = (int) (bitPosition >>> 3);
+            int freeInByte = 8 - (int) (bitPosition & 7);
+            int n = Math.min(freeInByte, remaining);
+            int chunk = (int) ((value >>> (remaining - n)) & ((1 << n) - 1));
+            buffer[byteIndex] |= (byte) (chunk << (freeInByte - n));
+            bitPosition += n;
+            remaining -= n;
+        }
+    }
+
+    public long bitLength() {
+        return bitPosition;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, (int) ((bitPosition + 7) >>> 3));
+    }
+
+    private void ensureCapacity(int extraBits) {
+        long requiredBytes = (bitPosition + extraBits + 7) >>> 3;
+        if (requiredBytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.max(requiredBytes, buffer.length * 2L));
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package sensorservice.archive;
+
+import java.util.Arrays;
+
+/**
+ * Encodage colonnaire compressé d'un bloc de mesures (format "Gorilla")
+ *
+ * Disposition du bloc, colonne après colonne :
+ * - en-tête : version (8 bits), nombre de lignes (32 bits)
+ * - ids et timestamps : delta-of-delta, préfixes de longueur variable
+ *   (0 | 10+7 | 110+9 | 1110+12 | 11110+32 | 11111+64 bits, valeurs zigzag)
+ * - 5 paramètres : XOR avec la valeur précédente (fenêtre de bits significatifs
+ *   réutilisée si possible). Si toutes les valeurs d'une colonne sont des décimaux
+ *   à au plus 6 chiffres après la virgule, on encode les entiers mis à l'échelle
+ *   (7.13 -> 713) : le XOR de deux valeurs voisines tient alors sur quelques bits.
+ *   Le décodage est exact au bit près dans les deux modes.
+ * - source : codage par plages (ordinal 4 bits + longueur 32 bits)
+ * - indicateurs qualité (version 2) : codage par plages (masque 8 bits + longueur 32 bits) ;
+ *   un bloc de version 1 se relit avec des indicateurs à 0
+ */
+public final class MeasurementBlockCodec {
+
+    public static final int FORMAT_VERSION = 2;
+
+    private static final int MAX_DECIMAL_SCALE = 6;
+    private static final double[] POW10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final double MAX_EXACT_SCALED = 1L << 52;
+
+    private MeasurementBlockCodec() {
+    }
+
+    public static byte[] encode(MeasurementColumns columns) {
+        int n = columns.size();
+        BitOutput out = new BitOutput(16 + n * 12);
+        out.writeBits(FORMAT_VERSION, 8);
+        out.writeBits(n, 32);
+        if (n == 0) {
+            return out.toByteArray();
+        }
+        writeDeltaOfDelta(out, columns.idColumn(), n);
+        writeDeltaOfDelta(out, columns.timestampColumn(), n);
+        writeValues(out, columns.phColumn(), n);
+        writeValues(out, columns.temperatureColumn(), n);
+        writeValues(out, columns.turbidityColumn(), n);
+        writeValues(out, columns.dissolvedOxygenColumn(), n);
+        writeValues(out, columns.conductivityColumn(), n);
+        writeRuns(out, columns.sourceColumn(), n, 4);
+        writeRuns(out, columns.qualityFlagsColumn(), n, 8);
+        return out.toByteArray();
+    }
+
+    public static MeasurementColumns decode(byte[] block) {
+        BitInput in = new BitInput(block);
+        int version = (int) in.readBits(8);
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported archive block version: " + version);
+        }
+        int n = (int) in.readBits(32);
+        MeasurementColumns columns = new MeasurementColumns(n);
+        if (n == 0) {
+            return columns;
+        }
+        readDeltaOfDelta(in, columns.idColumn(), n);
+        readDeltaOfDelta(in, columns.timestampColumn(), n);
+        readValues(in, columns.phColumn(), n);
+        readValues(in, columns.temperatureColumn(), n);
+        readValues(in, columns.turbidityColumn(), n);
+        readValues(in, columns.dissolvedOxygenColumn(), n);
+        readValues(in, columns.conductivityColumn(), n);
+        readRuns(in, columns.sourceColumn(), n, 4);
+        if (version >= 2) {
+            readRuns(in, columns.qualityFlagsColumn(), n, 8);
+        }
+        columns.setSize(n);
+        return columns;
+    }
+
+    // ------------------------------------------------------------------
+    // delta-of-delta (ids, timestamps)
+    // ------------------------------------------------------------------
+
+    private static void writeDeltaOfDelta(BitOutput out, long[] values, int n) {
+        out.writeBits(values[0], 64);
+        long previousDelta = 0;
+        for (int i = 1; i < n; i++) {
+            long delta = values[i] - values[i - 1];
+            long zigzag = zigzag(delta - previousDelta);
+            previousDelta = delta;
+            if (zigzag == 0) {
+                out.writeBit(false);
+            } else if (zigzag < (1L << 7)) {
+                out.writeBits(0b10, 2);
+                out.writeBits(zigzag, 7);
+            } else if (zigzag < (1L << 9)) {
+                out.writeBits(0b110, 3);
+                out.writeBits(zigzag, 9);
+            } else if (zigzag < (1L << 12)) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(zigzag, 12);
+            } else if (zigzag >= 0 && zigzag < (1L << 32)) {
+                out.writeBits(0b11110, 5);
+                out.writeBits(zigzag, 32);
+            } else {
+                out.writeBits(0b11111, 5);
+                out.writeBits(zigzag, 64);
+            }
+        }
+    }
+
+    private static void readDeltaOfDelta(BitInput in, long[] values, int n) {
+        values[0] = in.readBits(64);
+        long previousDelta = 0;
+        for (int i = 1; i < n; i++) {
+            long zigzag = switch (in.readUnary(5)) {
+                case 0 -> 0;
+                case 1 -> in.readBits(7);
+                case 2 -> in.readBits(9);
+                case 3 -> in.readBits(12);
+                case 4 -> in.readBits(32);
+                default -> in.readBits(64);
+            };
+            previousDelta += unzigzag(zigzag);
+            values[i] = values[i - 1] + previousDelta;
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // ------------------------------------------------------------------
+    // XOR (paramètres qualité)
+    // ------------------------------------------------------------------
+
+    private static void writeValues(BitOutput out, double[] values, int n) {
+        int scale = decimalScale(values, n);
+        out.writeBits(scale, 3);   // 7 = bits bruts du double
+        long previous = toBits(values[0], scale);
+        out.writeBits(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < n; i++) {
+            long current = toBits(values[i], scale);
+            long xor = current ^ previous;
+            previous = current;
+            if (xor == 0) {
+                out.writeBit(false);
+                continue;
+            }
+            out.writeBit(true);
+            int leading = Long.numberOfLeadingZeros(xor);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // les bits significatifs tiennent dans la fenêtre précédente
+                out.writeBit(false);
+                out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 6);
+                out.writeBits(significant - 1, 6);
+                out.writeBits(xor >>> trailing, significant);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+
+    private static void readValues(BitInput in, double[] values, int n) {
+        int scale = (int) in.readBits(3);
+        long previous = in.readBits(64);
+        values[0] = fromBits(previous, scale);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < n; i++) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(6);
+                    int significant = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                previous ^= in.readBits(64 - leading - trailing) << trailing;
+            }
+            values[i] = fromBits(previous, scale);
+        }
+    }
+
+    /**
+     * Plus petite échelle décimale représentant exactement toute la colonne, 7 sinon
+     */
+    private static int decimalScale(double[] values, int n) {
+        for (int scale = 0; scale <= MAX_DECIMAL_SCALE; scale++) {
+            if (fitsScale(values, n, scale)) {
+                return scale;
+            }
+        }
+        return MAX_DECIMAL_SCALE + 1;
+    }
+
+    private static boolean fitsScale(double[] values, int n, int scale) {
+        double factor = POW10[scale];
+        for (int i = 0; i < n; i++) {
+            double scaled = values[i] * factor;
+            if (!(Math.abs(scaled) < MAX_EXACT_SCALED)) {
+                return false;   // trop grand, NaN ou infini
+            }
+            double restored = Math.round(scaled) / factor;
+            if (Double.doubleToRawLongBits(restored) != Double.doubleToRawLongBits(values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long toBits(double value, int scale) {
+        return scale > MAX_DECIMAL_SCALE
+                ? Double.doubleToRawLongBits(value)
+                : Math.round(value * POW10[scale]);
+    }
+
+    private static double fromBits(long bits, int scale) {
+        return scale > MAX_DECIMAL_SCALE
+                ? Double.longBitsToDouble(bits)
+                : bits / POW10[scale];
+    }
+
+    // ------------------------------------------------------------------
+    // plages (source, indicateurs qualité)
+    // ------------------------------------------------------------------
+
+    private static void writeRuns(BitOutput out, byte[] values, int n, int valueBits) {
+        int start = 0;
+        while (start < n) {
+            int end = start + 1;
+            while (end < n && values[end] == values[start]) {
+                end++;
+            }
+            out.writeBits(values[start] & 0xFF, valueBits);
+            out.writeBits(end - start, 32);
+            start = end;
+        }
+    }
+
+    private static void readRuns(BitInput in, byte[] values, int n, int valueBits) {
+        int filled = 0;
+        while (filled < n) {
+            byte value = (byte) in.readBits(valueBits);
+            int length = (int) in.readBits(32);
+            Arrays.fill(values, filled, filled + length, value);
+            filled += length;
+        }
+    }
+}
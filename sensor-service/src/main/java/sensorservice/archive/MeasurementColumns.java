@@ -0,0 +1,140 @@
+package sensorservice.archive;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Mesures d'une station rangées en colonnes (un tableau primitif par champ)
+ *
+ * Forme d'entrée de l'encodeur et de sortie du décodeur : aucun objet par ligne.
+ * Les timestamps sont stockés en microsecondes depuis l'epoch (précision PostgreSQL).
+ */
+public final class MeasurementColumns {
+
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(MeasurementColumns columns, int row);
+    }
+
+    private int size;
+    private long[] ids;
+    private long[] timestamps;
+    private double[] ph;
+    private double[] temperature;
+    private double[] turbidity;
+    private double[] dissolvedOxygen;
+    private double[] conductivity;
+    private byte[] sources;
+    private byte[] qualityFlags;
+
+    public MeasurementColumns(int capacity) {
+        int c = Math.max(capacity, 1);
+        ids = new long[c];
+        timestamps = new long[c];
+        ph = new double[c];
+        temperature = new double[c];
+        turbidity = new double[c];
+        dissolvedOxygen = new double[c];
+        conductivity = new double[c];
+        sources = new byte[c];
+        qualityFlags = new byte[c];
+    }
+
+    public void add(long id, long timestampMicros, double ph, double temperature, double turbidity,
+                    double dissolvedOxygen, double conductivity, byte source) {
+        add(id, timestampMicros, ph, temperature, turbidity, dissolvedOxygen, conductivity, source, (byte) 0);
+    }
+
+    public void add(long id, long timestampMicros, double ph, double temperature, double turbidity,
+                    double dissolvedOxygen, double conductivity, byte source, byte qualityFlags) {
+        if (size == ids.length) {
+            grow();
+        }
+        ids[size] = id;
+        timestamps[size] = timestampMicros;
+        this.ph[size] = ph;
+        this.temperature[size] = temperature;
+        this.turbidity[size] = turbidity;
+        this.dissolvedOxygen[size] = dissolvedOxygen;
+        this.conductivity[size] = conductivity;
+        sources[size] = source;
+        this.qualityFlags[size] = qualityFlags;
+        size++;
+    }
+
+    /**
+     * Fusionne deux blocs triés par (timestamp, id) en un bloc trié
+     */
+    public static MeasurementColumns mergeSorted(MeasurementColumns a, MeasurementColumns b) {
+        MeasurementColumns merged = new MeasurementColumns(a.size + b.size);
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            boolean takeA = j >= b.size || (i < a.size && compare(a, i, b, j) <= 0);
+            if (takeA) {
+                merged.copyRow(a, i++);
+            } else {
+                merged.copyRow(b, j++);
+            }
+        }
+        return merged;
+    }
+
+    private static int compare(MeasurementColumns a, int i, MeasurementColumns b, int j) {
+        int byTime = Long.compare(a.timestamps[i], b.timestamps[j]);
+        return byTime != 0 ? byTime : Long.compare(a.ids[i], b.ids[j]);
+    }
+
+    private void copyRow(MeasurementColumns from, int row) {
+        add(from.ids[row], from.timestamps[row], from.ph[row], from.temperature[row], from.turbidity[row],
+                from.dissolvedOxygen[row], from.conductivity[row], from.sources[row], from.qualityFlags[row]);
+    }
+
+    private void grow() {
+        int c = ids.length * 2;
+        ids = Arrays.copyOf(ids, c);
+        timestamps = Arrays.copyOf(timestamps, c);
+        ph = Arrays.copyOf(ph, c);
+        temperature = Arrays.copyOf(temperature, c);
+        turbidity = Arrays.copyOf(turbidity, c);
+        dissolvedOxygen = Arrays.copyOf(dissolvedOxygen, c);
+        conductivity = Arrays.copyOf(conductivity, c);
+        sources = Arrays.copyOf(sources, c);
+        qualityFlags = Arrays.copyOf(qualityFlags, c);
+    }
+
+    public static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    public static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    public int size() { return size; }
+    public long id(int row) { return ids[row]; }
+    public long timestampMicros(int row) { return timestamps[row]; }
+    public LocalDateTime timestamp(int row) { return fromMicros(timestamps[row]); }
+    public double ph(int row) { return ph[row]; }
+    public double temperature(int row) { return temperature[row]; }
+    public double turbidity(int row) { return turbidity[row]; }
+    public double dissolvedOxygen(int row) { return dissolvedOxygen[row]; }
+    public double conductivity(int row) { return conductivity[row]; }
+    public byte source(int row) { return sources[row]; }
+    public byte qualityFlags(int row) { return qualityFlags[row]; }
+
+    // accès colonne pour le codec (tableaux internes, à ne pas modifier)
+    long[] idColumn() { return ids; }
+    long[] timestampColumn() { return timestamps; }
+    double[] phColumn() { return ph; }
+    double[] temperatureColumn() { return temperature; }
+    double[] turbidityColumn() { return turbidity; }
+    double[] dissolvedOxygenColumn() { return dissolvedOxygen; }
+    double[] conductivityColumn() { return conductivity; }
+    byte[] sourceColumn() { return sources; }
+    byte[] qualityFlagsColumn() { return qualityFlags; }
+
+    void setSize(int size) { this.size = size; }
+}
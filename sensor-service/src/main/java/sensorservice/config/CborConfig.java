@@ -0,0 +1,38 @@
+package sensorservice.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Format binaire CBOR (application/cbor) pour les API, par négociation de contenu
+ *
+ * Réponses en CBOR si le client l'annonce dans Accept, lots ingérés en CBOR avec
+ * Content-Type: application/cbor. Sans en-tête, JSON reste le format servi.
+ * Le mapper est construit par le même builder que celui du JSON (spring.jackson.*,
+ * modules java.time) : seul l'encodage change, pas la forme des objets.
+ *
+ * Extension stringref (tag 256, sensor.api.cbor.stringref) : une chaîne déjà écrite
+ * (noms de champs, nom de station) est remplacée par son rang. Sur une plage de mesures
+ * la charge utile est environ deux fois plus petite qu'en JSON (~10 % sans), au prix d'un
+ * décodage un peu plus lent que sans l'extension (voir MeasurementWireFormatBenchmark).
+ * Le décodeur doit la gérer : Jackson 2.15+ le fait sans configuration.
+ */
+@Configuration
+public class CborConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+            Jackson2ObjectMapperBuilder builder,
+            @Value("${sensor.api.cbor.stringref:true}") boolean stringref
+    ) {
+        CBORFactory factory = CBORFactory.builder()
+                .configure(CBORGenerator.Feature.STRINGREF, stringref)
+                .build();
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(factory).build());
+    }
+}
@@ -3,6 +3,7 @@ package sensorservice.config;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
 import sensorservice.domain.entity.SensorMeasurement;
 import sensorservice.domain.entity.Station;
@@ -30,6 +31,7 @@ import java.util.*;
  * - Conductivity: 316 - 370 µS/cm (moyenne ~343)
  */
 @Component
+@DependsOn("measurementPartitionService")  // partitions du mois courant créées avant l'insertion
 @RequiredArgsConstructor
 @Slf4j
 public class DataInitializer {
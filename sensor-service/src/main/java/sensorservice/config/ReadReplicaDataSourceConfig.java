@@ -0,0 +1,61 @@
+package sensorservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Réplica en lecture (sensor.datasource.replica.enabled=true)
+ *
+ * Deux pools : le primaire (spring.datasource.*, comme sans réplica) et le réplica
+ * (sensor.datasource.replica.hikari.*). La DataSource de l'application (JPA, JdbcTemplate,
+ * scripts SQL d'initialisation) les aiguille selon la transaction courante, voir
+ * {@link ReadReplicaRoutingDataSource}. Option désactivée : DataSource unique de Spring Boot.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sensor.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("sensor.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${sensor.datasource.replica.max-staleness:10s}") Duration maxStaleness,
+            @Value("${sensor.datasource.replica.lag-query:}") String lagQuery,
+            MeterRegistry meterRegistry
+    ) {
+        ReadReplicaRoutingDataSource routing =
+                new ReadReplicaRoutingDataSource(primary, replica, maxStaleness, lagQuery, meterRegistry);
+        routing.checkReplica();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
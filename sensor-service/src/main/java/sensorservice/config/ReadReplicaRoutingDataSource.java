@@ -0,0 +1,185 @@
+package sensorservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Aiguillage des connexions entre la base primaire et un réplica en lecture
+ *
+ * Une transaction {@code readOnly} obtient une connexion du réplica, tout le reste
+ * (écritures, lectures hors transaction) reste sur le primaire. Doit être enveloppé dans un
+ * LazyConnectionDataSourceProxy : le gestionnaire de transactions JPA demande sa connexion
+ * avant que le caractère readOnly de la transaction ne soit publié, le proxy la retarde
+ * jusqu'à la première requête.
+ *
+ * Le réplica n'est utilisé que s'il est joignable et que son retard ne dépasse pas
+ * {@code maxStaleness} (vérifié toutes les {@code check-interval-ms}). Une connexion
+ * impossible à obtenir bascule la lecture sur le primaire et écarte le réplica jusqu'à
+ * la vérification suivante.
+ *
+ * Retard mesuré par {@code lagQuery} (secondes) ; par défaut, sous PostgreSQL, l'âge de
+ * la dernière transaction rejouée (0 si tout le WAL reçu est rejoué ou si la base n'est
+ * pas en réplication), ailleurs seule la disponibilité est vérifiée.
+ *
+ * Métriques exposées :
+ * - sensor.datasource.routed{target=primary|replica}
+ * - sensor.datasource.replica.fallbacks
+ * - sensor.datasource.replica.usable (0/1)
+ * - sensor.datasource.replica.lag (secondes, NaN si inconnu)
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractDataSource {
+
+    static final String POSTGRESQL_LAG_QUERY = """
+            select case
+                when not pg_is_in_recovery() then 0
+                when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)
+            end
+            """;
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final double maxStalenessSeconds;
+    private final String lagQuery;
+
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter fallbacks;
+
+    private volatile boolean replicaUsable;
+    private volatile double lagSeconds = Double.NaN;
+
+    /**
+     * @param lagQuery requête renvoyant le retard du réplica en secondes ; vide : choix selon la base
+     */
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxStaleness,
+                                        String lagQuery, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxStalenessSeconds = maxStaleness.toMillis() / 1000.0;
+        this.lagQuery = lagQuery;
+        this.primaryConnections = routed(meterRegistry, "primary");
+        this.replicaConnections = routed(meterRegistry, "replica");
+        this.fallbacks = Counter.builder("sensor.datasource.replica.fallbacks")
+                .description("Lectures rebasculées sur le primaire (réplica injoignable)")
+                .register(meterRegistry);
+        Gauge.builder("sensor.datasource.replica.usable", this, r -> r.replicaUsable ? 1 : 0)
+                .description("Réplica utilisé pour les lectures (1) ou écarté (0)")
+                .register(meterRegistry);
+        Gauge.builder("sensor.datasource.replica.lag", this, r -> r.lagSeconds)
+                .description("Retard du réplica au dernier contrôle")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("sensor.datasource.routed")
+                .description("Connexions obtenues, par base")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (routeToReplica()) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                fallBack(e);
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (routeToReplica()) {
+            try {
+                Connection connection = replica.getConnection(username, password);
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                fallBack(e);
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    private boolean routeToReplica() {
+        return replicaUsable && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private void fallBack(SQLException e) {
+        fallbacks.increment();
+        if (replicaUsable) {
+            replicaUsable = false;
+            log.warn("Réplica injoignable, lectures sur le primaire jusqu'au prochain contrôle: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Contrôle de disponibilité et de retard du réplica
+     */
+    @Scheduled(fixedDelayString = "${sensor.datasource.replica.check-interval-ms:5000}",
+            initialDelayString = "${sensor.datasource.replica.check-interval-ms:5000}")
+    public void checkReplica() {
+        boolean usable;
+        try (Connection connection = replica.getConnection()) {
+            double lag = measureLag(connection);
+            lagSeconds = lag;
+            usable = lag <= maxStalenessSeconds;
+            if (!usable && replicaUsable) {
+                log.warn("Réplica en retard de {} s (tolérance {} s), lectures sur le primaire",
+                        lag, maxStalenessSeconds);
+            }
+        } catch (SQLException e) {
+            lagSeconds = Double.NaN;
+            usable = false;
+            if (replicaUsable) {
+                log.warn("Réplica injoignable, lectures sur le primaire: {}", e.getMessage());
+            }
+        }
+        if (usable && !replicaUsable) {
+            log.info("Réplica disponible (retard {} s), lectures en transaction readOnly routées vers lui", lagSeconds);
+        }
+        replicaUsable = usable;
+    }
+
+    private double measureLag(Connection connection) throws SQLException {
+        String query = lagQuery;
+        if (query == null || query.isBlank()) {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                if (!connection.isValid(2)) {
+                    throw new SQLException("Connexion au réplica invalide");
+                }
+                return 0;
+            }
+            query = POSTGRESQL_LAG_QUERY;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(query)) {
+            return rs.next() ? rs.getDouble(1) : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+}
@@ -0,0 +1,44 @@
+package sensorservice.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bloc d'archive : mesures d'une station sur une journée close, encodées en
+ * colonnes compressées (voir sensorservice.archive.MeasurementBlockCodec)
+ */
+@Entity
+@Table(name = "sensor_measurement_archive_blocks",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_archive_block_station_window",
+                columnNames = {"station_id", "window_start"}))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class MeasurementArchiveBlock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "station_id", nullable = false)
+    private Long stationId;
+
+    // fenêtre [windowStart, windowEnd)
+    @Column(name = "window_start", nullable = false)
+    private LocalDateTime windowStart;
+
+    @Column(name = "window_end", nullable = false)
+    private LocalDateTime windowEnd;
+
+    @Column(name = "row_count", nullable = false)
+    private int rowCount;
+
+    @Column(name = "format_version", nullable = false)
+    private int formatVersion;
+
+    // bytea sur PostgreSQL ; la longueur ne sert qu'aux bases qui l'exigent (H2)
+    @Column(nullable = false, length = 16 * 1024 * 1024)
+    private byte[] payload;
+}
@@ -0,0 +1,123 @@
+package sensorservice.domain.entity;
+
+import sensorservice.domain.enums.RollupResolution;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agrégat min/max/somme/nombre des mesures d'une station sur une heure ou un jour
+ *
+ * On stocke la somme plutôt que la moyenne pour pouvoir fusionner les agrégats
+ * de façon incrémentale ; la moyenne est calculée à la lecture.
+ */
+@Entity
+@Table(name = "sensor_measurement_rollups",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_rollup_station_resolution_bucket",
+                columnNames = {"station_id", "resolution", "bucket_start"}))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class MeasurementRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "station_id", nullable = false)
+    private Long stationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private RollupResolution resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "sample_count", nullable = false)
+    private long sampleCount;
+
+    // --------- pH ---------
+    private double phMin;
+    private double phMax;
+    private double phSum;
+
+    // --------- température (°C) ---------
+    private double temperatureMin;
+    private double temperatureMax;
+    private double temperatureSum;
+
+    // --------- turbidité (NTU) ---------
+    private double turbidityMin;
+    private double turbidityMax;
+    private double turbiditySum;
+
+    // --------- oxygène dissous (mg/L) ---------
+    private double dissolvedOxygenMin;
+    private double dissolvedOxygenMax;
+    private double dissolvedOxygenSum;
+
+    // --------- conductivité (µS/cm) ---------
+    private double conductivityMin;
+    private double conductivityMax;
+    private double conductivitySum;
+
+    /**
+     * Agrégat vide, prêt à accumuler des mesures
+     */
+    public static MeasurementRollup empty(Long stationId, RollupResolution resolution, LocalDateTime bucketStart) {
+        double inf = Double.POSITIVE_INFINITY;
+        return MeasurementRollup.builder()
+                .stationId(stationId)
+                .resolution(resolution)
+                .bucketStart(bucketStart)
+                .phMin(inf).phMax(-inf)
+                .temperatureMin(inf).temperatureMax(-inf)
+                .turbidityMin(inf).turbidityMax(-inf)
+                .dissolvedOxygenMin(inf).dissolvedOxygenMax(-inf)
+                .conductivityMin(inf).conductivityMax(-inf)
+                .build();
+    }
+
+    public void add(SensorMeasurement m) {
+        sampleCount++;
+        phMin = Math.min(phMin, m.getPh());
+        phMax = Math.max(phMax, m.getPh());
+        phSum += m.getPh();
+        temperatureMin = Math.min(temperatureMin, m.getTemperature());
+        temperatureMax = Math.max(temperatureMax, m.getTemperature());
+        temperatureSum += m.getTemperature();
+        turbidityMin = Math.min(turbidityMin, m.getTurbidity());
+        turbidityMax = Math.max(turbidityMax, m.getTurbidity());
+        turbiditySum += m.getTurbidity();
+        dissolvedOxygenMin = Math.min(dissolvedOxygenMin, m.getDissolvedOxygen());
+        dissolvedOxygenMax = Math.max(dissolvedOxygenMax, m.getDissolvedOxygen());
+        dissolvedOxygenSum += m.getDissolvedOxygen();
+        conductivityMin = Math.min(conductivityMin, m.getConductivity());
+        conductivityMax = Math.max(conductivityMax, m.getConductivity());
+        conductivitySum += m.getConductivity();
+    }
+
+    /**
+     * Fusionne un agrégat partiel (même station, résolution et bucket) dans celui-ci
+     */
+    public void merge(MeasurementRollup other) {
+        sampleCount += other.sampleCount;
+        phMin = Math.min(phMin, other.phMin);
+        phMax = Math.max(phMax, other.phMax);
+        phSum += other.phSum;
+        temperatureMin = Math.min(temperatureMin, other.temperatureMin);
+        temperatureMax = Math.max(temperatureMax, other.temperatureMax);
+        temperatureSum += other.temperatureSum;
+        turbidityMin = Math.min(turbidityMin, other.turbidityMin);
+        turbidityMax = Math.max(turbidityMax, other.turbidityMax);
+        turbiditySum += other.turbiditySum;
+        dissolvedOxygenMin = Math.min(dissolvedOxygenMin, other.dissolvedOxygenMin);
+        dissolvedOxygenMax = Math.max(dissolvedOxygenMax, other.dissolvedOxygenMax);
+        dissolvedOxygenSum += other.dissolvedOxygenSum;
+        conductivityMin = Math.min(conductivityMin, other.conductivityMin);
+        conductivityMax = Math.max(conductivityMax, other.conductivityMax);
+        conductivitySum += other.conductivitySum;
+    }
+}
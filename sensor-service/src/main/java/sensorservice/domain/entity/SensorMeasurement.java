@@ -12,13 +12,16 @@ import java.time.LocalDateTime;
 @NoArgsConstructor @AllArgsConstructor @Builder
 public class SensorMeasurement {
 
+    // séquence "pooled" : IDENTITY empêche Hibernate de grouper les INSERT en batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sensor_measurements_seq")
+    @SequenceGenerator(name = "sensor_measurements_seq", sequenceName = "sensor_measurements_seq", allocationSize = 50)
     private Long id;
 
     // relation locale vers Station (dans ce microservice)
+    // clé étrangère déclarée dans schema-postgresql.sql (table partitionnée)
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "station_id", nullable = false)
+    @JoinColumn(name = "station_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Station station;
 
     @Column(nullable = false)
@@ -43,5 +46,10 @@ public class SensorMeasurement {
     // --------- meta ---------
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
-    private MeasurementSource source; // MANUAL_FORM / IOT_SIMULATED
+    private MeasurementSource source; // MANUAL_FORM / IOT_SIMULATED / CSV_IMPORT
+
+    // masque de QualityFlag posé à l'ingestion par MeasurementAnomalyDetector (0 : rien à signaler)
+    @Builder.Default
+    @Column(name = "quality_flags", nullable = false)
+    private Integer qualityFlags = 0;
 }
@@ -2,5 +2,7 @@ package sensorservice.domain.enums;
 
 public enum MeasurementSource {
     MANUAL_FORM,
-    IOT_SIMULATED
+    IOT_SIMULATED,
+    // nouvelles valeurs en fin de liste : l'archive compressée stocke l'ordinal
+    CSV_IMPORT
 }
@@ -0,0 +1,45 @@
+package sensorservice.domain.enums;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Indicateurs qualité posés sur une mesure à l'ingestion (colonne quality_flags, masque de bits)
+ *
+ * Le bit de chaque valeur est fixe : il est stocké en base et dans l'archive compressée
+ * (8 bits au plus).
+ */
+public enum QualityFlag {
+    // valeur physiquement impossible pour une eau de surface (pH 1, 60 °C...)
+    OUT_OF_RANGE(0),
+    // écart à la moyenne glissante de la station supérieur à k écarts-types
+    SPIKE(1),
+    // même valeur répétée à l'identique (capteur bloqué)
+    STUCK(2),
+    // variation trop rapide depuis la mesure précédente
+    RATE_OF_CHANGE(3);
+
+    private final int mask;
+
+    QualityFlag(int bit) {
+        this.mask = 1 << bit;
+    }
+
+    public int mask() {
+        return mask;
+    }
+
+    public boolean isSet(int flags) {
+        return (flags & mask) != 0;
+    }
+
+    public static Set<QualityFlag> fromMask(int flags) {
+        Set<QualityFlag> set = EnumSet.noneOf(QualityFlag.class);
+        for (QualityFlag flag : values()) {
+            if (flag.isSet(flags)) {
+                set.add(flag);
+            }
+        }
+        return set;
+    }
+}
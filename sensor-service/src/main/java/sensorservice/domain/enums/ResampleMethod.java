@@ -0,0 +1,32 @@
+package sensorservice.domain.enums;
+
+import java.util.Optional;
+
+/**
+ * Méthode de rééchantillonnage à pas fixe (paramètre method=last|linear de l'API)
+ */
+public enum ResampleMethod {
+    // dernière mesure connue à l'instant du point
+    LAST("last"),
+    // interpolation linéaire entre les mesures qui encadrent le point
+    LINEAR("linear");
+
+    private final String param;
+
+    ResampleMethod(String param) {
+        this.param = param;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public static Optional<ResampleMethod> fromParam(String param) {
+        for (ResampleMethod method : values()) {
+            if (method.param.equalsIgnoreCase(param)) {
+                return Optional.of(method);
+            }
+        }
+        return Optional.empty();
+    }
+}
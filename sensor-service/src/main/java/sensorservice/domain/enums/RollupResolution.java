@@ -0,0 +1,41 @@
+package sensorservice.domain.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Granularité des agrégats de mesures (paramètre resolution=1h|1d de l'API)
+ */
+public enum RollupResolution {
+    HOUR("1h", ChronoUnit.HOURS),
+    DAY("1d", ChronoUnit.DAYS);
+
+    private final String param;
+    private final ChronoUnit unit;
+
+    RollupResolution(String param, ChronoUnit unit) {
+        this.param = param;
+        this.unit = unit;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * Début du bucket contenant ce timestamp
+     */
+    public LocalDateTime bucketStart(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(unit);
+    }
+
+    public static Optional<RollupResolution> fromParam(String param) {
+        for (RollupResolution resolution : values()) {
+            if (resolution.param.equalsIgnoreCase(param)) {
+                return Optional.of(resolution);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,345 @@
+package sensorservice.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Index spatial immuable en grille régulière latitude/longitude
+ *
+ * La grille couvre l'emprise des points, avec en moyenne {@link #TARGET_PER_CELL}
+ * points par cellule. Les points sont rangés par cellule dans des tableaux
+ * primitifs (une case de départ par cellule), sans objet par cellule.
+ * - {@link #within} : parcours des seules cellules recouvrant la boîte
+ * - {@link #nearest} : anneaux de cellules autour du point, arrêtés dès qu'aucune
+ *   cellule non visitée ne peut contenir plus proche que le k-ième trouvé
+ *   (distance orthodromique, longitude 180/-180 comprise)
+ *
+ * Reconstruit à chaque changement du catalogue : O(n), quelques dizaines de ms à 50 000 points.
+ */
+public final class GeoGridIndex<T> {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_KM;
+    private static final int TARGET_PER_CELL = 4;
+    private static final int MAX_CELLS_PER_AXIS = 2048;
+
+    /**
+     * Résultat de {@link #nearest}
+     */
+    public record Neighbor<T>(T item, double distanceKm) {
+    }
+
+    private final Object[] items;       // rangés par cellule
+    private final double[] lat;
+    private final double[] lon;
+    private final int[] cellStart;      // points de la cellule c : [cellStart[c], cellStart[c + 1])
+    private final int rows;
+    private final int cols;
+    private final double minLat;
+    private final double minLon;
+    private final double cellLat;
+    private final double cellLon;
+
+    /**
+     * @param latitude  / longitude : coordonnées en degrés ; les éléments sans coordonnées sont ignorés
+     */
+    public static <T> GeoGridIndex<T> build(List<T> source,
+                                            Function<T, Double> latitude,
+                                            Function<T, Double> longitude) {
+        List<T> located = new ArrayList<>(source.size());
+        for (T item : source) {
+            Double la = latitude.apply(item);
+            Double lo = longitude.apply(item);
+            if (la != null && lo != null && Math.abs(la) <= 90 && Math.abs(lo) <= 180) {
+                located.add(item);
+            }
+        }
+        return new GeoGridIndex<>(located, latitude, longitude);
+    }
+
+    private GeoGridIndex(List<T> located, Function<T, Double> latitude, Function<T, Double> longitude) {
+        int n = located.size();
+        double[] la = new double[n];
+        double[] lo = new double[n];
+        double latMin = 90, latMax = -90, lonMin = 180, lonMax = -180;
+        for (int i = 0; i < n; i++) {
+            la[i] = latitude.apply(located.get(i));
+            lo[i] = longitude.apply(located.get(i));
+            latMin = Math.min(latMin, la[i]);
+            latMax = Math.max(latMax, la[i]);
+            lonMin = Math.min(lonMin, lo[i]);
+            lonMax = Math.max(lonMax, lo[i]);
+        }
+        if (n == 0) {
+            latMin = latMax = lonMin = lonMax = 0;
+        }
+
+        double latSpan = Math.max(latMax - latMin, 1e-6);
+        double lonSpan = Math.max(lonMax - lonMin, 1e-6);
+        double cells = Math.max(1, n / (double) TARGET_PER_CELL);
+        double side = Math.sqrt(latSpan * lonSpan / cells);
+        this.rows = clamp((int) Math.ceil(latSpan / side), 1, MAX_CELLS_PER_AXIS);
+        this.cols = clamp((int) Math.ceil(lonSpan / side), 1, MAX_CELLS_PER_AXIS);
+        this.minLat = latMin;
+        this.minLon = lonMin;
+        this.cellLat = latSpan / rows;
+        this.cellLon = lonSpan / cols;
+
+        // tri par comptage sur le numéro de cellule
+        int[] cellOf = new int[n];
+        this.cellStart = new int[rows * cols + 1];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = row(la[i]) * cols + col(lo[i]);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < rows * cols; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] next = Arrays.copyOf(cellStart, rows * cols);
+        this.items = new Object[n];
+        this.lat = new double[n];
+        this.lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            int slot = next[cellOf[i]]++;
+            items[slot] = located.get(i);
+            lat[slot] = la[i];
+            lon[slot] = lo[i];
+        }
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Éléments dans la boîte [minLat, maxLat] x [minLon, maxLon], bornes incluses.
+     * minLon > maxLon désigne une boîte qui traverse l'antiméridien.
+     */
+    public List<T> within(double minLat, double minLon, double maxLat, double maxLon) {
+        List<T> result = new ArrayList<>();
+        if (minLon > maxLon) {
+            collectWithin(minLat, minLon, maxLat, 180, result);
+            collectWithin(minLat, -180, maxLat, maxLon, result);
+        } else {
+            collectWithin(minLat, minLon, maxLat, maxLon, result);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collectWithin(double minLat, double minLon, double maxLat, double maxLon, List<T> result) {
+        if (items.length == 0 || minLat > maxLat) {
+            return;
+        }
+        int r0 = row(minLat), r1 = row(maxLat);
+        int c0 = col(minLon), c1 = col(maxLon);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    if (lat[i] >= minLat && lat[i] <= maxLat && lon[i] >= minLon && lon[i] <= maxLon) {
+                        result.add((T) items[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Les k éléments les plus proches du point, du plus proche au plus lointain
+     */
+    @SuppressWarnings("unchecked")
+    public List<Neighbor<T>> nearest(double queryLat, double queryLon, int k) {
+        int limit = Math.min(k, items.length);
+        if (limit <= 0) {
+            return List.of();
+        }
+        KBest best = new KBest(limit, queryLat, queryLon);
+        int qr = row(queryLat), qc = col(queryLon);
+        for (int ring = 0; ; ring++) {
+            int r0 = Math.max(qr - ring, 0), r1 = Math.min(qr + ring, rows - 1);
+            int c0 = Math.max(qc - ring, 0), c1 = Math.min(qc + ring, cols - 1);
+            for (int r = r0; r <= r1; r++) {
+                if (r == qr - ring || r == qr + ring) {
+                    for (int c = c0; c <= c1; c++) {
+                        best.scan(r * cols + c);
+                    }
+                } else {
+                    // rangée intérieure : seules les deux cellules de bord sont nouvelles
+                    if (qc - ring >= 0) {
+                        best.scan(r * cols + qc - ring);
+                    }
+                    if (ring > 0 && qc + ring < cols) {
+                        best.scan(r * cols + qc + ring);
+                    }
+                }
+            }
+            boolean allRows = r0 == 0 && r1 == rows - 1;
+            boolean allCols = c0 == 0 && c1 == cols - 1;
+            if (allRows && allCols) {
+                break;
+            }
+            if (best.size == limit
+                    && outsideLowerBoundKm(queryLat, queryLon, best.cosQuery, r0, r1, c0, c1, allRows, allCols)
+                    >= best.dist[0]) {
+                break;
+            }
+        }
+
+        List<Neighbor<T>> result = new ArrayList<>(best.size);
+        for (int i = 0; i < best.size; i++) {
+            result.add(new Neighbor<>((T) items[best.idx[i]], best.dist[i]));
+        }
+        result.sort(Comparator.comparingDouble(Neighbor::distanceKm));
+        return result;
+    }
+
+    /**
+     * Tas max des k meilleurs candidats (distance, position dans les tableaux)
+     */
+    private final class KBest {
+        final double[] dist;
+        final int[] idx;
+        final double queryLat;
+        final double queryLon;
+        final double cosQuery;
+        int size;
+
+        KBest(int k, double queryLat, double queryLon) {
+            this.dist = new double[k];
+            this.idx = new int[k];
+            this.queryLat = queryLat;
+            this.queryLon = queryLon;
+            this.cosQuery = Math.cos(Math.toRadians(queryLat));
+        }
+
+        void scan(int cell) {
+            for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                double d = distanceKm(queryLat, queryLon, cosQuery, lat[i], lon[i]);
+                if (size < dist.length) {
+                    dist[size] = d;
+                    idx[size] = i;
+                    siftUp(dist, idx, size++);
+                } else if (d < dist[0]) {
+                    dist[0] = d;
+                    idx[0] = i;
+                    siftDown(dist, idx, size);
+                }
+            }
+        }
+    }
+
+    /**
+     * Minorant de la distance entre le point et tout point hors des cellules [r0, r1] x [c0, c1]
+     */
+    private double outsideLowerBoundKm(double queryLat, double queryLon, double cosQuery,
+                                       int r0, int r1, int c0, int c1, boolean allRows, boolean allCols) {
+        double rectMinLat = minLat + r0 * cellLat, rectMaxLat = minLat + (r1 + 1) * cellLat;
+        double rectMinLon = minLon + c0 * cellLon, rectMaxLon = minLon + (c1 + 1) * cellLon;
+
+        // hors de la bande de latitude : au moins l'écart en latitude, le long d'un méridien
+        double latBound = Double.POSITIVE_INFINITY;
+        if (!allRows) {
+            double gap = Math.min(r0 > 0 ? queryLat - rectMinLat : Double.POSITIVE_INFINITY,
+                    r1 < rows - 1 ? rectMaxLat - queryLat : Double.POSITIVE_INFINITY);
+            latBound = Math.max(gap, 0) * KM_PER_DEGREE;
+        }
+
+        // dans la bande mais hors des colonnes : écart en longitude (avec repli à ±180)
+        // à la latitude de la bande la plus proche d'un pôle
+        double lonBound = Double.POSITIVE_INFINITY;
+        if (!allCols) {
+            double gridMaxLon = minLon + cols * cellLon;
+            double gap = Math.min(
+                    c0 > 0 ? lonGap(queryLon, minLon, rectMinLon) : Double.POSITIVE_INFINITY,
+                    c1 < cols - 1 ? lonGap(queryLon, rectMaxLon, gridMaxLon) : Double.POSITIVE_INFINITY);
+            double cosBand = Math.cos(Math.toRadians(
+                    Math.min(90, Math.max(Math.abs(rectMinLat), Math.abs(rectMaxLat)))));
+            double s = Math.sin(Math.toRadians(gap) / 2);
+            double h = Math.min(1, cosQuery * Math.max(cosBand, 0) * s * s);
+            lonBound = 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(h));
+        }
+        return Math.min(latBound, lonBound);
+    }
+
+    /**
+     * Plus petit écart angulaire (repli à ±180) entre une longitude et l'intervalle [from, to]
+     */
+    private static double lonGap(double queryLon, double from, double to) {
+        if (queryLon >= from && queryLon <= to) {
+            return 0;
+        }
+        return Math.min(wrap(Math.abs(queryLon - from)), wrap(Math.abs(queryLon - to)));
+    }
+
+    private static double wrap(double degrees) {
+        return Math.min(degrees, 360 - degrees);
+    }
+
+    /**
+     * Distance orthodromique (haversine) en km
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        return distanceKm(lat1, lon1, Math.cos(Math.toRadians(lat1)), lat2, lon2);
+    }
+
+    private static double distanceKm(double lat1, double lon1, double cosLat1, double lat2, double lon2) {
+        double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double h = sinLat * sinLat + cosLat1 * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1, h)));
+    }
+
+    private int row(double latitude) {
+        return clamp((int) Math.floor((latitude - minLat) / cellLat), 0, rows - 1);
+    }
+
+    private int col(double longitude) {
+        return clamp((int) Math.floor((longitude - minLon) / cellLon), 0, cols - 1);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static void siftUp(double[] dist, int[] idx, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (dist[parent] >= dist[i]) {
+                return;
+            }
+            swap(dist, idx, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(double[] dist, int[] idx, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1, right = left + 1, largest = i;
+            if (left < size && dist[left] > dist[largest]) {
+                largest = left;
+            }
+            if (right < size && dist[right] > dist[largest]) {
+                largest = right;
+            }
+            if (largest == i) {
+                return;
+            }
+            swap(dist, idx, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(double[] dist, int[] idx, int a, int b) {
+        double d = dist[a];
+        dist[a] = dist[b];
+        dist[b] = d;
+        int t = idx[a];
+        idx[a] = idx[b];
+        idx[b] = t;
+    }
+}
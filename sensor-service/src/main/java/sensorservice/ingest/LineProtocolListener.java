@@ -0,0 +1,439 @@
+package sensorservice.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import sensorservice.domain.enums.MeasurementSource;
+import sensorservice.service.MeasurementIngestQueue;
+import sensorservice.service.SensorMeasurementService;
+import sensorservice.service.StationService;
+import sensorservice.web.dto.MeasurementCreateRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Listener TCP du protocole ligne (voir {@link LineProtocolParser})
+ *
+ * Activé par {@code sensor.ingest.line.enabled}. Un seul thread sert toutes les
+ * connexions via un Selector non bloquant ; chaque lecture de socket donne un lot
+ * de mesures, remis au même chemin d'écriture que l'API HTTP :
+ * - file asynchrone active : {@link MeasurementIngestQueue}, par paquets d'au plus sa
+ *   capacité.
+ * - sinon : écriture synchrone par {@code sensor.ingest.line.writer-threads} threads
+ *   dédiés, jamais sur le thread du Selector.
+ * Dans les deux cas, si la place manque, le lot est conservé et la connexion n'est plus
+ * lue jusqu'à ce qu'il passe : la contre-pression remonte jusqu'au client par la
+ * fenêtre TCP, sans perte.
+ *
+ * Les lignes invalides ou d'une station inconnue sont ignorées une à une et comptées.
+ * Aucune réponse n'est renvoyée.
+ *
+ * Métriques exposées :
+ * - sensor.ingest.line.readings{result=accepted|rejected}
+ * - sensor.ingest.line.connections
+ */
+@Component
+@Slf4j
+public class LineProtocolListener implements SmartLifecycle {
+
+    // arrêté avec le serveur web, avant la file d'ingestion
+    private static final int PHASE = WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1024;
+    private static final long RETRY_MILLIS = 50;
+    // lots en attente par thread d'écriture (mode synchrone)
+    private static final int WRITER_QUEUE_PER_THREAD = 4;
+
+    private final MeasurementIngestQueue ingestQueue;
+    private final SensorMeasurementService measurementService;
+    private final StationService stationService;
+    private final Counter accepted;
+    private final Counter rejected;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Value("${sensor.ingest.line.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sensor.ingest.line.bind-address:0.0.0.0}")
+    private String bindAddress = "0.0.0.0";
+
+    @Value("${sensor.ingest.line.port:8094}")
+    private int port = 8094;
+
+    // taille du tampon de lecture par connexion = longueur maximale d'une ligne
+    @Value("${sensor.ingest.line.buffer-size:65536}")
+    private int bufferSize = 65536;
+
+    @Value("${sensor.ingest.line.shutdown-timeout-seconds:10}")
+    private int shutdownTimeoutSeconds = 10;
+
+    // écritures synchrones simultanées (file asynchrone désactivée)
+    @Value("${sensor.ingest.line.writer-threads:2}")
+    private int writerThreads = 2;
+
+    private volatile boolean running;
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread thread;
+    private ThreadPoolExecutor writers;
+
+    // utilisés par le seul thread du listener
+    private final LineProtocolParser.Reading reading = new LineProtocolParser.Reading();
+    private final List<Connection> stalled = new ArrayList<>();
+
+    private static final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer buffer;
+        List<MeasurementCreateRequest> batch = new ArrayList<>();
+        SelectionKey key;
+        boolean closing;
+
+        Connection(SocketChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(bufferSize);
+        }
+    }
+
+    public LineProtocolListener(MeasurementIngestQueue ingestQueue,
+                                SensorMeasurementService measurementService,
+                                StationService stationService,
+                                MeterRegistry meterRegistry) {
+        this.ingestQueue = ingestQueue;
+        this.measurementService = measurementService;
+        this.stationService = stationService;
+        this.accepted = Counter.builder("sensor.ingest.line.readings")
+                .description("Mesures reçues par le protocole ligne")
+                .tag("result", "accepted")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("sensor.ingest.line.readings")
+                .description("Mesures reçues par le protocole ligne")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("sensor.ingest.line.connections", connections, AtomicInteger::get)
+                .description("Connexions ouvertes sur le listener ligne")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return port effectivement écouté (utile avec port=0), -1 si arrêté
+     */
+    public int getLocalPort() {
+        return server != null ? server.socket().getLocalPort() : -1;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        try {
+            selector = Selector.open();
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(bindAddress, port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ouverture du listener ligne impossible sur le port " + port, e);
+        }
+        if (!ingestQueue.isEnabled()) {
+            AtomicInteger writerCount = new AtomicInteger();
+            writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(writerThreads * WRITER_QUEUE_PER_THREAD),
+                    r -> new Thread(r, "measurement-line-writer-" + writerCount.incrementAndGet()));
+        }
+        running = true;
+        thread = new Thread(this::eventLoop, "measurement-line-listener");
+        thread.start();
+        log.info("Listener protocole ligne démarré sur {}:{} (file asynchrone: {})",
+                bindAddress, getLocalPort(), ingestQueue.isEnabled());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds + 1L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void eventLoop() {
+        try {
+            while (running) {
+                selector.select(RETRY_MILLIS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read((Connection) key.attachment());
+                    }
+                }
+                retryStalled();
+            }
+        } catch (IOException e) {
+            log.error("Listener protocole ligne interrompu", e);
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Connection connection = new Connection(channel, bufferSize);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.incrementAndGet();
+    }
+
+    private void read(Connection connection) {
+        ByteBuffer buffer = connection.buffer;
+        int read;
+        try {
+            read = connection.channel.read(buffer);
+        } catch (IOException e) {
+            log.debug("Connexion ligne perdue: {}", e.getMessage());
+            read = -1;
+        }
+
+        byte[] bytes = buffer.array();
+        int limit = buffer.position();
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (bytes[i] == '\n') {
+                handleLine(bytes, lineStart, i, connection);
+                lineStart = i + 1;
+            }
+        }
+
+        if (read < 0) {
+            // dernière ligne sans '\n'
+            if (lineStart < limit) {
+                handleLine(bytes, lineStart, limit, connection);
+            }
+            buffer.clear();
+            connection.closing = true;
+        } else if (lineStart == 0 && limit == buffer.capacity()) {
+            log.warn("Ligne de plus de {} octets, connexion fermée", bufferSize);
+            rejected.increment();
+            buffer.clear();
+            connection.closing = true;
+        } else {
+            System.arraycopy(bytes, lineStart, bytes, 0, limit - lineStart);
+            buffer.position(limit - lineStart);
+        }
+
+        if (flush(connection) && connection.closing) {
+            close(connection);
+        }
+    }
+
+    private void handleLine(byte[] bytes, int from, int to, Connection connection) {
+        int start = from;
+        while (start < to && (bytes[start] == ' ' || bytes[start] == '\r')) {
+            start++;
+        }
+        if (start == to || bytes[start] == '#') {
+            return;
+        }
+        if (!LineProtocolParser.parse(bytes, start, to, reading)
+                || !stationService.exists(reading.getStationId())) {
+            rejected.increment();
+            return;
+        }
+        MeasurementCreateRequest request = new MeasurementCreateRequest();
+        request.setStationId(reading.getStationId());
+        request.setPh(reading.getPh());
+        request.setTemperature(reading.getTemperature());
+        request.setTurbidity(reading.getTurbidity());
+        request.setDissolvedOxygen(reading.getDissolvedOxygen());
+        request.setConductivity(reading.getConductivity());
+        if (reading.hasTimestamp()) {
+            request.setTimestamp(LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(reading.getTimestampMillis()), ZoneId.systemDefault()));
+        }
+        connection.batch.add(request);
+    }
+
+    /**
+     * Remet le lot de la connexion au chemin d'écriture
+     * @return false si la place manque : connexion suspendue, reste du lot conservé
+     */
+    private boolean flush(Connection connection) {
+        if (offer(connection)) {
+            return true;
+        }
+        if (connection.key.isValid()) {
+            connection.key.interestOps(0);
+        }
+        if (!stalled.contains(connection)) {
+            stalled.add(connection);
+        }
+        return false;
+    }
+
+    /**
+     * File asynchrone : par paquets d'au plus sa capacité (un lot plus grand ne passerait jamais),
+     * les paquets acceptés sont retirés du lot. Sinon, le lot entier part vers un thread d'écriture.
+     * @return true si tout le lot a été remis
+     */
+    private boolean offer(Connection connection) {
+        List<MeasurementCreateRequest> batch = connection.batch;
+        if (batch.isEmpty()) {
+            return true;
+        }
+        if (ingestQueue.isEnabled()) {
+            int chunkSize = Math.max(1, ingestQueue.capacity());
+            while (!batch.isEmpty()) {
+                List<MeasurementCreateRequest> chunk = batch.subList(0, Math.min(batch.size(), chunkSize));
+                List<MeasurementCreateRequest> offered = chunk.size() == batch.size() ? batch : new ArrayList<>(chunk);
+                if (!ingestQueue.tryOffer(offered)) {
+                    return false;
+                }
+                accepted.increment(offered.size());
+                if (offered == batch) {
+                    break;
+                }
+                chunk.clear();
+            }
+        } else {
+            try {
+                writers.execute(() -> write(batch));
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+        connection.batch = new ArrayList<>();
+        return true;
+    }
+
+    // thread d'écriture (mode synchrone)
+    private void write(List<MeasurementCreateRequest> batch) {
+        try {
+            measurementService.createMeasurements(batch, MeasurementSource.IOT_SIMULATED);
+            accepted.increment(batch.size());
+        } catch (RuntimeException e) {
+            rejected.increment(batch.size());
+            log.warn("Lot de {} mesures (protocole ligne) rejeté: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private void retryStalled() {
+        Iterator<Connection> it = stalled.iterator();
+        while (it.hasNext()) {
+            Connection connection = it.next();
+            if (!offer(connection)) {
+                return;     // toujours pas de place : inutile d'essayer les suivantes
+            }
+            it.remove();
+            if (connection.closing) {
+                close(connection);
+            } else if (connection.key.isValid()) {
+                connection.key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void close(Connection connection) {
+        if (!connection.channel.isOpen()) {
+            return;
+        }
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            log.debug("Fermeture de connexion ligne: {}", e.getMessage());
+        }
+        connections.decrementAndGet();
+    }
+
+    /**
+     * Arrêt : plus d'acceptation, les lots déjà lus sont remis à la file avant fermeture
+     */
+    private void shutdown() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(shutdownTimeoutSeconds);
+        while (!stalled.isEmpty() && System.nanoTime() < deadline) {
+            retryStalled();
+            if (!stalled.isEmpty()) {
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        int lost = stalled.stream().mapToInt(c -> c.batch.size()).sum();
+        if (lost > 0) {
+            log.error("Arrêt: {} mesures du protocole ligne non remises à la file", lost);
+        }
+        if (writers != null) {
+            writers.shutdown();
+            try {
+                if (!writers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    log.error("Arrêt: écritures du protocole ligne toujours en cours après {} s",
+                            shutdownTimeoutSeconds);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection) {
+                close(connection);
+            }
+        }
+        try {
+            server.close();
+            selector.close();
+        } catch (IOException e) {
+            log.debug("Fermeture du listener ligne: {}", e.getMessage());
+        }
+        log.info("Listener protocole ligne arrêté");
+    }
+}
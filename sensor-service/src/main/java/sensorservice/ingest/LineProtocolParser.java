@@ -0,0 +1,265 @@
+package sensorservice.ingest;
+
+/**
+ * Analyse du protocole ligne des passerelles IoT
+ *
+ * <pre>
+ * &lt;stationId&gt;,ph=&lt;v&gt;,temp=&lt;v&gt;,turb=&lt;v&gt;,do=&lt;v&gt;,cond=&lt;v&gt;[ &lt;epoch millis&gt;]
+ * 12,ph=7.21,temp=18.4,turb=3.1,do=8.02,cond=512 1718000000000
+ * </pre>
+ *
+ * Les champs sont dans un ordre quelconque mais tous obligatoires, avec les mêmes
+ * bornes que {@code MeasurementCreateRequest}. Les valeurs sont des décimaux simples
+ * (signe, chiffres, point ; pas d'exposant). Sans horodatage, l'heure de réception
+ * est utilisée.
+ *
+ * L'analyse se fait directement sur les octets reçus : aucune String ni objet
+ * intermédiaire, le résultat est écrit dans un {@link Reading} réutilisé.
+ */
+public final class LineProtocolParser {
+
+    private static final byte[] PH = {'p', 'h'};
+    private static final byte[] DO = {'d', 'o'};
+    private static final byte[] TEMP = {'t', 'e', 'm', 'p'};
+    private static final byte[] TURB = {'t', 'u', 'r', 'b'};
+    private static final byte[] COND = {'c', 'o', 'n', 'd'};
+
+    private static final int F_PH = 1;
+    private static final int F_TEMP = 1 << 1;
+    private static final int F_TURB = 1 << 2;
+    private static final int F_DO = 1 << 3;
+    private static final int F_COND = 1 << 4;
+    private static final int ALL_FIELDS = F_PH | F_TEMP | F_TURB | F_DO | F_COND;
+
+    // 10^0 .. 10^18 : exacts en double, une seule division arrondie par valeur
+    private static final double[] POW10 = new double[19];
+    private static final int MAX_DIGITS = 18;
+
+    static {
+        double p = 1;
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = p;
+            p *= 10;
+        }
+    }
+
+    private LineProtocolParser() {
+    }
+
+    /**
+     * Mesure analysée, réutilisée d'une ligne à l'autre
+     */
+    public static final class Reading {
+
+        private long stationId;
+        private long timestampMillis;   // -1 : absent
+        private double ph;
+        private double temperature;
+        private double turbidity;
+        private double dissolvedOxygen;
+        private double conductivity;
+
+        public long getStationId() {
+            return stationId;
+        }
+
+        public boolean hasTimestamp() {
+            return timestampMillis >= 0;
+        }
+
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+
+        public double getPh() {
+            return ph;
+        }
+
+        public double getTemperature() {
+            return temperature;
+        }
+
+        public double getTurbidity() {
+            return turbidity;
+        }
+
+        public double getDissolvedOxygen() {
+            return dissolvedOxygen;
+        }
+
+        public double getConductivity() {
+            return conductivity;
+        }
+    }
+
+    /**
+     * Analyse la ligne {@code buf[from, to)} (sans le '\n' ; un '\r' final est toléré)
+     * @return false si la ligne est mal formée ou hors bornes ; {@code out} est alors indéfini
+     */
+    public static boolean parse(byte[] buf, int from, int to, Reading out) {
+        if (to > from && buf[to - 1] == '\r') {
+            to--;
+        }
+
+        int i = from;
+        int start = i;
+        while (i < to && buf[i] != ',') {
+            i++;
+        }
+        long stationId = parseUnsignedLong(buf, start, i);
+        if (stationId <= 0 || i == to) {
+            return false;
+        }
+        i++;
+
+        int seen = 0;
+        while (true) {
+            int keyStart = i;
+            while (i < to && buf[i] != '=') {
+                i++;
+            }
+            if (i == to) {
+                return false;
+            }
+            int field = field(buf, keyStart, i - keyStart);
+            if (field == 0 || (seen & field) != 0) {
+                return false;
+            }
+            i++;
+
+            int valueStart = i;
+            while (i < to && buf[i] != ',' && buf[i] != ' ') {
+                i++;
+            }
+            double value = parseDecimal(buf, valueStart, i);
+            if (Double.isNaN(value)) {
+                return false;
+            }
+            switch (field) {
+                case F_PH -> out.ph = value;
+                case F_TEMP -> out.temperature = value;
+                case F_TURB -> out.turbidity = value;
+                case F_DO -> out.dissolvedOxygen = value;
+                default -> out.conductivity = value;
+            }
+            seen |= field;
+
+            if (i == to || buf[i] == ' ') {
+                break;
+            }
+            i++;
+        }
+        if (seen != ALL_FIELDS) {
+            return false;
+        }
+
+        out.timestampMillis = -1;
+        while (i < to && buf[i] == ' ') {
+            i++;
+        }
+        if (i < to) {
+            long ts = parseUnsignedLong(buf, i, to);
+            if (ts < 0) {
+                return false;
+            }
+            out.timestampMillis = ts;
+        }
+
+        out.stationId = stationId;
+        return out.ph >= 0 && out.ph <= 14
+                && out.turbidity >= 0
+                && out.dissolvedOxygen >= 0
+                && out.conductivity >= 0;
+    }
+
+    private static int field(byte[] buf, int from, int length) {
+        if (length == 2) {
+            if (matches(buf, from, PH)) {
+                return F_PH;
+            }
+            if (matches(buf, from, DO)) {
+                return F_DO;
+            }
+        } else if (length == 4) {
+            if (matches(buf, from, TEMP)) {
+                return F_TEMP;
+            }
+            if (matches(buf, from, TURB)) {
+                return F_TURB;
+            }
+            if (matches(buf, from, COND)) {
+                return F_COND;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean matches(byte[] buf, int from, byte[] key) {
+        for (int k = 0; k < key.length; k++) {
+            if (buf[from + k] != key[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return l'entier positif lu, ou -1 si vide, non numérique ou trop long
+     */
+    static long parseUnsignedLong(byte[] buf, int from, int to) {
+        if (from == to || to - from > MAX_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Décimal simple ([-+]chiffres[.chiffres]) ; au plus 18 chiffres significatifs
+     * @return la valeur, ou NaN si mal formé
+     */
+    static double parseDecimal(byte[] buf, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean dot = false;
+        boolean anyDigit = false;
+        for (; i < to; i++) {
+            byte c = buf[i];
+            if (c == '.' && !dot) {
+                dot = true;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                return Double.NaN;
+            }
+            anyDigit = true;
+            if ((mantissa != 0 || digit != 0) && ++significant > MAX_DIGITS) {
+                return Double.NaN;
+            }
+            mantissa = mantissa * 10 + digit;
+            if (dot) {
+                scale++;
+            }
+        }
+        if (!anyDigit || scale > MAX_DIGITS) {
+            return Double.NaN;
+        }
+        double value = scale == 0 ? mantissa : mantissa / POW10[scale];
+        return negative ? -value : value;
+    }
+}
@@ -0,0 +1,355 @@
+package sensorservice.ingest;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Analyse des fichiers CSV de mesures historiques
+ *
+ * Les colonnes sont repérées par leur en-tête (casse, unités entre parenthèses et
+ * séparateurs ignorés), dans l'ordre du fichier « Water Quality Testing.csv » ou non :
+ * <pre>
+ * Sample ID,pH,Temperature (°C),Turbidity (NTU),Dissolved Oxygen (mg/L),Conductivity (µS/cm)
+ * </pre>
+ * Colonnes facultatives : Station ID ou Station Code (sinon station par défaut) et
+ * Timestamp (sinon {@code start + rang de la ligne x interval}).
+ *
+ * Sans état partagé modifiable : un même parseur sert tous les threads d'analyse,
+ * chacun sur son propre paquet de lignes.
+ */
+public final class MeasurementCsvParser {
+
+    public static final String REASON_COLUMNS = "nombre de colonnes";
+    public static final String REASON_NUMBER = "valeur non numérique";
+    public static final String REASON_RANGE = "valeur hors bornes";
+    public static final String REASON_STATION = "station inconnue";
+    public static final String REASON_TIMESTAMP = "horodatage invalide";
+
+    private static final int MAX_SAMPLES_PER_CHUNK = 20;
+
+    private enum Column { PH, TEMPERATURE, TURBIDITY, DISSOLVED_OXYGEN, CONDUCTIVITY, STATION_ID, STATION_CODE, TIMESTAMP }
+
+    private static final Map<String, Column> ALIASES = Map.ofEntries(
+            Map.entry("ph", Column.PH),
+            Map.entry("temperature", Column.TEMPERATURE),
+            Map.entry("temp", Column.TEMPERATURE),
+            Map.entry("turbidity", Column.TURBIDITY),
+            Map.entry("dissolvedoxygen", Column.DISSOLVED_OXYGEN),
+            Map.entry("do", Column.DISSOLVED_OXYGEN),
+            Map.entry("conductivity", Column.CONDUCTIVITY),
+            Map.entry("stationid", Column.STATION_ID),
+            Map.entry("stationcode", Column.STATION_CODE),
+            Map.entry("station", Column.STATION_CODE),
+            Map.entry("timestamp", Column.TIMESTAMP),
+            Map.entry("datetime", Column.TIMESTAMP),
+            Map.entry("date", Column.TIMESTAMP));
+
+    /**
+     * Ligne refusée (numéro de ligne du fichier, en-tête = 1)
+     */
+    public record Rejected(long line, String reason) {
+    }
+
+    /**
+     * Paquet de lignes analysées, en colonnes
+     */
+    public static final class Chunk {
+
+        private int size;
+        private final long[] stationIds;
+        private final LocalDateTime[] timestamps;
+        private final double[] ph;
+        private final double[] temperature;
+        private final double[] turbidity;
+        private final double[] dissolvedOxygen;
+        private final double[] conductivity;
+        private int rowsRead;
+        private final Map<String, Long> rejectedByReason = new LinkedHashMap<>();
+        private final List<Rejected> rejectedSamples = new ArrayList<>();
+
+        private Chunk(int capacity) {
+            stationIds = new long[capacity];
+            timestamps = new LocalDateTime[capacity];
+            ph = new double[capacity];
+            temperature = new double[capacity];
+            turbidity = new double[capacity];
+            dissolvedOxygen = new double[capacity];
+            conductivity = new double[capacity];
+        }
+
+        private void reject(long line, String reason) {
+            rejectedByReason.merge(reason, 1L, Long::sum);
+            if (rejectedSamples.size() < MAX_SAMPLES_PER_CHUNK) {
+                rejectedSamples.add(new Rejected(line, reason));
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int rowsRead() {
+            return rowsRead;
+        }
+
+        public long stationId(int row) {
+            return stationIds[row];
+        }
+
+        public LocalDateTime timestamp(int row) {
+            return timestamps[row];
+        }
+
+        public double ph(int row) {
+            return ph[row];
+        }
+
+        public double temperature(int row) {
+            return temperature[row];
+        }
+
+        public double turbidity(int row) {
+            return turbidity[row];
+        }
+
+        public double dissolvedOxygen(int row) {
+            return dissolvedOxygen[row];
+        }
+
+        public double conductivity(int row) {
+            return conductivity[row];
+        }
+
+        public Map<String, Long> rejectedByReason() {
+            return rejectedByReason;
+        }
+
+        public List<Rejected> rejectedSamples() {
+            return rejectedSamples;
+        }
+    }
+
+    private final int[] indexOf = new int[Column.values().length];
+    private final int columnCount;
+    private final Function<String, Long> stationIdByCode;
+    private final Predicate<Long> stationExists;
+    private final Long defaultStationId;
+    private final LocalDateTime start;
+    private final long intervalNanos;
+
+    /**
+     * @param stationIdByCode  résolution des codes station (null si inconnu)
+     * @param defaultStationId station des lignes quand le fichier n'a pas de colonne station
+     * @param start            horodatage de la première ligne quand le fichier n'a pas de colonne Timestamp
+     * @throws IllegalArgumentException si une colonne obligatoire manque
+     */
+    public MeasurementCsvParser(String header,
+                                Function<String, Long> stationIdByCode,
+                                Predicate<Long> stationExists,
+                                Long defaultStationId,
+                                LocalDateTime start,
+                                Duration interval) {
+        Arrays.fill(indexOf, -1);
+        List<String> names = split(header.startsWith("﻿") ? header.substring(1) : header);
+        for (int i = 0; i < names.size(); i++) {
+            Column column = ALIASES.get(normalize(names.get(i)));
+            if (column != null && indexOf[column.ordinal()] < 0) {
+                indexOf[column.ordinal()] = i;
+            }
+        }
+        this.columnCount = names.size();
+
+        for (Column required : List.of(Column.PH, Column.TEMPERATURE, Column.TURBIDITY,
+                Column.DISSOLVED_OXYGEN, Column.CONDUCTIVITY)) {
+            if (indexOf[required.ordinal()] < 0) {
+                throw new IllegalArgumentException("Missing CSV column: " + required.name().toLowerCase(Locale.ROOT));
+            }
+        }
+        if (indexOf[Column.STATION_ID.ordinal()] < 0 && indexOf[Column.STATION_CODE.ordinal()] < 0
+                && defaultStationId == null) {
+            throw new IllegalArgumentException("CSV has no station column: stationId parameter required");
+        }
+        if (indexOf[Column.TIMESTAMP.ordinal()] < 0 && start == null) {
+            throw new IllegalArgumentException("CSV has no timestamp column: start parameter required");
+        }
+        this.stationIdByCode = stationIdByCode;
+        this.stationExists = stationExists;
+        this.defaultStationId = defaultStationId;
+        this.start = start;
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Analyse un paquet de lignes de données (lignes vides ignorées)
+     * @param firstRow rang (0 pour la première ligne après l'en-tête) de {@code lines.get(0)}
+     */
+    public Chunk parse(List<String> lines, long firstRow) {
+        Chunk chunk = new Chunk(lines.size());
+        List<String> fields = new ArrayList<>(columnCount);
+        for (int i = 0; i < lines.size(); i++) {
+            long row = firstRow + i;
+            long lineNumber = row + 2;
+            String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.rowsRead++;
+            fields.clear();
+            splitInto(line, fields);
+            if (fields.size() < columnCount) {
+                chunk.reject(lineNumber, REASON_COLUMNS);
+                continue;
+            }
+
+            double ph, temperature, turbidity, oxygen, conductivity;
+            try {
+                ph = number(fields, Column.PH);
+                temperature = number(fields, Column.TEMPERATURE);
+                turbidity = number(fields, Column.TURBIDITY);
+                oxygen = number(fields, Column.DISSOLVED_OXYGEN);
+                conductivity = number(fields, Column.CONDUCTIVITY);
+            } catch (NumberFormatException e) {
+                chunk.reject(lineNumber, REASON_NUMBER);
+                continue;
+            }
+            // mêmes bornes que MeasurementCreateRequest
+            if (!(ph >= 0 && ph <= 14) || !(turbidity >= 0) || !(oxygen >= 0) || !(conductivity >= 0)
+                    || !Double.isFinite(temperature)) {
+                chunk.reject(lineNumber, REASON_RANGE);
+                continue;
+            }
+
+            Long stationId = station(fields);
+            if (stationId == null || !stationExists.test(stationId)) {
+                chunk.reject(lineNumber, REASON_STATION);
+                continue;
+            }
+
+            LocalDateTime timestamp = timestamp(fields, row);
+            if (timestamp == null) {
+                chunk.reject(lineNumber, REASON_TIMESTAMP);
+                continue;
+            }
+
+            int n = chunk.size++;
+            chunk.stationIds[n] = stationId;
+            chunk.timestamps[n] = timestamp;
+            chunk.ph[n] = ph;
+            chunk.temperature[n] = temperature;
+            chunk.turbidity[n] = turbidity;
+            chunk.dissolvedOxygen[n] = oxygen;
+            chunk.conductivity[n] = conductivity;
+        }
+        return chunk;
+    }
+
+    private double number(List<String> fields, Column column) {
+        return Double.parseDouble(fields.get(indexOf[column.ordinal()]));
+    }
+
+    private Long station(List<String> fields) {
+        int idColumn = indexOf[Column.STATION_ID.ordinal()];
+        if (idColumn >= 0) {
+            try {
+                return Long.parseLong(fields.get(idColumn));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        int codeColumn = indexOf[Column.STATION_CODE.ordinal()];
+        if (codeColumn >= 0) {
+            return stationIdByCode.apply(fields.get(codeColumn));
+        }
+        return defaultStationId;
+    }
+
+    private LocalDateTime timestamp(List<String> fields, long row) {
+        int column = indexOf[Column.TIMESTAMP.ordinal()];
+        if (column < 0) {
+            return start.plusNanos(row * intervalNanos);
+        }
+        String value = fields.get(column);
+        try {
+            if (value.length() == 10) {
+                return LocalDate.parse(value).atStartOfDay();
+            }
+            return LocalDateTime.parse(value.length() > 10 && value.charAt(10) == ' '
+                    ? value.substring(0, 10) + 'T' + value.substring(11)
+                    : value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String normalize(String header) {
+        int unit = header.indexOf('(');
+        String name = unit >= 0 ? header.substring(0, unit) : header;
+        StringBuilder normalized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = Character.toLowerCase(name.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        splitInto(line, fields);
+        return fields;
+    }
+
+    /**
+     * Découpe sur ',' ; champs entre guillemets (virgules et "" internes) acceptés, espaces retirés
+     */
+    private static void splitInto(String line, List<String> fields) {
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            length--;
+        }
+        int i = 0;
+        while (true) {
+            if (i < length && line.charAt(i) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                i++;
+                while (i < length) {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            quoted.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+                fields.add(quoted.toString().trim());
+                while (i < length && line.charAt(i) != ',') {
+                    i++;
+                }
+            } else {
+                int comma = line.indexOf(',', i);
+                int end = comma < 0 || comma > length ? length : comma;
+                fields.add(line.substring(i, end).trim());
+                i = end;
+            }
+            if (i >= length) {
+                return;
+            }
+            i++;    // ','
+        }
+    }
+}
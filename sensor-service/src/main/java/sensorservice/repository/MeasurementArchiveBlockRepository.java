@@ -0,0 +1,41 @@
+package sensorservice.repository;
+
+import sensorservice.domain.entity.MeasurementArchiveBlock;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface MeasurementArchiveBlockRepository extends JpaRepository<MeasurementArchiveBlock, Long> {
+
+    Optional<MeasurementArchiveBlock> findByStationIdAndWindowStart(Long stationId, LocalDateTime windowStart);
+
+    Optional<MeasurementArchiveBlock> findFirstByStationIdOrderByWindowStartDesc(Long stationId);
+
+    /**
+     * Blocs d'une station, du plus récent au plus ancien (curseur, comme {@link #streamOverlapping})
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "4"))
+    @Query("select b from MeasurementArchiveBlock b where b.stationId = :stationId order by b.windowStart desc")
+    Stream<MeasurementArchiveBlock> streamNewestFirst(@Param("stationId") Long stationId);
+
+    /**
+     * Blocs d'une station recouvrant [from, to], dans l'ordre chronologique.
+     * Parcours en curseur : à consommer dans une transaction, Stream fermé après usage.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "16"))
+    @Query("""
+            select b from MeasurementArchiveBlock b
+            where b.stationId = :stationId and b.windowStart <= :to and b.windowEnd > :from
+            order by b.windowStart
+            """)
+    Stream<MeasurementArchiveBlock> streamOverlapping(@Param("stationId") Long stationId,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,29 @@
+package sensorservice.repository;
+
+import sensorservice.domain.entity.MeasurementRollup;
+import sensorservice.domain.enums.RollupResolution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface MeasurementRollupRepository extends JpaRepository<MeasurementRollup, Long> {
+
+    /**
+     * Agrégats candidats d'un lot en une requête : produit stations x buckets (toutes
+     * résolutions), à filtrer sur les clés effectivement touchées
+     */
+    List<MeasurementRollup> findByStationIdInAndBucketStartIn(
+            Collection<Long> stationIds, Collection<LocalDateTime> bucketStarts);
+
+    List<MeasurementRollup> findByStationIdAndResolutionAndBucketStartBetweenOrderByBucketStartAsc(
+            Long stationId, RollupResolution resolution, LocalDateTime from, LocalDateTime to);
+
+    @Modifying
+    @Query("delete from MeasurementRollup r where r.stationId = :stationId")
+    int deleteByStation(@Param("stationId") Long stationId);
+}
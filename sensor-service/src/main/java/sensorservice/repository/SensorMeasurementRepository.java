@@ -1,20 +1,184 @@
 package sensorservice.repository;
 
 import sensorservice.domain.entity.SensorMeasurement;
-import sensorservice.domain.entity.Station;
+import sensorservice.web.dto.MeasurementResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface SensorMeasurementRepository extends JpaRepository<SensorMeasurement, Long> {
 
-    List<SensorMeasurement> findByStationAndTimestampBetween(
-            Station station,
-            LocalDateTime from,
-            LocalDateTime to
+    // parcours d'une station par pages d'id croissants (reconstruction des agrégats)
+    List<SensorMeasurement> findByStationIdAndIdGreaterThanOrderByIdAsc(Long stationId, Long id, Pageable pageable);
+
+    // ---------- archivage des données froides ----------
+
+    @Query("select distinct m.station.id from SensorMeasurement m where m.timestamp < :cutoff")
+    List<Long> findStationIdsWithMeasurementsBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    Optional<SensorMeasurement> findFirstByStationIdAndTimestampBeforeOrderByTimestampAsc(
+            Long stationId, LocalDateTime cutoff);
+
+    // fenêtre [from, to) d'une station, triée
+    @Query("""
+            select m from SensorMeasurement m
+            where m.station.id = :stationId and m.timestamp >= :from and m.timestamp < :to
+            order by m.timestamp, m.id
+            """)
+    List<SensorMeasurement> findWindow(@Param("stationId") Long stationId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("delete from SensorMeasurement m where m.station.id = :stationId and m.timestamp >= :from and m.timestamp < :to")
+    int deleteWindow(@Param("stationId") Long stationId,
+                     @Param("from") LocalDateTime from,
+                     @Param("to") LocalDateTime to);
+
+    /**
+     * Mesures d'une plage [from, to], triées, projetées en lignes plates : une seule requête
+     * (jointure sur la station pour son nom), aucune entité gérée ni proxy de Station.
+     */
+    @Query("""
+            select new sensorservice.web.dto.MeasurementResponse(
+                m.id, s.id, s.name, m.timestamp,
+                m.ph, m.temperature, m.turbidity, m.dissolvedOxygen, m.conductivity, m.qualityFlags)
+            from SensorMeasurement m join m.station s
+            where m.station.id = :stationId and m.timestamp between :from and :to
+            order by m.station.id, m.timestamp, m.id
+            """)
+    List<MeasurementResponse> findByStationAndRange(
+            @Param("stationId") Long stationId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
     );
 
-    Optional<SensorMeasurement> findFirstByStationOrderByTimestampDesc(Station station);
-}
\ No newline at end of file
+    /**
+     * Dernière(s) mesure(s) d'une station, projetées : lecture à rebours de
+     * idx_sensor_measurements_station_ts_id arrêtée à la limite, sans entité gérée.
+     * Les lectures "dernière mesure" sont readOnly ici plutôt que dans le service : l'index
+     * mémoire qui les précède n'a pas à ouvrir de transaction (routage vers le réplica).
+     */
+    @Transactional(readOnly = true)
+    @Query("""
+            select new sensorservice.web.dto.MeasurementResponse(
+                m.id, s.id, s.name, m.timestamp,
+                m.ph, m.temperature, m.turbidity, m.dissolvedOxygen, m.conductivity, m.qualityFlags)
+            from SensorMeasurement m join m.station s
+            where m.station.id = :stationId
+            order by m.station.id desc, m.timestamp desc, m.id desc
+            """)
+    List<MeasurementResponse> findLatestByStation(@Param("stationId") Long stationId, Limit limit);
+
+    /**
+     * Comme {@link #findLatestByStation}, en transaction en écriture : toujours lu sur le primaire.
+     * Charge l'anneau des mesures récentes, qui n'est lu qu'une fois : une mesure commitée
+     * avant le chargement mais pas encore répliquée y manquerait définitivement.
+     */
+    @Transactional
+    @Query("""
+            select new sensorservice.web.dto.MeasurementResponse(
+                m.id, s.id, s.name, m.timestamp,
+                m.ph, m.temperature, m.turbidity, m.dissolvedOxygen, m.conductivity, m.qualityFlags)
+            from SensorMeasurement m join m.station s
+            where m.station.id = :stationId
+            order by m.station.id desc, m.timestamp desc, m.id desc
+            """)
+    List<MeasurementResponse> findRecentByStationOnPrimary(@Param("stationId") Long stationId, Limit limit);
+
+    /**
+     * Parcours d'une plage en curseur forward-only, trié par (timestamp, id), projeté en lignes
+     * plates (aucune entité gérée).
+     * Doit être consommé dans une transaction et le Stream fermé après usage.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new sensorservice.web.dto.MeasurementResponse(
+                m.id, s.id, s.name, m.timestamp,
+                m.ph, m.temperature, m.turbidity, m.dissolvedOxygen, m.conductivity, m.qualityFlags)
+            from SensorMeasurement m join m.station s
+            where m.station.id = :stationId and m.timestamp between :from and :to
+            order by m.station.id, m.timestamp, m.id
+            """)
+    Stream<MeasurementResponse> streamByStationAndRange(
+            @Param("stationId") Long stationId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    /**
+     * Page d'une plage en pagination par clé : lignes strictement après (afterTs, afterId)
+     * dans l'ordre (timestamp, id), jusqu'à {@code to}.
+     * Recherche directe dans idx_sensor_measurements_station_ts_id (bornes station_id et
+     * timestamp >= afterTs), lue dans l'ordre de l'index et arrêtée à la limite : le coût
+     * d'une page ne dépend pas de sa profondeur, à la différence d'un OFFSET qui relit
+     * toutes les lignes sautées. Filtre et tri sur m.station.id (colonne station_id) et non
+     * sur la station jointe : certains moteurs (H2) ne reconnaîtraient pas l'index.
+     */
+    @Query("""
+            select new sensorservice.web.dto.MeasurementResponse(
+                m.id, s.id, s.name, m.timestamp,
+                m.ph, m.temperature, m.turbidity, m.dissolvedOxygen, m.conductivity, m.qualityFlags)
+            from SensorMeasurement m join m.station s
+            where m.station.id = :stationId and m.timestamp <= :to
+              and m.timestamp >= :afterTs and (m.timestamp > :afterTs or m.id > :afterId)
+            order by m.station.id, m.timestamp, m.id
+            """)
+    List<MeasurementResponse> findPageAfter(
+            @Param("stationId") Long stationId,
+            @Param("afterTs") LocalDateTime afterTs,
+            @Param("afterId") long afterId,
+            @Param("to") LocalDateTime to,
+            Limit limit
+    );
+
+    /**
+     * Dernière mesure de chaque station, en une requête ensembliste : une seule ligne par
+     * station, les mesures de même timestamp étant départagées par id (le plus grand)
+     */
+    @Transactional(readOnly = true)
+    @Query("""
+            select new sensorservice.web.dto.MeasurementResponse(
+                m.id, s.id, s.name, m.timestamp,
+                m.ph, m.temperature, m.turbidity, m.dissolvedOxygen, m.conductivity, m.qualityFlags)
+            from SensorMeasurement m join m.station s
+            where m.id = (
+                select max(m2.id) from SensorMeasurement m2
+                where m2.station = m.station
+                  and m2.timestamp = (
+                    select max(m3.timestamp) from SensorMeasurement m3 where m3.station = m.station))
+            """)
+    List<MeasurementResponse> findLatestPerStation();
+
+    /**
+     * Dernière mesure de chacune des stations demandées, en une requête ensembliste
+     * (une ligne par station, départage par id comme {@link #findLatestPerStation()})
+     */
+    @Transactional(readOnly = true)
+    @Query("""
+            select new sensorservice.web.dto.MeasurementResponse(
+                m.id, s.id, s.name, m.timestamp,
+                m.ph, m.temperature, m.turbidity, m.dissolvedOxygen, m.conductivity, m.qualityFlags)
+            from SensorMeasurement m join m.station s
+            where s.id in :stationIds
+              and m.id = (
+                select max(m2.id) from SensorMeasurement m2
+                where m2.station = m.station
+                  and m2.timestamp = (
+                    select max(m3.timestamp) from SensorMeasurement m3 where m3.station = m.station))
+            """)
+    List<MeasurementResponse> findLatestForStations(@Param("stationIds") Collection<Long> stationIds);
+}
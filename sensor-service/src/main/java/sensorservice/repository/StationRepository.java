@@ -1,10 +1,34 @@
 package sensorservice.repository;
 
 import sensorservice.domain.entity.Station;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface StationRepository extends JpaRepository<Station, Long> {
     Optional<Station> findByCode(String code);
+
+    /**
+     * Transaction en écriture (et non readOnly comme les lectures héritées) : toujours lu sur
+     * le primaire. Le catalogue en mémoire est rechargé juste après une modification, un
+     * réplica en retard y remettrait l'ancienne version jusqu'à la suivante.
+     */
+    @Override
+    @Transactional
+    List<Station> findAll();
+
+    /**
+     * Verrouille les stations (SELECT ... FOR UPDATE), toujours dans l'ordre des ids
+     * pour éviter les interblocages entre transactions concurrentes
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Station s where s.id in :ids order by s.id")
+    List<Station> lockAllById(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,147 @@
+package sensorservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sensorservice.web.dto.MeasurementResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index mémoire de la dernière mesure connue par station
+ *
+ * Alimenté par le chemin d'écriture (après le commit : une mesure annulée n'y entre
+ * jamais) et préchargé au démarrage, il permet de servir
+ * /api/measurements/latest sans aller-retour base. Une mise à jour ne remplace
+ * l'entrée existante que si la mesure est plus récente (timestamp, puis id).
+ *
+ * Métriques exposées :
+ * - sensor.latest.index.requests{result=hit|miss}
+ * - sensor.latest.index.size
+ */
+@Component
+public class LatestMeasurementIndex {
+
+    private final Map<Long, MeasurementResponse> latestByStation = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private volatile boolean warmedUp;
+
+    public LatestMeasurementIndex(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("sensor.latest.index.requests")
+                .description("Lectures de la dernière mesure par station")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("sensor.latest.index.requests")
+                .description("Lectures de la dernière mesure par station")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("sensor.latest.index.size", latestByStation, Map::size)
+                .description("Nombre de stations présentes dans l'index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return la dernière mesure connue, ou null si la station n'est pas indexée
+     */
+    public MeasurementResponse get(Long stationId) {
+        MeasurementResponse latest = latestByStation.get(stationId);
+        if (latest != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return latest;
+    }
+
+    /**
+     * Lecture sans comptage hit/miss (usage interne)
+     */
+    public MeasurementResponse peek(Long stationId) {
+        return latestByStation.get(stationId);
+    }
+
+    /**
+     * @return instantané de toutes les entrées, trié par station
+     */
+    public List<MeasurementResponse> snapshot() {
+        return latestByStation.values().stream()
+                .sorted(Comparator.comparing(MeasurementResponse::getStationId))
+                .toList();
+    }
+
+    public void update(MeasurementResponse measurement) {
+        latestByStation.merge(measurement.getStationId(), measurement,
+                (current, candidate) -> isNewer(candidate, current) ? candidate : current);
+    }
+
+    public void updateAll(Collection<MeasurementResponse> measurements) {
+        measurements.forEach(this::update);
+    }
+
+    /**
+     * Met à jour l'index après le commit de la transaction courante (immédiatement
+     * hors transaction) ; rien n'est appliqué en cas de rollback.
+     */
+    public void updateAfterCommit(Collection<MeasurementResponse> measurements) {
+        if (measurements.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            updateAll(measurements);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<MeasurementResponse> pending = (List<MeasurementResponse>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<MeasurementResponse> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(LatestMeasurementIndex.this);
+                    if (status == STATUS_COMMITTED) {
+                        updateAll(created);
+                    }
+                }
+            });
+            pending = created;
+        }
+        pending.addAll(measurements);
+    }
+
+    /**
+     * Marque l'index comme complet : toute station ayant des mesures y figure
+     */
+    public void markWarmedUp() {
+        warmedUp = true;
+    }
+
+    public boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    public void evict(Long stationId) {
+        latestByStation.remove(stationId);
+    }
+
+    public int size() {
+        return latestByStation.size();
+    }
+
+    private static boolean isNewer(MeasurementResponse candidate, MeasurementResponse current) {
+        int byTime = candidate.getTimestamp().compareTo(current.getTimestamp());
+        if (byTime != 0) {
+            return byTime > 0;
+        }
+        return candidate.getId() != null && current.getId() != null && candidate.getId() > current.getId();
+    }
+}
@@ -0,0 +1,228 @@
+package sensorservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sensorservice.archive.MeasurementColumns;
+import sensorservice.domain.enums.QualityFlag;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Détection d'anomalies en ligne sur le chemin d'écriture des mesures
+ *
+ * Pour chaque station et chaque paramètre, l'état tient dans quelques tableaux
+ * primitifs de taille fixe : moyenne et variance à décroissance exponentielle (EWMA),
+ * dernière valeur (brute et retenue), nombre de répétitions à l'identique. Une mesure est comparée à cet
+ * état puis l'y intègre ; aucune requête base, mémoire constante par station.
+ *
+ * Contrôles (voir {@link QualityFlag}) :
+ * - bornes physiques, toujours actives
+ * - valeur répétée {@code stuck-count} fois de suite
+ * - pic : écart à la moyenne au-delà de {@code spike-sigma} écarts-types
+ * - variation depuis la mesure précédente au-delà du taux maximal plausible (plus le bruit)
+ * Les deux derniers attendent {@code warmup} mesures (écart-type encore non significatif).
+ * Une valeur en pic n'entre dans la moyenne que ramenée à la borne (un capteur qui déraille
+ * ne déplace pas la référence d'un coup, un vrai changement de niveau finit par être suivi).
+ *
+ * L'état est en mémoire : il repart de zéro au redémarrage (période de chauffe).
+ *
+ * Métriques exposées :
+ * - sensor.quality.flagged{flag=out_of_range|spike|stuck|rate_of_change}
+ * - sensor.quality.stations
+ */
+@Component
+public class MeasurementAnomalyDetector {
+
+    // rang des paramètres dans les tableaux d'état
+    private static final int PH = 0;
+    private static final int TEMPERATURE = 1;
+    private static final int TURBIDITY = 2;
+    private static final int DISSOLVED_OXYGEN = 3;
+    private static final int CONDUCTIVITY = 4;
+    private static final int PARAMETERS = 5;
+
+    // bornes physiques d'une eau de surface : pH, °C, NTU, mg/L, µS/cm
+    private static final double[] MIN_VALUE = {2.0, -2.0, 0.0, 0.0, 1.0};
+    private static final double[] MAX_VALUE = {12.0, 45.0, 1000.0, 20.0, 10000.0};
+    // résolution des capteurs : plancher de l'écart-type (série parfaitement plate)
+    private static final double[] MIN_SIGMA = {0.02, 0.1, 0.1, 0.05, 2.0};
+    // variation plausible par heure
+    private static final double[] MAX_RATE_PER_HOUR = {1.0, 4.0, 200.0, 4.0, 300.0};
+    // mesure précédente trop ancienne pour juger d'un taux de variation
+    private static final long MAX_RATE_GAP_MICROS = 6 * 3_600_000_000L;
+    private static final double MICROS_PER_HOUR = 3_600_000_000.0;
+
+    /**
+     * Etat d'une station ; accès sous son propre verrou
+     */
+    private static final class StationState {
+        final double[] mean = new double[PARAMETERS];
+        final double[] variance = new double[PARAMETERS];
+        final double[] last = new double[PARAMETERS];
+        final double[] lastAccepted = new double[PARAMETERS];
+        final int[] repeats = new int[PARAMETERS];
+        final long[] samples = new long[PARAMETERS];
+        long lastMicros = Long.MIN_VALUE;
+    }
+
+    private final Map<Long, StationState> states = new ConcurrentHashMap<>();
+    private final Counter[] flagged;
+
+    // poids de la nouvelle mesure dans la moyenne (0.05 : ~20 dernières mesures)
+    @Value("${sensor.quality.ewma-alpha:0.05}")
+    private double alpha = 0.05;
+
+    @Value("${sensor.quality.spike-sigma:4.0}")
+    private double spikeSigma = 4.0;
+
+    @Value("${sensor.quality.stuck-count:10}")
+    private int stuckCount = 10;
+
+    @Value("${sensor.quality.warmup:20}")
+    private int warmup = 20;
+
+    @Autowired
+    public MeasurementAnomalyDetector(MeterRegistry meterRegistry) {
+        this.flagged = new Counter[QualityFlag.values().length];
+        for (QualityFlag flag : QualityFlag.values()) {
+            flagged[flag.ordinal()] = Counter.builder("sensor.quality.flagged")
+                    .description("Mesures marquées par la détection d'anomalies")
+                    .tag("flag", flag.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("sensor.quality.stations", states, Map::size)
+                .description("Stations suivies par la détection d'anomalies")
+                .register(meterRegistry);
+    }
+
+    // détecteur détaché : réglages et compteurs partagés, état propre
+    private MeasurementAnomalyDetector(MeasurementAnomalyDetector settings) {
+        this.flagged = settings.flagged;
+        this.alpha = settings.alpha;
+        this.spikeSigma = settings.spikeSigma;
+        this.stuckCount = settings.stuckCount;
+        this.warmup = settings.warmup;
+    }
+
+    /**
+     * Détecteur de mêmes réglages avec un état vierge, pour un import historique :
+     * des mesures anciennes ne doivent ni être jugées sur l'état courant des stations
+     * ni le modifier.
+     */
+    public MeasurementAnomalyDetector detached() {
+        return new MeasurementAnomalyDetector(this);
+    }
+
+    /**
+     * Contrôle une mesure et l'intègre à l'état de sa station
+     * @return masque des {@link QualityFlag} levés (0 : rien à signaler)
+     */
+    public int inspect(long stationId, LocalDateTime timestamp, double ph, double temperature,
+                       double turbidity, double dissolvedOxygen, double conductivity) {
+        return inspect(stationId, MeasurementColumns.toMicros(timestamp),
+                ph, temperature, turbidity, dissolvedOxygen, conductivity);
+    }
+
+    /**
+     * @param micros horodatage en microsecondes depuis l'epoch (UTC)
+     */
+    public int inspect(long stationId, long micros, double ph, double temperature,
+                       double turbidity, double dissolvedOxygen, double conductivity) {
+        StationState state = states.computeIfAbsent(stationId, id -> new StationState());
+        int flags;
+        synchronized (state) {
+            long elapsed = micros - state.lastMicros;
+            // hors ordre ou après une longue interruption : pas de taux de variation
+            double hours = state.lastMicros != Long.MIN_VALUE && elapsed > 0 && elapsed <= MAX_RATE_GAP_MICROS
+                    ? elapsed / MICROS_PER_HOUR
+                    : -1;
+            flags = check(state, PH, ph, hours)
+                    | check(state, TEMPERATURE, temperature, hours)
+                    | check(state, TURBIDITY, turbidity, hours)
+                    | check(state, DISSOLVED_OXYGEN, dissolvedOxygen, hours)
+                    | check(state, CONDUCTIVITY, conductivity, hours);
+            if (micros > state.lastMicros) {
+                state.lastMicros = micros;
+            }
+        }
+        if (flags != 0) {
+            count(flags);
+        }
+        return flags;
+    }
+
+    private int check(StationState state, int p, double x, double hours) {
+        if (!(x >= MIN_VALUE[p] && x <= MAX_VALUE[p])) {
+            // valeur aberrante : n'entre pas dans l'état
+            return QualityFlag.OUT_OF_RANGE.mask();
+        }
+        int flags = 0;
+        long samples = state.samples[p];
+        if (samples == 0) {
+            state.mean[p] = x;
+            state.last[p] = x;
+            state.lastAccepted[p] = x;
+            state.samples[p] = 1;
+            return 0;
+        }
+
+        if (x == state.last[p]) {
+            if (++state.repeats[p] >= stuckCount - 1) {
+                flags |= QualityFlag.STUCK.mask();
+            }
+        } else {
+            state.repeats[p] = 0;
+        }
+
+        double mean = state.mean[p];
+        double sigma = Math.max(Math.sqrt(state.variance[p]), MIN_SIGMA[p]);
+        double band = spikeSigma * sigma;
+        double accepted = x;
+        if (samples >= warmup) {
+            if (Math.abs(x - mean) > band) {
+                flags |= QualityFlag.SPIKE.mask();
+                accepted = x > mean ? mean + band : mean - band;
+            }
+            // par rapport à la précédente valeur retenue : le retour à la normale après un pic n'est pas signalé
+            if (hours > 0 && Math.abs(x - state.lastAccepted[p]) > MAX_RATE_PER_HOUR[p] * hours + band) {
+                flags |= QualityFlag.RATE_OF_CHANGE.mask();
+            }
+        }
+
+        // moyenne et variance exponentielles, forme incrémentale
+        double diff = accepted - mean;
+        double increment = alpha * diff;
+        state.mean[p] = mean + increment;
+        state.variance[p] = (1 - alpha) * (state.variance[p] + diff * increment);
+        state.last[p] = x;
+        state.lastAccepted[p] = accepted;
+        state.samples[p] = samples + 1;
+        return flags;
+    }
+
+    private void count(int flags) {
+        for (QualityFlag flag : QualityFlag.values()) {
+            if (flag.isSet(flags)) {
+                flagged[flag.ordinal()].increment();
+            }
+        }
+    }
+
+    /**
+     * Oublie une station (supprimée)
+     */
+    public void evict(Long stationId) {
+        states.remove(stationId);
+    }
+
+    public int trackedStations() {
+        return states.size();
+    }
+}
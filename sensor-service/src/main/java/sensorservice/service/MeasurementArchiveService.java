@@ -0,0 +1,252 @@
+package sensorservice.service;
+
+import sensorservice.archive.MeasurementBlockCodec;
+import sensorservice.archive.MeasurementColumns;
+import sensorservice.domain.entity.MeasurementArchiveBlock;
+import sensorservice.domain.entity.SensorMeasurement;
+import sensorservice.domain.entity.Station;
+import sensorservice.repository.MeasurementArchiveBlockRepository;
+import sensorservice.repository.SensorMeasurementRepository;
+import sensorservice.repository.StationRepository;
+import sensorservice.web.dto.MeasurementArchiveResponse;
+import sensorservice.web.dto.MeasurementResponse;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Archive des données froides
+ *
+ * Les journées closes plus anciennes que {@code sensor.archive.after-days} sont
+ * déplacées, station par station, de sensor_measurements vers des blocs
+ * colonnaires compressés (une ligne par station et par jour). Les lectures de
+ * plage combinent l'archive et la table vivante.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MeasurementArchiveService {
+
+    private final MeasurementArchiveBlockRepository blockRepository;
+    private final SensorMeasurementRepository measurementRepository;
+    private final StationRepository stationRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    // opt-in : l'archivage retire les lignes de la table vivante
+    @Value("${sensor.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sensor.archive.after-days:30}")
+    private int afterDays = 30;
+
+    @Value("${sensor.archive.max-windows-per-run:1000}")
+    private int maxWindowsPerRun = 1000;
+
+    @Scheduled(cron = "${sensor.archive.cron:0 45 2 * * *}")
+    public void archiveScheduled() {
+        if (enabled) {
+            archiveBefore(LocalDate.now().minusDays(afterDays).atStartOfDay());
+        }
+    }
+
+    /**
+     * Archive toutes les journées antérieures à {@code cutoff} (début de journée),
+     * une transaction par journée station.
+     */
+    public MeasurementArchiveResponse archiveBefore(LocalDateTime cutoff) {
+        long start = System.currentTimeMillis();
+        int windows = 0;
+        long rows = 0;
+        long bytes = 0;
+
+        for (Long stationId : measurementRepository.findStationIdsWithMeasurementsBefore(cutoff)) {
+            while (windows < maxWindowsPerRun) {
+                Optional<SensorMeasurement> oldest = measurementRepository
+                        .findFirstByStationIdAndTimestampBeforeOrderByTimestampAsc(stationId, cutoff);
+                if (oldest.isEmpty()) {
+                    break;
+                }
+                LocalDateTime windowStart = oldest.get().getTimestamp().toLocalDate().atStartOfDay();
+                MeasurementArchiveBlock block = transactionTemplate.execute(
+                        status -> archiveWindow(stationId, windowStart, windowStart.plusDays(1)));
+                windows++;
+                if (block != null) {
+                    rows += block.getRowCount();
+                    bytes += block.getPayload().length;
+                }
+            }
+        }
+
+        long durationMs = System.currentTimeMillis() - start;
+        double bytesPerRow = rows > 0 ? (double) bytes / rows : 0;
+        if (windows > 0) {
+            log.info("Archivage avant {} : {} journées, {} mesures, {} octets ({} o/mesure) en {} ms",
+                    cutoff, windows, rows, bytes, Math.round(bytesPerRow * 10) / 10.0, durationMs);
+        }
+        return MeasurementArchiveResponse.builder()
+                .windows(windows)
+                .rows(rows)
+                .encodedBytes(bytes)
+                .bytesPerRow(Math.round(bytesPerRow * 10) / 10.0)
+                .durationMs(durationMs)
+                .build();
+    }
+
+    /**
+     * Déplace une journée d'une station dans son bloc d'archive (fusionné avec le bloc
+     * existant si des mesures tardives sont arrivées après un premier archivage).
+     * La station est verrouillée : aucune écriture concurrente ne peut s'intercaler
+     * entre la lecture et la suppression des lignes.
+     */
+    MeasurementArchiveBlock archiveWindow(Long stationId, LocalDateTime windowStart, LocalDateTime windowEnd) {
+        stationRepository.lockAllById(List.of(stationId));
+
+        List<SensorMeasurement> live = measurementRepository.findWindow(stationId, windowStart, windowEnd);
+        if (live.isEmpty()) {
+            return null;
+        }
+
+        MeasurementColumns columns = new MeasurementColumns(live.size());
+        for (SensorMeasurement m : live) {
+            columns.add(m.getId(), MeasurementColumns.toMicros(m.getTimestamp()),
+                    m.getPh(), m.getTemperature(), m.getTurbidity(), m.getDissolvedOxygen(), m.getConductivity(),
+                    (byte) m.getSource().ordinal(), m.getQualityFlags().byteValue());
+        }
+
+        MeasurementArchiveBlock block = blockRepository.findByStationIdAndWindowStart(stationId, windowStart)
+                .orElseGet(() -> MeasurementArchiveBlock.builder()
+                        .stationId(stationId)
+                        .windowStart(windowStart)
+                        .windowEnd(windowEnd)
+                        .build());
+        if (block.getPayload() != null) {
+            columns = MeasurementColumns.mergeSorted(MeasurementBlockCodec.decode(block.getPayload()), columns);
+        }
+        block.setPayload(MeasurementBlockCodec.encode(columns));
+        block.setRowCount(columns.size());
+        block.setFormatVersion(MeasurementBlockCodec.FORMAT_VERSION);
+        blockRepository.save(block);
+
+        measurementRepository.deleteWindow(stationId, windowStart, windowEnd);
+        return block;
+    }
+
+    /**
+     * Parcourt les mesures archivées d'une station comprises dans [from, to], dans
+     * l'ordre chronologique, un bloc décodé à la fois.
+     */
+    @Transactional(readOnly = true)
+    public long forEachArchived(Long stationId, LocalDateTime from, LocalDateTime to,
+                                MeasurementColumns.RowConsumer consumer) {
+        long fromMicros = MeasurementColumns.toMicros(from);
+        long toMicros = MeasurementColumns.toMicros(to);
+        long count = 0;
+        try (Stream<MeasurementArchiveBlock> blocks = blockRepository.streamOverlapping(stationId, from, to)) {
+            var iterator = blocks.iterator();
+            while (iterator.hasNext()) {
+                MeasurementArchiveBlock block = iterator.next();
+                MeasurementColumns columns = MeasurementBlockCodec.decode(block.getPayload());
+                entityManager.detach(block);
+                for (int row = 0; row < columns.size(); row++) {
+                    long ts = columns.timestampMicros(row);
+                    if (ts >= fromMicros && ts <= toMicros) {
+                        consumer.accept(columns, row);
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Au plus {@code limit} mesures archivées strictement après le curseur (jusqu'à {@code to}),
+     * dans l'ordre (timestamp, id) : seuls les blocs à partir de la journée du curseur
+     * sont décodés, et le parcours s'arrête dès la page remplie.
+     */
+    @Transactional(readOnly = true)
+    public List<MeasurementResponse> findArchivedAfter(Station station, MeasurementCursor after,
+                                                       LocalDateTime to, int limit) {
+        List<MeasurementResponse> rows = new ArrayList<>(Math.min(limit, 1024));
+        long toMicros = MeasurementColumns.toMicros(to);
+        try (Stream<MeasurementArchiveBlock> blocks = blockRepository.streamOverlapping(
+                station.getId(), after.timestamp(), to)) {
+            var iterator = blocks.iterator();
+            while (iterator.hasNext() && rows.size() < limit) {
+                MeasurementArchiveBlock block = iterator.next();
+                MeasurementColumns columns = MeasurementBlockCodec.decode(block.getPayload());
+                entityManager.detach(block);
+                for (int row = 0; row < columns.size() && rows.size() < limit; row++) {
+                    if (columns.timestampMicros(row) > toMicros) {
+                        break;
+                    }
+                    if (after.isBefore(columns.timestamp(row), columns.id(row))) {
+                        rows.add(toResponse(columns, row, station));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Dernière mesure archivée d'une station (station sans mesure récente)
+     */
+    @Transactional(readOnly = true)
+    public Optional<MeasurementResponse> findLatest(Station station) {
+        return blockRepository.findFirstByStationIdOrderByWindowStartDesc(station.getId())
+                .map(block -> MeasurementBlockCodec.decode(block.getPayload()))
+                .filter(columns -> columns.size() > 0)
+                .map(columns -> toResponse(columns, columns.size() - 1, station));
+    }
+
+    /**
+     * Au plus {@code limit} mesures archivées parmi les plus récentes d'une station, de la plus
+     * récente à la plus ancienne : blocs décodés à rebours, parcours arrêté dès la limite atteinte.
+     * Transaction en écriture (primaire), comme la lecture de la table vivante qu'elle complète.
+     */
+    @Transactional
+    public List<MeasurementResponse> findLatest(Station station, int limit) {
+        List<MeasurementResponse> rows = new ArrayList<>(Math.min(limit, 1024));
+        try (Stream<MeasurementArchiveBlock> blocks = blockRepository.streamNewestFirst(station.getId())) {
+            var iterator = blocks.iterator();
+            while (iterator.hasNext() && rows.size() < limit) {
+                MeasurementArchiveBlock block = iterator.next();
+                MeasurementColumns columns = MeasurementBlockCodec.decode(block.getPayload());
+                entityManager.detach(block);
+                for (int row = columns.size() - 1; row >= 0 && rows.size() < limit; row--) {
+                    rows.add(toResponse(columns, row, station));
+                }
+            }
+        }
+        return rows;
+    }
+
+    static MeasurementResponse toResponse(MeasurementColumns c, int row, Station station) {
+        return MeasurementResponse.builder()
+                .id(c.id(row))
+                .stationId(station.getId())
+                .stationName(station.getName())
+                .timestamp(c.timestamp(row))
+                .ph(c.ph(row))
+                .temperature(c.temperature(row))
+                .turbidity(c.turbidity(row))
+                .dissolvedOxygen(c.dissolvedOxygen(row))
+                .conductivity(c.conductivity(row))
+                .qualityFlags(c.qualityFlags(row) & 0xFF)
+                .build();
+    }
+}
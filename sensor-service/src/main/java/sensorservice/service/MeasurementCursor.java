@@ -0,0 +1,60 @@
+package sensorservice.service;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position dans une plage de mesures triée par (timestamp, id) : dernière ligne renvoyée
+ *
+ * Transmise au client sous forme opaque (20 octets en base64url) : il la renvoie
+ * telle quelle pour obtenir la page suivante.
+ */
+public record MeasurementCursor(LocalDateTime timestamp, long id) {
+
+    private static final int SIZE = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE)
+                .putLong(timestamp.toEpochSecond(ZoneOffset.UTC))
+                .putInt(timestamp.getNano())
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @throws IllegalArgumentException curseur illisible
+     */
+    public static MeasurementCursor decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (bytes.length != SIZE) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        if (nanos < 0 || nanos > 999_999_999) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new MeasurementCursor(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC), buffer.getLong());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Ordre (timestamp, id) : vrai si la ligne se trouve strictement après le curseur
+     */
+    public boolean isBefore(LocalDateTime otherTimestamp, long otherId) {
+        int byTime = timestamp.compareTo(otherTimestamp);
+        return byTime < 0 || (byTime == 0 && id < otherId);
+    }
+}
@@ -0,0 +1,398 @@
+package sensorservice.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sensorservice.domain.entity.SensorMeasurement;
+import sensorservice.domain.entity.Station;
+import sensorservice.domain.enums.MeasurementSource;
+import sensorservice.ingest.MeasurementCsvParser;
+import sensorservice.ingest.MeasurementCsvParser.Chunk;
+import sensorservice.repository.SensorMeasurementRepository;
+import sensorservice.web.dto.MeasurementCreateRequest;
+import sensorservice.web.dto.MeasurementImportResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Import de jeux de données historiques au format CSV (voir {@link MeasurementCsvParser})
+ *
+ * Le fichier est lu en flux, jamais chargé en entier :
+ * - le thread de la requête découpe le flux en paquets de {@code chunk-size} lignes ;
+ * - les paquets sont analysés et validés en parallèle ({@code parse-threads}) ;
+ * - ils sont écrits dans l'ordre du fichier, une transaction par paquet, avec au plus
+ *   {@code 2 x parse-threads} paquets en mémoire (le lecteur attend l'écriture).
+ *
+ * Ecriture : COPY sous PostgreSQL (identifiants pris dans sensor_measurements_seq, par
+ * blocs compatibles avec l'optimiseur "pooled" d'Hibernate), sinon INSERT en batch JDBC
+ * via {@link SensorMeasurementService#createMeasurements}. Dans les deux cas les agrégats
+ * sont mis à jour dans la transaction du paquet et les partitions mensuelles des dates
+ * importées sont créées avant la première écriture.
+ *
+ * Les lignes passent par la détection d'anomalies avec un état propre à l'import
+ * ({@link MeasurementAnomalyDetector#detached()}), dans l'ordre du fichier.
+ *
+ * Un paquet en échec interrompt l'import : les paquets précédents restent commités.
+ */
+@Service
+@Slf4j
+public class MeasurementImportService {
+
+    // = allocationSize de SensorMeasurement (INCREMENT BY de sensor_measurements_seq)
+    private static final int SEQUENCE_INCREMENT = 50;
+    private static final int MAX_REJECTED_SAMPLES = 50;
+    private static final String COPY_SQL = "COPY sensor_measurements (id, station_id, timestamp, ph, temperature,"
+            + " turbidity, dissolved_oxygen, conductivity, source, quality_flags) FROM STDIN (FORMAT csv)";
+
+    private final StationService stationService;
+    private final SensorMeasurementService measurementService;
+    private final SensorMeasurementRepository measurementRepository;
+    private final MeasurementRollupService rollupService;
+    private final MeasurementPartitionService partitionService;
+    private final LatestMeasurementIndex latestIndex;
+    private final RecentMeasurementBuffer recentBuffer;
+    private final MeasurementAnomalyDetector anomalyDetector;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Value("${sensor.import.chunk-size:10000}")
+    private int chunkSize = 10000;
+
+    // 0 = nombre de processeurs
+    @Value("${sensor.import.parse-threads:0}")
+    private int parseThreads;
+
+    @Value("${sensor.import.copy-enabled:true}")
+    private boolean copyEnabled = true;
+
+    private volatile Boolean postgres;
+
+    public MeasurementImportService(StationService stationService,
+                                    SensorMeasurementService measurementService,
+                                    SensorMeasurementRepository measurementRepository,
+                                    MeasurementRollupService rollupService,
+                                    MeasurementPartitionService partitionService,
+                                    LatestMeasurementIndex latestIndex,
+                                    RecentMeasurementBuffer recentBuffer,
+                                    MeasurementAnomalyDetector anomalyDetector,
+                                    JdbcTemplate jdbcTemplate,
+                                    EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager) {
+        this.stationService = stationService;
+        this.measurementService = measurementService;
+        this.measurementRepository = measurementRepository;
+        this.rollupService = rollupService;
+        this.partitionService = partitionService;
+        this.latestIndex = latestIndex;
+        this.recentBuffer = recentBuffer;
+        this.anomalyDetector = anomalyDetector;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Etat d'un import, manipulé par le seul thread de la requête
+     */
+    private static final class Progress {
+        final MeasurementAnomalyDetector detector;
+        long rowsRead;
+        long inserted;
+        long flagged;
+        final Map<String, Long> rejectedByReason = new LinkedHashMap<>();
+        final List<MeasurementImportResponse.RejectedRow> rejectedSamples = new ArrayList<>();
+        final Set<Long> stations = new HashSet<>();
+        final Set<YearMonth> months = new HashSet<>();
+
+        Progress(MeasurementAnomalyDetector detector) {
+            this.detector = detector;
+        }
+
+        long rejected() {
+            return rejectedByReason.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    /**
+     * @param stationId station des lignes si le fichier n'a pas de colonne station
+     * @param start     horodatage de la première ligne si le fichier n'a pas de colonne Timestamp
+     * @param interval  écart entre deux lignes successives dans ce cas
+     * @throws IllegalArgumentException fichier vide ou colonnes obligatoires absentes
+     */
+    public MeasurementImportResponse importCsv(InputStream in,
+                                               Long stationId,
+                                               LocalDateTime start,
+                                               Duration interval) throws IOException {
+        long startNanos = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("Empty CSV");
+        }
+
+        Map<String, Long> idsByCode = new HashMap<>();
+        Set<Long> knownIds = new HashSet<>();
+        for (Station station : stationService.findAll()) {
+            idsByCode.put(station.getCode(), station.getId());
+            knownIds.add(station.getId());
+        }
+        if (stationId != null && !knownIds.contains(stationId)) {
+            throw new IllegalArgumentException("Unknown station: " + stationId);
+        }
+        MeasurementCsvParser parser = new MeasurementCsvParser(header, idsByCode::get, knownIds::contains,
+                stationId, start, interval);
+
+        boolean copy = useCopy();
+        int threads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads,
+                r -> new Thread(r, "measurement-import-" + threadCount.incrementAndGet()));
+        Progress progress = new Progress(anomalyDetector.detached());
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try {
+            long row = 0;
+            List<String> lines = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == chunkSize) {
+                    submit(pool, parser, lines, row, inFlight);
+                    row += lines.size();
+                    lines = new ArrayList<>(chunkSize);
+                    if (inFlight.size() >= threads * 2) {
+                        write(await(inFlight.poll()), copy, progress);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                submit(pool, parser, lines, row, inFlight);
+            }
+            while (!inFlight.isEmpty()) {
+                write(await(inFlight.poll()), copy, progress);
+            }
+        } finally {
+            pool.shutdownNow();
+            if (!progress.stations.isEmpty()) {
+                latestIndex.updateAll(measurementRepository.findLatestForStations(progress.stations));
+                progress.stations.forEach(recentBuffer::invalidate);
+            }
+        }
+
+        long durationNanos = System.nanoTime() - startNanos;
+        double rowsPerSecond = durationNanos > 0 ? progress.inserted * 1_000_000_000.0 / durationNanos : 0;
+        log.info("Import CSV : {} lignes lues, {} insérées ({} marquées), {} rejetées en {} ms ({} lignes/s, {}, {} threads d'analyse)",
+                progress.rowsRead, progress.inserted, progress.flagged, progress.rejected(), durationNanos / 1_000_000,
+                Math.round(rowsPerSecond), copy ? "COPY" : "batch JDBC", threads);
+
+        return MeasurementImportResponse.builder()
+                .rowsRead(progress.rowsRead)
+                .inserted(progress.inserted)
+                .rejected(progress.rejected())
+                .flagged(progress.flagged)
+                .rejectedByReason(progress.rejectedByReason)
+                .rejectedSamples(progress.rejectedSamples)
+                .method(copy ? "COPY" : "JDBC_BATCH")
+                .parseThreads(threads)
+                .chunkSize(chunkSize)
+                .durationMs(durationNanos / 1_000_000)
+                .rowsPerSecond(Math.round(rowsPerSecond * 10.0) / 10.0)
+                .build();
+    }
+
+    private static void submit(ExecutorService pool, MeasurementCsvParser parser, List<String> lines, long firstRow,
+                               ArrayDeque<Future<Chunk>> inFlight) {
+        inFlight.add(pool.submit(() -> parser.parse(lines, firstRow)));
+    }
+
+    private static Chunk await(Future<Chunk> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import CSV interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void write(Chunk chunk, boolean copy, Progress progress) {
+        progress.rowsRead += chunk.rowsRead();
+        chunk.rejectedByReason().forEach((reason, count) -> progress.rejectedByReason.merge(reason, count, Long::sum));
+        for (MeasurementCsvParser.Rejected rejected : chunk.rejectedSamples()) {
+            if (progress.rejectedSamples.size() == MAX_REJECTED_SAMPLES) {
+                break;
+            }
+            progress.rejectedSamples.add(new MeasurementImportResponse.RejectedRow(rejected.line(), rejected.reason()));
+        }
+        if (chunk.size() == 0) {
+            return;
+        }
+
+        Set<YearMonth> newMonths = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            YearMonth month = YearMonth.from(chunk.timestamp(i));
+            if (progress.months.add(month)) {
+                newMonths.add(month);
+            }
+            progress.stations.add(chunk.stationId(i));
+        }
+        partitionService.ensurePartitions(newMonths);
+
+        if (copy) {
+            progress.flagged += transactionTemplate.execute(status -> copyChunk(chunk, progress.detector));
+        } else {
+            progress.flagged += measurementService.createMeasurements(toRequests(chunk), MeasurementSource.CSV_IMPORT,
+                    progress.detector).getFlagged();
+        }
+        progress.inserted += chunk.size();
+    }
+
+    /**
+     * COPY d'un paquet puis mise à jour des agrégats, dans la transaction courante
+     * @return nombre de lignes marquées par la détection d'anomalies
+     */
+    private int copyChunk(Chunk chunk, MeasurementAnomalyDetector detector) {
+        Set<Long> stationIds = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            stationIds.add(chunk.stationId(i));
+        }
+        // une transaction par paquet : ses stations sont verrouillées d'un coup, avant le COPY
+        rollupService.lockStations(stationIds);
+
+        long[] ids = allocateIds(chunk.size());
+        int[] flags = new int[chunk.size()];
+        int flagged = 0;
+        StringBuilder rows = new StringBuilder(chunk.size() * 96);
+        for (int i = 0; i < chunk.size(); i++) {
+            flags[i] = detector.inspect(chunk.stationId(i), chunk.timestamp(i), chunk.ph(i), chunk.temperature(i),
+                    chunk.turbidity(i), chunk.dissolvedOxygen(i), chunk.conductivity(i));
+            if (flags[i] != 0) {
+                flagged++;
+            }
+            rows.append(ids[i]).append(',')
+                    .append(chunk.stationId(i)).append(',')
+                    .append(chunk.timestamp(i)).append(',')
+                    .append(chunk.ph(i)).append(',')
+                    .append(chunk.temperature(i)).append(',')
+                    .append(chunk.turbidity(i)).append(',')
+                    .append(chunk.dissolvedOxygen(i)).append(',')
+                    .append(chunk.conductivity(i)).append(',')
+                    .append(MeasurementSource.CSV_IMPORT.name()).append(',')
+                    .append(flags[i]).append('\n');
+        }
+        // connexion de la transaction en cours (exposée par le JpaTransactionManager)
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(rows.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        // les agrégats n'utilisent que station, horodatage et valeurs : entités non persistées
+        List<SensorMeasurement> measurements = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            measurements.add(SensorMeasurement.builder()
+                    .id(ids[i])
+                    .station(entityManager.getReference(Station.class, chunk.stationId(i)))
+                    .timestamp(chunk.timestamp(i))
+                    .ph(chunk.ph(i))
+                    .temperature(chunk.temperature(i))
+                    .turbidity(chunk.turbidity(i))
+                    .dissolvedOxygen(chunk.dissolvedOxygen(i))
+                    .conductivity(chunk.conductivity(i))
+                    .source(MeasurementSource.CSV_IMPORT)
+                    .qualityFlags(flags[i])
+                    .build());
+        }
+        rollupService.apply(measurements);
+        entityManager.flush();
+        entityManager.clear();
+        return flagged;
+    }
+
+    /**
+     * Identifiants pris dans sensor_measurements_seq : chaque valeur V réserve le bloc
+     * [V - 49, V], comme l'optimiseur "pooled" d'Hibernate (aucun recouvrement possible
+     * avec les insertions JPA concurrentes). Les valeurs inférieures à 50 (séquence neuve)
+     * ne correspondent pas à un bloc complet et sont écartées.
+     */
+    private long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        int allocated = 0;
+        while (allocated < count) {
+            int blocks = (count - allocated + SEQUENCE_INCREMENT - 1) / SEQUENCE_INCREMENT;
+            List<Long> values = jdbcTemplate.queryForList(
+                    "SELECT nextval('sensor_measurements_seq') FROM generate_series(1, ?)", Long.class, blocks);
+            for (long hi : values) {
+                if (hi < SEQUENCE_INCREMENT) {
+                    continue;
+                }
+                for (long id = hi - SEQUENCE_INCREMENT + 1; id <= hi && allocated < count; id++) {
+                    ids[allocated++] = id;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static List<MeasurementCreateRequest> toRequests(Chunk chunk) {
+        List<MeasurementCreateRequest> requests = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            MeasurementCreateRequest request = new MeasurementCreateRequest();
+            request.setStationId(chunk.stationId(i));
+            request.setTimestamp(chunk.timestamp(i));
+            request.setPh(chunk.ph(i));
+            request.setTemperature(chunk.temperature(i));
+            request.setTurbidity(chunk.turbidity(i));
+            request.setDissolvedOxygen(chunk.dissolvedOxygen(i));
+            request.setConductivity(chunk.conductivity(i));
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private boolean useCopy() {
+        if (!copyEnabled) {
+            return false;
+        }
+        if (postgres == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,319 @@
+package sensorservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import sensorservice.domain.enums.MeasurementSource;
+import sensorservice.web.dto.MeasurementCreateRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File d'ingestion asynchrone (write-behind) des mesures IoT
+ *
+ * Activée par {@code sensor.ingest.async.enabled}. Les lectures acceptées sont
+ * placées dans une file bornée (en nombre de mesures, commits en cours inclus)
+ * puis écrites par un unique thread en commits groupés : le thread prend tout ce
+ * qui est disponible, jusqu'à {@code max-group-size}. Peu de trafic donne de
+ * petits groupes (latence faible), une rafale s'accumule pendant le commit en
+ * cours et part dans le suivant (débit élevé, une seule connexion du pool).
+ *
+ * File pleine : {@link #offer} refuse le lot entier (429 côté API).
+ * Les lectures inexploitables (station inconnue, paramètre manquant) sont écartées
+ * dès l'acceptation, une à une. Base indisponible (erreur transitoire) : le groupe
+ * est conservé et réécrit avec un délai croissant, jusqu'à {@code max-retry-backoff-ms}.
+ * A l'arrêt, la file est vidée après l'arrêt du serveur web et avant la
+ * fermeture de la DataSource.
+ *
+ * Métriques exposées :
+ * - sensor.ingest.queue.depth (mesures acceptées non encore commitées)
+ * - sensor.ingest.queue.commit (latence des commits groupés)
+ * - sensor.ingest.queue.group.size
+ * - sensor.ingest.queue.rejected / sensor.ingest.queue.dropped
+ * - sensor.ingest.queue.retries
+ */
+@Component
+@Slf4j
+public class MeasurementIngestQueue implements SmartLifecycle {
+
+    // arrêté après le serveur web (WebServerStartStopLifecycle = graceful - 1024)
+    private static final int PHASE = WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+
+    private static final long INITIAL_RETRY_BACKOFF_MS = 100;
+
+    private final SensorMeasurementService measurementService;
+    private final StationService stationService;
+    private final LinkedBlockingQueue<MeasurementCreateRequest> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Timer commitTimer;
+    private final DistributionSummary groupSizes;
+    private final Counter rejected;
+    private final Counter dropped;
+    private final Counter retries;
+
+    @Value("${sensor.ingest.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sensor.ingest.async.capacity:50000}")
+    private int capacity = 50000;
+
+    @Value("${sensor.ingest.async.max-group-size:2000}")
+    private int maxGroupSize = 2000;
+
+    @Value("${sensor.ingest.async.shutdown-timeout-seconds:30}")
+    private int shutdownTimeoutSeconds = 30;
+
+    @Value("${sensor.ingest.async.max-retry-backoff-ms:10000}")
+    private long maxRetryBackoffMs = 10000;
+
+    private volatile boolean running;
+    // fin du délai d'arrêt : au-delà, une erreur transitoire n'est plus réessayée
+    private volatile long stopDeadlineNanos;
+    private Thread writer;
+
+    public MeasurementIngestQueue(SensorMeasurementService measurementService, StationService stationService,
+                                  MeterRegistry meterRegistry) {
+        this.measurementService = measurementService;
+        this.stationService = stationService;
+        Gauge.builder("sensor.ingest.queue.depth", pending, AtomicInteger::get)
+                .description("Mesures acceptées en attente d'écriture")
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("sensor.ingest.queue.commit")
+                .description("Durée des commits groupés de la file d'ingestion")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.groupSizes = DistributionSummary.builder("sensor.ingest.queue.group.size")
+                .description("Nombre de mesures par commit groupé")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("sensor.ingest.queue.rejected")
+                .description("Mesures refusées, file pleine")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("sensor.ingest.queue.dropped")
+                .description("Mesures écartées (station inconnue, paramètre manquant, erreur base)")
+                .register(meterRegistry);
+        this.retries = Counter.builder("sensor.ingest.queue.retries")
+                .description("Nouvelles tentatives de commit après une erreur transitoire")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Accepte un lot entier ou le refuse entier si la place manque (ou si la file est arrêtée).
+     * Les lectures sans horodatage reçoivent l'heure d'acceptation.
+     */
+    public boolean offer(List<MeasurementCreateRequest> readings) {
+        if (!tryOffer(readings)) {
+            rejected.increment(readings.size());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Comme {@link #offer}, sans compter de refus : pour les appelants qui retiennent
+     * le lot et réessaient (listener ligne, qui cesse alors de lire la socket).
+     * Les lectures inexploitables sont écartées (sensor.ingest.queue.dropped), le reste est accepté.
+     */
+    public boolean tryOffer(List<MeasurementCreateRequest> readings) {
+        if (!running) {
+            return false;
+        }
+        List<MeasurementCreateRequest> writable = writable(readings);
+        if (!reserve(writable.size())) {
+            return false;
+        }
+        if (writable.size() < readings.size()) {
+            dropped.increment(readings.size() - writable.size());
+            log.warn("{} mesures écartées à l'acceptation: station inconnue ou paramètre manquant",
+                    readings.size() - writable.size());
+        }
+        LocalDateTime receivedAt = LocalDateTime.now();
+        for (MeasurementCreateRequest reading : writable) {
+            if (reading.getTimestamp() == null) {
+                reading.setTimestamp(receivedAt);
+            }
+        }
+        queue.addAll(writable);
+        return true;
+    }
+
+    // erreurs de données : une par lecture, détectées avant d'acquitter le lot
+    private List<MeasurementCreateRequest> writable(List<MeasurementCreateRequest> readings) {
+        List<MeasurementCreateRequest> writable = new ArrayList<>(readings.size());
+        for (MeasurementCreateRequest reading : readings) {
+            if (reading != null && reading.getPh() != null && reading.getTemperature() != null
+                    && reading.getTurbidity() != null && reading.getDissolvedOxygen() != null
+                    && reading.getConductivity() != null && stationService.exists(reading.getStationId())) {
+                writable.add(reading);
+            }
+        }
+        return writable.size() == readings.size() ? readings : writable;
+    }
+
+    /**
+     * @return mesures acceptées non encore commitées (commit en cours inclus)
+     */
+    public int depth() {
+        return pending.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private boolean reserve(int count) {
+        while (true) {
+            int current = pending.get();
+            if (current + count > capacity) {
+                return false;
+            }
+            if (pending.compareAndSet(current, current + count)) {
+                return true;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        List<MeasurementCreateRequest> group = new ArrayList<>(Math.min(maxGroupSize, 4096));
+        while (running || !queue.isEmpty()) {
+            MeasurementCreateRequest first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // on ne s'arrête que sur running=false, pour ne rien perdre
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            group.add(first);
+            queue.drainTo(group, maxGroupSize - 1);
+            try {
+                commit(group);
+            } finally {
+                pending.addAndGet(-group.size());
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Un commit pour tout le groupe. Erreur transitoire (base indisponible) : le groupe
+     * est réécrit avec un délai croissant, rien n'est perdu. Autre échec (par ex. une
+     * station supprimée depuis l'acceptation) : les mesures sont rejouées une par une
+     * pour n'écarter que les fautives.
+     */
+    void commit(List<MeasurementCreateRequest> group) {
+        long start = System.nanoTime();
+        try {
+            writeWithRetry(group);
+            commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            groupSizes.record(group.size());
+            return;
+        } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+            dropped.increment(group.size());
+            log.error("Arrêt: groupe de {} mesures abandonné, base indisponible: {}", group.size(), e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Echec du commit groupé de {} mesures, reprise unitaire: {}", group.size(), e.getMessage());
+        }
+        for (int i = 0; i < group.size(); i++) {
+            MeasurementCreateRequest reading = group.get(i);
+            try {
+                writeWithRetry(List.of(reading));
+            } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+                dropped.increment(group.size() - i);
+                log.error("Arrêt: {} mesures abandonnées, base indisponible: {}", group.size() - i, e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                dropped.increment();
+                log.error("Mesure abandonnée (station {}, {}): {}",
+                        reading.getStationId(), reading.getTimestamp(), e.getMessage());
+            }
+        }
+    }
+
+    // réessaie tant que la file tourne (puis jusqu'à la fin du délai d'arrêt)
+    private void writeWithRetry(List<MeasurementCreateRequest> readings) {
+        long backoffMs = INITIAL_RETRY_BACKOFF_MS;
+        while (true) {
+            try {
+                measurementService.createMeasurements(readings, MeasurementSource.IOT_SIMULATED);
+                return;
+            } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+                if (!running && System.nanoTime() - stopDeadlineNanos >= 0) {
+                    throw e;
+                }
+                retries.increment();
+                log.warn("Base indisponible, nouvel essai de {} mesures dans {} ms: {}",
+                        readings.size(), backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ignored) {
+                    // on ne s'arrête que sur running=false, pour ne rien perdre
+                }
+                backoffMs = Math.min(backoffMs * 2, Math.max(maxRetryBackoffMs, INITIAL_RETRY_BACKOFF_MS));
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "measurement-ingest-writer");
+        writer.start();
+        log.info("Ingestion asynchrone active (capacité {}, groupes de {} max)", capacity, maxGroupSize);
+    }
+
+    /**
+     * Refuse les nouveaux lots puis attend que le thread d'écriture ait vidé la file
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        stopDeadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(shutdownTimeoutSeconds);
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive() || pending.get() > 0) {
+            log.error("Arrêt: {} mesures non écrites après {} s", pending.get(), shutdownTimeoutSeconds);
+        } else {
+            log.info("Arrêt: file d'ingestion vidée");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
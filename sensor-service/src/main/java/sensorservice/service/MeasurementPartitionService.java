@@ -0,0 +1,172 @@
+package sensorservice.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Maintenance des partitions mensuelles de sensor_measurements (PostgreSQL)
+ *
+ * - crée la partition par défaut et les partitions du mois précédent jusqu'à
+ *   {@code months-ahead} mois à l'avance ;
+ * - applique la rétention : au-delà de {@code retention-months}, une partition est
+ *   supprimée (drop) ou détachée (detach) pour être archivée puis supprimée à la main.
+ *
+ * Les agrégats horaires/journaliers ne sont pas concernés par la rétention.
+ * Sans effet si la base n'est pas PostgreSQL ou si la table n'est pas partitionnée.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MeasurementPartitionService {
+
+    static final String PARENT_TABLE = "sensor_measurements";
+    static final String DEFAULT_PARTITION = PARENT_TABLE + "_default";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${sensor.partitions.months-ahead:3}")
+    private int monthsAhead = 3;
+
+    // 0 = conservation illimitée
+    @Value("${sensor.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${sensor.partitions.retention-action:detach}")
+    private String retentionAction = "detach";
+
+    // au démarrage, avant toute écriture (DataInitializer en dépend) : schema-postgresql.sql
+    // a déjà été exécuté, l'injection du JdbcTemplate l'impose
+    @PostConstruct
+    @Scheduled(cron = "${sensor.partitions.maintenance-cron:0 15 2 * * *}")
+    public void maintainPartitions() {
+        maintainPartitions(YearMonth.now());
+    }
+
+    void maintainPartitions(YearMonth currentMonth) {
+        if (!isPartitioned()) {
+            return;
+        }
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION
+                + " PARTITION OF " + PARENT_TABLE + " DEFAULT");
+
+        Set<String> existing = new HashSet<>(listPartitions());
+        for (YearMonth month = currentMonth.minusMonths(1);
+             !month.isAfter(currentMonth.plusMonths(monthsAhead));
+             month = month.plusMonths(1)) {
+            if (!existing.contains(partitionName(month))) {
+                createPartition(month);
+            }
+        }
+
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = currentMonth.minusMonths(retentionMonths);
+            for (String partition : existing) {
+                partitionMonth(partition)
+                        .filter(month -> month.isBefore(oldestKept))
+                        .ifPresent(month -> expirePartition(partition));
+            }
+        }
+    }
+
+    /**
+     * Crée les partitions manquantes des mois donnés, avant une écriture hors de la
+     * fenêtre courante (import historique) : sinon les lignes tomberaient dans la
+     * partition par défaut et bloqueraient ensuite la création de la partition du mois.
+     */
+    public void ensurePartitions(Collection<YearMonth> months) {
+        if (months.isEmpty() || !isPartitioned()) {
+            return;
+        }
+        Set<String> existing = new HashSet<>(listPartitions());
+        for (YearMonth month : new TreeSet<>(months)) {
+            if (!existing.contains(partitionName(month))) {
+                createPartition(month);
+            }
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name
+                    + " PARTITION OF " + PARENT_TABLE
+                    + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            log.info("Partition {} créée", name);
+        } catch (DataAccessException e) {
+            // typiquement : des lignes de ce mois sont déjà dans la partition par défaut
+            log.error("Impossible de créer la partition {} (lignes déjà présentes dans {} ?) : {}",
+                    name, DEFAULT_PARTITION, e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private void expirePartition(String partition) {
+        if ("drop".equalsIgnoreCase(retentionAction)) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            log.info("Rétention : partition {} supprimée", partition);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+            log.info("Rétention : partition {} détachée (à archiver avec pg_dump -t {} puis supprimer)",
+                    partition, partition);
+        }
+    }
+
+    private boolean isPartitioned() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            log.debug("Partitionnement ignoré : base {}", product);
+            return false;
+        }
+        String relkind = jdbcTemplate.queryForObject(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.oid = to_regclass(?)", String.class, PARENT_TABLE);
+        if (!"p".equals(relkind)) {
+            log.warn("{} n'est pas partitionnée : exécuter scripts/sensor_db_partitioning_migration.sql", PARENT_TABLE);
+            return false;
+        }
+        return true;
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?)
+                """, String.class, PARENT_TABLE);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARENT_TABLE + "_" + month.format(PARTITION_SUFFIX);
+    }
+
+    static Optional<YearMonth> partitionMonth(String partitionName) {
+        String prefix = PARENT_TABLE + "_";
+        if (!partitionName.startsWith(prefix)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(partitionName.substring(prefix.length()), PARTITION_SUFFIX));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();  // partition par défaut ou nommée à la main
+        }
+    }
+}
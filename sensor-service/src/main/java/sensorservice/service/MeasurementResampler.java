@@ -0,0 +1,138 @@
+package sensorservice.service;
+
+import sensorservice.archive.MeasurementColumns;
+import sensorservice.domain.enums.ResampleMethod;
+import sensorservice.web.dto.MeasurementResponse;
+import sensorservice.web.dto.ResampledMeasurementResponse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Rééchantillonnage à pas fixe d'une suite de mesures triée par horodatage, en une passe
+ *
+ * Points de grille t(k) = from + k x step jusqu'à to inclus. Chaque mesure reçue émet les
+ * points qui la précèdent : seules la dernière mesure vue et la suivante sont gardées, la
+ * mémoire est constante quelle que soit la plage.
+ *
+ * - last : valeur de la dernière mesure à t(k), si elle date de moins de maxGap
+ * - linear : interpolation entre les mesures qui encadrent t(k), si elles sont à moins de
+ *   maxGap l'une de l'autre (une mesure exactement à t(k) est reprise telle quelle)
+ *
+ * Au-delà de maxGap, les valeurs du point sont null. Un point sans mesure brute dans
+ * ]t(k) - step, t(k)] est marqué gap (valeur comblée ou absente).
+ *
+ * Les mesures doivent couvrir [from - maxGap, to] (last) ou [from - maxGap, to + maxGap]
+ * (linear) pour que les premiers et derniers points aient leurs voisines.
+ */
+public class MeasurementResampler implements Consumer<MeasurementResponse> {
+
+    private final long fromMicros;
+    private final long stepMicros;
+    private final long maxGapMicros;
+    private final long pointCount;
+    private final ResampleMethod method;
+    private final Consumer<ResampledMeasurementResponse> sink;
+
+    private long next;                      // prochain point de grille à émettre
+    private int samples;                    // mesures brutes dans l'intervalle du point suivant
+
+    // dernière mesure vue (horodatage <= point suivant)
+    private boolean hasPrevious;
+    private long previousMicros;
+    private double previousPh;
+    private double previousTemperature;
+    private double previousTurbidity;
+    private double previousDissolvedOxygen;
+    private double previousConductivity;
+    private int previousFlags;
+
+    public MeasurementResampler(LocalDateTime from, LocalDateTime to, Duration step, ResampleMethod method,
+                                Duration maxGap, Consumer<ResampledMeasurementResponse> sink) {
+        this.fromMicros = MeasurementColumns.toMicros(from);
+        this.stepMicros = step.toNanos() / 1_000;
+        this.maxGapMicros = maxGap.toNanos() / 1_000;
+        this.pointCount = pointCount(from, to, step);
+        this.method = method;
+        this.sink = sink;
+    }
+
+    /**
+     * @return nombre de points de la grille de [from, to] (to inclus s'il tombe sur la grille)
+     */
+    public static long pointCount(LocalDateTime from, LocalDateTime to, Duration step) {
+        long span = MeasurementColumns.toMicros(to) - MeasurementColumns.toMicros(from);
+        return span < 0 ? 0 : span / (step.toNanos() / 1_000) + 1;
+    }
+
+    @Override
+    public void accept(MeasurementResponse m) {
+        long ts = MeasurementColumns.toMicros(m.getTimestamp());
+        while (next < pointCount && gridMicros(next) < ts) {
+            emit(m, ts);
+        }
+        // mesures antérieures à from (lues pour le premier point) : hors de tout intervalle
+        if (next < pointCount && ts > gridMicros(next) - stepMicros) {
+            samples++;
+        }
+        hasPrevious = true;
+        previousMicros = ts;
+        previousPh = m.getPh();
+        previousTemperature = m.getTemperature();
+        previousTurbidity = m.getTurbidity();
+        previousDissolvedOxygen = m.getDissolvedOxygen();
+        previousConductivity = m.getConductivity();
+        previousFlags = m.getQualityFlags() != null ? m.getQualityFlags() : 0;
+    }
+
+    /**
+     * Emet les points restants (pas de mesure après eux)
+     * @return nombre total de points émis
+     */
+    public long finish() {
+        while (next < pointCount) {
+            emit(null, 0);
+        }
+        return pointCount;
+    }
+
+    private long gridMicros(long k) {
+        return fromMicros + k * stepMicros;
+    }
+
+    private void emit(MeasurementResponse following, long followingMicros) {
+        long t = gridMicros(next);
+        ResampledMeasurementResponse.ResampledMeasurementResponseBuilder point = ResampledMeasurementResponse.builder()
+                .timestamp(MeasurementColumns.fromMicros(t))
+                .samples(samples)
+                .gap(samples == 0);
+
+        if (hasPrevious && (previousMicros == t || (method == ResampleMethod.LAST && t - previousMicros <= maxGapMicros))) {
+            point.ph(previousPh)
+                    .temperature(previousTemperature)
+                    .turbidity(previousTurbidity)
+                    .dissolvedOxygen(previousDissolvedOxygen)
+                    .conductivity(previousConductivity)
+                    .qualityFlags(previousFlags);
+        } else if (method == ResampleMethod.LINEAR && hasPrevious && following != null
+                && followingMicros - previousMicros <= maxGapMicros) {
+            double w = (double) (t - previousMicros) / (followingMicros - previousMicros);
+            int followingFlags = following.getQualityFlags() != null ? following.getQualityFlags() : 0;
+            point.ph(interpolate(previousPh, following.getPh(), w))
+                    .temperature(interpolate(previousTemperature, following.getTemperature(), w))
+                    .turbidity(interpolate(previousTurbidity, following.getTurbidity(), w))
+                    .dissolvedOxygen(interpolate(previousDissolvedOxygen, following.getDissolvedOxygen(), w))
+                    .conductivity(interpolate(previousConductivity, following.getConductivity(), w))
+                    .qualityFlags(previousFlags | followingFlags);
+        }
+
+        sink.accept(point.build());
+        next++;
+        samples = 0;
+    }
+
+    private static double interpolate(double a, double b, double w) {
+        return a + (b - a) * w;
+    }
+}
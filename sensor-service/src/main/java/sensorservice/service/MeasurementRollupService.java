@@ -0,0 +1,181 @@
+package sensorservice.service;
+
+import sensorservice.domain.entity.MeasurementRollup;
+import sensorservice.domain.entity.SensorMeasurement;
+import sensorservice.domain.entity.Station;
+import sensorservice.domain.enums.RollupResolution;
+import sensorservice.repository.MeasurementRollupRepository;
+import sensorservice.repository.SensorMeasurementRepository;
+import sensorservice.repository.StationRepository;
+import sensorservice.web.dto.MeasurementRollupResponse;
+import sensorservice.web.dto.MeasurementRollupResponse.ParameterStats;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Maintient les agrégats horaires et journaliers des mesures
+ *
+ * Les agrégats sont mis à jour dans la transaction d'écriture des mesures : un lot
+ * est d'abord réduit en mémoire (un agrégat partiel par station/résolution/bucket),
+ * les lignes existantes sont lues en une seule requête, puis chaque agrégat partiel
+ * est fusionné dans sa ligne ou inséré.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MeasurementRollupService {
+
+    private static final int BACKFILL_PAGE_SIZE = 1000;
+
+    private final MeasurementRollupRepository rollupRepository;
+    private final SensorMeasurementRepository measurementRepository;
+    private final StationRepository stationRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Verrouille (SELECT ... FOR UPDATE, dans l'ordre des ids) toutes les stations qu'une
+     * transaction d'écriture va toucher, en une fois avant sa première écriture : deux
+     * écritures concurrentes sur une même station ne peuvent pas créer ou incrémenter le
+     * même bucket en parallèle. Verrouiller paquet par paquet empilerait les verrous dans
+     * l'ordre des paquets et non des ids (interblocage entre deux lots).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockStations(Collection<Long> stationIds) {
+        if (!stationIds.isEmpty()) {
+            stationRepository.lockAllById(new TreeSet<>(stationIds));
+        }
+    }
+
+    /**
+     * Applique des mesures fraîchement persistées aux agrégats.
+     * Leurs stations doivent déjà être verrouillées par {@link #lockStations} dans la transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Collection<SensorMeasurement> measurements) {
+        if (measurements.isEmpty()) {
+            return;
+        }
+
+        Map<RollupKey, MeasurementRollup> partials = new LinkedHashMap<>();
+        Set<Long> stationIds = new HashSet<>();
+        Set<LocalDateTime> bucketStarts = new HashSet<>();
+        for (SensorMeasurement m : measurements) {
+            Long stationId = m.getStation().getId();
+            stationIds.add(stationId);
+            for (RollupResolution resolution : RollupResolution.values()) {
+                LocalDateTime bucketStart = resolution.bucketStart(m.getTimestamp());
+                bucketStarts.add(bucketStart);
+                partials.computeIfAbsent(new RollupKey(stationId, resolution, bucketStart),
+                                k -> MeasurementRollup.empty(stationId, resolution, bucketStart))
+                        .add(m);
+            }
+        }
+
+        for (MeasurementRollup existing : rollupRepository.findByStationIdInAndBucketStartIn(stationIds, bucketStarts)) {
+            MeasurementRollup partial = partials.remove(
+                    new RollupKey(existing.getStationId(), existing.getResolution(), existing.getBucketStart()));
+            if (partial != null) {
+                existing.merge(partial);
+            }
+        }
+        // restent les buckets sans ligne existante
+        rollupRepository.saveAll(new ArrayList<>(partials.values()));
+    }
+
+    /**
+     * Agrégats d'une station sur une période ; les buckets aux bornes sont complets
+     * (ils peuvent donc couvrir un peu avant {@code from} et un peu après {@code to}).
+     */
+    @Transactional(readOnly = true)
+    public List<MeasurementRollupResponse> getRollups(Long stationId,
+                                                      RollupResolution resolution,
+                                                      LocalDateTime from,
+                                                      LocalDateTime to) {
+        return rollupRepository
+                .findByStationIdAndResolutionAndBucketStartBetweenOrderByBucketStartAsc(
+                        stationId, resolution, resolution.bucketStart(from), to)
+                .stream()
+                .map(MeasurementRollupService::toResponse)
+                .toList();
+    }
+
+    /**
+     * Construit les agrégats à partir des mesures existantes si la table est vide
+     * (premier démarrage après mise en place, ou données chargées hors service).
+     *
+     * Une transaction par station : seule la station en cours est verrouillée, l'ingestion
+     * des autres continue. Les agrégats qu'une écriture concurrente a créés pour la station
+     * avant son tour sont remplacés par la reconstruction, qui relit aussi ces mesures.
+     * Reconstruction interrompue : vider sensor_measurement_rollups pour la relancer.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() > 0 || measurementRepository.count() == 0) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long processed = 0;
+        for (Station station : stationRepository.findAll()) {
+            Long count = transactionTemplate.execute(status -> backfillStation(station.getId()));
+            processed += count != null ? count : 0;
+        }
+        log.info("Agrégats reconstruits à partir de {} mesures en {} ms",
+                processed, System.currentTimeMillis() - start);
+    }
+
+    private long backfillStation(Long stationId) {
+        stationRepository.lockAllById(List.of(stationId));
+        rollupRepository.deleteByStation(stationId);
+
+        long processed = 0;
+        long lastId = 0;
+        List<SensorMeasurement> page;
+        while (!(page = measurementRepository.findByStationIdAndIdGreaterThanOrderByIdAsc(
+                stationId, lastId, PageRequest.of(0, BACKFILL_PAGE_SIZE))).isEmpty()) {
+            apply(page);
+            lastId = page.get(page.size() - 1).getId();
+            processed += page.size();
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return processed;
+    }
+
+    private static MeasurementRollupResponse toResponse(MeasurementRollup r) {
+        long n = r.getSampleCount();
+        return MeasurementRollupResponse.builder()
+                .stationId(r.getStationId())
+                .resolution(r.getResolution().getParam())
+                .bucketStart(r.getBucketStart())
+                .count(n)
+                .ph(new ParameterStats(r.getPhMin(), r.getPhMax(), r.getPhSum() / n))
+                .temperature(new ParameterStats(r.getTemperatureMin(), r.getTemperatureMax(), r.getTemperatureSum() / n))
+                .turbidity(new ParameterStats(r.getTurbidityMin(), r.getTurbidityMax(), r.getTurbiditySum() / n))
+                .dissolvedOxygen(new ParameterStats(r.getDissolvedOxygenMin(), r.getDissolvedOxygenMax(), r.getDissolvedOxygenSum() / n))
+                .conductivity(new ParameterStats(r.getConductivityMin(), r.getConductivityMax(), r.getConductivitySum() / n))
+                .build();
+    }
+
+    private record RollupKey(Long stationId, RollupResolution resolution, LocalDateTime bucketStart) {
+    }
+}
@@ -0,0 +1,337 @@
+package sensorservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import sensorservice.web.dto.MeasurementResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Diffusion en direct des nouvelles mesures (Server-Sent Events)
+ *
+ * Chaque abonné a une file bornée ({@code buffer-size}) : publier ne fait qu'y déposer
+ * les mesures, sans jamais attendre un client. Les envois sont faits par un petit pool
+ * ({@code dispatch-threads}), un seul à la fois par abonné, par lots (un flush par lot).
+ * Un abonné trop lent perd les mesures les plus anciennes de sa file ; il reçoit alors
+ * un évènement {@code resync} (nombre de mesures perdues) pour recharger l'état courant.
+ *
+ * Les mesures sont publiées après le commit de la transaction qui les écrit.
+ * A l'abonnement, la dernière mesure connue de chaque station demandée est envoyée.
+ *
+ * Métriques exposées :
+ * - sensor.stream.subscribers
+ * - sensor.stream.events{result=sent|dropped}
+ */
+@Component
+@Slf4j
+public class MeasurementStreamHub {
+
+    static final String EVENT_MEASUREMENT = "measurement";
+    static final String EVENT_RESYNC = "resync";
+
+    private static final int MAX_EVENTS_PER_FLUSH = 256;
+
+    private final LatestMeasurementIndex latestIndex;
+    private final Set<Subscriber> allStations = new CopyOnWriteArraySet<>();
+    private final Map<Long, Set<Subscriber>> byStation = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter sent;
+    private final Counter dropped;
+
+    @Value("${sensor.stream.max-subscribers:10000}")
+    private int maxSubscribers = 10000;
+
+    // mesures en attente par abonné au-delà desquelles les plus anciennes sont perdues
+    @Value("${sensor.stream.buffer-size:256}")
+    private int bufferSize = 256;
+
+    @Value("${sensor.stream.dispatch-threads:4}")
+    private int dispatchThreads = 4;
+
+    // le navigateur (EventSource) se reconnecte seul à l'expiration
+    @Value("${sensor.stream.timeout-minutes:30}")
+    private long timeoutMinutes = 30;
+
+    private ExecutorService dispatchPool;
+    private Executor dispatcher;
+
+    final class Subscriber {
+        final SseEmitter emitter;
+        final Set<Long> stationIds;      // vide : toutes les stations
+        final ArrayBlockingQueue<MeasurementResponse> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicLong lost = new AtomicLong();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile boolean heartbeatDue;
+
+        Subscriber(SseEmitter emitter, Set<Long> stationIds) {
+            this.emitter = emitter;
+            this.stationIds = stationIds;
+        }
+    }
+
+    public MeasurementStreamHub(LatestMeasurementIndex latestIndex, MeterRegistry meterRegistry) {
+        this.latestIndex = latestIndex;
+        Gauge.builder("sensor.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Abonnés au flux SSE des mesures")
+                .register(meterRegistry);
+        this.sent = Counter.builder("sensor.stream.events")
+                .description("Mesures diffusées sur le flux SSE")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("sensor.stream.events")
+                .description("Mesures diffusées sur le flux SSE")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threads = new AtomicInteger();
+        dispatchPool = Executors.newFixedThreadPool(dispatchThreads, r -> {
+            Thread thread = new Thread(r, "measurement-stream-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher = dispatchPool;
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Subscriber subscriber : subscribers()) {
+            remove(subscriber);
+            subscriber.emitter.complete();
+        }
+        dispatchPool.shutdown();
+    }
+
+    /**
+     * @param stationIds stations suivies ; null ou vide : toutes
+     * @throws IllegalStateException nombre maximal d'abonnés atteint
+     */
+    public SseEmitter subscribe(Collection<Long> stationIds) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many stream subscribers (" + maxSubscribers + ")");
+        }
+        Set<Long> stations = stationIds != null ? Set.copyOf(stationIds) : Set.of();
+        Subscriber subscriber = new Subscriber(newEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes)), stations);
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+
+        if (stations.isEmpty()) {
+            allStations.add(subscriber);
+        } else {
+            for (Long stationId : stations) {
+                byStation.computeIfAbsent(stationId, id -> new CopyOnWriteArraySet<>()).add(subscriber);
+            }
+        }
+
+        // état initial : le client n'a rien à demander par ailleurs
+        List<MeasurementResponse> initial = stations.isEmpty()
+                ? latestIndex.snapshot()
+                : stations.stream().map(latestIndex::peek).filter(Objects::nonNull).toList();
+        initial.forEach(m -> enqueue(subscriber, m));
+        schedule(subscriber);
+        return subscriber.emitter;
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    public boolean hasSubscribers() {
+        return subscriberCount.get() > 0;
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Diffuse des mesures après le commit de la transaction courante (immédiatement
+     * hors transaction) ; rien n'est diffusé en cas de rollback.
+     */
+    public void publishAfterCommit(List<MeasurementResponse> measurements) {
+        if (measurements.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(measurements);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<MeasurementResponse> pending = (List<MeasurementResponse>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<MeasurementResponse> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MeasurementStreamHub.this);
+                    if (status == STATUS_COMMITTED) {
+                        publish(created);
+                    }
+                }
+            });
+            pending = created;
+        }
+        pending.addAll(measurements);
+    }
+
+    /**
+     * Dépose les mesures dans la file des abonnés concernés ; ne bloque jamais
+     */
+    public void publish(Collection<MeasurementResponse> measurements) {
+        if (!hasSubscribers()) {
+            return;
+        }
+        for (Subscriber subscriber : allStations) {
+            measurements.forEach(m -> enqueue(subscriber, m));
+            schedule(subscriber);
+        }
+        if (byStation.isEmpty()) {
+            return;
+        }
+        Map<Long, List<MeasurementResponse>> grouped = new HashMap<>();
+        for (MeasurementResponse m : measurements) {
+            if (byStation.containsKey(m.getStationId())) {
+                grouped.computeIfAbsent(m.getStationId(), id -> new ArrayList<>()).add(m);
+            }
+        }
+        Set<Subscriber> touched = new HashSet<>();
+        grouped.forEach((stationId, forStation) -> {
+            for (Subscriber subscriber : byStation.getOrDefault(stationId, Set.of())) {
+                forStation.forEach(m -> enqueue(subscriber, m));
+                touched.add(subscriber);
+            }
+        });
+        touched.forEach(this::schedule);
+    }
+
+    /**
+     * Commentaire SSE périodique : garde les connexions ouvertes à travers les proxys
+     * et détecte les clients partis.
+     */
+    @Scheduled(fixedDelayString = "${sensor.stream.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers()) {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, MeasurementResponse m) {
+        // file pleine : la plus ancienne mesure cède la place
+        while (!subscriber.buffer.offer(m)) {
+            if (subscriber.buffer.poll() != null) {
+                subscriber.lost.incrementAndGet();
+                dropped.increment();
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.closed.get() && subscriber.draining.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            while (!subscriber.closed.get()) {
+                Set<ResponseBodyEmitter.DataWithMediaType> events = new LinkedHashSet<>();
+                long lost = subscriber.lost.getAndSet(0);
+                if (lost > 0) {
+                    events.addAll(SseEmitter.event().name(EVENT_RESYNC)
+                            .data(Map.of("dropped", lost), MediaType.APPLICATION_JSON).build());
+                }
+                int count = 0;
+                MeasurementResponse m;
+                while (count < MAX_EVENTS_PER_FLUSH && (m = subscriber.buffer.poll()) != null) {
+                    events.addAll(SseEmitter.event().id(String.valueOf(m.getId())).name(EVENT_MEASUREMENT)
+                            .data(m, MediaType.APPLICATION_JSON).build());
+                    count++;
+                }
+                if (subscriber.heartbeatDue) {
+                    subscriber.heartbeatDue = false;
+                    if (events.isEmpty()) {
+                        events.addAll(SseEmitter.event().comment("keepalive").build());
+                    }
+                }
+                if (events.isEmpty()) {
+                    break;
+                }
+                subscriber.emitter.send(events);
+                sent.increment(count);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // client parti (ou émetteur déjà terminé)
+            // (après une IOException le conteneur signale lui-même l'erreur à Spring MVC)
+            log.debug("Abonné SSE retiré: {}", e.getMessage());
+            remove(subscriber);
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // publication arrivée entre la dernière lecture et la libération du drapeau
+        if (!subscriber.buffer.isEmpty() || subscriber.lost.get() > 0) {
+            schedule(subscriber);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        if (subscriber.stationIds.isEmpty()) {
+            allStations.remove(subscriber);
+        } else {
+            for (Long stationId : subscriber.stationIds) {
+                Set<Subscriber> forStation = byStation.get(stationId);
+                if (forStation != null) {
+                    forStation.remove(subscriber);
+                }
+            }
+        }
+        subscriber.buffer.clear();
+    }
+
+    private List<Subscriber> subscribers() {
+        Set<Subscriber> all = new LinkedHashSet<>(allStations);
+        byStation.values().forEach(all::addAll);
+        return new ArrayList<>(all);
+    }
+}
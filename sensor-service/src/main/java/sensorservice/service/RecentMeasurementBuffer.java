@@ -0,0 +1,331 @@
+package sensorservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sensorservice.domain.entity.SensorMeasurement;
+import sensorservice.web.dto.MeasurementResponse;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Tampon mémoire des N dernières mesures de chaque station (GET /api/measurements/recent)
+ *
+ * Un anneau de taille fixe ({@code sensor.recent.capacity}) par station, en tableaux
+ * primitifs (id, horodatage en nanosecondes depuis l'epoch, cinq paramètres, indicateurs qualité),
+ * trié par (timestamp, id) : une mesure arrivée en retard est insérée à sa place, une
+ * mesure plus ancienne que tout un anneau plein est ignorée.
+ *
+ * Alimenté après le commit des écritures (rien en cas de rollback). Un anneau n'est
+ * complet qu'une fois chargé depuis la base, à la première lecture de la station : les
+ * mesures écrites entre-temps sont fusionnées, sans doublon (même id).
+ *
+ * Lecture sans verrou : copie sous lecture optimiste (StampedLock), validée à la fin ;
+ * le verrou de lecture n'est pris qu'après plusieurs écritures concurrentes sur la station.
+ *
+ * Métriques exposées :
+ * - sensor.recent.requests{result=hit|miss}
+ * - sensor.recent.reads.locked
+ * - sensor.recent.stations
+ */
+@Component
+public class RecentMeasurementBuffer {
+
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    private final Map<Long, Ring> rings = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter lockedReads;
+
+    @Value("${sensor.recent.capacity:256}")
+    private int capacity = 256;
+
+    public RecentMeasurementBuffer(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("sensor.recent.requests")
+                .description("Lectures des dernières mesures d'une station")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("sensor.recent.requests")
+                .description("Lectures des dernières mesures d'une station")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.lockedReads = Counter.builder("sensor.recent.reads.locked")
+                .description("Lectures rejouées sous verrou (écritures concurrentes)")
+                .register(meterRegistry);
+        Gauge.builder("sensor.recent.stations", rings, Map::size)
+                .description("Stations ayant un anneau de mesures récentes")
+                .register(meterRegistry);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @param n nombre de mesures voulues (borné par la capacité)
+     * @return les n dernières mesures, de la plus ancienne à la plus récente,
+     * ou null si l'anneau de la station n'est pas encore chargé
+     */
+    public List<MeasurementResponse> get(Long stationId, int n) {
+        Ring ring = rings.get(stationId);
+        if (ring == null || !ring.loaded) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return ring.read(Math.max(0, Math.min(n, capacity)));
+    }
+
+    /**
+     * Charge l'anneau d'une station depuis des mesures lues en base, dans n'importe quel ordre
+     */
+    public void load(Long stationId, Collection<MeasurementResponse> measurements) {
+        Ring ring = ring(stationId);
+        for (MeasurementResponse m : measurements) {
+            ring.append(m.getId(), m.getStationName(), m.getTimestamp(), m.getPh(), m.getTemperature(),
+                    m.getTurbidity(), m.getDissolvedOxygen(), m.getConductivity(), m.getQualityFlags());
+        }
+        ring.loaded = true;
+    }
+
+    /**
+     * Ajoute des mesures après le commit de la transaction courante (immédiatement
+     * hors transaction) ; rien n'est ajouté en cas de rollback.
+     */
+    public void appendAfterCommit(Collection<SensorMeasurement> measurements) {
+        if (measurements.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            appendAll(measurements);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<SensorMeasurement> pending = (List<SensorMeasurement>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<SensorMeasurement> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RecentMeasurementBuffer.this);
+                    if (status == STATUS_COMMITTED) {
+                        appendAll(created);
+                    }
+                }
+            });
+            pending = created;
+        }
+        pending.addAll(measurements);
+    }
+
+    public void appendAll(Collection<SensorMeasurement> measurements) {
+        for (SensorMeasurement m : measurements) {
+            ring(m.getStation().getId()).append(m.getId(), m.getStation().getName(), m.getTimestamp(), m.getPh(),
+                    m.getTemperature(), m.getTurbidity(), m.getDissolvedOxygen(), m.getConductivity(),
+                    m.getQualityFlags());
+        }
+    }
+
+    /**
+     * Mesures écrites hors du chemin d'écriture (import) : l'anneau sera rechargé
+     * depuis la base à la prochaine lecture, son contenu actuel est conservé
+     */
+    public void invalidate(Long stationId) {
+        Ring ring = rings.get(stationId);
+        if (ring != null) {
+            ring.loaded = false;
+        }
+    }
+
+    public void evict(Long stationId) {
+        rings.remove(stationId);
+    }
+
+    private Ring ring(Long stationId) {
+        return rings.computeIfAbsent(stationId, id -> new Ring(id, capacity));
+    }
+
+    /**
+     * Anneau d'une station : position logique i (0 = plus ancienne) en (start + i) % capacité
+     */
+    final class Ring {
+        final Long stationId;
+        final long[] ids;
+        final long[] epochNanos;
+        final double[] ph;
+        final double[] temperature;
+        final double[] turbidity;
+        final double[] dissolvedOxygen;
+        final double[] conductivity;
+        final int[] qualityFlags;
+        final StampedLock lock = new StampedLock();
+        String stationName;
+        int start;
+        int size;
+        volatile boolean loaded;
+
+        Ring(Long stationId, int capacity) {
+            this.stationId = stationId;
+            this.ids = new long[capacity];
+            this.epochNanos = new long[capacity];
+            this.ph = new double[capacity];
+            this.temperature = new double[capacity];
+            this.turbidity = new double[capacity];
+            this.dissolvedOxygen = new double[capacity];
+            this.conductivity = new double[capacity];
+            this.qualityFlags = new int[capacity];
+        }
+
+        void append(long id, String name, LocalDateTime timestamp, double phValue, double temperatureValue,
+                    double turbidityValue, double dissolvedOxygenValue, double conductivityValue, Integer flags) {
+            long nanos = toEpochNanos(timestamp);
+            long stamp = lock.writeLock();
+            try {
+                int capacity = ids.length;
+                // position d'insertion, en partant de la plus récente (cas courant : en fin d'anneau)
+                int k = size;
+                while (k > 0) {
+                    int slot = (start + k - 1) % capacity;
+                    if (epochNanos[slot] < nanos || (epochNanos[slot] == nanos && ids[slot] < id)) {
+                        break;
+                    }
+                    if (ids[slot] == id) {
+                        return;
+                    }
+                    k--;
+                }
+                if (size == capacity) {
+                    if (k == 0) {
+                        return;
+                    }
+                    start = (start + 1) % capacity;
+                    size--;
+                    k--;
+                }
+                for (int j = size; j > k; j--) {
+                    copy((start + j - 1) % capacity, (start + j) % capacity);
+                }
+                int slot = (start + k) % capacity;
+                ids[slot] = id;
+                epochNanos[slot] = nanos;
+                ph[slot] = phValue;
+                temperature[slot] = temperatureValue;
+                turbidity[slot] = turbidityValue;
+                dissolvedOxygen[slot] = dissolvedOxygenValue;
+                conductivity[slot] = conductivityValue;
+                qualityFlags[slot] = flags != null ? flags : 0;
+                size++;
+                if (k == size - 1 && name != null) {
+                    stationName = name;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void copy(int from, int to) {
+            ids[to] = ids[from];
+            epochNanos[to] = epochNanos[from];
+            ph[to] = ph[from];
+            temperature[to] = temperature[from];
+            turbidity[to] = turbidity[from];
+            dissolvedOxygen[to] = dissolvedOxygen[from];
+            conductivity[to] = conductivity[from];
+            qualityFlags[to] = qualityFlags[from];
+        }
+
+        List<MeasurementResponse> read(int n) {
+            Snapshot snapshot = new Snapshot(n);
+            for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+                long stamp = lock.tryOptimisticRead();
+                if (stamp != 0) {
+                    snapshot.copyFrom(this);
+                    if (lock.validate(stamp)) {
+                        return snapshot.toResponses(stationId);
+                    }
+                }
+                Thread.onSpinWait();
+            }
+            lockedReads.increment();
+            long stamp = lock.readLock();
+            try {
+                snapshot.copyFrom(this);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            return snapshot.toResponses(stationId);
+        }
+    }
+
+    /**
+     * Copie locale des n dernières positions d'un anneau ; sous lecture optimiste, son
+     * contenu n'est fiable qu'une fois le tampon validé (les index restent toujours bornés)
+     */
+    private static final class Snapshot {
+        final long[] ids;
+        final long[] epochNanos;
+        final double[] values;
+        final int[] qualityFlags;
+        String stationName;
+        int count;
+
+        Snapshot(int n) {
+            ids = new long[n];
+            epochNanos = new long[n];
+            values = new double[n * 5];
+            qualityFlags = new int[n];
+        }
+
+        void copyFrom(Ring ring) {
+            int capacity = ring.ids.length;
+            int size = ring.size;
+            int first = ring.start;
+            stationName = ring.stationName;
+            count = Math.min(ids.length, Math.max(size, 0));
+            for (int i = 0; i < count; i++) {
+                int slot = Math.floorMod(first + size - count + i, capacity);
+                ids[i] = ring.ids[slot];
+                epochNanos[i] = ring.epochNanos[slot];
+                values[i * 5] = ring.ph[slot];
+                values[i * 5 + 1] = ring.temperature[slot];
+                values[i * 5 + 2] = ring.turbidity[slot];
+                values[i * 5 + 3] = ring.dissolvedOxygen[slot];
+                values[i * 5 + 4] = ring.conductivity[slot];
+                qualityFlags[i] = ring.qualityFlags[slot];
+            }
+        }
+
+        List<MeasurementResponse> toResponses(Long stationId) {
+            List<MeasurementResponse> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(new MeasurementResponse(ids[i], stationId, stationName, fromEpochNanos(epochNanos[i]),
+                        values[i * 5], values[i * 5 + 1], values[i * 5 + 2], values[i * 5 + 3], values[i * 5 + 4],
+                        qualityFlags[i]));
+            }
+            return result;
+        }
+    }
+
+    // tronqué à la microseconde, précision de la colonne : identique à une relecture en base
+    private static long toEpochNanos(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano() / 1_000 * 1_000;
+    }
+
+    private static LocalDateTime fromEpochNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
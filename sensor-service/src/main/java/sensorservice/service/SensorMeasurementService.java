@@ -3,21 +3,66 @@ package sensorservice.service;
 import sensorservice.domain.entity.SensorMeasurement;
 import sensorservice.domain.entity.Station;
 import sensorservice.domain.enums.MeasurementSource;
+import sensorservice.domain.enums.ResampleMethod;
 import sensorservice.repository.SensorMeasurementRepository;
+import sensorservice.web.dto.MeasurementBatchResponse;
+import sensorservice.web.dto.MeasurementCreateRequest;
+import sensorservice.web.dto.MeasurementPageResponse;
+import sensorservice.web.dto.MeasurementResponse;
+import sensorservice.web.dto.ResampledMeasurementResponse;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class SensorMeasurementService {
 
+    private static final int DEFAULT_JDBC_BATCH_SIZE = 50;
+    private static final Comparator<MeasurementResponse> PAGE_ORDER = Comparator
+            .comparing(MeasurementResponse::getTimestamp)
+            .thenComparing(MeasurementResponse::getId);
+
     private final SensorMeasurementRepository measurementRepository;
     private final StationService stationService;
+    private final EntityManager entityManager;
+    private final LatestMeasurementIndex latestIndex;
+    private final MeasurementRollupService rollupService;
+    private final MeasurementArchiveService archiveService;
+    private final MeasurementStreamHub streamHub;
+    private final MeasurementAnomalyDetector anomalyDetector;
+    private final RecentMeasurementBuffer recentBuffer;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:" + DEFAULT_JDBC_BATCH_SIZE + "}")
+    private int jdbcBatchSize = DEFAULT_JDBC_BATCH_SIZE;
 
-    public SensorMeasurement createManualMeasurement(
+    /**
+     * Saisie manuelle d'une mesure
+     * @return la mesure enregistrée, déjà projetée (la station chargée ici fournit son nom)
+     */
+    @Transactional
+    public MeasurementResponse createManualMeasurement(
             Long stationId,
             Double ph,
             Double temperature,
@@ -26,33 +71,404 @@ public class SensorMeasurementService {
             Double conductivity
     ) {
         Station station = stationService.getById(stationId);
+        LocalDateTime timestamp = LocalDateTime.now();
 
         SensorMeasurement measurement = SensorMeasurement.builder()
                 .station(station)
-                .timestamp(LocalDateTime.now())
+                .timestamp(timestamp)
                 .ph(ph)
                 .temperature(temperature)
                 .turbidity(turbidity)
                 .dissolvedOxygen(dissolvedOxygen)
                 .conductivity(conductivity)
                 .source(MeasurementSource.MANUAL_FORM)
+                .qualityFlags(anomalyDetector.inspect(stationId, timestamp,
+                        ph, temperature, turbidity, dissolvedOxygen, conductivity))
+                .build();
+
+        rollupService.lockStations(List.of(stationId));
+        SensorMeasurement saved = measurementRepository.save(measurement);
+        rollupService.apply(List.of(saved));
+        MeasurementResponse response = toResponse(saved, station);
+        latestIndex.updateAfterCommit(List.of(response));
+        recentBuffer.appendAfterCommit(List.of(saved));
+        streamHub.publishAfterCommit(List.of(response));
+        return response;
+    }
+
+    /**
+     * Ingestion d'un lot de mesures (passerelles IoT)
+     *
+     * Les stations sont résolues une seule fois pour tout le lot, puis les lignes
+     * sont écrites par paquets de {@code hibernate.jdbc.batch_size} : chaque paquet
+     * est flushé (un INSERT batch JDBC) puis le contexte de persistance est vidé
+     * pour que la mémoire reste bornée quelle que soit la taille du lot.
+     * Les agrégats horaires/journaliers sont mis à jour paquet par paquet, dans la même transaction.
+     * Les mesures sont diffusées aux abonnés du flux SSE et ajoutées aux anneaux des mesures
+     * récentes après le commit (sauf import historique), comme la mise à jour de l'index
+     * des dernières mesures.
+     * Chaque mesure passe par la détection d'anomalies (indicateurs qualité).
+     */
+    @Transactional
+    public MeasurementBatchResponse createMeasurements(List<MeasurementCreateRequest> requests,
+                                                       MeasurementSource source) {
+        return createMeasurements(requests, source, anomalyDetector);
+    }
+
+    /**
+     * Variante avec un détecteur dédié ({@link MeasurementAnomalyDetector#detached()}, import historique)
+     */
+    @Transactional
+    public MeasurementBatchResponse createMeasurements(List<MeasurementCreateRequest> requests,
+                                                       MeasurementSource source,
+                                                       MeasurementAnomalyDetector detector) {
+        long start = System.nanoTime();
+
+        Set<Long> stationIds = new HashSet<>();
+        for (MeasurementCreateRequest request : requests) {
+            stationIds.add(request.getStationId());
+        }
+        Map<Long, Station> stations = stationService.getByIds(stationIds);
+        // toutes les stations du lot, une fois et dans l'ordre des ids, avant le premier paquet
+        rollupService.lockStations(stationIds);
+
+        int batchSize = jdbcBatchSize > 0 ? jdbcBatchSize : DEFAULT_JDBC_BATCH_SIZE;
+        LocalDateTime receivedAt = LocalDateTime.now();
+        List<SensorMeasurement> chunk = new ArrayList<>(batchSize);
+        Map<Long, SensorMeasurement> newestByStation = new HashMap<>();
+        // null : personne à l'écoute, pas de copie des mesures
+        List<MeasurementResponse> live = source != MeasurementSource.CSV_IMPORT && streamHub.hasSubscribers()
+                ? new ArrayList<>(requests.size())
+                : null;
+        // import historique : les anneaux sont rechargés depuis la base en fin d'import
+        List<SensorMeasurement> recent = source != MeasurementSource.CSV_IMPORT
+                ? new ArrayList<>(requests.size())
+                : null;
+        int inserted = 0;
+        int flagged = 0;
+
+        for (MeasurementCreateRequest request : requests) {
+            LocalDateTime timestamp = request.getTimestamp() != null ? request.getTimestamp() : receivedAt;
+            int flags = detector.inspect(request.getStationId(), timestamp, request.getPh(),
+                    request.getTemperature(), request.getTurbidity(), request.getDissolvedOxygen(),
+                    request.getConductivity());
+            if (flags != 0) {
+                flagged++;
+            }
+            chunk.add(SensorMeasurement.builder()
+                    .station(stations.get(request.getStationId()))
+                    .timestamp(timestamp)
+                    .ph(request.getPh())
+                    .temperature(request.getTemperature())
+                    .turbidity(request.getTurbidity())
+                    .dissolvedOxygen(request.getDissolvedOxygen())
+                    .conductivity(request.getConductivity())
+                    .source(source)
+                    .qualityFlags(flags)
+                    .build());
+
+            if (chunk.size() == batchSize) {
+                inserted += flushChunk(chunk, newestByStation, live, recent);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            inserted += flushChunk(chunk, newestByStation, live, recent);
+        }
+        List<MeasurementResponse> newest = new ArrayList<>(newestByStation.size());
+        newestByStation.forEach((stationId, m) -> newest.add(toResponse(m, stations.get(stationId))));
+        latestIndex.updateAfterCommit(newest);
+        if (recent != null) {
+            recentBuffer.appendAfterCommit(recent);
+        }
+        if (live != null) {
+            streamHub.publishAfterCommit(live);
+        }
+
+        long durationNanos = System.nanoTime() - start;
+        double rowsPerSecond = durationNanos > 0 ? inserted * 1_000_000_000.0 / durationNanos : 0;
+        log.info("Lot de {} mesures inséré en {} ms ({} lignes/s, batch JDBC={})",
+                inserted, durationNanos / 1_000_000, Math.round(rowsPerSecond), batchSize);
+
+        return MeasurementBatchResponse.builder()
+                .received(requests.size())
+                .inserted(inserted)
+                .flagged(flagged)
+                .jdbcBatchSize(batchSize)
+                .durationMs(durationNanos / 1_000_000)
+                .rowsPerSecond(Math.round(rowsPerSecond * 10.0) / 10.0)
                 .build();
+    }
 
-        return measurementRepository.save(measurement);
+    private int flushChunk(List<SensorMeasurement> chunk, Map<Long, SensorMeasurement> newestByStation,
+                           List<MeasurementResponse> live, List<SensorMeasurement> recent) {
+        measurementRepository.saveAll(chunk);
+        rollupService.apply(chunk);
+        entityManager.flush();
+        entityManager.clear();
+        for (SensorMeasurement m : chunk) {
+            newestByStation.merge(m.getStation().getId(), m,
+                    (current, candidate) -> candidate.getTimestamp().isAfter(current.getTimestamp()) ? candidate : current);
+            if (live != null) {
+                live.add(toResponse(m, m.getStation()));
+            }
+        }
+        if (recent != null) {
+            recent.addAll(chunk);
+        }
+        int size = chunk.size();
+        chunk.clear();
+        return size;
     }
 
-    public List<SensorMeasurement> getMeasurementsForStation(
+    /**
+     * Mesures d'une plage : archive (données froides) puis table vivante, triées par (timestamp, id).
+     * La table vivante est lue en une requête projetée : aucune entité hydratée.
+     */
+    @Transactional(readOnly = true)
+    public List<MeasurementResponse> getMeasurementsForStation(
             Long stationId,
             LocalDateTime from,
             LocalDateTime to
     ) {
         Station station = stationService.getById(stationId);
-        return measurementRepository.findByStationAndTimestampBetween(station, from, to);
+        List<MeasurementResponse> live = measurementRepository.findByStationAndRange(stationId, from, to);
+
+        List<MeasurementResponse> archived = new ArrayList<>();
+        archiveService.forEachArchived(stationId, from, to,
+                (columns, row) -> archived.add(MeasurementArchiveService.toResponse(columns, row, station)));
+        if (archived.isEmpty()) {
+            return live;
+        }
+        archived.addAll(live);
+        archived.sort(PAGE_ORDER);
+        return archived;
     }
 
-    public SensorMeasurement getLatestMeasurement(Long stationId) {
+    /**
+     * Page d'une plage, triée par (timestamp, id), à partir d'un curseur (null : début de plage).
+     * Archive et table vivante sont lues chacune à partir du curseur puis fusionnées :
+     * une page profonde coûte autant que la première.
+     */
+    @Transactional(readOnly = true)
+    public MeasurementPageResponse getMeasurementPage(
+            Long stationId,
+            LocalDateTime from,
+            LocalDateTime to,
+            MeasurementCursor cursor,
+            int limit
+    ) {
         Station station = stationService.getById(stationId);
-        return measurementRepository.findFirstByStationOrderByTimestampDesc(station)
-                .orElse(null);
+        MeasurementCursor after = cursor != null && !cursor.timestamp().isBefore(from)
+                ? cursor
+                : new MeasurementCursor(from, Long.MIN_VALUE);
+
+        // une ligne de plus que demandé : indique s'il reste une page
+        List<MeasurementResponse> archived = archiveService.findArchivedAfter(station, after, to, limit + 1);
+        List<MeasurementResponse> live = measurementRepository.findPageAfter(
+                stationId, after.timestamp(), after.id(), to, Limit.of(limit + 1));
+
+        List<MeasurementResponse> items = new ArrayList<>(limit);
+        int a = 0;
+        int l = 0;
+        while (items.size() < limit && (a < archived.size() || l < live.size())) {
+            boolean takeArchived = l >= live.size()
+                    || (a < archived.size() && PAGE_ORDER.compare(archived.get(a), live.get(l)) <= 0);
+            items.add(takeArchived ? archived.get(a++) : live.get(l++));
+        }
+        boolean more = a < archived.size() || l < live.size();
+
+        MeasurementResponse last = more ? items.get(items.size() - 1) : null;
+        return MeasurementPageResponse.builder()
+                .items(items)
+                .nextCursor(last != null ? new MeasurementCursor(last.getTimestamp(), last.getId()).encode() : null)
+                .limit(limit)
+                .build();
+    }
+
+    /**
+     * Parcourt une plage ligne par ligne via un curseur côté base, sans matérialiser
+     * la liste : la mémoire reste constante quelle que soit la taille de la plage.
+     * Archive (bloc par bloc) et table vivante sont fusionnées au fil de l'eau dans l'ordre
+     * (timestamp, id) : la table vivante peut contenir des mesures plus anciennes que des
+     * journées archivées (horodatages tardifs des passerelles, import historique).
+     * @return nombre de lignes transmises au consommateur
+     */
+    @Transactional(readOnly = true)
+    public long streamMeasurementsForStation(
+            Long stationId,
+            LocalDateTime from,
+            LocalDateTime to,
+            Consumer<MeasurementResponse> consumer
+    ) {
+        Station station = stationService.getById(stationId);
+        try (Stream<MeasurementResponse> rows = measurementRepository.streamByStationAndRange(stationId, from, to)) {
+            Iterator<MeasurementResponse> live = rows.iterator();
+            MeasurementResponse[] nextLive = {live.hasNext() ? live.next() : null};
+            long[] count = {0};
+            archiveService.forEachArchived(stationId, from, to, (columns, row) -> {
+                MeasurementResponse archived = MeasurementArchiveService.toResponse(columns, row, station);
+                while (nextLive[0] != null && PAGE_ORDER.compare(nextLive[0], archived) < 0) {
+                    consumer.accept(nextLive[0]);
+                    count[0]++;
+                    nextLive[0] = live.hasNext() ? live.next() : null;
+                }
+                consumer.accept(archived);
+                count[0]++;
+            });
+            while (nextLive[0] != null) {
+                consumer.accept(nextLive[0]);
+                count[0]++;
+                nextLive[0] = live.hasNext() ? live.next() : null;
+            }
+            return count[0];
+        }
+    }
+
+    /**
+     * Série à pas fixe d'une plage ({@link MeasurementResampler}), calculée au fil du curseur
+     * de {@link #streamMeasurementsForStation} : la plage brute n'est jamais matérialisée.
+     * La lecture est élargie de maxGap avant from (et après to en linéaire) pour les voisines
+     * des points de bord.
+     * @return nombre de points transmis au consommateur
+     */
+    @Transactional(readOnly = true)
+    public long resampleMeasurementsForStation(
+            Long stationId,
+            LocalDateTime from,
+            LocalDateTime to,
+            Duration step,
+            ResampleMethod method,
+            Duration maxGap,
+            Consumer<ResampledMeasurementResponse> consumer
+    ) {
+        MeasurementResampler resampler = new MeasurementResampler(from, to, step, method, maxGap, consumer);
+        streamMeasurementsForStation(stationId, from.minus(maxGap),
+                method == ResampleMethod.LINEAR ? to.plus(maxGap) : to, resampler);
+        return resampler.finish();
+    }
+
+    /**
+     * Dernière mesure d'une station, servie depuis l'index mémoire.
+     * En cas d'absence (station sans mesure ou ajoutée après le préchargement),
+     * on retombe sur la base (une requête projetée) et on alimente l'index.
+     * La station n'est chargée que si la table vivante n'a rien : archive, ou station inconnue.
+     */
+    public MeasurementResponse getLatestMeasurement(Long stationId) {
+        MeasurementResponse cached = latestIndex.get(stationId);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<MeasurementResponse> rows = measurementRepository.findLatestByStation(stationId, Limit.of(1));
+        MeasurementResponse latest = !rows.isEmpty()
+                ? rows.get(0)
+                : archiveService.findLatest(stationService.getById(stationId)).orElse(null);
+        if (latest != null) {
+            latestIndex.update(latest);
+        }
+        return latest;
+    }
+
+    /**
+     * N dernières mesures d'une station, de la plus ancienne à la plus récente, servies depuis
+     * l'anneau mémoire de la station. Anneau pas encore chargé : une requête projetée sur le
+     * primaire (capacité de l'anneau) le remplit, complétée par l'archive si la table vivante
+     * n'y suffit pas ; les lectures suivantes ne touchent plus la base.
+     */
+    public List<MeasurementResponse> getRecentMeasurements(Long stationId, int n) {
+        List<MeasurementResponse> cached = recentBuffer.get(stationId, n);
+        if (cached != null) {
+            return cached;
+        }
+
+        int capacity = recentBuffer.capacity();
+        List<MeasurementResponse> rows = measurementRepository.findRecentByStationOnPrimary(
+                stationId, Limit.of(capacity));
+        if (rows.size() < capacity) {
+            // station inconnue : erreur plutôt qu'un anneau vide
+            Station station = stationService.getById(stationId);
+            List<MeasurementResponse> archived = archiveService.findLatest(station, capacity - rows.size());
+            if (!archived.isEmpty()) {
+                rows = new ArrayList<>(rows);
+                rows.addAll(archived);
+            }
+        }
+        recentBuffer.load(stationId, rows);
+        return recentBuffer.get(stationId, n);
+    }
+
+    /**
+     * Dernière mesure de plusieurs stations : les stations indexées sont servies
+     * depuis la mémoire, les autres sont chargées en une seule requête ensembliste.
+     * Les stations sans mesure (ou inconnues) sont simplement absentes du résultat.
+     */
+    public List<MeasurementResponse> getLatestMeasurements(Collection<Long> stationIds) {
+        List<MeasurementResponse> result = new ArrayList<>(stationIds.size());
+        Set<Long> missing = new HashSet<>();
+        for (Long stationId : new HashSet<>(stationIds)) {
+            MeasurementResponse cached = latestIndex.get(stationId);
+            if (cached != null) {
+                result.add(cached);
+            } else {
+                missing.add(stationId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            latestIndex.updateAll(measurementRepository.findLatestForStations(missing));
+            for (Long stationId : missing) {
+                MeasurementResponse loaded = latestIndex.peek(stationId);
+                if (loaded != null) {
+                    result.add(loaded);
+                }
+            }
+        }
+
+        result.sort(Comparator.comparing(MeasurementResponse::getStationId));
+        return result;
+    }
+
+    /**
+     * Dernière mesure de toutes les stations
+     */
+    public List<MeasurementResponse> getLatestMeasurementsForAllStations() {
+        if (latestIndex.isWarmedUp()) {
+            return latestIndex.snapshot();
+        }
+        List<MeasurementResponse> latest = measurementRepository.findLatestPerStation();
+        latestIndex.updateAll(latest);
+        return latestIndex.snapshot();
+    }
+
+    /**
+     * Précharge l'index des dernières mesures (une seule requête pour toutes les stations)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpLatestIndex() {
+        List<MeasurementResponse> latest = measurementRepository.findLatestPerStation();
+        latestIndex.updateAll(latest);
+        // stations dont toutes les mesures sont archivées
+        for (Station station : stationService.findAll()) {
+            if (latestIndex.peek(station.getId()) == null) {
+                archiveService.findLatest(station).ifPresent(latestIndex::update);
+            }
+        }
+        latestIndex.markWarmedUp();
+        log.info("Index des dernières mesures préchargé: {} stations", latestIndex.size());
+    }
+
+    private MeasurementResponse toResponse(SensorMeasurement m, Station station) {
+        return MeasurementResponse.builder()
+                .id(m.getId())
+                .stationId(station.getId())
+                .stationName(station.getName())
+                .timestamp(m.getTimestamp())
+                .ph(m.getPh())
+                .temperature(m.getTemperature())
+                .turbidity(m.getTurbidity())
+                .dissolvedOxygen(m.getDissolvedOxygen())
+                .conductivity(m.getConductivity())
+                .qualityFlags(m.getQualityFlags())
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,99 @@
 package sensorservice.service;
 
 import sensorservice.domain.entity.Station;
+import sensorservice.geo.GeoGridIndex;
 import sensorservice.repository.StationRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class StationService {
 
     private final StationRepository stationRepository;
+    private final LatestMeasurementIndex latestIndex;
+    private final RecentMeasurementBuffer recentBuffer;
+    private final MeasurementAnomalyDetector anomalyDetector;
+
+    // catalogue en mémoire, invalidé par save/delete (après commit)
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Catalog catalog;
+
+    /**
+     * Instantané du catalogue des stations
+     * @param etag version dérivée du contenu : identique d'un redémarrage ou d'une instance à l'autre
+     * @param spatialIndex index géographique des stations localisées, reconstruit avec le catalogue
+     * @param ids identifiants des stations, pour les contrôles d'existence sans requête
+     */
+    public record Catalog(List<Station> stations, String etag, GeoGridIndex<Station> spatialIndex,
+                          Set<Long> ids, long generation) {
+    }
 
     public List<Station> findAll() {
-        return stationRepository.findAll();
+        return getCatalog().stations();
+    }
+
+    /**
+     * Catalogue servi depuis la mémoire ; rechargé (une requête) après une modification
+     */
+    public Catalog getCatalog() {
+        Catalog current = catalog;
+        long gen = generation.get();
+        if (current != null && current.generation() == gen) {
+            return current;
+        }
+        List<Station> stations = stationRepository.findAll().stream()
+                .sorted(Comparator.comparing(Station::getId))
+                .toList();
+        Catalog loaded = new Catalog(stations, etagOf(stations),
+                GeoGridIndex.build(stations, Station::getLatitude, Station::getLongitude),
+                stations.stream().map(Station::getId).collect(Collectors.toUnmodifiableSet()), gen);
+        // pas de publication si une modification est survenue pendant le chargement
+        if (generation.get() == gen) {
+            catalog = loaded;
+        }
+        return loaded;
+    }
+
+    /**
+     * Stations situées dans la boîte (bornes incluses, triées par id) ;
+     * minLon > maxLon pour une boîte qui traverse l'antiméridien
+     */
+    public List<Station> findWithin(double minLat, double minLon, double maxLat, double maxLon) {
+        List<Station> result = new ArrayList<>(getCatalog().spatialIndex().within(minLat, minLon, maxLat, maxLon));
+        result.sort(Comparator.comparing(Station::getId));
+        return result;
+    }
+
+    /**
+     * Les k stations localisées les plus proches, de la plus proche à la plus lointaine
+     */
+    public List<GeoGridIndex.Neighbor<Station>> findNearest(double lat, double lon, int k) {
+        return getCatalog().spatialIndex().nearest(lat, lon, k);
+    }
+
+    /**
+     * Station connue du catalogue (mémoire, sans requête une fois le catalogue chargé)
+     */
+    public boolean exists(Long id) {
+        return id != null && getCatalog().ids().contains(id);
     }
 
     public Optional<Station> findById(Long id) {
@@ -27,11 +105,63 @@ public class StationService {
                 .orElseThrow(() -> new IllegalArgumentException("Station not found: " + id));
     }
 
+    /**
+     * Résout plusieurs stations en une seule requête
+     * @throws IllegalArgumentException si une des stations n'existe pas
+     */
+    public Map<Long, Station> getByIds(Collection<Long> ids) {
+        Map<Long, Station> stations = stationRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Station::getId, Function.identity()));
+        for (Long id : ids) {
+            if (!stations.containsKey(id)) {
+                throw new IllegalArgumentException("Station not found: " + id);
+            }
+        }
+        return stations;
+    }
+
     public Station save(Station station) {
-        return stationRepository.save(station);
+        Station saved = stationRepository.save(station);
+        invalidateCatalog();
+        return saved;
     }
 
     public void delete(Long id) {
         stationRepository.deleteById(id);
+        latestIndex.evict(id);
+        recentBuffer.evict(id);
+        anomalyDetector.evict(id);
+        invalidateCatalog();
+    }
+
+    private void invalidateCatalog() {
+        generation.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // un rechargement concurrent pourrait encore lire l'état d'avant commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static String etagOf(List<Station> stations) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder row = new StringBuilder(128);
+            for (Station s : stations) {
+                row.setLength(0);
+                row.append(s.getId()).append('|').append(s.getCode()).append('|').append(s.getName())
+                        .append('|').append(s.getType()).append('|').append(s.getLatitude())
+                        .append('|').append(s.getLongitude()).append('|').append(s.getCommune())
+                        .append('|').append(s.getDescription()).append('\n');
+                digest.update(row.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            return "\"stations-" + HexFormat.of().formatHex(digest.digest(), 0, 8) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
\ No newline at end of file
@@ -1,29 +1,83 @@
 package sensorservice.web.controller;
 
-import sensorservice.domain.entity.SensorMeasurement;
+import sensorservice.domain.enums.MeasurementSource;
+import sensorservice.domain.enums.ResampleMethod;
+import sensorservice.domain.enums.RollupResolution;
+import sensorservice.service.MeasurementArchiveService;
+import sensorservice.service.MeasurementCursor;
+import sensorservice.service.MeasurementImportService;
+import sensorservice.service.MeasurementIngestQueue;
+import sensorservice.service.MeasurementResampler;
+import sensorservice.service.MeasurementRollupService;
+import sensorservice.service.MeasurementStreamHub;
 import sensorservice.service.SensorMeasurementService;
+import sensorservice.service.StationService;
+import sensorservice.web.dto.MeasurementArchiveResponse;
+import sensorservice.web.dto.MeasurementBatchResponse;
 import sensorservice.web.dto.MeasurementCreateRequest;
+import sensorservice.web.dto.MeasurementImportResponse;
+import sensorservice.web.dto.MeasurementPageResponse;
+import sensorservice.web.dto.MeasurementIngestResponse;
 import sensorservice.web.dto.MeasurementResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/measurements")
 @RequiredArgsConstructor
 public class SensorMeasurementController {
 
+    private static final int MAX_PAGE_SIZE = 10000;
+
     private final SensorMeasurementService measurementService;
+    private final StationService stationService;
+    private final MeasurementRollupService rollupService;
+    private final MeasurementArchiveService archiveService;
+    private final MeasurementIngestQueue ingestQueue;
+    private final MeasurementImportService importService;
+    private final MeasurementStreamHub streamHub;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${sensor.ingest.batch.max-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${sensor.recent.capacity:256}")
+    private int recentCapacity;
+
+    @Value("${sensor.resample.max-points:100000}")
+    private long maxResampledPoints;
+
+    @Value("${sensor.resample.default-max-gap:PT24H}")
+    private Duration defaultMaxGap;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public MeasurementResponse create(@Valid @RequestBody MeasurementCreateRequest request) {
-        SensorMeasurement m = measurementService.createManualMeasurement(
+        return measurementService.createManualMeasurement(
                 request.getStationId(),
                 request.getPh(),
                 request.getTemperature(),
@@ -31,45 +85,273 @@ public class SensorMeasurementController {
                 request.getDissolvedOxygen(),
                 request.getConductivity()
         );
+    }
+
+    // ingestion groupée depuis les passerelles IoT
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public MeasurementBatchResponse createBatch(@RequestBody List<MeasurementCreateRequest> requests) {
+        checkBatch(requests);
+        return measurementService.createMeasurements(requests, MeasurementSource.IOT_SIMULATED);
+    }
+
+    /**
+     * Ingestion asynchrone (sensor.ingest.async.enabled=true) : le lot est mis en file
+     * et écrit par commits groupés, réponse 202 immédiate. File pleine : 429 avec
+     * Retry-After, le lot entier est à renvoyer.
+     * Mode désactivé : écriture synchrone, comme /batch (201).
+     */
+    @PostMapping("/ingest")
+    public ResponseEntity<?> ingest(@RequestBody List<MeasurementCreateRequest> requests) {
+        if (!ingestQueue.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(createBatch(requests));
+        }
+        checkBatch(requests);
+        if (!ingestQueue.offer(requests)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return ResponseEntity.accepted().body(MeasurementIngestResponse.builder()
+                .accepted(requests.size())
+                .queueDepth(ingestQueue.depth())
+                .queueCapacity(ingestQueue.capacity())
+                .build());
+    }
+
+    /**
+     * Taille du lot puis contraintes de chaque élément (celles de {@link #create}) :
+     * {@code @Valid} sur le paramètre List ne valide pas les éléments. Premier élément
+     * invalide : 400, rien n'est écrit.
+     */
+    private void checkBatch(List<MeasurementCreateRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Batch too large: " + requests.size() + " > " + maxBatchSize);
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            MeasurementCreateRequest request = requests.get(i);
+            if (request == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "[" + i + "]: must not be null");
+            }
+            Set<ConstraintViolation<MeasurementCreateRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<MeasurementCreateRequest> violation = violations.iterator().next();
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "[" + i + "]." + violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+        }
+    }
 
-        return MeasurementResponse.builder()
-                .id(m.getId())
-                .stationId(m.getStation().getId())
-                .stationName(m.getStation().getName())
-                .timestamp(m.getTimestamp())
-                .ph(m.getPh())
-                .temperature(m.getTemperature())
-                .turbidity(m.getTurbidity())
-                .dissolvedOxygen(m.getDissolvedOxygen())
-                .conductivity(m.getConductivity())
-                .build();
+    /**
+     * Import d'un jeu de données historique (corps = fichier CSV, lu en flux).
+     * Colonnes : pH, Temperature, Turbidity, Dissolved Oxygen, Conductivity, et
+     * facultativement Station ID / Station Code et Timestamp. A défaut :
+     * ?stationId=..&start=..&intervalSeconds=.. (horodatage = start + rang x intervalle).
+     * Les lignes invalides sont écartées et résumées dans la réponse.
+     */
+    @PostMapping(value = "/import",
+            consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public MeasurementImportResponse importCsv(
+            @RequestParam(required = false) Long stationId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(defaultValue = "60") long intervalSeconds,
+            HttpServletRequest request
+    ) throws IOException {
+        if (intervalSeconds < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "intervalSeconds must be >= 0");
+        }
+        try {
+            return importService.importCsv(request.getInputStream(), stationId, start,
+                    Duration.ofSeconds(intervalSeconds));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
+    /**
+     * Mesures d'une station sur une période.
+     * resolution=raw (défaut) renvoie les mesures brutes, 1h / 1d les agrégats
+     * min/max/moyenne/nombre par heure ou par jour.
+     */
     @GetMapping
-    public List<SensorMeasurement> listByStationAndRange(
+    public List<?> listByStationAndRange(
+            @RequestParam Long stationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "raw") String resolution
+    ) {
+        if ("raw".equalsIgnoreCase(resolution)) {
+            return measurementService.getMeasurementsForStation(stationId, from, to);
+        }
+        RollupResolution rollupResolution = RollupResolution.fromParam(resolution)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown resolution: " + resolution + " (expected raw, 1h or 1d)"));
+        stationService.getById(stationId);
+        return rollupService.getRollups(stationId, rollupResolution, from, to);
+    }
+
+    /**
+     * Mesures brutes d'une plage, page par page : ?limit=..[&cursor=..].
+     * La réponse porte nextCursor, à renvoyer tel quel (avec les mêmes stationId/from/to)
+     * pour la page suivante ; null sur la dernière page.
+     */
+    @GetMapping(params = "limit")
+    public MeasurementPageResponse pageByStationAndRange(
+            @RequestParam Long stationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        MeasurementCursor after;
+        try {
+            after = cursor != null ? MeasurementCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return measurementService.getMeasurementPage(stationId, from, to, after, limit);
+    }
+
+    /**
+     * Export d'une plage en NDJSON (Accept: application/x-ndjson) : une ligne JSON
+     * par mesure, écrite au fil de la lecture du curseur, mémoire constante.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByStationAndRange(
             @RequestParam Long stationId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
     ) {
-        return measurementService.getMeasurementsForStation(stationId, from, to);
+        // vérifié avant de commencer la réponse, pour pouvoir encore renvoyer une erreur
+        stationService.getById(stationId);
+
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+            measurementService.streamMeasurementsForStation(stationId, from, to, row -> {
+                try {
+                    generator.writeObject(row);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
-    @GetMapping("/latest")
-    public MeasurementResponse getLatest(@RequestParam Long stationId) {
-        SensorMeasurement m = measurementService.getLatestMeasurement(stationId);
-        if (m == null) {
-            return null;
+    /**
+     * Série à pas fixe d'une plage : /resampled?stationId=..&from=..&to=..&step=PT1H
+     * [&method=last|linear][&maxGap=PT6H]. Un point par pas de from à to, calculé en une passe
+     * sur les mesures triées et écrit au fil de la lecture (tableau JSON, mémoire constante).
+     * Chaque point porte le nombre de mesures brutes de son intervalle et un indicateur gap ;
+     * ses valeurs sont null si les mesures voisines sont à plus de maxGap.
+     */
+    @GetMapping("/resampled")
+    public ResponseEntity<StreamingResponseBody> resampled(
+            @RequestParam Long stationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam Duration step,
+            @RequestParam(defaultValue = "linear") String method,
+            @RequestParam(required = false) Duration maxGap
+    ) {
+        ResampleMethod resampleMethod = ResampleMethod.fromParam(method)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown method: " + method + " (expected last or linear)"));
+        if (step.compareTo(Duration.ofSeconds(1)) < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "step must be at least PT1S");
+        }
+        Duration gap = maxGap != null ? maxGap : defaultMaxGap;
+        if (gap.isNegative()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxGap must not be negative");
+        }
+        long points = MeasurementResampler.pointCount(from, to, step);
+        if (points > maxResampledPoints) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many points: " + points + " > " + maxResampledPoints + " (increase step)");
+        }
+        // vérifié avant de commencer la réponse, pour pouvoir encore renvoyer une erreur
+        stationService.getById(stationId);
+
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.writeStartArray();
+            measurementService.resampleMeasurementsForStation(stationId, from, to, step, resampleMethod, gap, point -> {
+                try {
+                    generator.writeObject(point);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Flux SSE des nouvelles mesures : /stream?stationIds=1,2 (toutes les stations sans paramètre).
+     * Evènements "measurement" (JSON d'une mesure, dernière mesure connue de chaque station
+     * à la connexion) et "resync" si le client, trop lent, a perdu des mesures.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) List<Long> stationIds) {
+        try {
+            return streamHub.subscribe(stationIds);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
         }
-        return MeasurementResponse.builder()
-                .id(m.getId())
-                .stationId(m.getStation().getId())
-                .stationName(m.getStation().getName())
-                .timestamp(m.getTimestamp())
-                .ph(m.getPh())
-                .temperature(m.getTemperature())
-                .turbidity(m.getTurbidity())
-                .dissolvedOxygen(m.getDissolvedOxygen())
-                .conductivity(m.getConductivity())
-                .build();
+    }
+
+    // archivage à la demande des journées antérieures à "before" (début de journée)
+    @PostMapping("/archive")
+    public MeasurementArchiveResponse archive(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before
+    ) {
+        return archiveService.archiveBefore(before.atStartOfDay());
+    }
+
+    /**
+     * N dernières mesures d'une station, de la plus ancienne à la plus récente :
+     * /recent?stationId=1&n=50 (n borné par sensor.recent.capacity), servies depuis la mémoire.
+     */
+    @GetMapping("/recent")
+    public List<MeasurementResponse> getRecent(
+            @RequestParam Long stationId,
+            @RequestParam(defaultValue = "50") int n
+    ) {
+        if (n < 1 || n > recentCapacity) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "n must be between 1 and " + recentCapacity);
+        }
+        return measurementService.getRecentMeasurements(stationId, n);
+    }
+
+    @GetMapping(value = "/latest", params = "stationId")
+    public MeasurementResponse getLatest(@RequestParam Long stationId) {
+        return measurementService.getLatestMeasurement(stationId);
+    }
+
+    // dernière mesure de plusieurs stations : /latest?stationIds=1,2,3
+    @GetMapping(value = "/latest", params = "stationIds")
+    public List<MeasurementResponse> getLatestForStations(@RequestParam List<Long> stationIds) {
+        return measurementService.getLatestMeasurements(stationIds);
+    }
+
+    // dernière mesure de toutes les stations (carte / dashboard)
+    @GetMapping("/latest/all")
+    public List<MeasurementResponse> getLatestForAllStations() {
+        return measurementService.getLatestMeasurementsForAllStations();
     }
 }
\ No newline at end of file
@@ -2,10 +2,14 @@ package sensorservice.web.controller;
 
 import sensorservice.domain.entity.Station;
 import sensorservice.service.StationService;
+import sensorservice.web.dto.NearbyStationResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -14,11 +18,68 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StationController {
 
+    private static final int MAX_NEAREST = 1000;
+
     private final StationService stationService;
 
+    /**
+     * Catalogue des stations, versionné par ETag : un client qui renvoie
+     * If-None-Match avec la version courante reçoit 304 sans corps.
+     */
     @GetMapping
-    public List<Station> getAll() {
-        return stationService.findAll();
+    public ResponseEntity<List<Station>> getAll(WebRequest request) {
+        StationService.Catalog catalog = stationService.getCatalog();
+        if (request.checkNotModified(catalog.etag())) {
+            return null;    // 304 et ETag déjà positionnés
+        }
+        return ResponseEntity.ok()
+                .eTag(catalog.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(catalog.stations());
+    }
+
+    /**
+     * Stations dans une boîte : bbox=minLon,minLat,maxLon,maxLat (ordre GeoJSON).
+     * minLon > maxLon pour une boîte qui traverse l'antiméridien.
+     */
+    @GetMapping("/within")
+    public List<Station> getWithin(@RequestParam List<Double> bbox) {
+        if (bbox.size() != 4) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "bbox must be minLon,minLat,maxLon,maxLat");
+        }
+        double minLon = bbox.get(0), minLat = bbox.get(1), maxLon = bbox.get(2), maxLat = bbox.get(3);
+        checkCoordinates(minLat, minLon);
+        checkCoordinates(maxLat, maxLon);
+        if (minLat > maxLat) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bbox: minLat > maxLat");
+        }
+        return stationService.findWithin(minLat, minLon, maxLat, maxLon);
+    }
+
+    // k stations les plus proches d'un point (distance orthodromique)
+    @GetMapping("/nearest")
+    public List<NearbyStationResponse> getNearest(@RequestParam double lat,
+                                                  @RequestParam double lon,
+                                                  @RequestParam(defaultValue = "5") int k) {
+        checkCoordinates(lat, lon);
+        if (k < 1 || k > MAX_NEAREST) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "k must be between 1 and " + MAX_NEAREST);
+        }
+        return stationService.findNearest(lat, lon, k).stream()
+                .map(n -> NearbyStationResponse.builder()
+                        .station(n.item())
+                        .distanceKm(Math.round(n.distanceKm() * 1000.0) / 1000.0)
+                        .build())
+                .toList();
+    }
+
+    private static void checkCoordinates(double lat, double lon) {
+        if (!(Math.abs(lat) <= 90) || !(Math.abs(lon) <= 180)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid coordinates: " + lat + "," + lon);
+        }
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,18 @@
+package sensorservice.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Compte-rendu d'un passage d'archivage
+ */
+@Data
+@Builder
+public class MeasurementArchiveResponse {
+
+    private int windows;            // journées station archivées
+    private long rows;              // mesures déplacées vers l'archive
+    private long encodedBytes;      // taille des blocs écrits
+    private double bytesPerRow;
+    private long durationMs;
+}
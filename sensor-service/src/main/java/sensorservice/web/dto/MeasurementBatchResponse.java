@@ -0,0 +1,19 @@
+package sensorservice.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Compte-rendu d'une ingestion par lot (débit mesuré côté serveur)
+ */
+@Data
+@Builder
+public class MeasurementBatchResponse {
+
+    private int received;
+    private int inserted;
+    private int flagged;            // mesures marquées par la détection d'anomalies
+    private int jdbcBatchSize;      // taille des paquets JDBC utilisés
+    private long durationMs;
+    private double rowsPerSecond;
+}
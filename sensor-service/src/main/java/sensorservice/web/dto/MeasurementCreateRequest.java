@@ -3,6 +3,8 @@ package sensorservice.web.dto;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Data
 public class MeasurementCreateRequest {
 
@@ -25,4 +27,7 @@ public class MeasurementCreateRequest {
 
     @NotNull @DecimalMin("0.0")
     private Double conductivity;
+
+    // optionnel : horodatage fourni par la passerelle IoT (sinon heure de réception)
+    private LocalDateTime timestamp;
 }
@@ -0,0 +1,30 @@
+package sensorservice.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compte-rendu d'un import CSV (débit mesuré côté serveur)
+ */
+@Data
+@Builder
+public class MeasurementImportResponse {
+
+    private long rowsRead;                      // lignes de données, en-tête exclu
+    private long inserted;
+    private long rejected;
+    private long flagged;                       // insérées avec des indicateurs qualité
+    private Map<String, Long> rejectedByReason;
+    private List<RejectedRow> rejectedSamples;  // premières lignes refusées
+    private String method;                      // COPY ou JDBC_BATCH
+    private int parseThreads;
+    private int chunkSize;
+    private long durationMs;
+    private double rowsPerSecond;
+
+    public record RejectedRow(long line, String reason) {
+    }
+}
@@ -0,0 +1,16 @@
+package sensorservice.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Accusé de réception d'un lot mis en file (ingestion asynchrone)
+ */
+@Data
+@Builder
+public class MeasurementIngestResponse {
+
+    private int accepted;
+    private int queueDepth;         // mesures en attente d'écriture, ce lot compris
+    private int queueCapacity;
+}
@@ -0,0 +1,18 @@
+package sensorservice.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Page d'une plage de mesures (pagination par curseur)
+ */
+@Data
+@Builder
+public class MeasurementPageResponse {
+
+    private List<MeasurementResponse> items;    // triées par (timestamp, id)
+    private String nextCursor;                  // null : dernière page
+    private int limit;
+}
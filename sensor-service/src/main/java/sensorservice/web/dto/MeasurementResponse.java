@@ -1,12 +1,16 @@
 package sensorservice.web.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor // utilisé par les projections JPQL (select new ...)
 public class MeasurementResponse {
 
     private Long id;
@@ -19,4 +23,7 @@ public class MeasurementResponse {
     private Double turbidity;
     private Double dissolvedOxygen;
     private Double conductivity;
+
+    // masque de QualityFlag (bits : 1 hors bornes, 2 pic, 4 capteur bloqué, 8 variation trop rapide)
+    private Integer qualityFlags;
 }
\ No newline at end of file
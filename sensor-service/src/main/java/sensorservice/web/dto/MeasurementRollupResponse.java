@@ -0,0 +1,38 @@
+package sensorservice.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agrégat d'une station sur un bucket horaire ou journalier
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeasurementRollupResponse {
+
+    private Long stationId;
+    private String resolution;          // 1h / 1d
+    private LocalDateTime bucketStart;
+    private long count;
+
+    private ParameterStats ph;
+    private ParameterStats temperature;
+    private ParameterStats turbidity;
+    private ParameterStats dissolvedOxygen;
+    private ParameterStats conductivity;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ParameterStats {
+        private double min;
+        private double max;
+        private double avg;
+    }
+}
@@ -0,0 +1,16 @@
+package sensorservice.web.dto;
+
+import sensorservice.domain.entity.Station;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Station voisine d'un point, avec sa distance orthodromique
+ */
+@Data
+@Builder
+public class NearbyStationResponse {
+
+    private Station station;
+    private double distanceKm;
+}
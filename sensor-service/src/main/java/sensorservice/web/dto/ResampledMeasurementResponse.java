@@ -0,0 +1,31 @@
+package sensorservice.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Point d'une série à pas fixe (GET /api/measurements/resampled)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResampledMeasurementResponse {
+
+    private LocalDateTime timestamp;            // from + k x step
+
+    // null : pas de mesure utilisable à moins de maxGap
+    private Double ph;
+    private Double temperature;
+    private Double turbidity;
+    private Double dissolvedOxygen;
+    private Double conductivity;
+
+    private Integer qualityFlags;               // OU des indicateurs des mesures utilisées
+    private int samples;                        // mesures brutes dans ]timestamp - step, timestamp]
+    private boolean gap;                        // aucune mesure dans l'intervalle : valeur comblée ou absente
+}
@@ -0,0 +1,52 @@
+-- ================================================
+-- sensor_db : schéma géré de sensor_measurements (PostgreSQL)
+-- Exécuté par spring.sql.init avant Hibernate ; ddl-auto=update complète ensuite
+-- le reste (agrégats, colonnes ajoutées).
+--
+-- Table partitionnée par mois sur timestamp. Les partitions mensuelles et la
+-- partition par défaut sont créées par MeasurementPartitionService, qui applique
+-- aussi la politique de rétention.
+-- Base existante (table non partitionnée) : voir scripts/sensor_db_partitioning_migration.sql
+-- ================================================
+
+-- stations est créée ici (et non par Hibernate) pour porter la clé étrangère :
+-- Hibernate ne voit pas les contraintes d'une table partitionnée et la recréerait à chaque démarrage
+CREATE TABLE IF NOT EXISTS stations (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    code        varchar(255) NOT NULL UNIQUE,
+    name        varchar(255) NOT NULL,
+    type        varchar(255),
+    latitude    double precision,
+    longitude   double precision,
+    commune     varchar(255),
+    description varchar(255)
+);
+
+CREATE SEQUENCE IF NOT EXISTS sensor_measurements_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS sensor_measurements (
+    id               bigint           NOT NULL,
+    station_id       bigint           NOT NULL
+        CONSTRAINT fk_sensor_measurements_station REFERENCES stations (id),
+    timestamp        timestamp(6)     NOT NULL,
+    ph               double precision NOT NULL,
+    temperature      double precision NOT NULL,
+    turbidity        double precision NOT NULL,
+    dissolved_oxygen double precision NOT NULL,
+    conductivity     double precision NOT NULL,
+    source           varchar(255)     NOT NULL,
+    quality_flags    integer          NOT NULL DEFAULT 0,
+    -- la clé d'une table partitionnée doit contenir la colonne de partitionnement
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- base antérieure aux indicateurs qualité (valeur par défaut constante : pas de réécriture)
+ALTER TABLE sensor_measurements ADD COLUMN IF NOT EXISTS quality_flags integer NOT NULL DEFAULT 0;
+
+-- créé sur la table parente : propagé à chaque partition, existante ou future.
+-- id en dernière colonne : ordre total (timestamp, id) de la pagination par clé ;
+-- parcouru à l'envers, l'index sert aussi les requêtes « dernière mesure »
+CREATE INDEX IF NOT EXISTS idx_sensor_measurements_station_ts_id
+    ON sensor_measurements (station_id, timestamp, id);
+-- remplacé par le précédent
+DROP INDEX IF EXISTS idx_sensor_measurements_station_ts;
@@ -0,0 +1,154 @@
+package sensorservice.archive;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires simples pour MeasurementBlockCodec
+ */
+@DisplayName("MeasurementBlockCodec Tests")
+class MeasurementBlockCodecTest {
+
+    private static final long START = MeasurementColumns.toMicros(LocalDateTime.of(2024, 3, 10, 0, 0));
+
+    @Test
+    @DisplayName("Aller-retour exact sur une journée de mesures à 2 décimales")
+    void shouldRoundTripDecimalMeasurements() {
+        MeasurementColumns columns = sampleDay(new Random(7), true);
+
+        MeasurementColumns decoded = MeasurementBlockCodec.decode(MeasurementBlockCodec.encode(columns));
+
+        assertSameRows(decoded, columns);
+    }
+
+    @Test
+    @DisplayName("Aller-retour exact sur des valeurs pleine précision, horodatage irrégulier et valeurs extrêmes")
+    void shouldRoundTripFullPrecisionValues() {
+        Random random = new Random(11);
+        MeasurementColumns columns = new MeasurementColumns(4);
+        long ts = START;
+        long id = 1;
+        double[] specials = {0.0, -0.0, Double.MIN_VALUE, Double.MAX_VALUE, -1e300, Double.NaN, 7.0};
+        for (int i = 0; i < 2_000; i++) {
+            ts += random.nextInt(5_000_000);
+            id += 1 + random.nextInt(200);
+            double special = specials[i % specials.length];
+            columns.add(id, ts, random.nextDouble() * 14, special, random.nextGaussian(),
+                    i % 3 == 0 ? 8.0 : 8.0 + random.nextDouble(), Long.MAX_VALUE / (i + 1.0),
+                    (byte) (i % 5 == 0 ? 1 : 0));
+        }
+
+        MeasurementColumns decoded = MeasurementBlockCodec.decode(MeasurementBlockCodec.encode(columns));
+
+        assertSameRows(decoded, columns);
+    }
+
+    @Test
+    @DisplayName("Bloc vide et bloc d'une seule ligne")
+    void shouldHandleEmptyAndSingleRowBlocks() {
+        assertThat(MeasurementBlockCodec.decode(MeasurementBlockCodec.encode(new MeasurementColumns(0))).size())
+                .isZero();
+
+        MeasurementColumns single = new MeasurementColumns(1);
+        single.add(42, START, 7.1, 21.5, 4.2, 8.0, 340.0, (byte) 1);
+        assertSameRows(MeasurementBlockCodec.decode(MeasurementBlockCodec.encode(single)), single);
+    }
+
+    @Test
+    @DisplayName("Compression d'au moins 10x par rapport au stockage ligne")
+    void shouldCompressRegularSensorData() {
+        MeasurementColumns columns = sampleDay(new Random(3), true);
+
+        byte[] block = MeasurementBlockCodec.encode(columns);
+
+        // ligne PostgreSQL : ~24 o d'en-tête + 8 id + 8 station + 8 timestamp + 5 x 8 + source (~14 o)
+        double rowStorageBytes = 100.0 * columns.size();
+        assertThat(rowStorageBytes / block.length).isGreaterThanOrEqualTo(10.0);
+    }
+
+    @Test
+    @DisplayName("Indicateurs qualité conservés, quasi gratuits quand ils sont rares")
+    void shouldRoundTripQualityFlags() {
+        MeasurementColumns plain = sampleDay(new Random(5), true);
+        MeasurementColumns flagged = new MeasurementColumns(plain.size());
+        for (int i = 0; i < plain.size(); i++) {
+            byte flags = i % 500 == 17 ? (byte) (1 << (i % 4)) : i == 4_000 ? (byte) 0xFF : 0;
+            flagged.add(plain.id(i), plain.timestampMicros(i), plain.ph(i), plain.temperature(i), plain.turbidity(i),
+                    plain.dissolvedOxygen(i), plain.conductivity(i), plain.source(i), flags);
+        }
+
+        byte[] block = MeasurementBlockCodec.encode(flagged);
+
+        assertSameRows(MeasurementBlockCodec.decode(block), flagged);
+        // 19 lignes marquées isolées : 2 plages de 40 bits chacune
+        assertThat(block.length - MeasurementBlockCodec.encode(plain).length).isLessThan(250);
+    }
+
+    @Test
+    @DisplayName("Fusion triée de deux blocs")
+    void shouldMergeSortedBlocks() {
+        MeasurementColumns a = new MeasurementColumns(2);
+        a.add(1, START, 7.0, 20, 4, 8, 340, (byte) 0);
+        a.add(3, START + 20, 7.2, 20, 4, 8, 340, (byte) 0);
+        MeasurementColumns b = new MeasurementColumns(1);
+        b.add(2, START + 10, 7.1, 20, 4, 8, 340, (byte) 1);
+
+        MeasurementColumns merged = MeasurementColumns.mergeSorted(a, b);
+
+        assertThat(merged.size()).isEqualTo(3);
+        assertThat(new long[]{merged.id(0), merged.id(1), merged.id(2)}).containsExactly(1, 2, 3);
+        assertThat(MeasurementColumns.fromMicros(START)).isEqualTo(LocalDateTime.of(2024, 3, 10, 0, 0));
+    }
+
+    /**
+     * Une mesure toutes les 10 s, marche aléatoire arrondie à 2 décimales
+     */
+    static MeasurementColumns sampleDay(Random random, boolean rounded) {
+        int rows = 8_640;
+        MeasurementColumns columns = new MeasurementColumns(rows);
+        double ph = 7.0;
+        double temperature = 21.0;
+        double turbidity = 4.0;
+        double oxygen = 8.0;
+        double conductivity = 340.0;
+        for (int i = 0; i < rows; i++) {
+            ph += random.nextGaussian() * 0.01;
+            temperature += random.nextGaussian() * 0.02;
+            turbidity += random.nextGaussian() * 0.02;
+            oxygen += random.nextGaussian() * 0.02;
+            conductivity += random.nextGaussian() * 0.3;
+            columns.add(1_000 + i, START + i * 10_000_000L,
+                    round(ph, rounded), round(temperature, rounded), round(turbidity, rounded),
+                    round(oxygen, rounded), round(conductivity, rounded), (byte) 1);
+        }
+        return columns;
+    }
+
+    private static double round(double value, boolean rounded) {
+        return rounded ? Math.round(value * 100.0) / 100.0 : value;
+    }
+
+    private static void assertSameRows(MeasurementColumns actual, MeasurementColumns expected) {
+        assertThat(actual.size()).isEqualTo(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.id(i)).isEqualTo(expected.id(i));
+            assertThat(actual.timestampMicros(i)).isEqualTo(expected.timestampMicros(i));
+            assertThat(Double.doubleToRawLongBits(actual.ph(i))).isEqualTo(Double.doubleToRawLongBits(expected.ph(i)));
+            assertThat(Double.doubleToRawLongBits(actual.temperature(i)))
+                    .isEqualTo(Double.doubleToRawLongBits(expected.temperature(i)));
+            assertThat(Double.doubleToRawLongBits(actual.turbidity(i)))
+                    .isEqualTo(Double.doubleToRawLongBits(expected.turbidity(i)));
+            assertThat(Double.doubleToRawLongBits(actual.dissolvedOxygen(i)))
+                    .isEqualTo(Double.doubleToRawLongBits(expected.dissolvedOxygen(i)));
+            assertThat(Double.doubleToRawLongBits(actual.conductivity(i)))
+                    .isEqualTo(Double.doubleToRawLongBits(expected.conductivity(i)));
+            assertThat(actual.source(i)).isEqualTo(expected.source(i));
+            assertThat(actual.qualityFlags(i)).isEqualTo(expected.qualityFlags(i));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package sensorservice.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Générateur de charge local pour le listener du protocole ligne
+ *
+ * Ouvre N connexions TCP et y envoie des mesures pré-encodées, puis suit les
+ * métriques actuator du service pour mesurer trois débits :
+ * - envoi (côté client, jusqu'à la fermeture des sockets)
+ * - acceptation (sensor.ingest.line.readings{result=accepted})
+ * - écriture en base (file asynchrone vidée : sensor.ingest.queue.depth = 0)
+ *
+ * Service à lancer avec sensor.ingest.line.enabled=true (et de préférence
+ * sensor.ingest.async.enabled=true), puis :
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath sensorservice.benchmark.LineProtocolLoadGenerator \
+ *       [host] [port] [connexions] [mesures/connexion] [stations] [url actuator]"
+ *
+ * Les stations 1..stations doivent exister.
+ */
+public class LineProtocolLoadGenerator {
+
+    private static final Pattern VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    public static void main(String[] args) throws Exception {
+        String host = arg(args, 0, "localhost");
+        int port = Integer.parseInt(arg(args, 1, "8094"));
+        int connections = Integer.parseInt(arg(args, 2, "4"));
+        int perConnection = Integer.parseInt(arg(args, 3, "250000"));
+        int stations = Integer.parseInt(arg(args, 4, "3"));
+        String actuator = arg(args, 5, "http://localhost:8081/actuator/metrics");
+
+        HttpClient http = HttpClient.newHttpClient();
+        double acceptedBefore = metric(http, actuator, "sensor.ingest.line.readings?tag=result:accepted");
+
+        List<byte[]> payloads = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            payloads.add(payload(new Random(c), perConnection, stations));
+        }
+        long total = (long) connections * perConnection;
+        long bytes = payloads.stream().mapToLong(p -> p.length).sum();
+        System.out.printf(Locale.ROOT, "%d connexions x %d mesures (%.1f o/ligne)%n",
+                connections, perConnection, bytes / (double) total);
+
+        long start = System.nanoTime();
+        List<Thread> senders = new ArrayList<>();
+        for (byte[] payload : payloads) {
+            Thread sender = new Thread(() -> send(host, port, payload));
+            sender.start();
+            senders.add(sender);
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        long sent = System.nanoTime() - start;
+        report("envoi", total, sent);
+
+        double accepted = 0;
+        long lastProgress = System.nanoTime();
+        while (accepted < total) {
+            double now = metric(http, actuator, "sensor.ingest.line.readings?tag=result:accepted") - acceptedBefore;
+            if (now > accepted) {
+                accepted = now;
+                lastProgress = System.nanoTime();
+            } else if (System.nanoTime() - lastProgress > 30_000_000_000L) {
+                System.out.printf(Locale.ROOT, "acceptation bloquée à %.0f / %d (lignes rejetées ?)%n", now, total);
+                break;
+            }
+            Thread.sleep(20);
+        }
+        report("acceptation", (long) accepted, System.nanoTime() - start);
+
+        while (metric(http, actuator, "sensor.ingest.queue.depth") > 0) {
+            Thread.sleep(20);
+        }
+        report("écriture en base", (long) accepted, System.nanoTime() - start);
+    }
+
+    private static byte[] payload(Random random, int readings, int stations) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(readings * 64);
+        long ts = System.currentTimeMillis() - readings * 1000L;
+        StringBuilder line = new StringBuilder(96);
+        for (int i = 0; i < readings; i++) {
+            line.setLength(0);
+            line.append(1 + random.nextInt(stations))
+                    .append(",ph=").append(String.format(Locale.ROOT, "%.2f", 6.5 + random.nextDouble() * 2))
+                    .append(",temp=").append(String.format(Locale.ROOT, "%.2f", 15 + random.nextDouble() * 10))
+                    .append(",turb=").append(String.format(Locale.ROOT, "%.2f", random.nextDouble() * 5))
+                    .append(",do=").append(String.format(Locale.ROOT, "%.2f", 6 + random.nextDouble() * 4))
+                    .append(",cond=").append(String.format(Locale.ROOT, "%.1f", 400 + random.nextDouble() * 200))
+                    .append(' ').append(ts + i * 1000L)
+                    .append('\n');
+            out.writeBytes(line.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        return out.toByteArray();
+    }
+
+    private static void send(String host, int port, byte[] payload) {
+        try (Socket socket = new Socket(host, port)) {
+            OutputStream out = socket.getOutputStream();
+            for (int offset = 0; offset < payload.length; offset += 64 * 1024) {
+                out.write(payload, offset, Math.min(64 * 1024, payload.length - offset));
+            }
+            out.flush();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double metric(HttpClient http, String actuator, String name) throws Exception {
+        HttpResponse<String> response = http.send(
+                HttpRequest.newBuilder(URI.create(actuator + "/" + name)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return 0;
+        }
+        Matcher matcher = VALUE.matcher(response.body());
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0;
+    }
+
+    private static void report(String phase, long readings, long nanos) {
+        System.out.printf(Locale.ROOT, "%-18s %,d mesures en %,d ms : %,.0f mesures/s%n",
+                phase, readings, nanos / 1_000_000, readings * 1e9 / nanos);
+    }
+
+    private static String arg(String[] args, int index, String fallback) {
+        return args.length > index ? args[index] : fallback;
+    }
+}
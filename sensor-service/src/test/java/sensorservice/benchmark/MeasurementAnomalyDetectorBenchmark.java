@@ -0,0 +1,117 @@
+package sensorservice.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sensorservice.archive.MeasurementColumns;
+import sensorservice.service.MeasurementAnomalyDetector;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût par mesure de la détection d'anomalies sur le chemin d'écriture
+ *
+ * Mesures pré-générées (marche aléatoire à 2 décimales, une mesure par minute et par
+ * station, ~1 % de pics), stations servies à tour de rôle : avec 10 000 stations l'état
+ * d'une station n'est plus dans les caches du processeur d'une mesure à l'autre.
+ * {@code baseline} lit les mêmes mesures sans les contrôler (coût du harnais).
+ * Le score est en ns par mesure.
+ *
+ * Lancement :
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath sensorservice.benchmark.MeasurementAnomalyDetectorBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeasurementAnomalyDetectorBenchmark {
+
+    private static final int READINGS = 1 << 16;
+    private static final long MINUTE_MICROS = 60_000_000L;
+
+    @Param({"1", "10000"})
+    public int stations;
+
+    private MeasurementAnomalyDetector detector;
+    private final double[] ph = new double[READINGS];
+    private final double[] temperature = new double[READINGS];
+    private final double[] turbidity = new double[READINGS];
+    private final double[] oxygen = new double[READINGS];
+    private final double[] conductivity = new double[READINGS];
+    private long startMicros;
+    private long cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double p = 7.0;
+        double t = 21.0;
+        double u = 4.0;
+        double o = 8.0;
+        double c = 340.0;
+        for (int i = 0; i < READINGS; i++) {
+            p = clamp(p + random.nextGaussian() * 0.02, 6.5, 8.5);
+            t = clamp(t + random.nextGaussian() * 0.05, 15, 28);
+            u = clamp(u + random.nextGaussian() * 0.05, 1, 10);
+            o = clamp(o + random.nextGaussian() * 0.05, 5, 11);
+            c = clamp(c + random.nextGaussian() * 0.5, 250, 450);
+            ph[i] = round(p);
+            temperature[i] = round(t);
+            turbidity[i] = round(random.nextInt(100) == 0 ? u * 20 : u);
+            oxygen[i] = round(o);
+            conductivity[i] = round(c);
+        }
+        detector = new MeasurementAnomalyDetector(new SimpleMeterRegistry());
+        startMicros = MeasurementColumns.toMicros(LocalDateTime.of(2024, 5, 1, 0, 0));
+        // période de chauffe passée pour toutes les stations
+        for (int i = 0; i < 50 * stations; i++) {
+            inspectNext();
+        }
+    }
+
+    @Benchmark
+    public int inspect() {
+        return inspectNext();
+    }
+
+    @Benchmark
+    public void baseline(Blackhole blackhole) {
+        long n = cursor++;
+        int i = (int) (n & (READINGS - 1));
+        blackhole.consume(n % stations);
+        blackhole.consume(startMicros + (n / stations) * MINUTE_MICROS);
+        blackhole.consume(ph[i] + temperature[i] + turbidity[i] + oxygen[i] + conductivity[i]);
+    }
+
+    private int inspectNext() {
+        long n = cursor++;
+        int i = (int) (n & (READINGS - 1));
+        // horodatage croissant par station : une mesure par minute
+        return detector.inspect(n % stations, startMicros + (n / stations) * MINUTE_MICROS,
+                ph[i], temperature[i], turbidity[i], oxygen[i], conductivity[i]);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MeasurementAnomalyDetectorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
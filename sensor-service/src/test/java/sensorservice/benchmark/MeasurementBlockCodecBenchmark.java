@@ -0,0 +1,99 @@
+package sensorservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sensorservice.archive.MeasurementBlockCodec;
+import sensorservice.archive.MeasurementColumns;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit de décodage séquentiel des blocs d'archive et taux de compression
+ *
+ * Un bloc = une journée d'une station à une mesure toutes les 10 s (8 640 lignes).
+ * Le score est en lignes décodées par seconde ; le taux de compression est affiché
+ * au démarrage de chaque fork.
+ *
+ * Lancement :
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath sensorservice.benchmark.MeasurementBlockCodecBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeasurementBlockCodecBenchmark {
+
+    static final int ROWS = 8_640;
+
+    // ligne PostgreSQL approximative, hors index : en-tête ~24 o + 8 id + 8 station
+    // + 8 timestamp + 5 x 8 + source (~14 o)
+    static final int ROW_STORAGE_BYTES = 100;
+
+    // "decimal" : valeurs capteur à 2 décimales ; "full" : doubles pleine précision
+    @Param({"decimal", "full"})
+    public String values;
+
+    private MeasurementColumns columns;
+    private byte[] block;
+
+    @Setup
+    public void setUp() {
+        columns = sampleDay(new Random(42), "decimal".equals(values));
+        block = MeasurementBlockCodec.encode(columns);
+        System.out.printf("%n[%s] %d lignes -> %d octets, %.2f o/ligne, ratio vs stockage ligne (~%d o) : %.1fx%n",
+                values, ROWS, block.length, (double) block.length / ROWS, ROW_STORAGE_BYTES,
+                (double) ROW_STORAGE_BYTES * ROWS / block.length);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public MeasurementColumns decode() {
+        return MeasurementBlockCodec.decode(block);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public byte[] encode() {
+        return MeasurementBlockCodec.encode(columns);
+    }
+
+    static MeasurementColumns sampleDay(Random random, boolean rounded) {
+        long start = MeasurementColumns.toMicros(LocalDateTime.of(2024, 3, 10, 0, 0));
+        MeasurementColumns day = new MeasurementColumns(ROWS);
+        double ph = 7.0;
+        double temperature = 21.0;
+        double turbidity = 4.0;
+        double oxygen = 8.0;
+        double conductivity = 340.0;
+        for (int i = 0; i < ROWS; i++) {
+            ph += random.nextGaussian() * 0.01;
+            temperature += random.nextGaussian() * 0.02;
+            turbidity += random.nextGaussian() * 0.02;
+            oxygen += random.nextGaussian() * 0.02;
+            conductivity += random.nextGaussian() * 0.3;
+            day.add(1_000 + i, start + i * 10_000_000L,
+                    round(ph, rounded), round(temperature, rounded), round(turbidity, rounded),
+                    round(oxygen, rounded), round(conductivity, rounded), (byte) 1);
+        }
+        return day;
+    }
+
+    private static double round(double value, boolean rounded) {
+        return rounded ? Math.round(value * 100.0) / 100.0 : value;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MeasurementBlockCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
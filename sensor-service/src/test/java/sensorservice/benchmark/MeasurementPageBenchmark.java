@@ -0,0 +1,220 @@
+package sensorservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'une page de mesures selon sa profondeur : pagination par clé (timestamp, id)
+ * contre LIMIT/OFFSET
+ *
+ * Base H2 en mémoire, 1 000 000 de mesures par station (deux stations entrelacées,
+ * horodatages dupliqués deux à deux pour exercer le départage par id), index
+ * idx_sensor_measurements_station_ts_id. Les requêtes reprennent le SQL généré pour
+ * SensorMeasurementRepository.findPageAfter ; le score est en µs par page de 100.
+ *
+ * Lancement :
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath sensorservice.benchmark.MeasurementPageBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MeasurementPageBenchmark {
+
+    private static final int ROWS_PER_STATION = 1_000_000;
+    private static final int PAGE_SIZE = 100;
+    private static final long STATION_ID = 1;
+    private static final LocalDateTime FROM = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusYears(5);
+
+    private static final String SELECT = """
+            select m.id, s.id, s.name, m.timestamp, m.ph, m.temperature, m.turbidity,
+                   m.dissolved_oxygen, m.conductivity
+            from sensor_measurements m join stations s on s.id = m.station_id
+            """;
+
+    // page suivant la ligne de rang "depth" (0 = première page)
+    @Param({"0", "100000", "900000"})
+    public int depth;
+
+    private Connection connection;
+    private PreparedStatement keyset;
+    private PreparedStatement offset;
+    private Timestamp afterTs;
+    private long afterId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                // sans réutilisation du dernier résultat : sinon H2 resservirait la même page sans l'exécuter
+                "jdbc:h2:mem:pages;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("drop all objects");
+            ddl.execute("create table stations (id bigint primary key, name varchar(255))");
+            ddl.execute("""
+                    create table sensor_measurements (
+                        id bigint primary key, station_id bigint not null, timestamp timestamp(6) not null,
+                        ph double precision, temperature double precision, turbidity double precision,
+                        dissolved_oxygen double precision, conductivity double precision)
+                    """);
+            ddl.execute("insert into stations values (1, 'Station 1'), (2, 'Station 2')");
+        }
+        load();
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create index idx_sensor_measurements_station_ts_id"
+                    + " on sensor_measurements (station_id, timestamp, id)");
+            ddl.execute("analyze");
+        }
+
+        afterTs = Timestamp.valueOf(FROM);
+        afterId = Long.MIN_VALUE;
+        if (depth > 0) {
+            try (PreparedStatement position = connection.prepareStatement(
+                    "select timestamp, id from sensor_measurements where station_id = ?"
+                            + " order by timestamp, id offset ? rows fetch next 1 rows only")) {
+                position.setLong(1, STATION_ID);
+                position.setInt(2, depth - 1);
+                try (ResultSet rs = position.executeQuery()) {
+                    rs.next();
+                    afterTs = rs.getTimestamp(1);
+                    afterId = rs.getLong(2);
+                }
+            }
+        }
+
+        keyset = connection.prepareStatement(SELECT + """
+                where m.station_id = ? and m.timestamp <= ?
+                  and m.timestamp >= ? and (m.timestamp > ? or m.id > ?)
+                order by m.station_id, m.timestamp, m.id
+                fetch first ? rows only
+                """);
+        offset = connection.prepareStatement(SELECT + """
+                where m.station_id = ? and m.timestamp between ? and ?
+                order by m.station_id, m.timestamp, m.id
+                offset ? rows fetch next ? rows only
+                """);
+
+        // les deux variantes doivent renvoyer la même page, complète
+        String viaKeyset = describe(bindKeyset());
+        String viaOffset = describe(bindOffset());
+        if (!viaKeyset.equals(viaOffset) || !viaKeyset.startsWith((PAGE_SIZE + 1) + " ")) {
+            throw new IllegalStateException("Pages différentes : keyset " + viaKeyset + ", offset " + viaOffset);
+        }
+    }
+
+    private void load() throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into sensor_measurements values (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            long id = 0;
+            for (int i = 0; i < ROWS_PER_STATION; i++) {
+                Timestamp ts = Timestamp.valueOf(FROM.plusSeconds((i / 2) * 60L));
+                for (long station = 1; station <= 2; station++) {
+                    insert.setLong(1, ++id);
+                    insert.setLong(2, station);
+                    insert.setTimestamp(3, ts);
+                    insert.setDouble(4, 7 + (i % 10) / 10.0);
+                    insert.setDouble(5, 20);
+                    insert.setDouble(6, 1.5);
+                    insert.setDouble(7, 8);
+                    insert.setDouble(8, 400);
+                    insert.addBatch();
+                }
+                if (i % 5000 == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void keysetPage(Blackhole blackhole) throws SQLException {
+        consume(bindKeyset(), blackhole);
+    }
+
+    @Benchmark
+    public void offsetPage(Blackhole blackhole) throws SQLException {
+        consume(bindOffset(), blackhole);
+    }
+
+    private PreparedStatement bindKeyset() throws SQLException {
+        keyset.setLong(1, STATION_ID);
+        keyset.setTimestamp(2, Timestamp.valueOf(TO));
+        keyset.setTimestamp(3, afterTs);
+        keyset.setTimestamp(4, afterTs);
+        keyset.setLong(5, afterId);
+        keyset.setInt(6, PAGE_SIZE + 1);
+        return keyset;
+    }
+
+    private PreparedStatement bindOffset() throws SQLException {
+        offset.setLong(1, STATION_ID);
+        offset.setTimestamp(2, Timestamp.valueOf(FROM));
+        offset.setTimestamp(3, Timestamp.valueOf(TO));
+        offset.setInt(4, depth);
+        offset.setInt(5, PAGE_SIZE + 1);
+        return offset;
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getLong(1));
+                blackhole.consume(rs.getTimestamp(4));
+                blackhole.consume(rs.getDouble(5));
+            }
+        }
+    }
+
+    // "<lignes> <premier id>..<dernier id>"
+    private static String describe(PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        long first = 0;
+        long last = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                last = rs.getLong(1);
+                if (rows++ == 0) {
+                    first = last;
+                }
+            }
+        }
+        return rows + " " + first + ".." + last;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MeasurementPageBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
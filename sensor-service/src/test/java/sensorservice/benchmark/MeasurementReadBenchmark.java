@@ -0,0 +1,243 @@
+package sensorservice.benchmark;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import sensorservice.domain.entity.SensorMeasurement;
+import sensorservice.domain.entity.Station;
+import sensorservice.web.dto.MeasurementResponse;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Lecture des mesures d'une station : entités hydratées (avant) contre projection
+ * directe en MeasurementResponse (après)
+ *
+ * Hibernate seul sur une base H2 en mémoire (entités Station et SensorMeasurement,
+ * 20 000 mesures sur deux stations), une session par appel comme une requête HTTP.
+ * Les requêtes reprennent celles de SensorMeasurementService / SensorMeasurementRepository :
+ * - range*  : plage de {@code rows} mesures (GET /api/measurements)
+ * - latest* : dernière mesure, index mémoire vide (GET /api/measurements/latest)
+ * Le nombre de requêtes SQL et d'entités chargées par appel est affiché au démarrage
+ * (statistiques Hibernate) ; les allocations par appel sont dans gc.alloc.rate.norm
+ * (profileur GC activé par main). Le score est en µs par appel.
+ *
+ * Lancement :
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath sensorservice.benchmark.MeasurementReadBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeasurementReadBenchmark {
+
+    private static final int ROWS_PER_STATION = 10_000;
+    private static final long STATION_ID = 1;
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final String PROJECTION = """
+            select new sensorservice.web.dto.MeasurementResponse(
+                m.id, s.id, s.name, m.timestamp,
+                m.ph, m.temperature, m.turbidity, m.dissolvedOxygen, m.conductivity, m.qualityFlags)
+            from SensorMeasurement m join m.station s
+            """;
+
+    // mesures dans la plage demandée
+    @Param({"100", "1000"})
+    public int rows;
+
+    private SessionFactory sessionFactory;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Station.class)
+                .addAnnotatedClass(SensorMeasurement.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:reads;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, "")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.GENERATE_STATISTICS, "true")
+                .buildSessionFactory();
+        load();
+        to = FROM.plusMinutes(rows - 1);
+
+        // les deux variantes doivent renvoyer les mêmes mesures (l'ancienne requête ne triait pas)
+        List<Long> before = rangeEntities().stream().map(MeasurementResponse::getId).sorted().toList();
+        List<Long> after = rangeProjection().stream().map(MeasurementResponse::getId).toList();
+        if (before.size() != rows || !before.equals(after)
+                || !latestEntity().getId().equals(latestProjection().getId())) {
+            throw new IllegalStateException("Résultats différents : " + before.size() + " / " + after.size());
+        }
+        report("rangeEntities", b -> b.rangeEntities());
+        report("rangeProjection", b -> b.rangeProjection());
+        report("latestEntity", b -> b.latestEntity());
+        report("latestProjection", b -> b.latestProjection());
+    }
+
+    private void load() {
+        try (Session session = sessionFactory.openSession()) {
+            session.doWork(connection -> {
+                try (Statement ddl = connection.createStatement()) {
+                    ddl.execute("insert into stations (id, code, name) values"
+                            + " (1, 'ST-001', 'Station 1'), (2, 'ST-002', 'Station 2')");
+                }
+                try (PreparedStatement insert = connection.prepareStatement("""
+                        insert into sensor_measurements (id, station_id, timestamp, ph, temperature,
+                            turbidity, dissolved_oxygen, conductivity, source, quality_flags)
+                        values (?, ?, ?, ?, 20, 1.5, 8, 400, 'IOT_SIMULATED', 0)
+                        """)) {
+                    long id = 0;
+                    for (int i = 0; i < ROWS_PER_STATION; i++) {
+                        for (long station = 1; station <= 2; station++) {
+                            insert.setLong(1, ++id);
+                            insert.setLong(2, station);
+                            insert.setTimestamp(3, Timestamp.valueOf(FROM.plusMinutes(i)));
+                            insert.setDouble(4, 7 + (i % 10) / 10.0);
+                            insert.addBatch();
+                        }
+                        if (i % 1000 == 0) {
+                            insert.executeBatch();
+                        }
+                    }
+                    insert.executeBatch();
+                }
+                try (Statement ddl = connection.createStatement()) {
+                    ddl.execute("create index idx_sensor_measurements_station_ts_id"
+                            + " on sensor_measurements (station_id, timestamp, id)");
+                }
+            });
+        }
+    }
+
+    // requêtes SQL et entités chargées pour un appel
+    private void report(String name, Function<MeasurementReadBenchmark, Object> call) {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        call.apply(this);
+        System.out.printf("%n%s (rows=%d) : %d requête(s) SQL, %d entité(s) chargée(s)%n", name, rows,
+                statistics.getPrepareStatementCount(), statistics.getEntityLoadCount());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Avant : station chargée, mesures en entités gérées rattachées à la station
+     */
+    @Benchmark
+    public List<MeasurementResponse> rangeEntities() {
+        try (Session session = sessionFactory.openSession()) {
+            Station station = session.find(Station.class, STATION_ID);
+            return session.createQuery("""
+                            select m from SensorMeasurement m
+                            where m.station = :station and m.timestamp between :from and :to
+                            """, SensorMeasurement.class)
+                    .setParameter("station", station)
+                    .setParameter("from", FROM)
+                    .setParameter("to", to)
+                    .getResultList()
+                    .stream()
+                    .map(MeasurementReadBenchmark::toResponse)
+                    .toList();
+        }
+    }
+
+    /**
+     * Après : SensorMeasurementService.getMeasurementsForStation (station chargée pour
+     * le 404 et l'archive, mesures projetées)
+     */
+    @Benchmark
+    public List<MeasurementResponse> rangeProjection() {
+        try (Session session = sessionFactory.openSession()) {
+            session.find(Station.class, STATION_ID);
+            return session.createQuery(PROJECTION + """
+                            where m.station.id = :stationId and m.timestamp between :from and :to
+                            order by m.station.id, m.timestamp, m.id
+                            """, MeasurementResponse.class)
+                    .setParameter("stationId", STATION_ID)
+                    .setParameter("from", FROM)
+                    .setParameter("to", to)
+                    .getResultList();
+        }
+    }
+
+    /**
+     * Avant : station chargée, dernière mesure en entité puis nom de la station
+     */
+    @Benchmark
+    public MeasurementResponse latestEntity() {
+        try (Session session = sessionFactory.openSession()) {
+            Station station = session.find(Station.class, STATION_ID);
+            return toResponse(session.createQuery("""
+                            select m from SensorMeasurement m where m.station = :station
+                            order by m.timestamp desc
+                            """, SensorMeasurement.class)
+                    .setParameter("station", station)
+                    .setMaxResults(1)
+                    .getSingleResult());
+        }
+    }
+
+    /**
+     * Après : SensorMeasurementRepository.findLatestByStation, une seule requête
+     */
+    @Benchmark
+    public MeasurementResponse latestProjection() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(PROJECTION + """
+                            where m.station.id = :stationId
+                            order by m.station.id desc, m.timestamp desc, m.id desc
+                            """, MeasurementResponse.class)
+                    .setParameter("stationId", STATION_ID)
+                    .setMaxResults(1)
+                    .getSingleResult();
+        }
+    }
+
+    private static MeasurementResponse toResponse(SensorMeasurement m) {
+        return MeasurementResponse.builder()
+                .id(m.getId())
+                .stationId(m.getStation().getId())
+                .stationName(m.getStation().getName())
+                .timestamp(m.getTimestamp())
+                .ph(m.getPh())
+                .temperature(m.getTemperature())
+                .turbidity(m.getTurbidity())
+                .dissolvedOxygen(m.getDissolvedOxygen())
+                .conductivity(m.getConductivity())
+                .qualityFlags(m.getQualityFlags())
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MeasurementReadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,115 @@
+package sensorservice.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import sensorservice.web.dto.MeasurementResponse;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodage/décodage d'une plage de mesures : JSON contre CBOR (Jackson)
+ *
+ * cbor : CBOR simple ; cbor-stringref : CBOR avec l'extension stringref, format servi par
+ * l'application (CborConfig).
+ *
+ * 1 000 MeasurementResponse d'une station (valeurs à 2 décimales, une mesure par minute),
+ * mappers construits comme ceux de l'application (Jackson2ObjectMapperBuilder).
+ * La taille des charges utiles est affichée au démarrage ; le score est en µs par plage.
+ *
+ * Lancement :
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath sensorservice.benchmark.MeasurementWireFormatBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeasurementWireFormatBenchmark {
+
+    private static final int ROWS = 1_000;
+    private static final TypeReference<List<MeasurementResponse>> LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "cbor-stringref"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private List<MeasurementResponse> rows;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = mapper(format);
+        rows = new ArrayList<>(ROWS);
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 0, 0, 0, 123_000_000);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(MeasurementResponse.builder()
+                    .id(1_000_000L + i)
+                    .stationId(1L)
+                    .stationName("Station Oued Bouregreg")
+                    .timestamp(start.plusMinutes(i))
+                    .ph(round(6.8 + random.nextDouble() * 0.7))
+                    .temperature(round(18 + random.nextDouble() * 7))
+                    .turbidity(round(3 + random.nextDouble() * 2))
+                    .dissolvedOxygen(round(6 + random.nextDouble() * 4))
+                    .conductivity(round(310 + random.nextDouble() * 60))
+                    .qualityFlags(0)
+                    .build());
+        }
+        payload = mapper.writeValueAsBytes(rows);
+        if (!mapper.readValue(payload, LIST).equals(rows)) {
+            throw new IllegalStateException("Aller-retour " + format + " incorrect");
+        }
+        System.out.printf("%n%s : %d octets pour %d mesures (%.1f octets/mesure)%n",
+                format, payload.length, ROWS, payload.length / (double) ROWS);
+    }
+
+    private static ObjectMapper mapper(String format) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        return switch (format) {
+            case "json" -> builder.build();
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            case "cbor-stringref" -> builder.factory(CBORFactory.builder()
+                    .enable(CBORGenerator.Feature.STRINGREF)
+                    .build()).build();
+            default -> throw new IllegalArgumentException(format);
+        };
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(rows);
+    }
+
+    @Benchmark
+    public List<MeasurementResponse> decode() throws IOException {
+        return mapper.readValue(payload, LIST);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MeasurementWireFormatBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,109 @@
+package sensorservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sensorservice.domain.entity.Station;
+import sensorservice.geo.GeoGridIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence des requêtes géographiques sur le catalogue des stations
+ *
+ * Stations réparties sur l'emprise du Maroc, moitié uniformes, moitié en amas
+ * autour de quelques villes. Comparaison avec le filtrage complet de la liste
+ * (ce que faisaient les clients) ; le score est en µs par requête.
+ *
+ * Lancement :
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath sensorservice.benchmark.StationSpatialIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StationSpatialIndexBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"10000", "50000"})
+    public int stations;
+
+    private List<Station> catalog;
+    private GeoGridIndex<Station> index;
+    private double[] queryLat;
+    private double[] queryLon;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        catalog = new ArrayList<>(stations);
+        for (int i = 0; i < stations; i++) {
+            double lat, lon;
+            if (i % 2 == 0) {
+                lat = 27 + random.nextDouble() * 9;
+                lon = -13 + random.nextDouble() * 12;
+            } else {
+                int city = random.nextInt(6);
+                lat = 30 + city + random.nextGaussian() * 0.2;
+                lon = -9 + city + random.nextGaussian() * 0.2;
+            }
+            catalog.add(Station.builder().id((long) i).code("ST" + i).name("Station " + i)
+                    .latitude(lat).longitude(lon).build());
+        }
+        long start = System.nanoTime();
+        index = GeoGridIndex.build(catalog, Station::getLatitude, Station::getLongitude);
+        System.out.printf("%n[%d stations] construction de l'index : %.1f ms%n",
+                stations, (System.nanoTime() - start) / 1e6);
+
+        queryLat = new double[QUERIES];
+        queryLon = new double[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            queryLat[q] = 27 + random.nextDouble() * 9;
+            queryLon[q] = -13 + random.nextDouble() * 12;
+        }
+    }
+
+    @Benchmark
+    public Object nearest10() {
+        int q = next++ & (QUERIES - 1);
+        return index.nearest(queryLat[q], queryLon[q], 10);
+    }
+
+    // boîte d'environ 50 x 50 km (emprise d'une scène satellite)
+    @Benchmark
+    public Object within50km() {
+        int q = next++ & (QUERIES - 1);
+        return index.within(queryLat[q], queryLon[q], queryLat[q] + 0.45, queryLon[q] + 0.55);
+    }
+
+    @Benchmark
+    public Object within50kmFullScan() {
+        int q = next++ & (QUERIES - 1);
+        double minLat = queryLat[q], minLon = queryLon[q], maxLat = minLat + 0.45, maxLon = minLon + 0.55;
+        List<Station> result = new ArrayList<>();
+        for (Station s : catalog) {
+            if (s.getLatitude() >= minLat && s.getLatitude() <= maxLat
+                    && s.getLongitude() >= minLon && s.getLongitude() <= maxLon) {
+                result.add(s);
+            }
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StationSpatialIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,152 @@
+package sensorservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires simples pour ReadReplicaRoutingDataSource
+ *
+ * Deux bases H2 en mémoire tiennent lieu de primaire et de réplica ; chacune répond
+ * son propre nom, ce qui montre où une requête a été routée.
+ */
+@DisplayName("ReadReplicaRoutingDataSource Tests")
+class ReadReplicaRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DataSource primary = database("primary");
+    private final FlakyDataSource replica = new FlakyDataSource(database("replica"));
+
+    private ReadReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    /**
+     * Réplica que l'on peut rendre injoignable
+     */
+    static class FlakyDataSource extends DelegatingDataSource {
+        volatile boolean down;
+
+        FlakyDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(primary).execute("drop all objects");
+        new JdbcTemplate(replica.getTargetDataSource()).execute("drop all objects");
+    }
+
+    @Test
+    @DisplayName("Transaction readOnly sur le réplica, écritures et lectures hors transaction sur le primaire")
+    void shouldRouteReadOnlyTransactionsToReplica() {
+        setUp(Duration.ofSeconds(10), "");
+
+        String readOnlyTx = readOnly.execute(status -> whoAmI());
+        String readWriteTx = readWrite.execute(status -> {
+            jdbcTemplate.update("insert into node (name) values ('written')");
+            return whoAmI();
+        });
+        String noTx = whoAmI();
+
+        assertThat(readOnlyTx).isEqualTo("replica");
+        assertThat(readWriteTx).isEqualTo("primary");
+        assertThat(noTx).isEqualTo("primary");
+        assertThat(new JdbcTemplate(primary).queryForList("select name from node", String.class))
+                .contains("written");
+        assertThat(meterRegistry.get("sensor.datasource.routed").tag("target", "replica").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Réplica trop en retard : lectures sur le primaire")
+    void shouldAvoidStaleReplica() {
+        setUp(Duration.ofSeconds(10), "select 30");
+
+        String readOnlyTx = readOnly.execute(status -> whoAmI());
+
+        assertThat(readOnlyTx).isEqualTo("primary");
+        assertThat(routing.isReplicaUsable()).isFalse();
+        assertThat(meterRegistry.get("sensor.datasource.replica.lag").gauge().value()).isEqualTo(30.0);
+    }
+
+    @Test
+    @DisplayName("Réplica injoignable : repli sur le primaire jusqu'au contrôle suivant")
+    void shouldFallBackToPrimaryWhenReplicaFails() {
+        setUp(Duration.ofSeconds(10), "");
+        replica.down = true;
+
+        String duringOutage = readOnly.execute(status -> whoAmI());
+        replica.down = false;
+        String beforeCheck = readOnly.execute(status -> whoAmI());
+        routing.checkReplica();
+        String afterCheck = readOnly.execute(status -> whoAmI());
+
+        assertThat(duringOutage).isEqualTo("primary");
+        assertThat(beforeCheck).isEqualTo("primary");
+        assertThat(afterCheck).isEqualTo("replica");
+        assertThat(meterRegistry.get("sensor.datasource.replica.fallbacks").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Réplica indisponible au contrôle : écarté")
+    void shouldDisableReplicaWhenCheckFails() {
+        setUp(Duration.ofSeconds(10), "");
+        replica.down = true;
+
+        routing.checkReplica();
+        String readOnlyTx = readOnly.execute(status -> whoAmI());
+
+        assertThat(routing.isReplicaUsable()).isFalse();
+        assertThat(readOnlyTx).isEqualTo("primary");
+        assertThat(meterRegistry.get("sensor.datasource.replica.fallbacks").counter().count()).isZero();
+    }
+
+    private void setUp(Duration maxStaleness, String lagQuery) {
+        routing = new ReadReplicaRoutingDataSource(primary, replica, maxStaleness, lagQuery, meterRegistry);
+        routing.checkReplica();
+        // comme en production : la connexion n'est obtenue qu'à la première requête
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private String whoAmI() {
+        return jdbcTemplate.queryForObject("select name from node where role = 'self'", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (name varchar(32), role varchar(16) default 'data')");
+        jdbc.update("insert into node (name, role) values (?, 'self')", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,113 @@
+package sensorservice.geo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests unitaires simples pour GeoGridIndex
+ */
+@DisplayName("GeoGridIndex Tests")
+class GeoGridIndexTest {
+
+    private record Point(long id, Double lat, Double lon) {
+    }
+
+    @Test
+    @DisplayName("within renvoie exactement les points de la boîte (comparaison exhaustive)")
+    void withinShouldMatchBruteForce() {
+        Random random = new Random(1);
+        List<Point> points = randomPoints(random, 20_000, 27, 36, -13, -1);   // emprise du Maroc
+        GeoGridIndex<Point> index = GeoGridIndex.build(points, Point::lat, Point::lon);
+
+        for (int q = 0; q < 200; q++) {
+            double lat0 = 26 + random.nextDouble() * 11, lon0 = -14 + random.nextDouble() * 14;
+            double lat1 = lat0 + random.nextDouble() * 2, lon1 = lon0 + random.nextDouble() * 2;
+
+            List<Long> expected = points.stream()
+                    .filter(p -> p.lat() >= lat0 && p.lat() <= lat1 && p.lon() >= lon0 && p.lon() <= lon1)
+                    .map(Point::id).sorted().toList();
+            List<Long> actual = index.within(lat0, lon0, lat1, lon1).stream()
+                    .map(Point::id).sorted().toList();
+
+            assertThat(actual).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("nearest renvoie les k plus proches, triés (comparaison exhaustive)")
+    void nearestShouldMatchBruteForce() {
+        Random random = new Random(2);
+        List<Point> points = randomPoints(random, 20_000, -60, 70, -180, 180);
+        GeoGridIndex<Point> index = GeoGridIndex.build(points, Point::lat, Point::lon);
+
+        for (int q = 0; q < 300; q++) {
+            double lat = -89 + random.nextDouble() * 178, lon = -180 + random.nextDouble() * 360;
+            int k = 1 + random.nextInt(20);
+
+            List<Double> expected = points.stream()
+                    .map(p -> GeoGridIndex.distanceKm(lat, lon, p.lat(), p.lon()))
+                    .sorted().limit(k).toList();
+            List<GeoGridIndex.Neighbor<Point>> actual = index.nearest(lat, lon, k);
+
+            assertThat(actual).hasSize(k);
+            assertThat(actual).isSortedAccordingTo(Comparator.comparingDouble(GeoGridIndex.Neighbor::distanceKm));
+            for (int i = 0; i < k; i++) {
+                assertThat(actual.get(i).distanceKm()).isCloseTo(expected.get(i), within(1e-9));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Antiméridien : voisin de l'autre côté de ±180 et boîte qui le traverse")
+    void shouldHandleAntimeridian() {
+        List<Point> points = List.of(
+                new Point(1, -17.0, 179.5),
+                new Point(2, -17.0, -179.8),
+                new Point(3, -17.0, 170.0),
+                new Point(4, -17.0, -170.0));
+        GeoGridIndex<Point> index = GeoGridIndex.build(points, Point::lat, Point::lon);
+
+        assertThat(index.nearest(-17.0, -179.9, 2)).extracting(n -> n.item().id()).containsExactly(2L, 1L);
+        assertThat(index.within(-18, 179, -16, -179)).extracting(Point::id).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Les éléments sans coordonnées sont ignorés ; index vide sans erreur")
+    void shouldIgnoreUnlocatedItems() {
+        List<Point> points = List.of(new Point(1, null, 2.0), new Point(2, 33.5, -7.6));
+        GeoGridIndex<Point> index = GeoGridIndex.build(points, Point::lat, Point::lon);
+        GeoGridIndex<Point> empty = GeoGridIndex.build(List.of(), Point::lat, Point::lon);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.nearest(0, 0, 5)).extracting(n -> n.item().id()).containsExactly(2L);
+        assertThat(empty.nearest(0, 0, 5)).isEmpty();
+        assertThat(empty.within(-90, -180, 90, 180)).isEmpty();
+    }
+
+    private static List<Point> randomPoints(Random random, int n, double minLat, double maxLat,
+                                            double minLon, double maxLon) {
+        List<Point> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            // moitié en amas autour de quelques villes, moitié uniforme
+            double lat, lon;
+            if (i % 2 == 0) {
+                lat = minLat + random.nextDouble() * (maxLat - minLat);
+                lon = minLon + random.nextDouble() * (maxLon - minLon);
+            } else {
+                int cluster = random.nextInt(5);
+                lat = Math.max(minLat, Math.min(maxLat, minLat + (cluster + 0.5) * (maxLat - minLat) / 5 + random.nextGaussian() * 0.1));
+                lon = Math.max(minLon, Math.min(maxLon, minLon + (cluster + 0.5) * (maxLon - minLon) / 5 + random.nextGaussian() * 0.1));
+            }
+            points.add(new Point(i, lat, lon));
+        }
+        return points;
+    }
+}
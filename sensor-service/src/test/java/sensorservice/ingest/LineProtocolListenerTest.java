@@ -0,0 +1,171 @@
+package sensorservice.ingest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import sensorservice.service.MeasurementIngestQueue;
+import sensorservice.service.SensorMeasurementService;
+import sensorservice.service.StationService;
+import sensorservice.web.dto.MeasurementCreateRequest;
+
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires simples pour LineProtocolListener
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("LineProtocolListener Tests")
+class LineProtocolListenerTest {
+
+    @Mock
+    private MeasurementIngestQueue ingestQueue;
+
+    @Mock
+    private SensorMeasurementService measurementService;
+
+    @Mock
+    private StationService stationService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LineProtocolListener listener;
+    private final List<MeasurementCreateRequest> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new LineProtocolListener(ingestQueue, measurementService, stationService, meterRegistry);
+        ReflectionTestUtils.setField(listener, "enabled", true);
+        ReflectionTestUtils.setField(listener, "bindAddress", "127.0.0.1");
+        ReflectionTestUtils.setField(listener, "port", 0);
+        ReflectionTestUtils.setField(listener, "bufferSize", 256);
+        when(ingestQueue.isEnabled()).thenReturn(true);
+        when(ingestQueue.capacity()).thenReturn(50000);
+        when(stationService.exists(any())).thenAnswer(inv -> inv.<Long>getArgument(0) < 90);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    @Test
+    @DisplayName("Les lignes valides sont remises à la file, les invalides comptées")
+    void shouldForwardValidLinesToQueue() throws Exception {
+        when(ingestQueue.tryOffer(any())).thenAnswer(inv -> received.addAll(inv.getArgument(0)));
+        listener.start();
+
+        StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            payload.append(i % 3 + 1).append(",ph=7.").append(i % 10)
+                    .append(",temp=20,turb=1,do=8,cond=500 ").append(1718000000000L + i).append('\n');
+        }
+        payload.append("# commentaire\n\nbad line\n");
+        payload.append("1,ph=7,temp=20,turb=1,do=8,cond=500");     // dernière ligne sans '\n'
+        send(payload.toString());
+
+        awaitReceived(501);
+        assertThat(received).hasSize(501);
+        assertThat(received.get(0).getStationId()).isEqualTo(1L);
+        assertThat(received.get(0).getTimestamp()).isNotNull();
+        assertThat(received.get(500).getTimestamp()).isNull();
+        assertThat(meterRegistry.get("sensor.ingest.line.readings").tag("result", "rejected").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("File pleine : le lot est conservé puis remis, sans perte")
+    void shouldRetryWhenQueueIsFull() throws Exception {
+        AtomicInteger refusals = new AtomicInteger();
+        when(ingestQueue.tryOffer(any())).thenAnswer(inv ->
+                refusals.incrementAndGet() <= 5 ? false : received.addAll(inv.getArgument(0)));
+        listener.start();
+
+        StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            payload.append("2,ph=7,temp=20,turb=1,do=8,cond=500\n");
+        }
+        send(payload.toString());
+
+        awaitReceived(50);
+        assertThat(received).hasSize(50);
+        assertThat(refusals.get()).isGreaterThan(5);
+    }
+
+    @Test
+    @DisplayName("Lot plus grand que la file : remis par paquets d'au plus sa capacité")
+    void shouldSplitBatchLargerThanQueueCapacity() throws Exception {
+        when(ingestQueue.capacity()).thenReturn(10);
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+        when(ingestQueue.tryOffer(any())).thenAnswer(inv -> {
+            List<MeasurementCreateRequest> chunk = inv.getArgument(0);
+            sizes.add(chunk.size());
+            return received.addAll(chunk);
+        });
+        listener.start();
+
+        StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 35; i++) {
+            payload.append("2,ph=7,temp=20,turb=1,do=8,cond=500\n");
+        }
+        send(payload.toString());
+
+        awaitReceived(35);
+        assertThat(received).hasSize(35);
+        assertThat(sizes).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(10));
+    }
+
+    @Test
+    @DisplayName("File désactivée : écriture synchrone hors du thread du listener, station inconnue écartée seule")
+    void shouldWriteSynchronouslyWithoutQueue() throws Exception {
+        when(ingestQueue.isEnabled()).thenReturn(false);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        when(measurementService.createMeasurements(any(), any())).thenAnswer(inv -> {
+            threads.add(Thread.currentThread().getName());
+            received.addAll(inv.getArgument(0));
+            return null;
+        });
+        listener.start();
+
+        send("4,ph=7,temp=20,turb=1,do=8,cond=500\n99,ph=7,temp=20,turb=1,do=8,cond=500\n");
+
+        awaitReceived(1);
+        assertThat(received).extracting(MeasurementCreateRequest::getStationId).containsExactly(4L);
+        assertThat(threads).allSatisfy(name -> assertThat(name).startsWith("measurement-line-writer"));
+        assertThat(meterRegistry.get("sensor.ingest.line.readings").tag("result", "rejected").counter().count())
+                .isEqualTo(1.0);
+        verify(ingestQueue, never()).tryOffer(any());
+    }
+
+    private void send(String payload) throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", listener.getLocalPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(payload.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+    }
+
+    private void awaitReceived(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (received.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package sensorservice.ingest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires simples pour LineProtocolParser
+ */
+@DisplayName("LineProtocolParser Tests")
+class LineProtocolParserTest {
+
+    private final LineProtocolParser.Reading reading = new LineProtocolParser.Reading();
+
+    @Test
+    @DisplayName("Ligne complète avec horodatage")
+    void shouldParseFullLine() {
+        assertThat(parse("12,ph=7.21,temp=18.4,turb=3.1,do=8.02,cond=512 1718000000000")).isTrue();
+
+        assertThat(reading.getStationId()).isEqualTo(12L);
+        assertThat(reading.getPh()).isEqualTo(7.21);
+        assertThat(reading.getTemperature()).isEqualTo(18.4);
+        assertThat(reading.getTurbidity()).isEqualTo(3.1);
+        assertThat(reading.getDissolvedOxygen()).isEqualTo(8.02);
+        assertThat(reading.getConductivity()).isEqualTo(512.0);
+        assertThat(reading.hasTimestamp()).isTrue();
+        assertThat(reading.getTimestampMillis()).isEqualTo(1718000000000L);
+    }
+
+    @Test
+    @DisplayName("Champs dans le désordre, sans horodatage, '\\r' final et température négative")
+    void shouldParseUnorderedFieldsWithoutTimestamp() {
+        assertThat(parse("3,cond=480.5,do=9,temp=-1.25,ph=6.9,turb=0\r")).isTrue();
+
+        assertThat(reading.getStationId()).isEqualTo(3L);
+        assertThat(reading.getTemperature()).isEqualTo(-1.25);
+        assertThat(reading.getDissolvedOxygen()).isEqualTo(9.0);
+        assertThat(reading.hasTimestamp()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Lignes mal formées ou hors bornes refusées")
+    void shouldRejectInvalidLines() {
+        assertThat(parse("")).isFalse();
+        assertThat(parse("abc,ph=7,temp=1,turb=1,do=1,cond=1")).isFalse();
+        assertThat(parse("0,ph=7,temp=1,turb=1,do=1,cond=1")).isFalse();
+        assertThat(parse("1,ph=7,temp=1,turb=1,do=1")).isFalse();                  // champ manquant
+        assertThat(parse("1,ph=7,ph=7,temp=1,turb=1,do=1,cond=1")).isFalse();      // champ répété
+        assertThat(parse("1,ph=7,temp=1,turb=1,do=1,cond=1,x=2")).isFalse();       // champ inconnu
+        assertThat(parse("1,ph=7,temp=1e3,turb=1,do=1,cond=1")).isFalse();         // exposant
+        assertThat(parse("1,ph=7,temp=,turb=1,do=1,cond=1")).isFalse();            // valeur vide
+        assertThat(parse("1,ph=15,temp=1,turb=1,do=1,cond=1")).isFalse();          // pH > 14
+        assertThat(parse("1,ph=7,temp=1,turb=-1,do=1,cond=1")).isFalse();          // turbidité < 0
+        assertThat(parse("1,ph=7,temp=1,turb=1,do=1,cond=1 12a")).isFalse();       // horodatage
+    }
+
+    @Test
+    @DisplayName("Décimaux identiques à Double.parseDouble")
+    void shouldMatchDoubleParseDouble() {
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            int decimals = random.nextInt(7);
+            double value = Math.round(random.nextDouble() * 2000 * Math.pow(10, decimals)) / Math.pow(10, decimals);
+            String text = String.format(java.util.Locale.ROOT, "%." + decimals + "f", value);
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+
+            assertThat(LineProtocolParser.parseDecimal(bytes, 0, bytes.length))
+                    .as(text)
+                    .isEqualTo(Double.parseDouble(text));
+        }
+    }
+
+    @Test
+    @DisplayName("Analyse d'une ligne au milieu d'un tampon")
+    void shouldParseSliceOfBuffer() {
+        byte[] buffer = "garbage\n5,ph=7,temp=20,turb=1,do=8,cond=500\nmore".getBytes(StandardCharsets.US_ASCII);
+
+        assertThat(LineProtocolParser.parse(buffer, 8, 43, reading)).isTrue();
+        assertThat(reading.getStationId()).isEqualTo(5L);
+        assertThat(reading.getConductivity()).isEqualTo(500.0);
+    }
+
+    private boolean parse(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+        return LineProtocolParser.parse(bytes, 0, bytes.length, reading);
+    }
+}
@@ -0,0 +1,102 @@
+package sensorservice.ingest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires simples pour MeasurementCsvParser
+ */
+@DisplayName("MeasurementCsvParser Tests")
+class MeasurementCsvParserTest {
+
+    private static final String WATER_QUALITY_HEADER =
+            "Sample ID,pH,Temperature (°C),Turbidity (NTU),Dissolved Oxygen (mg/L),Conductivity (µS/cm)";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static MeasurementCsvParser parser(String header, Long defaultStationId, LocalDateTime start) {
+        return new MeasurementCsvParser(header, Map.of("ST-001", 1L, "ST-002", 2L)::get, Set.of(1L, 2L)::contains,
+                defaultStationId, start, Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Format Water Quality Testing.csv : station par défaut, horodatage = start + rang x intervalle")
+    void shouldParseWaterQualityLayout() {
+        MeasurementCsvParser.Chunk chunk = parser(WATER_QUALITY_HEADER, 2L, START).parse(List.of(
+                "1,7.25,23.1,4.5,7.8,342",
+                "2,6.11,22.3,5.1,6.2,335"), 5);
+
+        assertThat(chunk.size()).isEqualTo(2);
+        assertThat(chunk.rowsRead()).isEqualTo(2);
+        assertThat(chunk.stationId(0)).isEqualTo(2L);
+        assertThat(chunk.timestamp(0)).isEqualTo(START.plusMinutes(50));
+        assertThat(chunk.timestamp(1)).isEqualTo(START.plusMinutes(60));
+        assertThat(chunk.ph(0)).isEqualTo(7.25);
+        assertThat(chunk.temperature(1)).isEqualTo(22.3);
+        assertThat(chunk.turbidity(0)).isEqualTo(4.5);
+        assertThat(chunk.dissolvedOxygen(1)).isEqualTo(6.2);
+        assertThat(chunk.conductivity(0)).isEqualTo(342.0);
+    }
+
+    @Test
+    @DisplayName("Colonnes dans le désordre avec code station, horodatage et champs entre guillemets")
+    void shouldParseStationAndTimestampColumns() {
+        MeasurementCsvParser.Chunk chunk = parser(
+                "﻿timestamp,Conductivity,station_code,DO,turbidity,Temp,PH", null, null).parse(List.of(
+                "2024-03-10 14:00:00,512,\"ST-001\",8.1,0.5,-1.5,7\r",
+                "2024-03-11,498,ST-002,7.9,0.4,12,7.1"), 0);
+
+        assertThat(chunk.size()).isEqualTo(2);
+        assertThat(chunk.stationId(0)).isEqualTo(1L);
+        assertThat(chunk.timestamp(0)).isEqualTo(LocalDateTime.of(2024, 3, 10, 14, 0));
+        assertThat(chunk.temperature(0)).isEqualTo(-1.5);
+        assertThat(chunk.stationId(1)).isEqualTo(2L);
+        assertThat(chunk.timestamp(1)).isEqualTo(LocalDateTime.of(2024, 3, 11, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Lignes invalides écartées, comptées par motif avec leur numéro de ligne")
+    void shouldRejectInvalidRows() {
+        MeasurementCsvParser.Chunk chunk = parser("Station ID,pH,Temperature,Turbidity,Dissolved Oxygen,Conductivity",
+                null, START).parse(List.of(
+                "1,7,20,1,8,500",
+                "1,7,20,1,8",
+                "1,abc,20,1,8,500",
+                "1,15,20,1,8,500",
+                "",
+                "9,7,20,1,8,500",
+                "2,7,20,-1,8,500"), 0);
+
+        assertThat(chunk.size()).isEqualTo(1);
+        assertThat(chunk.rowsRead()).isEqualTo(6);
+        assertThat(chunk.rejectedByReason()).containsOnly(
+                Map.entry(MeasurementCsvParser.REASON_COLUMNS, 1L),
+                Map.entry(MeasurementCsvParser.REASON_NUMBER, 1L),
+                Map.entry(MeasurementCsvParser.REASON_RANGE, 2L),
+                Map.entry(MeasurementCsvParser.REASON_STATION, 1L));
+        assertThat(chunk.rejectedSamples()).extracting(MeasurementCsvParser.Rejected::line)
+                .containsExactly(3L, 4L, 5L, 7L, 8L);
+    }
+
+    @Test
+    @DisplayName("Colonne obligatoire, station ou horodatage manquants : erreur à la lecture de l'en-tête")
+    void shouldRejectIncompleteHeader() {
+        assertThatThrownBy(() -> parser("pH,Temperature,Turbidity,Conductivity", 1L, START))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("dissolved_oxygen");
+        assertThatThrownBy(() -> parser(WATER_QUALITY_HEADER, null, START))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("stationId");
+        assertThatThrownBy(() -> parser(WATER_QUALITY_HEADER, 1L, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("start");
+    }
+}
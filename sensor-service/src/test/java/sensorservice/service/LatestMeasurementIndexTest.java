@@ -0,0 +1,117 @@
+package sensorservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sensorservice.web.dto.MeasurementResponse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires simples pour LatestMeasurementIndex
+ */
+@DisplayName("LatestMeasurementIndex Tests")
+class LatestMeasurementIndexTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LatestMeasurementIndex index;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new LatestMeasurementIndex(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Une mesure plus récente remplace l'entrée")
+    void shouldKeepNewestMeasurement() {
+        LocalDateTime now = LocalDateTime.now();
+        index.update(measurement(1L, 10L, now.minusHours(1)));
+        index.update(measurement(1L, 11L, now));
+
+        assertThat(index.get(1L).getId()).isEqualTo(11L);
+    }
+
+    @Test
+    @DisplayName("Une mesure plus ancienne n'écrase pas l'entrée")
+    void shouldIgnoreOlderMeasurement() {
+        LocalDateTime now = LocalDateTime.now();
+        index.update(measurement(1L, 11L, now));
+        index.update(measurement(1L, 10L, now.minusHours(1)));
+
+        assertThat(index.get(1L).getId()).isEqualTo(11L);
+    }
+
+    @Test
+    @DisplayName("Compter les hits et les miss")
+    void shouldCountHitsAndMisses() {
+        index.update(measurement(1L, 10L, LocalDateTime.now()));
+
+        index.get(1L);
+        index.get(1L);
+        index.get(2L);
+
+        assertThat(meterRegistry.get("sensor.latest.index.requests").tag("result", "hit").counter().count())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.get("sensor.latest.index.requests").tag("result", "miss").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("evict retire la station de l'index")
+    void shouldEvictStation() {
+        index.update(measurement(1L, 10L, LocalDateTime.now()));
+
+        index.evict(1L);
+
+        assertThat(index.get(1L)).isNull();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Mise à jour appliquée au commit, ignorée en cas de rollback")
+    void shouldUpdateAfterCommitOnly() {
+        LocalDateTime now = LocalDateTime.now();
+        TransactionSynchronizationManager.initSynchronization();
+        index.updateAfterCommit(List.of(measurement(1L, 10L, now)));
+        assertThat(index.peek(1L)).isNull();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        assertThat(index.peek(1L)).isNull();
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.updateAfterCommit(List.of(measurement(1L, 11L, now)));
+        index.updateAfterCommit(List.of(measurement(2L, 12L, now)));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertThat(synchronizations).hasSize(1);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(index.peek(1L).getId()).isEqualTo(11L);
+        assertThat(index.peek(2L).getId()).isEqualTo(12L);
+        assertThat(TransactionSynchronizationManager.hasResource(index)).isFalse();
+    }
+
+    private MeasurementResponse measurement(Long stationId, Long id, LocalDateTime timestamp) {
+        return MeasurementResponse.builder()
+                .id(id)
+                .stationId(stationId)
+                .timestamp(timestamp)
+                .ph(7.0)
+                .build();
+    }
+}
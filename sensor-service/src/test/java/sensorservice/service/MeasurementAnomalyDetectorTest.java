@@ -0,0 +1,147 @@
+package sensorservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import sensorservice.domain.enums.QualityFlag;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires simples pour MeasurementAnomalyDetector
+ */
+@DisplayName("MeasurementAnomalyDetector Tests")
+class MeasurementAnomalyDetectorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private MeasurementAnomalyDetector detector;
+    private final Random random = new Random(42);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        detector = new MeasurementAnomalyDetector(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Aucun indicateur sur des mesures bruitées mais plausibles")
+    void shouldNotFlagNormalNoise() {
+        // mêmes plages que les mesures simulées (DataInitializer)
+        for (int i = 0; i < 5_000; i++) {
+            int flags = detector.inspect(1L, START.plusMinutes(i),
+                    uniform(6.83, 7.48), uniform(18.8, 25.1), uniform(3.1, 5.1),
+                    uniform(6.0, 9.9), uniform(316, 370));
+            assertThat(flags).as("mesure %d", i).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Un pic est signalé après la période de chauffe, sans déplacer la référence")
+    void shouldFlagSpikeAfterWarmup() {
+        int i = 0;
+        for (; i < 30; i++) {
+            inspectNormal(1L, i);
+        }
+
+        int spike = detector.inspect(1L, START.plusMinutes(i++), 7.1, 21.0, 250.0, 8.0, 340.0);
+        int next = inspectNormal(1L, i);
+
+        assertThat(QualityFlag.fromMask(spike)).contains(QualityFlag.SPIKE, QualityFlag.RATE_OF_CHANGE);
+        // le retour à la normale n'est ni un pic ni une variation trop rapide
+        assertThat(next).isZero();
+        assertThat(meterRegistry.get("sensor.quality.flagged").tag("flag", "spike").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Pas de contrôle de pic avant la période de chauffe")
+    void shouldNotFlagSpikeDuringWarmup() {
+        inspectNormal(1L, 0);
+
+        int flags = detector.inspect(1L, START.plusMinutes(1), 7.1, 21.0, 250.0, 8.0, 340.0);
+
+        assertThat(flags).isZero();
+    }
+
+    @Test
+    @DisplayName("Une valeur répétée à l'identique signale un capteur bloqué")
+    void shouldFlagStuckSensor() {
+        for (int i = 0; i < 30; i++) {
+            inspectNormal(1L, i);
+        }
+        int flags = 0;
+        for (int i = 0; i < 10; i++) {
+            flags = detector.inspect(1L, START.plusMinutes(30 + i),
+                    uniform(6.9, 7.3), uniform(20, 22), 4.0, uniform(7.5, 8.5), uniform(330, 350));
+            if (i < 9) {
+                assertThat(flags & QualityFlag.STUCK.mask()).as("répétition %d", i).isZero();
+            }
+        }
+
+        assertThat(QualityFlag.fromMask(flags)).containsExactly(QualityFlag.STUCK);
+    }
+
+    @Test
+    @DisplayName("Une valeur physiquement impossible est signalée et ignorée par l'état")
+    void shouldFlagImpossibleValue() {
+        for (int i = 0; i < 30; i++) {
+            inspectNormal(1L, i);
+        }
+
+        int impossible = detector.inspect(1L, START.plusMinutes(30), 1.2, 21.0, 4.0, 8.0, 340.0);
+        int next = inspectNormal(1L, 31);
+
+        assertThat(QualityFlag.fromMask(impossible)).containsExactly(QualityFlag.OUT_OF_RANGE);
+        assertThat(next).isZero();
+    }
+
+    @Test
+    @DisplayName("Une variation lente est acceptée, un saut rapide est signalé")
+    void shouldFlagFastRateOfChange() {
+        double temperature = 20.0;
+        int i = 0;
+        // +0.5 °C par heure, une mesure par minute
+        for (; i < 120; i++) {
+            temperature += 0.5 / 60;
+            int flags = detector.inspect(1L, START.plusMinutes(i), 7.1 + i % 3 * 0.02, temperature,
+                    4.0 + i % 3 * 0.1, 8.0 + i % 2 * 0.1, 340.0 + i % 5);
+            assertThat(flags).as("mesure %d", i).isZero();
+        }
+
+        int jump = detector.inspect(1L, START.plusMinutes(i), 7.12, temperature + 3.0, 4.1, 8.1, 341.0);
+
+        assertThat(QualityFlag.fromMask(jump)).contains(QualityFlag.RATE_OF_CHANGE);
+    }
+
+    @Test
+    @DisplayName("Les stations et les détecteurs détachés ont des états séparés")
+    void shouldKeepStatePerStationAndDetachedDetector() {
+        for (int i = 0; i < 30; i++) {
+            inspectNormal(1L, i);
+        }
+        MeasurementAnomalyDetector historical = detector.detached();
+
+        int otherStation = detector.inspect(2L, START, 7.1, 21.0, 250.0, 8.0, 340.0);
+        int detachedFirst = historical.inspect(1L, START.minusYears(1), 7.1, 21.0, 250.0, 8.0, 340.0);
+
+        assertThat(otherStation).isZero();
+        assertThat(detachedFirst).isZero();
+        assertThat(detector.trackedStations()).isEqualTo(2);
+        assertThat(historical.trackedStations()).isEqualTo(1);
+    }
+
+    private int inspectNormal(long stationId, int minute) {
+        return detector.inspect(stationId, START.plusMinutes(minute),
+                uniform(6.9, 7.3), uniform(20, 22), uniform(3.5, 4.5), uniform(7.5, 8.5), uniform(330, 350));
+    }
+
+    private double uniform(double min, double max) {
+        return Math.round((min + random.nextDouble() * (max - min)) * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,155 @@
+package sensorservice.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import sensorservice.domain.entity.Station;
+import sensorservice.domain.enums.MeasurementSource;
+import sensorservice.ingest.MeasurementCsvParser;
+import sensorservice.repository.SensorMeasurementRepository;
+import sensorservice.web.dto.MeasurementBatchResponse;
+import sensorservice.web.dto.MeasurementCreateRequest;
+import sensorservice.web.dto.MeasurementImportResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires simples pour MeasurementImportService (chemin batch JDBC)
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("MeasurementImportService Tests")
+class MeasurementImportServiceTest {
+
+    private static final String HEADER =
+            "Sample ID,pH,Temperature (°C),Turbidity (NTU),Dissolved Oxygen (mg/L),Conductivity (µS/cm)\n";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 31, 23, 0);
+
+    @Mock
+    private StationService stationService;
+
+    @Mock
+    private SensorMeasurementService measurementService;
+
+    @Mock
+    private SensorMeasurementRepository measurementRepository;
+
+    @Mock
+    private MeasurementRollupService rollupService;
+
+    @Mock
+    private MeasurementPartitionService partitionService;
+
+    @Mock
+    private LatestMeasurementIndex latestIndex;
+
+    @Mock
+    private RecentMeasurementBuffer recentBuffer;
+
+    @Mock
+    private MeasurementAnomalyDetector anomalyDetector;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private MeasurementImportService importService;
+
+    private final List<Double> importedPh = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(importService, "copyEnabled", false);
+        ReflectionTestUtils.setField(importService, "chunkSize", 10);
+        ReflectionTestUtils.setField(importService, "parseThreads", 2);
+
+        Station station = new Station();
+        station.setId(1L);
+        station.setCode("ST-001");
+        when(stationService.findAll()).thenReturn(List.of(station));
+        // le service réutilise ses listes : valeurs relevées à l'appel
+        when(measurementService.createMeasurements(any(), eq(MeasurementSource.CSV_IMPORT), any()))
+                .thenAnswer(invocation -> {
+                    List<MeasurementCreateRequest> requests = invocation.getArgument(0);
+                    requests.forEach(r -> importedPh.add(r.getPh()));
+                    return MeasurementBatchResponse.builder().inserted(requests.size()).build();
+                });
+    }
+
+    @Test
+    @DisplayName("Import par paquets dans l'ordre du fichier, lignes invalides résumées")
+    void shouldImportChunksInFileOrder() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        List<Double> expectedPh = new ArrayList<>();
+        for (int i = 0; i < 95; i++) {
+            if (i % 20 == 7) {
+                csv.append(i).append(",n/a,20,1,8,400\n");
+                continue;
+            }
+            double ph = 6 + (i % 30) / 10.0;
+            expectedPh.add(ph);
+            csv.append(i).append(',').append(ph).append(",20,1,8,400\n");
+        }
+
+        MeasurementImportResponse response = importService.importCsv(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+                1L, START, Duration.ofMinutes(30));
+
+        assertThat(response.getRowsRead()).isEqualTo(95);
+        assertThat(response.getInserted()).isEqualTo(90);
+        assertThat(response.getRejected()).isEqualTo(5);
+        assertThat(response.getRejectedByReason()).containsOnly(Map.entry(MeasurementCsvParser.REASON_NUMBER, 5L));
+        assertThat(response.getRejectedSamples()).extracting(MeasurementImportResponse.RejectedRow::line)
+                .containsExactly(9L, 29L, 49L, 69L, 89L);
+        assertThat(response.getMethod()).isEqualTo("JDBC_BATCH");
+
+        assertThat(importedPh).containsExactlyElementsOf(expectedPh);
+        verify(measurementService, times(10)).createMeasurements(any(), eq(MeasurementSource.CSV_IMPORT), any());
+        // janvier puis février (la 3e ligne passe minuit), chaque mois une seule fois
+        verify(partitionService).ensurePartitions(Set.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2)));
+        verify(latestIndex).updateAll(any());
+    }
+
+    @Test
+    @DisplayName("Fichier vide ou station inconnue refusés")
+    void shouldRejectInvalidRequest() {
+        assertThatThrownBy(() -> importService.importCsv(new ByteArrayInputStream(new byte[0]), 1L, START,
+                Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> importService.importCsv(
+                new ByteArrayInputStream(HEADER.getBytes(StandardCharsets.UTF_8)), 42L, START, Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("42");
+        verifyNoInteractions(measurementService);
+    }
+}
@@ -0,0 +1,180 @@
+package sensorservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import sensorservice.domain.enums.MeasurementSource;
+import sensorservice.web.dto.MeasurementBatchResponse;
+import sensorservice.web.dto.MeasurementCreateRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires simples pour MeasurementIngestQueue
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("MeasurementIngestQueue Tests")
+class MeasurementIngestQueueTest {
+
+    @Mock
+    private SensorMeasurementService measurementService;
+
+    @Mock
+    private StationService stationService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MeasurementIngestQueue ingestQueue;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ingestQueue = new MeasurementIngestQueue(measurementService, stationService, meterRegistry);
+        ReflectionTestUtils.setField(ingestQueue, "enabled", true);
+        ReflectionTestUtils.setField(ingestQueue, "capacity", 5);
+        ReflectionTestUtils.setField(ingestQueue, "maxGroupSize", 100);
+        ReflectionTestUtils.setField(ingestQueue, "maxRetryBackoffMs", 1L);
+        when(stationService.exists(1L)).thenReturn(true);
+        when(measurementService.createMeasurements(any(), any()))
+                .thenReturn(MeasurementBatchResponse.builder().build());
+    }
+
+    @Test
+    @DisplayName("File pleine : le lot entier est refusé")
+    void offer_refusesWholeBatchWhenFull() {
+        ReflectionTestUtils.setField(ingestQueue, "running", true);   // sans thread d'écriture
+
+        assertThat(ingestQueue.offer(readings(3))).isTrue();
+        assertThat(ingestQueue.offer(readings(3))).isFalse();
+        assertThat(ingestQueue.offer(readings(2))).isTrue();
+
+        assertThat(ingestQueue.depth()).isEqualTo(5);
+        assertThat(meterRegistry.get("sensor.ingest.queue.depth").gauge().value()).isEqualTo(5.0);
+        assertThat(meterRegistry.get("sensor.ingest.queue.rejected").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("File arrêtée : aucun lot accepté")
+    void offer_refusesWhenNotRunning() {
+        assertThat(ingestQueue.offer(readings(1))).isFalse();
+        assertThat(ingestQueue.depth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Horodatage manquant : heure d'acceptation")
+    void offer_stampsMissingTimestamp() {
+        ReflectionTestUtils.setField(ingestQueue, "running", true);
+        List<MeasurementCreateRequest> batch = readings(1);
+
+        ingestQueue.offer(batch);
+
+        assertThat(batch.get(0).getTimestamp()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("L'arrêt écrit toutes les mesures acceptées")
+    void stop_flushesAcceptedReadings() {
+        ReflectionTestUtils.setField(ingestQueue, "capacity", 1000);
+        // le groupe est réutilisé par le thread d'écriture : on relève sa taille à l'appel
+        List<Integer> groupSizes = new CopyOnWriteArrayList<>();
+        when(measurementService.createMeasurements(any(), eq(MeasurementSource.IOT_SIMULATED)))
+                .thenAnswer(inv -> {
+                    groupSizes.add(inv.<List<?>>getArgument(0).size());
+                    return MeasurementBatchResponse.builder().build();
+                });
+        ingestQueue.start();
+        for (int i = 0; i < 10; i++) {
+            assertThat(ingestQueue.offer(readings(50))).isTrue();
+        }
+
+        ingestQueue.stop();
+
+        assertThat(groupSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(500);
+        assertThat(groupSizes).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(100));
+        assertThat(meterRegistry.get("sensor.ingest.queue.commit").timer().count()).isEqualTo(groupSizes.size());
+        assertThat(ingestQueue.depth()).isZero();
+        assertThat(ingestQueue.isRunning()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Echec du commit groupé : reprise unitaire, seule la mesure fautive est écartée")
+    void commit_fallsBackToSingleReadings() {
+        List<MeasurementCreateRequest> group = readings(3);
+        group.get(1).setStationId(99L);
+        when(measurementService.createMeasurements(argThat(l -> l != null && l.size() > 1), any()))
+                .thenThrow(new IllegalArgumentException("Station not found: 99"));
+        when(measurementService.createMeasurements(argThat(l -> l != null && l.size() == 1
+                && l.get(0).getStationId() == 99L), any()))
+                .thenThrow(new IllegalArgumentException("Station not found: 99"));
+
+        ingestQueue.commit(group);
+
+        verify(measurementService, times(4)).createMeasurements(any(), any());
+        assertThat(meterRegistry.get("sensor.ingest.queue.dropped").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Station inconnue ou paramètre manquant : seules ces lectures sont écartées à l'acceptation")
+    void offer_dropsUnwritableReadings() {
+        ReflectionTestUtils.setField(ingestQueue, "running", true);
+        List<MeasurementCreateRequest> batch = readings(4);
+        batch.get(1).setStationId(99L);
+        batch.get(2).setPh(null);
+
+        assertThat(ingestQueue.offer(batch)).isTrue();
+
+        assertThat(ingestQueue.depth()).isEqualTo(2);
+        assertThat(meterRegistry.get("sensor.ingest.queue.dropped").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("sensor.ingest.queue.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Erreur transitoire : le groupe entier est réécrit, rien n'est écarté")
+    void commit_retriesGroupOnTransientError() {
+        ReflectionTestUtils.setField(ingestQueue, "running", true);
+        List<MeasurementCreateRequest> group = readings(3);
+        when(measurementService.createMeasurements(any(), any()))
+                .thenThrow(new CannotCreateTransactionException("Connection is not available"))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(MeasurementBatchResponse.builder().build());
+
+        ingestQueue.commit(group);
+
+        verify(measurementService, times(3)).createMeasurements(argThat(l -> l != null && l.size() == 3), any());
+        assertThat(meterRegistry.get("sensor.ingest.queue.retries").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("sensor.ingest.queue.dropped").counter().count()).isZero();
+    }
+
+    private static List<MeasurementCreateRequest> readings(int count) {
+        List<MeasurementCreateRequest> readings = new ArrayList<>();
+        IntStream.range(0, count).forEach(i -> {
+            MeasurementCreateRequest r = new MeasurementCreateRequest();
+            r.setStationId(1L);
+            r.setPh(7.0);
+            r.setTemperature(20.0);
+            r.setTurbidity(1.0);
+            r.setDissolvedOxygen(8.0);
+            r.setConductivity(500.0);
+            readings.add(r);
+        });
+        return readings;
+    }
+}
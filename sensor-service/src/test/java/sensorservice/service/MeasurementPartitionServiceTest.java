@@ -0,0 +1,112 @@
+package sensorservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires simples pour MeasurementPartitionService
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("MeasurementPartitionService Tests")
+class MeasurementPartitionServiceTest {
+
+    private static final YearMonth NOW = YearMonth.of(2024, 6);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private MeasurementPartitionService partitionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(partitionService, "monthsAhead", 2);
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), any())).thenReturn("p");
+    }
+
+    @Test
+    @DisplayName("Créer les partitions manquantes du mois précédent à M+2")
+    void shouldCreateMissingMonthlyPartitions() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any()))
+                .thenReturn(List.of("sensor_measurements_default", "sensor_measurements_y2024m06"));
+
+        partitionService.maintainPartitions(NOW);
+
+        verify(jdbcTemplate).execute(contains("sensor_measurements_y2024m05 PARTITION OF sensor_measurements"
+                + " FOR VALUES FROM ('2024-05-01') TO ('2024-06-01')"));
+        verify(jdbcTemplate, never()).execute(contains("sensor_measurements_y2024m06 PARTITION OF"));
+        verify(jdbcTemplate).execute(contains("sensor_measurements_y2024m07 PARTITION OF"));
+        verify(jdbcTemplate).execute(contains("sensor_measurements_y2024m08 PARTITION OF"));
+        verify(jdbcTemplate, never()).execute(contains("sensor_measurements_y2024m09"));
+    }
+
+    @Test
+    @DisplayName("Supprimer les partitions au-delà de la rétention")
+    void shouldDropExpiredPartitions() {
+        ReflectionTestUtils.setField(partitionService, "retentionMonths", 3);
+        ReflectionTestUtils.setField(partitionService, "retentionAction", "drop");
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any())).thenReturn(List.of(
+                "sensor_measurements_default",
+                "sensor_measurements_y2024m02",
+                "sensor_measurements_y2024m03",
+                "sensor_measurements_y2024m05"));
+
+        partitionService.maintainPartitions(NOW);
+
+        verify(jdbcTemplate).execute("DROP TABLE sensor_measurements_y2024m02");
+        verify(jdbcTemplate, never()).execute("DROP TABLE sensor_measurements_y2024m03");
+        verify(jdbcTemplate, never()).execute("DROP TABLE sensor_measurements_default");
+    }
+
+    @Test
+    @DisplayName("Détacher les partitions expirées par défaut")
+    void shouldDetachExpiredPartitionsByDefault() {
+        ReflectionTestUtils.setField(partitionService, "retentionMonths", 3);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any()))
+                .thenReturn(List.of("sensor_measurements_y2024m01"));
+
+        partitionService.maintainPartitions(NOW);
+
+        verify(jdbcTemplate).execute("ALTER TABLE sensor_measurements DETACH PARTITION sensor_measurements_y2024m01");
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    @DisplayName("Ne rien faire si la table n'est pas partitionnée")
+    void shouldSkipWhenTableIsNotPartitioned() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), any())).thenReturn("r");
+
+        partitionService.maintainPartitions(NOW);
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("Nom de partition et mois associé")
+    void shouldMapPartitionNamesToMonths() {
+        assertThat(MeasurementPartitionService.partitionName(NOW)).isEqualTo("sensor_measurements_y2024m06");
+        assertThat(MeasurementPartitionService.partitionMonth("sensor_measurements_y2024m06")).contains(NOW);
+        assertThat(MeasurementPartitionService.partitionMonth("sensor_measurements_default")).isEqualTo(Optional.empty());
+    }
+}
@@ -0,0 +1,117 @@
+package sensorservice.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import sensorservice.domain.enums.ResampleMethod;
+import sensorservice.web.dto.MeasurementResponse;
+import sensorservice.web.dto.ResampledMeasurementResponse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests unitaires simples pour MeasurementResampler
+ */
+@DisplayName("MeasurementResampler Tests")
+class MeasurementResamplerTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final Duration STEP = Duration.ofHours(1);
+
+    @Test
+    @DisplayName("Interpolation linéaire entre les mesures qui encadrent chaque point")
+    void shouldInterpolateLinearly() {
+        List<ResampledMeasurementResponse> points = resample(ResampleMethod.LINEAR, Duration.ofHours(6),
+                measurement(T0.minusMinutes(30), 10.0, 0),
+                measurement(T0.plusMinutes(90), 30.0, 2),
+                measurement(T0.plusHours(2), 40.0, 0));
+
+        assertThat(points).extracting(ResampledMeasurementResponse::getTimestamp)
+                .containsExactly(T0, T0.plusHours(1), T0.plusHours(2), T0.plusHours(3));
+        assertThat(points.get(0).getTemperature()).isCloseTo(15.0, within(1e-9));
+        assertThat(points.get(1).getTemperature()).isCloseTo(25.0, within(1e-9));
+        assertThat(points.get(1).getQualityFlags()).isEqualTo(2);
+        // mesure exactement sur la grille : reprise telle quelle
+        assertThat(points.get(2).getTemperature()).isEqualTo(40.0);
+        assertThat(points.get(2).getQualityFlags()).isZero();
+        // pas de mesure après : rien à interpoler
+        assertThat(points.get(3).getTemperature()).isNull();
+    }
+
+    @Test
+    @DisplayName("Dernière valeur connue, jusqu'à maxGap")
+    void shouldCarryLastValueForward() {
+        List<ResampledMeasurementResponse> points = resample(ResampleMethod.LAST, Duration.ofMinutes(150),
+                measurement(T0.plusMinutes(10), 10.0, 0),
+                measurement(T0.plusMinutes(20), 20.0, 0));
+
+        assertThat(points).extracting(ResampledMeasurementResponse::getTemperature)
+                .containsExactly(null, 20.0, 20.0, null);
+    }
+
+    @Test
+    @DisplayName("Nombre de mesures par intervalle et indicateur gap")
+    void shouldCountSamplesAndFlagGaps() {
+        List<ResampledMeasurementResponse> points = resample(ResampleMethod.LAST, Duration.ofHours(6),
+                // antérieure à from : sert de valeur initiale, hors de tout intervalle
+                measurement(T0.minusHours(2), 5.0, 0),
+                measurement(T0.plusMinutes(10), 10.0, 0),
+                measurement(T0.plusMinutes(50), 11.0, 0),
+                measurement(T0.plusHours(1), 12.0, 0));
+
+        assertThat(points).extracting(ResampledMeasurementResponse::getSamples).containsExactly(0, 3, 0, 0);
+        assertThat(points).extracting(ResampledMeasurementResponse::isGap).containsExactly(true, false, true, true);
+        assertThat(points).extracting(ResampledMeasurementResponse::getTemperature)
+                .containsExactly(5.0, 12.0, 12.0, 12.0);
+    }
+
+    @Test
+    @DisplayName("Linéaire : mesures voisines trop éloignées, point sans valeur")
+    void shouldNotInterpolateAcrossLargeGaps() {
+        List<ResampledMeasurementResponse> points = resample(ResampleMethod.LINEAR, Duration.ofHours(2),
+                measurement(T0, 10.0, 0),
+                measurement(T0.plusHours(3), 40.0, 0));
+
+        assertThat(points).extracting(ResampledMeasurementResponse::getTemperature)
+                .containsExactly(10.0, null, null, 40.0);
+    }
+
+    @Test
+    @DisplayName("Nombre de points de la grille")
+    void shouldCountGridPoints() {
+        assertThat(MeasurementResampler.pointCount(T0, T0.plusHours(3), STEP)).isEqualTo(4);
+        assertThat(MeasurementResampler.pointCount(T0, T0.plusMinutes(150), STEP)).isEqualTo(3);
+        assertThat(MeasurementResampler.pointCount(T0, T0.minusHours(1), STEP)).isZero();
+    }
+
+    private List<ResampledMeasurementResponse> resample(ResampleMethod method, Duration maxGap,
+                                                        MeasurementResponse... measurements) {
+        List<ResampledMeasurementResponse> points = new ArrayList<>();
+        MeasurementResampler resampler = new MeasurementResampler(T0, T0.plusHours(3), STEP, method, maxGap,
+                points::add);
+        for (MeasurementResponse m : measurements) {
+            resampler.accept(m);
+        }
+        assertThat(resampler.finish()).isEqualTo(points.size());
+        return points;
+    }
+
+    private MeasurementResponse measurement(LocalDateTime timestamp, double temperature, int flags) {
+        return MeasurementResponse.builder()
+                .id(1L)
+                .stationId(1L)
+                .timestamp(timestamp)
+                .ph(7.0)
+                .temperature(temperature)
+                .turbidity(3.0)
+                .dissolvedOxygen(8.0)
+                .conductivity(300.0)
+                .qualityFlags(flags)
+                .build();
+    }
+}
@@ -0,0 +1,199 @@
+package sensorservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import sensorservice.domain.entity.MeasurementRollup;
+import sensorservice.domain.entity.SensorMeasurement;
+import sensorservice.domain.entity.Station;
+import sensorservice.domain.enums.MeasurementSource;
+import sensorservice.domain.enums.RollupResolution;
+import sensorservice.repository.MeasurementRollupRepository;
+import sensorservice.repository.SensorMeasurementRepository;
+import sensorservice.repository.StationRepository;
+import sensorservice.web.dto.MeasurementRollupResponse;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires simples pour MeasurementRollupService
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("MeasurementRollupService Tests")
+class MeasurementRollupServiceTest {
+
+    private static final LocalDateTime HOUR = LocalDateTime.of(2024, 3, 10, 14, 0);
+
+    @Mock
+    private MeasurementRollupRepository rollupRepository;
+
+    @Mock
+    private SensorMeasurementRepository measurementRepository;
+
+    @Mock
+    private StationRepository stationRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private MeasurementRollupService rollupService;
+
+    private Station station;
+
+    @BeforeEach
+    void setUp() {
+        station = new Station();
+        station.setId(1L);
+        station.setName("Station Test");
+        when(rollupRepository.findByStationIdInAndBucketStartIn(any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("Réduire un lot en un agrégat par heure et par jour")
+    @SuppressWarnings("unchecked")
+    void shouldCreateHourlyAndDailyRollups() {
+        rollupService.apply(List.of(
+                measurement(HOUR.plusMinutes(5), 7.0, 20.0),
+                measurement(HOUR.plusMinutes(35), 7.4, 22.0)));
+
+        ArgumentCaptor<List<MeasurementRollup>> captor = ArgumentCaptor.forClass(List.class);
+        verify(rollupRepository).saveAll(captor.capture());
+        List<MeasurementRollup> created = captor.getValue();
+        assertThat(created).hasSize(2);
+
+        MeasurementRollup hourly = created.stream()
+                .filter(r -> r.getResolution() == RollupResolution.HOUR).findFirst().orElseThrow();
+        assertThat(hourly.getBucketStart()).isEqualTo(HOUR);
+        assertThat(hourly.getSampleCount()).isEqualTo(2);
+        assertThat(hourly.getPhMin()).isEqualTo(7.0);
+        assertThat(hourly.getPhMax()).isEqualTo(7.4);
+        assertThat(hourly.getTemperatureSum()).isEqualTo(42.0);
+
+        MeasurementRollup daily = created.stream()
+                .filter(r -> r.getResolution() == RollupResolution.DAY).findFirst().orElseThrow();
+        assertThat(daily.getBucketStart()).isEqualTo(HOUR.toLocalDate().atStartOfDay());
+        // verrous pris par l'appelant (lockStations), une fois par transaction
+        verify(stationRepository, never()).lockAllById(any());
+    }
+
+    @Test
+    @DisplayName("Verrouiller les stations d'une transaction en une fois, dans l'ordre des ids")
+    void shouldLockStationsOnceInIdOrder() {
+        rollupService.lockStations(List.of(5L, 1L, 3L, 1L));
+
+        verify(stationRepository).lockAllById(argThat(ids -> List.copyOf(ids).equals(List.of(1L, 3L, 5L))));
+    }
+
+    @Test
+    @DisplayName("Fusionner dans un agrégat existant, lu en une seule requête")
+    @SuppressWarnings("unchecked")
+    void shouldMergeIntoExistingRollup() {
+        MeasurementRollup existing = MeasurementRollup.empty(1L, RollupResolution.HOUR, HOUR);
+        existing.add(measurement(HOUR.plusMinutes(1), 6.8, 19.0));
+        // ligne d'une autre station renvoyée par le produit stations x buckets : ignorée
+        MeasurementRollup otherStation = MeasurementRollup.empty(2L, RollupResolution.HOUR, HOUR);
+        when(rollupRepository.findByStationIdInAndBucketStartIn(
+                Set.of(1L), Set.of(HOUR, HOUR.toLocalDate().atStartOfDay())))
+                .thenReturn(List.of(existing, otherStation));
+
+        rollupService.apply(List.of(measurement(HOUR.plusMinutes(50), 7.6, 23.0)));
+
+        verify(rollupRepository, times(1)).findByStationIdInAndBucketStartIn(any(), any());
+        ArgumentCaptor<List<MeasurementRollup>> captor = ArgumentCaptor.forClass(List.class);
+        verify(rollupRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).extracting(MeasurementRollup::getResolution).containsExactly(RollupResolution.DAY);
+        assertThat(otherStation.getSampleCount()).isZero();
+        assertThat(existing.getSampleCount()).isEqualTo(2);
+        assertThat(existing.getPhMin()).isEqualTo(6.8);
+        assertThat(existing.getPhMax()).isEqualTo(7.6);
+        assertThat(existing.getTemperatureMax()).isEqualTo(23.0);
+    }
+
+    @Test
+    @DisplayName("Calculer la moyenne à la lecture")
+    void shouldComputeAverageOnRead() {
+        MeasurementRollup rollup = MeasurementRollup.empty(1L, RollupResolution.HOUR, HOUR);
+        rollup.add(measurement(HOUR, 7.0, 20.0));
+        rollup.add(measurement(HOUR.plusMinutes(30), 7.5, 21.0));
+        when(rollupRepository.findByStationIdAndResolutionAndBucketStartBetweenOrderByBucketStartAsc(
+                1L, RollupResolution.HOUR, HOUR, HOUR.plusHours(3)))
+                .thenReturn(List.of(rollup));
+
+        List<MeasurementRollupResponse> result = rollupService.getRollups(
+                1L, RollupResolution.HOUR, HOUR.plusMinutes(20), HOUR.plusHours(3));
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getResolution()).isEqualTo("1h");
+        assertThat(result.get(0).getCount()).isEqualTo(2);
+        assertThat(result.get(0).getPh().getAvg()).isCloseTo(7.25, within(1e-9));
+        assertThat(result.get(0).getTemperature().getMin()).isEqualTo(20.0);
+    }
+
+    @Test
+    @DisplayName("Reconstruction au démarrage : une transaction et un verrou par station")
+    void shouldBackfillOneStationPerTransaction() {
+        Station other = new Station();
+        other.setId(2L);
+        when(rollupRepository.count()).thenReturn(0L);
+        when(measurementRepository.count()).thenReturn(2L);
+        when(stationRepository.findAll()).thenReturn(List.of(station, other));
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<Long>>getArgument(0).doInTransaction(null));
+        SensorMeasurement first = measurement(HOUR, 7.0, 20.0);
+        first.setId(10L);
+        when(measurementRepository.findByStationIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any()))
+                .thenReturn(List.of(first));
+        when(measurementRepository.findByStationIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(10L), any()))
+                .thenReturn(List.of());
+        when(measurementRepository.findByStationIdAndIdGreaterThanOrderByIdAsc(eq(2L), anyLong(), any()))
+                .thenReturn(List.of());
+
+        rollupService.backfillIfEmpty();
+
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(stationRepository).lockAllById(List.of(1L));
+        verify(stationRepository).lockAllById(List.of(2L));
+        verify(rollupRepository).deleteByStation(1L);
+        verify(rollupRepository).deleteByStation(2L);
+        verify(rollupRepository, times(1)).saveAll(anyList());
+    }
+
+    private SensorMeasurement measurement(LocalDateTime timestamp, double ph, double temperature) {
+        return SensorMeasurement.builder()
+                .station(station)
+                .timestamp(timestamp)
+                .ph(ph)
+                .temperature(temperature)
+                .turbidity(4.0)
+                .dissolvedOxygen(8.0)
+                .conductivity(340.0)
+                .source(MeasurementSource.IOT_SIMULATED)
+                .build();
+    }
+}
@@ -0,0 +1,184 @@
+package sensorservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import sensorservice.web.dto.MeasurementResponse;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires simples pour MeasurementStreamHub
+ */
+@DisplayName("MeasurementStreamHub Tests")
+class MeasurementStreamHubTest {
+
+    private LatestMeasurementIndex latestIndex;
+    private MeasurementStreamHub hub;
+    private final Queue<Runnable> dispatched = new ArrayDeque<>();
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    /**
+     * Emetteur qui garde les données envoyées au lieu d'écrire dans une réponse HTTP
+     */
+    static class RecordingEmitter extends SseEmitter {
+        final List<Object> data = new ArrayList<>();
+        boolean failing;
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            items.forEach(item -> data.add(item.getData()));
+        }
+
+        List<Long> measurementIds() {
+            return data.stream()
+                    .filter(MeasurementResponse.class::isInstance)
+                    .map(d -> ((MeasurementResponse) d).getId())
+                    .toList();
+        }
+
+        List<Object> resyncs() {
+            return data.stream().filter(Map.class::isInstance).toList();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        latestIndex = new LatestMeasurementIndex(new SimpleMeterRegistry());
+        hub = new MeasurementStreamHub(latestIndex, new SimpleMeterRegistry()) {
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        // envois exécutés à la main par runDispatched()
+        ReflectionTestUtils.setField(hub, "dispatcher", (Executor) dispatched::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Un abonné ne reçoit que les stations demandées, après la dernière mesure connue")
+    void shouldFilterByStation() {
+        LocalDateTime now = LocalDateTime.now();
+        latestIndex.update(measurement(1L, 1L, now.minusMinutes(5)));
+        latestIndex.update(measurement(2L, 2L, now.minusMinutes(5)));
+
+        hub.subscribe(List.of(1L));
+        hub.publish(List.of(measurement(10L, 1L, now), measurement(11L, 2L, now), measurement(12L, 1L, now)));
+        runDispatched();
+
+        assertThat(emitters.get(0).measurementIds()).containsExactly(1L, 10L, 12L);
+        assertThat(hub.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un abonné lent perd les plus anciennes mesures et reçoit un resync")
+    void shouldDropOldestAndSignalResync() {
+        ReflectionTestUtils.setField(hub, "bufferSize", 3);
+        LocalDateTime now = LocalDateTime.now();
+
+        hub.subscribe(null);
+        List<MeasurementResponse> burst = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            burst.add(measurement(id, 1L, now.plusSeconds(id)));
+        }
+        hub.publish(burst);
+        runDispatched();
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertThat(emitter.resyncs()).containsExactly(Map.of("dropped", 2L));
+        assertThat(emitter.measurementIds()).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    @DisplayName("Un envoi en échec retire l'abonné")
+    void shouldRemoveSubscriberOnSendFailure() {
+        hub.subscribe(List.of(1L));
+        emitters.get(0).failing = true;
+
+        hub.publish(List.of(measurement(10L, 1L, LocalDateTime.now())));
+        runDispatched();
+
+        assertThat(hub.subscriberCount()).isZero();
+        assertThat(hub.hasSubscribers()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Les mesures d'une transaction ne sont diffusées qu'après le commit")
+    void shouldPublishAfterCommitOnly() {
+        hub.subscribe(null);
+        TransactionSynchronizationManager.initSynchronization();
+
+        hub.publishAfterCommit(List.of(measurement(10L, 1L, LocalDateTime.now())));
+        hub.publishAfterCommit(List.of(measurement(11L, 1L, LocalDateTime.now())));
+        runDispatched();
+        assertThat(emitters.get(0).measurementIds()).isEmpty();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertThat(synchronizations).hasSize(1);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        runDispatched();
+
+        assertThat(emitters.get(0).measurementIds()).containsExactly(10L, 11L);
+        assertThat(TransactionSynchronizationManager.hasResource(hub)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Rien n'est diffusé en cas de rollback")
+    void shouldNotPublishOnRollback() {
+        hub.subscribe(null);
+        TransactionSynchronizationManager.initSynchronization();
+
+        hub.publishAfterCommit(List.of(measurement(10L, 1L, LocalDateTime.now())));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        runDispatched();
+
+        assertThat(emitters.get(0).measurementIds()).isEmpty();
+    }
+
+    private void runDispatched() {
+        Runnable task;
+        while ((task = dispatched.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private MeasurementResponse measurement(Long id, Long stationId, LocalDateTime timestamp) {
+        return MeasurementResponse.builder()
+                .id(id)
+                .stationId(stationId)
+                .stationName("Station " + stationId)
+                .timestamp(timestamp)
+                .ph(7.0)
+                .build();
+    }
+}
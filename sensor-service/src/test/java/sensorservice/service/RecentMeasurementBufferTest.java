@@ -0,0 +1,175 @@
+package sensorservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import sensorservice.domain.entity.SensorMeasurement;
+import sensorservice.domain.entity.Station;
+import sensorservice.web.dto.MeasurementResponse;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires simples pour RecentMeasurementBuffer
+ */
+@DisplayName("RecentMeasurementBuffer Tests")
+class RecentMeasurementBufferTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 8, 0, 0, 123_456_000);
+
+    private SimpleMeterRegistry meterRegistry;
+    private RecentMeasurementBuffer buffer;
+    private Station station;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = new RecentMeasurementBuffer(meterRegistry);
+        ReflectionTestUtils.setField(buffer, "capacity", 4);
+        station = Station.builder().id(1L).name("Station Test").build();
+    }
+
+    @Test
+    @DisplayName("Anneau non chargé : null, puis servi après chargement")
+    void shouldReturnNullUntilLoaded() {
+        buffer.appendAll(List.of(measurement(10L, T0)));
+
+        assertThat(buffer.get(1L, 5)).isNull();
+
+        buffer.load(1L, List.of());
+
+        assertThat(buffer.get(1L, 5)).extracting(MeasurementResponse::getId).containsExactly(10L);
+        assertThat(meterRegistry.get("sensor.recent.requests").tag("result", "miss").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Anneau plein : les plus anciennes sont remplacées, ordre chronologique")
+    void shouldKeepLastReadingsInOrder() {
+        buffer.load(1L, List.of());
+        for (int i = 0; i < 6; i++) {
+            buffer.appendAll(List.of(measurement(10L + i, T0.plusMinutes(i))));
+        }
+
+        List<MeasurementResponse> all = buffer.get(1L, 100);
+        List<MeasurementResponse> lastTwo = buffer.get(1L, 2);
+
+        assertThat(all).extracting(MeasurementResponse::getId).containsExactly(12L, 13L, 14L, 15L);
+        assertThat(lastTwo).extracting(MeasurementResponse::getId).containsExactly(14L, 15L);
+        assertThat(lastTwo.get(1).getTimestamp()).isEqualTo(T0.plusMinutes(5));
+        assertThat(lastTwo.get(1).getStationName()).isEqualTo("Station Test");
+        assertThat(lastTwo.get(1).getPh()).isEqualTo(7.5);
+    }
+
+    @Test
+    @DisplayName("Mesure en retard insérée à sa place, trop ancienne ignorée, doublon ignoré")
+    void shouldInsertLateReadingsInPlace() {
+        buffer.load(1L, List.of());
+        buffer.appendAll(List.of(
+                measurement(1L, T0),
+                measurement(3L, T0.plusMinutes(2)),
+                measurement(4L, T0.plusMinutes(3)),
+                measurement(5L, T0.plusMinutes(4)),
+                measurement(2L, T0.plusMinutes(1)),
+                measurement(0L, T0.minusMinutes(1)),
+                measurement(4L, T0.plusMinutes(3))));
+
+        assertThat(buffer.get(1L, 4)).extracting(MeasurementResponse::getId).containsExactly(2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    @DisplayName("Chargement depuis la base fusionné avec les écritures déjà reçues")
+    void shouldMergeLoadedRowsWithAppendedReadings() {
+        buffer.appendAll(List.of(measurement(13L, T0.plusMinutes(3))));
+        buffer.invalidate(1L);
+
+        buffer.load(1L, List.of(response(13L, T0.plusMinutes(3)), response(12L, T0.plusMinutes(2)),
+                response(11L, T0.plusMinutes(1))));
+
+        assertThat(buffer.get(1L, 10)).extracting(MeasurementResponse::getId).containsExactly(11L, 12L, 13L);
+
+        buffer.invalidate(1L);
+        assertThat(buffer.get(1L, 10)).isNull();
+    }
+
+    @Test
+    @DisplayName("Lectures concurrentes des écritures : toujours une fenêtre cohérente")
+    void shouldReadConsistentWindowDuringWrites() throws InterruptedException {
+        buffer.load(1L, List.of());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                List<MeasurementResponse> window = buffer.get(1L, 4);
+                for (int i = 1; i < window.size(); i++) {
+                    MeasurementResponse previous = window.get(i - 1);
+                    MeasurementResponse current = window.get(i);
+                    // id, horodatage et valeur écrits ensemble : jamais mélangés entre deux mesures
+                    if (current.getId() != previous.getId() + 1
+                            || !current.getTimestamp().equals(T0.plusMinutes(current.getId()))
+                            || current.getConductivity() != current.getId().doubleValue()) {
+                        failure.set("fenêtre incohérente: " + window);
+                    }
+                }
+            }
+        });
+        reader.start();
+        List<SensorMeasurement> batch = new ArrayList<>(1);
+        for (long id = 0; id < 200_000; id++) {
+            batch.clear();
+            batch.add(measurement(id, T0.plusMinutes(id)));
+            buffer.appendAll(batch);
+        }
+        running.set(false);
+        reader.join();
+
+        assertThat(failure.get()).isNull();
+    }
+
+    @Test
+    @DisplayName("evict retire l'anneau de la station")
+    void shouldEvictStation() {
+        buffer.load(1L, List.of(response(10L, T0)));
+
+        buffer.evict(1L);
+
+        assertThat(buffer.get(1L, 4)).isNull();
+        assertThat(meterRegistry.get("sensor.recent.stations").gauge().value()).isZero();
+    }
+
+    private SensorMeasurement measurement(Long id, LocalDateTime timestamp) {
+        return SensorMeasurement.builder()
+                .id(id)
+                .station(station)
+                .timestamp(timestamp)
+                .ph(7.5)
+                .temperature(20.0)
+                .turbidity(4.0)
+                .dissolvedOxygen(8.0)
+                .conductivity((double) id)
+                .build();
+    }
+
+    private MeasurementResponse response(Long id, LocalDateTime timestamp) {
+        return MeasurementResponse.builder()
+                .id(id)
+                .stationId(1L)
+                .stationName("Station Test")
+                .timestamp(timestamp)
+                .ph(7.5)
+                .temperature(20.0)
+                .turbidity(4.0)
+                .dissolvedOxygen(8.0)
+                .conductivity((double) id)
+                .qualityFlags(0)
+                .build();
+    }
+}
@@ -4,23 +4,38 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import sensorservice.archive.MeasurementColumns;
 import sensorservice.domain.entity.SensorMeasurement;
 import sensorservice.domain.entity.Station;
 import sensorservice.domain.enums.MeasurementSource;
 import sensorservice.repository.SensorMeasurementRepository;
+import sensorservice.web.dto.MeasurementBatchResponse;
+import sensorservice.web.dto.MeasurementCreateRequest;
+import sensorservice.web.dto.MeasurementPageResponse;
+import sensorservice.web.dto.MeasurementResponse;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -37,6 +52,27 @@ class SensorMeasurementServiceTest {
     @Mock
     private StationService stationService;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private LatestMeasurementIndex latestIndex;
+
+    @Mock
+    private RecentMeasurementBuffer recentBuffer;
+
+    @Mock
+    private MeasurementRollupService rollupService;
+
+    @Mock
+    private MeasurementArchiveService archiveService;
+
+    @Mock
+    private MeasurementStreamHub streamHub;
+
+    @Mock
+    private MeasurementAnomalyDetector anomalyDetector;
+
     @InjectMocks
     private SensorMeasurementService measurementService;
 
@@ -68,12 +104,15 @@ class SensorMeasurementServiceTest {
         when(stationService.getById(1L)).thenReturn(sampleStation);
         when(measurementRepository.save(any(SensorMeasurement.class))).thenReturn(sampleMeasurement);
 
-        SensorMeasurement result = measurementService.createManualMeasurement(
+        MeasurementResponse result = measurementService.createManualMeasurement(
                 1L, 7.2, 21.0, 2.0, 8.0, 400.0);
 
         assertThat(result).isNotNull();
-        assertThat(result.getStation().getId()).isEqualTo(1L);
+        assertThat(result.getStationId()).isEqualTo(1L);
+        assertThat(result.getStationName()).isEqualTo("Station Test");
         verify(measurementRepository).save(any(SensorMeasurement.class));
+        verify(rollupService).apply(List.of(sampleMeasurement));
+        verify(latestIndex).updateAfterCommit(List.of(result));
     }
 
     @Test
@@ -83,36 +122,319 @@ class SensorMeasurementServiceTest {
         LocalDateTime end = LocalDateTime.now();
 
         when(stationService.getById(1L)).thenReturn(sampleStation);
-        when(measurementRepository.findByStationAndTimestampBetween(sampleStation, start, end))
-                .thenReturn(Arrays.asList(sampleMeasurement));
+        when(measurementRepository.findByStationAndRange(1L, start, end))
+                .thenReturn(Arrays.asList(MeasurementResponse.builder().id(1L).stationId(1L).ph(7.0).build()));
 
-        List<SensorMeasurement> result = measurementService.getMeasurementsForStation(1L, start, end);
+        List<MeasurementResponse> result = measurementService.getMeasurementsForStation(1L, start, end);
 
         assertThat(result).hasSize(1);
     }
 
+    @Test
+    @DisplayName("Combiner archive et table vivante sur une plage")
+    void shouldMergeArchivedAndLiveMeasurements() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 1, 0, 0);
+        MeasurementResponse live = MeasurementResponse.builder()
+                .id(1L).stationId(1L).stationName("Station Test")
+                .timestamp(LocalDateTime.of(2024, 2, 20, 8, 0)).ph(7.0).build();
+        when(stationService.getById(1L)).thenReturn(sampleStation);
+        when(measurementRepository.findByStationAndRange(1L, start, end)).thenReturn(List.of(live));
+        MeasurementColumns archived = new MeasurementColumns(1);
+        archived.add(7L, MeasurementColumns.toMicros(LocalDateTime.of(2024, 1, 5, 12, 0)),
+                7.3, 18.0, 2.0, 9.0, 330.0, (byte) 1);
+        when(archiveService.forEachArchived(eq(1L), eq(start), eq(end), any())).thenAnswer(invocation -> {
+            invocation.<MeasurementColumns.RowConsumer>getArgument(3).accept(archived, 0);
+            return 1L;
+        });
+
+        List<MeasurementResponse> result = measurementService.getMeasurementsForStation(1L, start, end);
+
+        assertThat(result).extracting(MeasurementResponse::getId).containsExactly(7L, 1L);
+        assertThat(result.get(0).getStationName()).isEqualTo("Station Test");
+        assertThat(result.get(0).getQualityFlags()).isZero();
+    }
+
+    @Test
+    @DisplayName("Parcourir une plage en flux et fermer le curseur")
+    void shouldStreamMeasurementsAndCloseCursor() {
+        LocalDateTime start = LocalDateTime.now().minusDays(90);
+        LocalDateTime end = LocalDateTime.now();
+        AtomicBoolean closed = new AtomicBoolean(false);
+        Stream<MeasurementResponse> rows = Stream.of(
+                MeasurementResponse.builder().id(1L).stationId(1L).ph(7.0).build(),
+                MeasurementResponse.builder().id(2L).stationId(1L).ph(7.1).build()
+        ).onClose(() -> closed.set(true));
+        when(stationService.getById(1L)).thenReturn(sampleStation);
+        when(measurementRepository.streamByStationAndRange(1L, start, end)).thenReturn(rows);
+
+        List<MeasurementResponse> received = new java.util.ArrayList<>();
+        long count = measurementService.streamMeasurementsForStation(1L, start, end, received::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(received).extracting(MeasurementResponse::getId).containsExactly(1L, 2L);
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    @DisplayName("Flux : archive et table vivante fusionnées dans l'ordre chronologique")
+    void shouldMergeArchivedAndLiveRowsInStream() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 1, 0, 0);
+        // mesure importée plus ancienne que la journée archivée, puis une mesure récente
+        Stream<MeasurementResponse> rows = Stream.of(
+                row(1, LocalDateTime.of(2024, 1, 3, 8, 0)),
+                row(2, LocalDateTime.of(2024, 2, 20, 8, 0)));
+        when(stationService.getById(1L)).thenReturn(sampleStation);
+        when(measurementRepository.streamByStationAndRange(1L, start, end)).thenReturn(rows);
+        MeasurementColumns archived = new MeasurementColumns(2);
+        archived.add(7L, MeasurementColumns.toMicros(LocalDateTime.of(2024, 1, 5, 12, 0)),
+                7.3, 18.0, 2.0, 9.0, 330.0, (byte) 0);
+        archived.add(8L, MeasurementColumns.toMicros(LocalDateTime.of(2024, 1, 5, 13, 0)),
+                7.3, 18.0, 2.0, 9.0, 330.0, (byte) 0);
+        when(archiveService.forEachArchived(eq(1L), eq(start), eq(end), any())).thenAnswer(invocation -> {
+            invocation.<MeasurementColumns.RowConsumer>getArgument(3).accept(archived, 0);
+            invocation.<MeasurementColumns.RowConsumer>getArgument(3).accept(archived, 1);
+            return 2L;
+        });
+
+        List<MeasurementResponse> received = new ArrayList<>();
+        long count = measurementService.streamMeasurementsForStation(1L, start, end, received::add);
+
+        assertThat(count).isEqualTo(4);
+        assertThat(received).extracting(MeasurementResponse::getId).containsExactly(1L, 7L, 8L, 2L);
+    }
+
     @Test
     @DisplayName("Récupérer dernière mesure d'une station")
     void shouldGetLatestMeasurement() {
-        when(stationService.getById(1L)).thenReturn(sampleStation);
-        when(measurementRepository.findFirstByStationOrderByTimestampDesc(sampleStation))
-                .thenReturn(Optional.of(sampleMeasurement));
+        MeasurementResponse latest = MeasurementResponse.builder()
+                .id(1L).stationId(1L).stationName("Station Test").ph(7.0).build();
+        when(measurementRepository.findLatestByStation(1L, Limit.of(1))).thenReturn(List.of(latest));
 
-        SensorMeasurement result = measurementService.getLatestMeasurement(1L);
+        MeasurementResponse result = measurementService.getLatestMeasurement(1L);
 
         assertThat(result).isNotNull();
         assertThat(result.getPh()).isEqualTo(7.0);
+        assertThat(result.getStationName()).isEqualTo("Station Test");
+        verify(latestIndex).update(result);
+        // une seule requête projetée : la station n'est pas chargée
+        verifyNoInteractions(stationService);
+    }
+
+    @Test
+    @DisplayName("Servir la dernière mesure depuis l'index sans accès base")
+    void shouldServeLatestMeasurementFromIndex() {
+        MeasurementResponse indexed = MeasurementResponse.builder().id(5L).stationId(1L).ph(7.4).build();
+        when(latestIndex.get(1L)).thenReturn(indexed);
+
+        MeasurementResponse result = measurementService.getLatestMeasurement(1L);
+
+        assertThat(result).isSameAs(indexed);
+        verifyNoInteractions(stationService, measurementRepository);
+    }
+
+    @Test
+    @DisplayName("Dernières mesures multi-stations : index puis une requête pour les absentes")
+    void shouldGetLatestMeasurementsForSeveralStations() {
+        MeasurementResponse indexed = MeasurementResponse.builder().id(5L).stationId(1L).build();
+        MeasurementResponse loaded = MeasurementResponse.builder().id(9L).stationId(2L).build();
+        when(latestIndex.get(1L)).thenReturn(indexed);
+        when(measurementRepository.findLatestForStations(Set.of(2L, 3L))).thenReturn(List.of(loaded));
+        when(latestIndex.peek(2L)).thenReturn(loaded);
+
+        List<MeasurementResponse> result = measurementService.getLatestMeasurements(List.of(3L, 2L, 1L));
+
+        assertThat(result).extracting(MeasurementResponse::getStationId).containsExactly(1L, 2L);
+        verify(measurementRepository, times(1)).findLatestForStations(Set.of(2L, 3L));
+        verify(latestIndex).updateAll(List.of(loaded));
+    }
+
+    @Test
+    @DisplayName("Dernières mesures de toutes les stations depuis l'index préchargé")
+    void shouldGetLatestMeasurementsForAllStationsFromIndex() {
+        List<MeasurementResponse> snapshot = List.of(MeasurementResponse.builder().id(5L).stationId(1L).build());
+        when(latestIndex.isWarmedUp()).thenReturn(true);
+        when(latestIndex.snapshot()).thenReturn(snapshot);
+
+        List<MeasurementResponse> result = measurementService.getLatestMeasurementsForAllStations();
+
+        assertThat(result).isEqualTo(snapshot);
+        verifyNoInteractions(measurementRepository);
+    }
+
+    @Test
+    @DisplayName("Dernières mesures : anneau non chargé, une requête sur le primaire le remplit")
+    void shouldLoadRecentMeasurementsOnMiss() {
+        LocalDateTime now = LocalDateTime.now();
+        List<MeasurementResponse> rows = List.of(row(9, now), row(8, now.minusMinutes(1)));
+        when(recentBuffer.capacity()).thenReturn(2);
+        when(recentBuffer.get(1L, 10)).thenReturn(null).thenReturn(rows);
+        when(measurementRepository.findRecentByStationOnPrimary(1L, Limit.of(2))).thenReturn(rows);
+
+        List<MeasurementResponse> result = measurementService.getRecentMeasurements(1L, 10);
+
+        assertThat(result).isSameAs(rows);
+        verify(recentBuffer).load(1L, rows);
+        verify(measurementRepository, never()).findLatestByStation(any(), any());
+        // anneau rempli par la table vivante : ni station ni archive
+        verifyNoInteractions(stationService, archiveService);
+    }
+
+    @Test
+    @DisplayName("Dernières mesures : table vivante insuffisante, l'archive complète l'anneau")
+    void shouldCompleteRecentMeasurementsFromArchive() {
+        LocalDateTime now = LocalDateTime.now();
+        List<MeasurementResponse> live = List.of(row(9, now));
+        List<MeasurementResponse> archived = List.of(row(4, now.minusDays(40)), row(3, now.minusDays(41)));
+        when(recentBuffer.capacity()).thenReturn(256);
+        when(recentBuffer.get(1L, 10)).thenReturn(null).thenReturn(List.of());
+        when(measurementRepository.findRecentByStationOnPrimary(1L, Limit.of(256))).thenReturn(live);
+        when(stationService.getById(1L)).thenReturn(sampleStation);
+        when(archiveService.findLatest(sampleStation, 255)).thenReturn(archived);
+
+        measurementService.getRecentMeasurements(1L, 10);
+
+        verify(recentBuffer).load(1L, List.of(live.get(0), archived.get(0), archived.get(1)));
     }
 
     @Test
     @DisplayName("Retourner null si pas de mesure")
     void shouldReturnNullWhenNoMeasurement() {
         when(stationService.getById(1L)).thenReturn(sampleStation);
-        when(measurementRepository.findFirstByStationOrderByTimestampDesc(sampleStation))
-                .thenReturn(Optional.empty());
+        when(measurementRepository.findLatestByStation(1L, Limit.of(1))).thenReturn(List.of());
 
-        SensorMeasurement result = measurementService.getLatestMeasurement(1L);
+        MeasurementResponse result = measurementService.getLatestMeasurement(1L);
 
         assertThat(result).isNull();
     }
+
+    @Test
+    @DisplayName("Insérer un lot de mesures par paquets JDBC")
+    void shouldCreateMeasurementBatchInChunks() {
+        when(stationService.getByIds(Set.of(1L))).thenReturn(Map.of(1L, sampleStation));
+
+        List<MeasurementCreateRequest> requests = new java.util.ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requests.add(createRequest(1L));
+        }
+
+        MeasurementBatchResponse result = measurementService.createMeasurements(
+                requests, MeasurementSource.IOT_SIMULATED);
+
+        assertThat(result.getReceived()).isEqualTo(120);
+        assertThat(result.getInserted()).isEqualTo(120);
+        assertThat(result.getJdbcBatchSize()).isEqualTo(50);
+        verify(stationService, times(1)).getByIds(Set.of(1L));
+        // stations verrouillées une seule fois pour tout le lot, avant le premier paquet
+        InOrder order = inOrder(rollupService);
+        order.verify(rollupService).lockStations(Set.of(1L));
+        order.verify(rollupService, times(3)).apply(anyList());
+        verify(rollupService, times(1)).lockStations(any());
+        verify(measurementRepository, times(3)).saveAll(anyList()); // 50 + 50 + 20
+        verify(entityManager, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    @DisplayName("Rejeter un lot référençant une station inconnue")
+    void shouldRejectBatchWithUnknownStation() {
+        when(stationService.getByIds(Set.of(99L)))
+                .thenThrow(new IllegalArgumentException("Station not found: 99"));
+
+        assertThatThrownBy(() -> measurementService.createMeasurements(
+                List.of(createRequest(99L)), MeasurementSource.IOT_SIMULATED))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(measurementRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Page par curseur : archive et table vivante fusionnées dans l'ordre (timestamp, id)")
+    void shouldPageAcrossArchiveAndLiveRows() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(stationService.getById(1L)).thenReturn(sampleStation);
+        when(archiveService.findArchivedAfter(eq(sampleStation), any(), eq(to), eq(4)))
+                .thenReturn(List.of(row(1, from), row(3, from.plusMinutes(2))));
+        when(measurementRepository.findPageAfter(eq(1L), eq(from), eq(Long.MIN_VALUE), eq(to), eq(Limit.of(4))))
+                .thenReturn(List.of(row(2, from), row(4, from.plusMinutes(3)), row(5, from.plusMinutes(4))));
+
+        MeasurementPageResponse page = measurementService.getMeasurementPage(1L, from, to, null, 3);
+
+        assertThat(page.getItems()).extracting(MeasurementResponse::getId).containsExactly(1L, 2L, 3L);
+        assertThat(MeasurementCursor.decode(page.getNextCursor()))
+                .isEqualTo(new MeasurementCursor(from.plusMinutes(2), 3L));
+
+        // page suivante : les deux sources repartent du curseur
+        MeasurementCursor cursor = MeasurementCursor.decode(page.getNextCursor());
+        when(archiveService.findArchivedAfter(sampleStation, cursor, to, 4)).thenReturn(List.of());
+        when(measurementRepository.findPageAfter(1L, cursor.timestamp(), 3L, to, Limit.of(4)))
+                .thenReturn(List.of(row(4, from.plusMinutes(3)), row(5, from.plusMinutes(4))));
+
+        MeasurementPageResponse last = measurementService.getMeasurementPage(1L, from, to, cursor, 3);
+
+        assertThat(last.getItems()).extracting(MeasurementResponse::getId).containsExactly(4L, 5L);
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Page par curseur : mesures à l'instant from, le parcours se termine")
+    void shouldEndPagingWhenRowsSitOnFrom() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        List<MeasurementResponse> rows = List.of(row(1, from), row(2, from));
+        when(stationService.getById(1L)).thenReturn(sampleStation);
+        when(archiveService.findArchivedAfter(eq(sampleStation), any(), eq(to), eq(2))).thenReturn(List.of());
+        // mêmes bornes que la requête : timestamp >= afterTs et (timestamp, id) > (afterTs, afterId)
+        when(measurementRepository.findPageAfter(eq(1L), any(), anyLong(), eq(to), eq(Limit.of(2))))
+                .thenAnswer(inv -> {
+                    LocalDateTime afterTs = inv.getArgument(1);
+                    long afterId = inv.getArgument(2);
+                    return rows.stream()
+                            .filter(r -> r.getTimestamp().isAfter(afterTs)
+                                    || (r.getTimestamp().isEqual(afterTs) && r.getId() > afterId))
+                            .limit(2)
+                            .toList();
+                });
+
+        List<Long> ids = new ArrayList<>();
+        MeasurementCursor cursor = null;
+        for (int page = 0; page < 5; page++) {
+            MeasurementPageResponse response = measurementService.getMeasurementPage(1L, from, to, cursor, 1);
+            response.getItems().forEach(m -> ids.add(m.getId()));
+            if (response.getNextCursor() == null) {
+                break;
+            }
+            cursor = MeasurementCursor.decode(response.getNextCursor());
+        }
+
+        assertThat(ids).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Curseur opaque : aller-retour exact, curseur altéré refusé")
+    void shouldEncodeAndDecodeCursor() {
+        MeasurementCursor cursor = new MeasurementCursor(LocalDateTime.of(2024, 5, 17, 8, 30, 12, 123_456_000), 987654321L);
+
+        assertThat(MeasurementCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThatThrownBy(() -> MeasurementCursor.decode("not a cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MeasurementCursor.decode(cursor.encode().substring(4)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private MeasurementResponse row(long id, LocalDateTime timestamp) {
+        return MeasurementResponse.builder().id(id).stationId(1L).timestamp(timestamp).build();
+    }
+
+    private MeasurementCreateRequest createRequest(Long stationId) {
+        MeasurementCreateRequest request = new MeasurementCreateRequest();
+        request.setStationId(stationId);
+        request.setPh(7.1);
+        request.setTemperature(21.0);
+        request.setTurbidity(3.5);
+        request.setDissolvedOxygen(8.2);
+        request.setConductivity(340.0);
+        return request;
+    }
 }
@@ -12,7 +12,9 @@ import sensorservice.repository.StationRepository;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -29,6 +31,15 @@ class StationServiceTest {
     @Mock
     private StationRepository stationRepository;
 
+    @Mock
+    private LatestMeasurementIndex latestIndex;
+
+    @Mock
+    private RecentMeasurementBuffer recentBuffer;
+
+    @Mock
+    private MeasurementAnomalyDetector anomalyDetector;
+
     @InjectMocks
     private StationService stationService;
 
@@ -86,6 +97,27 @@ class StationServiceTest {
                 .hasMessageContaining("Station not found");
     }
 
+    @Test
+    @DisplayName("getByIds résout plusieurs stations en une requête")
+    void shouldResolveStationsByIds() {
+        when(stationRepository.findAllById(Set.of(1L))).thenReturn(List.of(sampleStation));
+
+        Map<Long, Station> result = stationService.getByIds(Set.of(1L));
+
+        assertThat(result).containsEntry(1L, sampleStation);
+        verify(stationRepository, times(1)).findAllById(Set.of(1L));
+    }
+
+    @Test
+    @DisplayName("getByIds lève exception si une station manque")
+    void shouldThrowWhenOneOfStationsNotFound() {
+        when(stationRepository.findAllById(Set.of(1L, 999L))).thenReturn(List.of(sampleStation));
+
+        assertThatThrownBy(() -> stationService.getByIds(Set.of(1L, 999L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("999");
+    }
+
     @Test
     @DisplayName("save sauvegarde la station")
     void shouldSaveStation() {
@@ -105,5 +137,71 @@ class StationServiceTest {
         stationService.delete(1L);
 
         verify(stationRepository).deleteById(1L);
+        verify(latestIndex).evict(1L);
+    }
+
+    @Test
+    @DisplayName("Le catalogue est servi depuis la mémoire après le premier chargement")
+    void shouldServeCatalogFromMemory() {
+        when(stationRepository.findAll()).thenReturn(List.of(sampleStation));
+
+        StationService.Catalog first = stationService.getCatalog();
+        StationService.Catalog second = stationService.getCatalog();
+        stationService.findAll();
+
+        assertThat(second).isSameAs(first);
+        verify(stationRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("save invalide le catalogue et change l'ETag si le contenu change")
+    void shouldInvalidateCatalogOnSave() {
+        Station renamed = Station.builder().id(1L).code("ST001").name("Station renommée").build();
+        when(stationRepository.findAll()).thenReturn(List.of(sampleStation)).thenReturn(List.of(renamed));
+        when(stationRepository.save(any(Station.class))).thenReturn(renamed);
+
+        String before = stationService.getCatalog().etag();
+        stationService.save(renamed);
+        StationService.Catalog after = stationService.getCatalog();
+
+        assertThat(after.stations()).containsExactly(renamed);
+        assertThat(after.etag()).isNotEqualTo(before);
+        verify(stationRepository, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("L'ETag ne dépend que du contenu, pas de l'ordre ni du rechargement")
+    void shouldComputeStableEtag() {
+        Station other = Station.builder().id(2L).code("ST002").name("Autre").build();
+        when(stationRepository.findAll())
+                .thenReturn(List.of(sampleStation, other))
+                .thenReturn(List.of(other, sampleStation));
+
+        StationService.Catalog first = stationService.getCatalog();
+        stationService.delete(99L);
+        StationService.Catalog reloaded = stationService.getCatalog();
+
+        assertThat(reloaded).isNotSameAs(first);
+        assertThat(reloaded.etag()).isEqualTo(first.etag()).startsWith("\"stations-");
+        assertThat(reloaded.stations()).extracting(Station::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Requêtes géographiques servies par l'index du catalogue")
+    void shouldQueryStationsByArea() {
+        Station casablanca = Station.builder().id(2L).code("ST002").name("Casablanca")
+                .latitude(33.57).longitude(-7.59).build();
+        Station fes = Station.builder().id(3L).code("ST003").name("Fès")
+                .latitude(34.03).longitude(-5.00).build();
+        Station unlocated = Station.builder().id(4L).code("ST004").name("Sans position").build();
+        when(stationRepository.findAll()).thenReturn(List.of(fes, unlocated, casablanca, sampleStation));
+
+        List<Station> within = stationService.findWithin(33.0, -8.0, 34.0, -7.0);
+        var nearest = stationService.findNearest(33.5, -7.6, 2);
+
+        assertThat(within).extracting(Station::getId).containsExactly(1L, 2L);
+        assertThat(nearest).extracting(n -> n.item().getId()).containsExactly(1L, 2L);
+        assertThat(nearest.get(1).distanceKm()).isBetween(7.0, 9.0);
+        verify(stationRepository, times(1)).findAll();
     }
 }
@@ -0,0 +1,118 @@
+package sensorservice.web.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import sensorservice.domain.enums.MeasurementSource;
+import sensorservice.service.MeasurementArchiveService;
+import sensorservice.service.MeasurementImportService;
+import sensorservice.service.MeasurementIngestQueue;
+import sensorservice.service.MeasurementRollupService;
+import sensorservice.service.MeasurementStreamHub;
+import sensorservice.service.SensorMeasurementService;
+import sensorservice.service.StationService;
+import sensorservice.web.dto.MeasurementBatchResponse;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests unitaires simples pour SensorMeasurementController (ingestion par lot)
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("SensorMeasurementController Tests")
+class SensorMeasurementControllerTest {
+
+    private static final String VALID = """
+            {"stationId":1,"ph":7.1,"temperature":18.0,"turbidity":2.0,"dissolvedOxygen":8.5,"conductivity":350.0}""";
+
+    @Mock
+    private SensorMeasurementService measurementService;
+
+    @Mock
+    private StationService stationService;
+
+    @Mock
+    private MeasurementRollupService rollupService;
+
+    @Mock
+    private MeasurementArchiveService archiveService;
+
+    @Mock
+    private MeasurementIngestQueue ingestQueue;
+
+    @Mock
+    private MeasurementImportService importService;
+
+    @Mock
+    private MeasurementStreamHub streamHub;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        SensorMeasurementController controller = new SensorMeasurementController(measurementService,
+                stationService, rollupService, archiveService, ingestQueue, importService, streamHub,
+                new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(controller, "maxBatchSize", 10000);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        when(measurementService.createMeasurements(anyList(), eq(MeasurementSource.IOT_SIMULATED)))
+                .thenReturn(MeasurementBatchResponse.builder().received(1).inserted(1).build());
+    }
+
+    @Test
+    @DisplayName("Lot valide : 201")
+    void batch_acceptsValidElements() throws Exception {
+        mockMvc.perform(post("/api/measurements/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + VALID + "]"))
+                .andExpect(status().isCreated());
+
+        verify(measurementService).createMeasurements(anyList(), eq(MeasurementSource.IOT_SIMULATED));
+    }
+
+    @Test
+    @DisplayName("Un élément hors bornes (pH > 14) : 400, rien n'est écrit")
+    void batch_rejectsOutOfRangeElement() throws Exception {
+        mockMvc.perform(post("/api/measurements/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + VALID + "," + VALID.replace("\"ph\":7.1", "\"ph\":15.0") + "]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(measurementService);
+    }
+
+    @Test
+    @DisplayName("Un élément sans station ou nul : 400, rien n'est mis en file")
+    void ingest_rejectsIncompleteElement() throws Exception {
+        when(ingestQueue.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(post("/api/measurements/ingest")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + VALID.replace("\"stationId\":1,", "") + "]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/measurements/ingest")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + VALID + ",null]"))
+                .andExpect(status().isBadRequest());
+
+        verify(ingestQueue, never()).offer(any());
+        verifyNoInteractions(measurementService);
+    }
+}
@@ -3,6 +3,7 @@ package stmodelservice.client;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import stmodelservice.web.dto.SatelliteMetricDTO;
 
 import java.util.List;
@@ -16,6 +17,10 @@ public interface SatelliteClient {
     @GetMapping("/api/satellite/metrics/station/{stationId}/latest")
     List<SatelliteMetricDTO> getLatestMetricsForStation(@PathVariable("stationId") Long stationId);
 
+    // dernières métriques de plusieurs stations en un appel (recalcul groupé)
+    @GetMapping("/api/satellite/metrics/latest")
+    List<SatelliteMetricDTO> getLatestMetricsForStations(@RequestParam("stationIds") List<Long> stationIds);
+
     @GetMapping("/api/satellite/metrics/station/{stationId}")
     List<SatelliteMetricDTO> getAllMetricsForStation(@PathVariable("stationId") Long stationId);
 }
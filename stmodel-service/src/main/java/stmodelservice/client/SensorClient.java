@@ -1,21 +1,37 @@
 package stmodelservice.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import stmodelservice.web.dto.SensorMeasurementDTO;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * Feign Client pour communiquer avec sensor-service via Eureka
  */
-@FeignClient(name = "sensor-service")
+@FeignClient(name = "sensor-service", configuration = SensorClientConfig.class)
 public interface SensorClient {
 
     @GetMapping("/api/measurements/latest")
     SensorMeasurementDTO getLatestMeasurement(@RequestParam("stationId") Long stationId);
 
+    @GetMapping("/api/measurements/latest")
+    List<SensorMeasurementDTO> getLatestMeasurements(@RequestParam("stationIds") List<Long> stationIds);
+
+    @GetMapping("/api/measurements/latest/all")
+    List<SensorMeasurementDTO> getAllLatestMeasurements();
+
+    // mesures brutes d'une plage (from/to obligatoires côté sensor-service)
     @GetMapping("/api/measurements")
-    List<SensorMeasurementDTO> getMeasurementsByStation(@RequestParam("stationId") Long stationId);
+    List<SensorMeasurementDTO> getMeasurementsByStation(
+            @RequestParam("stationId") Long stationId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to);
+
+    // n dernières mesures, de la plus ancienne à la plus récente (servies depuis la mémoire)
+    @GetMapping("/api/measurements/recent")
+    List<SensorMeasurementDTO> getRecentMeasurements(@RequestParam("stationId") Long stationId, @RequestParam("n") int n);
 }
@@ -0,0 +1,30 @@
+package stmodelservice.client;
+
+import feign.RequestInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Configuration propre à {@link SensorClient} (pas de @Configuration : ne s'applique
+ * pas aux autres clients Feign)
+ *
+ * Demande les réponses de sensor-service en CBOR, JSON accepté en repli : les plages
+ * et listes de mesures sont plus compactes et plus rapides à décoder. Le décodage passe
+ * par les convertisseurs HTTP de l'application (jackson-dataformat-cbor dans le classpath).
+ */
+public class SensorClientConfig {
+
+    private static final String ACCEPT_CBOR = "application/cbor, application/json;q=0.9";
+
+    @Bean
+    public RequestInterceptor sensorClientAcceptInterceptor(
+            @Value("${sensor.client.cbor-enabled:true}") boolean cborEnabled
+    ) {
+        return template -> {
+            if (cborEnabled && !template.headers().containsKey(HttpHeaders.ACCEPT)) {
+                template.header(HttpHeaders.ACCEPT, ACCEPT_CBOR);
+            }
+        };
+    }
+}
@@ -34,6 +34,7 @@ public class ForecastService {
     private final QualityCalculationService qualityCalculationService;
     private final QualityForecastRepository forecastRepository;
     private final QualityObservationRepository observationRepository;
+    private final SingleFlight singleFlight;
 
     // Nombre minimum d'observations pour la régression
     private static final int MIN_OBSERVATIONS_FOR_TREND = 5;
@@ -43,13 +44,21 @@ public class ForecastService {
 
     /**
      * Crée une prédiction de qualité pour une station
+     *
+     * Appels simultanés pour une même station et un même horizon regroupés : une seule
+     * prévision créée, partagée par tous. Hors transaction, pour que le résultat partagé
+     * soit déjà enregistré.
      * 
      * @param stationId ID de la station
      * @param horizonHours Horizon de prédiction (24h, 72h, etc.)
      * @return Prévision de qualité
      */
-    @Transactional
     public QualityForecast createForecast(Long stationId, int horizonHours) {
+        return singleFlight.execute("forecast", List.of(stationId, horizonHours),
+                () -> doCreateForecast(stationId, horizonHours));
+    }
+
+    private QualityForecast doCreateForecast(Long stationId, int horizonHours) {
         log.info("Création prévision pour station {} à horizon {}h", stationId, horizonHours);
         
         // Récupérer l'observation la plus récente
@@ -130,7 +139,7 @@ public class ForecastService {
      * Analyse la tendance des observations historiques
      * Utilise une régression linéaire simple sur les scores
      */
-    private TrendAnalysis analyzeTrend(List<QualityObservation> observations) {
+    TrendAnalysis analyzeTrend(List<QualityObservation> observations) {
         int n = Math.min(observations.size(), 10); // Utiliser les 10 dernières observations
         
         double sumX = 0, sumY = 0, sumXY = 0, sumX2 = 0;
@@ -166,7 +175,7 @@ public class ForecastService {
     /**
      * Prédit le score en utilisant l'analyse de tendance
      */
-    private double predictWithTrend(double currentScore, int horizonHours, TrendAnalysis trend) {
+    double predictWithTrend(double currentScore, int horizonHours, TrendAnalysis trend) {
         // Convertir l'horizon en "unités" d'observation (supposant ~6h entre observations)
         double horizonUnits = horizonHours / 6.0;
         
@@ -253,7 +262,7 @@ public class ForecastService {
     }
 
     // Classe interne pour l'analyse de tendance
-    private static class TrendAnalysis {
+    static class TrendAnalysis {
         final double slope;      // Pente de la tendance
         final double mean;       // Moyenne des scores
         final double stdDev;     // Écart-type
@@ -268,7 +277,6 @@ public class ForecastService {
     }
 
     // Méthode de compatibilité avec l'ancienne API
-    @Transactional
     public QualityForecast createSimpleForecast(Long stationId, int horizonHours) {
         return createForecast(stationId, horizonHours);
     }
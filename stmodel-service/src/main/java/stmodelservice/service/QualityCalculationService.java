@@ -1,20 +1,43 @@
 package stmodelservice.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import stmodelservice.client.SatelliteClient;
 import stmodelservice.client.SensorClient;
 import stmodelservice.domain.entity.QualityObservation;
 import stmodelservice.domain.enums.QualityStatus;
 import stmodelservice.repository.QualityObservationRepository;
+import stmodelservice.web.dto.QualityBatchResponse;
 import stmodelservice.web.dto.SatelliteMetricDTO;
 import stmodelservice.web.dto.SensorMeasurementDTO;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Service de calcul de qualité de l'eau basé sur le Water Quality Index (WQI)
@@ -34,13 +57,65 @@ import java.util.List;
  * - Conductivity: 316 - 370 µS/cm
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class QualityCalculationService {
 
+    private static final String LEG_SENSOR = "sensor";
+    private static final String LEG_SATELLITE = "satellite";
+
     private final SensorClient sensorClient;
     private final SatelliteClient satelliteClient;
     private final QualityObservationRepository observationRepository;
+    private final MeterRegistry meterRegistry;
+    private final SingleFlight singleFlight;
+    private final ExecutorService fetchPool;
+
+    // échéance globale des appels capteurs + satellite d'un calcul
+    @Value("${stmodel.quality.fetch.deadline-ms:5000}")
+    private long fetchDeadlineMs = 5000;
+
+    // au-delà, le score est calculé sans données satellite
+    @Value("${stmodel.quality.fetch.satellite-budget-ms:2000}")
+    private long satelliteBudgetMs = 2000;
+
+    // tâches de calcul simultanées au plus pendant un recalcul groupé
+    @Value("${stmodel.quality.compute-all.parallelism:4}")
+    private int computeAllParallelism = 4;
+
+    // stations par appel satellite groupé (ids passés en paramètres d'URL)
+    @Value("${stmodel.quality.compute-all.satellite-chunk-size:200}")
+    private int satelliteChunkSize = 200;
+
+    private final AtomicBoolean computeAllRunning = new AtomicBoolean();
+
+    /**
+     * @param fetchThreads appels distants simultanés au plus (deux par calcul). Un appel abandonné
+     *                     à l'échéance garde son thread jusqu'au read-timeout Feign : dimensionner
+     *                     à 2 x calculs par seconde x read-timeout (s). Au-delà d'une file de même
+     *                     taille, le satellite est abandonné et l'appel capteurs passe sur le thread
+     *                     appelant
+     */
+    public QualityCalculationService(SensorClient sensorClient,
+                                     SatelliteClient satelliteClient,
+                                     QualityObservationRepository observationRepository,
+                                     MeterRegistry meterRegistry,
+                                     SingleFlight singleFlight,
+                                     @Value("${stmodel.quality.fetch.threads:16}") int fetchThreads) {
+        this.sensorClient = sensorClient;
+        this.satelliteClient = satelliteClient;
+        this.observationRepository = observationRepository;
+        this.meterRegistry = meterRegistry;
+        this.singleFlight = singleFlight;
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(fetchThreads, fetchThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(fetchThreads), r -> {
+                    Thread thread = new Thread(r, "quality-fetch-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.fetchPool = pool;
+    }
 
     // ============================================
     // CONSTANTES - NORMES OMS ET SEUILS
@@ -85,38 +160,144 @@ public class QualityCalculationService {
     // CALCUL PRINCIPAL
     // ============================================
 
-    @Transactional
+    /**
+     * Calcul de la qualité actuelle d'une station
+     *
+     * Capteurs et satellite sont interrogés en parallèle, sous une échéance globale
+     * ({@code stmodel.quality.fetch.deadline-ms}). Le satellite, facultatif (score neutre sans),
+     * est abandonné s'il dépasse son budget ({@code stmodel.quality.fetch.satellite-budget-ms}).
+     * Pas de transaction autour des appels distants : seul l'enregistrement en ouvre une.
+     *
+     * Appels simultanés pour une même station regroupés : un seul calcul, une seule observation.
+     */
     public QualityObservation computeCurrentQuality(Long stationId) {
+        return singleFlight.execute("quality", stationId, () -> computeAndSave(stationId));
+    }
+
+    private QualityObservation computeAndSave(Long stationId) {
         log.info("Calcul de qualité pour station {}", stationId);
-        
-        SensorMeasurementDTO sensor = null;
-        List<SatelliteMetricDTO> metrics = null;
-        List<String> issues = new ArrayList<>();
-        
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(fetchDeadlineMs);
+
+        // satellite lancé d'abord : pool saturé, l'appel capteurs s'exécute sur ce thread pendant qu'il tourne
+        CompletableFuture<List<SatelliteMetricDTO>> satelliteFetch =
+                fetch(LEG_SATELLITE, false, () -> satelliteClient.getLatestMetricsForStation(stationId));
+        CompletableFuture<SensorMeasurementDTO> sensorFetch =
+                fetch(LEG_SENSOR, true, () -> sensorClient.getLatestMeasurement(stationId));
+
         // Récupérer données capteurs
-        try {
-            sensor = sensorClient.getLatestMeasurement(stationId);
-        } catch (Exception e) {
-            log.warn("Impossible de récupérer les données capteur pour station {}: {}", stationId, e.getMessage());
-        }
-        
+        SensorMeasurementDTO sensor = await(LEG_SENSOR, stationId, sensorFetch, deadline);
         if (sensor == null) {
+            satelliteFetch.cancel(false);
             throw new IllegalStateException("Aucune donnée capteur disponible pour la station " + stationId);
         }
-        
+
         // Récupérer données satellite (optionnel)
+        long satelliteDeadline = Math.min(deadline, start + TimeUnit.MILLISECONDS.toNanos(satelliteBudgetMs));
+        List<SatelliteMetricDTO> metrics = await(LEG_SATELLITE, stationId, satelliteFetch, satelliteDeadline);
+
+        QualityObservation observation = buildObservation(stationId, sensor, metrics, LocalDateTime.now());
+        log.info("Station {} - Score: {}, Status: {}", stationId, observation.getScore(), observation.getStatus());
+
+        return observationRepository.save(observation);
+    }
+
+    /**
+     * Lance un appel distant sur le pool dédié ; sa durée est enregistrée par issue
+     * (success/error), même s'il se termine après l'abandon par l'appelant.
+     * @param required pool saturé : exécuté sur le thread appelant plutôt qu'abandonné
+     */
+    private <T> CompletableFuture<T> fetch(String leg, boolean required, Supplier<T> call) {
+        Supplier<T> timed = () -> {
+            long start = System.nanoTime();
+            String outcome = "error";
+            try {
+                T result = call.get();
+                outcome = "success";
+                return result;
+            } finally {
+                fetchTimer(leg, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
         try {
-            metrics = satelliteClient.getLatestMetricsForStation(stationId);
-        } catch (Exception e) {
-            log.warn("Impossible de récupérer les données satellite pour station {}: {}", stationId, e.getMessage());
+            return CompletableFuture.supplyAsync(timed, fetchPool);
+        } catch (RejectedExecutionException e) {
+            fetchSaturated(leg, required).increment();
+            if (!required) {
+                return CompletableFuture.failedFuture(e);
+            }
+            try {
+                return CompletableFuture.completedFuture(timed.get());
+            } catch (RuntimeException callError) {
+                return CompletableFuture.failedFuture(callError);
+            }
+        }
+    }
+
+    /**
+     * @return le résultat de l'appel, ou null s'il a échoué ou n'a pas répondu avant l'échéance
+     */
+    private <T> T await(String leg, Long stationId, CompletableFuture<T> future, long deadlineNanos) {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            fetchDropped(leg).increment();
+            log.warn("Données {} abandonnées pour station {} : pas de réponse dans le délai", leg, stationId);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("Impossible de récupérer les données {} pour station {}: {}", leg, stationId, cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Calcul de qualité interrompu pour la station " + stationId, e);
         }
+        return null;
+    }
+
+    private Timer fetchTimer(String leg, String outcome) {
+        return Timer.builder("stmodel.quality.fetch")
+                .description("Durée des appels aux services capteurs et satellite")
+                .tag("leg", leg)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter fetchSaturated(String leg, boolean callerRuns) {
+        return Counter.builder("stmodel.quality.fetch.saturated")
+                .description("Appels refusés par le pool saturé (exécutés sur l'appelant ou abandonnés)")
+                .tag("leg", leg)
+                .tag("action", callerRuns ? "caller-runs" : "dropped")
+                .register(meterRegistry);
+    }
+
+    private Counter fetchDropped(String leg) {
+        return Counter.builder("stmodel.quality.fetch.dropped")
+                .description("Appels abandonnés faute de réponse dans le délai")
+                .tag("leg", leg)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stopFetchPool() {
+        fetchPool.shutdownNow();
+    }
+
+    /**
+     * Observation (non enregistrée) calculée à partir des données capteur et satellite ;
+     * sans état partagé, appelable depuis plusieurs threads
+     */
+    private QualityObservation buildObservation(Long stationId, SensorMeasurementDTO sensor,
+                                                List<SatelliteMetricDTO> metrics, LocalDateTime timestamp) {
+        List<String> issues = new ArrayList<>();
 
         // Calculer les sous-scores
-        double phScore = calculatePhScore(sensor.getPh(), issues);
-        double tempScore = calculateTemperatureScore(sensor.getTemperature(), issues);
-        double turbidityScore = calculateTurbidityScore(sensor.getTurbidity(), issues);
-        double doScore = calculateDissolvedOxygenScore(sensor.getDissolvedOxygen(), issues);
-        double condScore = calculateConductivityScore(sensor.getConductivity(), issues);
+        double phScore = calculatePhScore(orNaN(sensor.getPh()), issues);
+        double tempScore = calculateTemperatureScore(orNaN(sensor.getTemperature()), issues);
+        double turbidityScore = calculateTurbidityScore(orNaN(sensor.getTurbidity()), issues);
+        double doScore = calculateDissolvedOxygenScore(orNaN(sensor.getDissolvedOxygen()), issues);
+        double condScore = calculateConductivityScore(orNaN(sensor.getConductivity()), issues);
         double satelliteScore = calculateSatelliteScore(metrics, issues);
 
         // Calcul du score pondéré (WQI)
@@ -136,17 +317,165 @@ public class QualityCalculationService {
         // Construire les détails
         String details = buildDetails(sensor, totalScore, issues);
 
-        log.info("Station {} - Score: {}, Status: {}", stationId, totalScore, status);
-
-        QualityObservation observation = QualityObservation.builder()
+        return QualityObservation.builder()
                 .stationId(stationId)
-                .timestamp(LocalDateTime.now())
+                .timestamp(timestamp)
                 .score(Math.round(totalScore * 100.0) / 100.0) // 2 décimales
                 .status(status)
                 .details(details)
                 .build();
+    }
 
-        return observationRepository.save(observation);
+    // ============================================
+    // RECALCUL GROUPÉ (toutes les stations)
+    // ============================================
+
+    /**
+     * Recalcule la qualité de toutes les stations ayant une mesure
+     *
+     * Entrées chargées en deux appels groupés (dernières mesures de toutes les stations,
+     * puis métriques satellite de ces stations), scores calculés en parallèle par au plus
+     * {@code stmodel.quality.compute-all.parallelism} threads, observations enregistrées en
+     * un seul saveAll. Satellite indisponible : scores calculés sans, comme pour une station.
+     * @return bilan du recalcul, vide si un recalcul est déjà en cours
+     */
+    public Optional<QualityBatchResponse> computeAllStations() {
+        if (!computeAllRunning.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(runComputeAll());
+        } finally {
+            computeAllRunning.set(false);
+        }
+    }
+
+    /**
+     * Recalcul planifié (stmodel.quality.compute-all.cron, désactivé par défaut)
+     */
+    @Scheduled(cron = "${stmodel.quality.compute-all.cron:-}")
+    public void scheduledComputeAll() {
+        try {
+            if (computeAllStations().isEmpty()) {
+                log.info("Recalcul planifié ignoré : un recalcul est déjà en cours");
+            }
+        } catch (Exception e) {
+            log.error("Echec du recalcul planifié de la qualité: {}", e.getMessage(), e);
+        }
+    }
+
+    private QualityBatchResponse runComputeAll() {
+        long start = System.nanoTime();
+
+        List<SensorMeasurementDTO> sensors = sensorClient.getAllLatestMeasurements().stream()
+                .filter(m -> m.getStationId() != null)
+                .toList();
+        long sensorDone = System.nanoTime();
+
+        // un appel par tranche de stations : l'URL reste bornée quel que soit le parc ;
+        // une tranche en échec est calculée sans satellite, les autres gardent leurs métriques
+        Map<Long, List<SatelliteMetricDTO>> metricsByStation = new HashMap<>();
+        boolean satelliteAvailable = !sensors.isEmpty();
+        List<Long> stationIds = sensors.stream().map(SensorMeasurementDTO::getStationId).toList();
+        int chunkSize = Math.max(1, satelliteChunkSize);
+        for (int from = 0; from < stationIds.size(); from += chunkSize) {
+            List<Long> chunk = stationIds.subList(from, Math.min(from + chunkSize, stationIds.size()));
+            try {
+                metricsByStation.putAll(satelliteClient.getLatestMetricsForStations(chunk).stream()
+                        .collect(Collectors.groupingBy(SatelliteMetricDTO::getStationId)));
+            } catch (Exception e) {
+                satelliteAvailable = false;
+                log.warn("Impossible de récupérer les données satellite de {} stations, scores calculés sans: {}",
+                        chunk.size(), e.getMessage());
+            }
+        }
+        long satelliteDone = System.nanoTime();
+
+        int parallelism = Math.max(1, Math.min(computeAllParallelism, sensors.size()));
+        List<QualityObservation> observations = scoreInParallel(sensors, metricsByStation, parallelism);
+        long scoreDone = System.nanoTime();
+
+        observationRepository.saveAll(observations);
+        long end = System.nanoTime();
+
+        double seconds = (end - start) / 1_000_000_000.0;
+        double stationsPerSecond = seconds > 0 ? observations.size() / seconds : 0;
+        QualityBatchResponse report = QualityBatchResponse.builder()
+                .stations(sensors.size())
+                .computed(observations.size())
+                .satelliteAvailable(satelliteAvailable)
+                .parallelism(parallelism)
+                .fetchSensorMs((sensorDone - start) / 1_000_000)
+                .fetchSatelliteMs((satelliteDone - sensorDone) / 1_000_000)
+                .scoreMs((scoreDone - satelliteDone) / 1_000_000)
+                .persistMs((end - scoreDone) / 1_000_000)
+                .durationMs((end - start) / 1_000_000)
+                .stationsPerSecond(Math.round(stationsPerSecond * 10.0) / 10.0)
+                .build();
+        log.info("Recalcul de {} stations en {} ms ({} stations/s) : capteurs {} ms, satellite {} ms, scores {} ms ({} threads), enregistrement {} ms",
+                report.getComputed(), report.getDurationMs(), report.getStationsPerSecond(), report.getFetchSensorMs(),
+                report.getFetchSatelliteMs(), report.getScoreMs(), parallelism, report.getPersistMs());
+        return report;
+    }
+
+    private List<QualityObservation> scoreInParallel(List<SensorMeasurementDTO> sensors,
+                                                     Map<Long, List<SatelliteMetricDTO>> metricsByStation,
+                                                     int parallelism) {
+        LocalDateTime timestamp = LocalDateTime.now();
+        List<List<QualityObservation>> slices = inSlices(sensors.size(), parallelism,
+                (from, to) -> sensors.subList(from, to).stream()
+                        .map(sensor -> buildObservation(sensor.getStationId(), sensor,
+                                metricsByStation.get(sensor.getStationId()), timestamp))
+                        .toList());
+        List<QualityObservation> observations = new ArrayList<>(sensors.size());
+        slices.forEach(observations::addAll);
+        return observations;
+    }
+
+    /**
+     * Une tâche par tranche contiguë de [0, size) : jamais plus de {@code parallelism} en cours,
+     * sur un pool créé pour l'appel
+     * @return résultats des tranches, dans l'ordre
+     */
+    private static <T> List<T> inSlices(int size, int parallelism, Slice<T> slice) {
+        if (size == 0) {
+            return List.of();
+        }
+        int sliceSize = (size + parallelism - 1) / parallelism;
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "quality-compute-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<T>> tasks = new ArrayList<>(parallelism);
+            for (int from = 0; from < size; from += sliceSize) {
+                int sliceFrom = from;
+                int sliceTo = Math.min(from + sliceSize, size);
+                tasks.add(pool.submit(() -> slice.compute(sliceFrom, sliceTo)));
+            }
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> task : tasks) {
+                results.add(task.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recalcul de la qualité interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Slice<T> {
+        T compute(int from, int to);
     }
 
     // ============================================
@@ -157,26 +486,26 @@ public class QualityCalculationService {
      * Score pH (0-100)
      * Optimal: 6.5-8.5, Acceptable: 6.0-9.0
      */
-    private double calculatePhScore(Double ph, List<String> issues) {
-        if (ph == null) return 50.0;
+    static double calculatePhScore(double ph, List<String> issues) {
+        if (Double.isNaN(ph)) return 50.0;
         
         if (ph >= PH_MIN_IDEAL && ph <= PH_MAX_IDEAL) {
             return 100.0; // Parfait
         } else if (ph >= PH_MIN_ACCEPTABLE && ph < PH_MIN_IDEAL) {
             // Légèrement acide
             double ratio = (ph - PH_MIN_ACCEPTABLE) / (PH_MIN_IDEAL - PH_MIN_ACCEPTABLE);
-            issues.add(String.format("pH légèrement acide (%.2f)", ph));
+            if (issues != null) issues.add(String.format("pH légèrement acide (%.2f)", ph));
             return 60 + (ratio * 40);
         } else if (ph > PH_MAX_IDEAL && ph <= PH_MAX_ACCEPTABLE) {
             // Légèrement basique
             double ratio = (PH_MAX_ACCEPTABLE - ph) / (PH_MAX_ACCEPTABLE - PH_MAX_IDEAL);
-            issues.add(String.format("pH légèrement basique (%.2f)", ph));
+            if (issues != null) issues.add(String.format("pH légèrement basique (%.2f)", ph));
             return 60 + (ratio * 40);
         } else if (ph < PH_MIN_ACCEPTABLE) {
-            issues.add(String.format("pH trop acide (%.2f) - Risque pour vie aquatique", ph));
+            if (issues != null) issues.add(String.format("pH trop acide (%.2f) - Risque pour vie aquatique", ph));
             return Math.max(0, 30 - ((PH_MIN_ACCEPTABLE - ph) * 20));
         } else {
-            issues.add(String.format("pH trop basique (%.2f) - Risque pour vie aquatique", ph));
+            if (issues != null) issues.add(String.format("pH trop basique (%.2f) - Risque pour vie aquatique", ph));
             return Math.max(0, 30 - ((ph - PH_MAX_ACCEPTABLE) * 20));
         }
     }
@@ -185,24 +514,24 @@ public class QualityCalculationService {
      * Score Température (0-100)
      * Optimal: 15-25°C
      */
-    private double calculateTemperatureScore(Double temp, List<String> issues) {
-        if (temp == null) return 50.0;
+    static double calculateTemperatureScore(double temp, List<String> issues) {
+        if (Double.isNaN(temp)) return 50.0;
         
         if (temp >= TEMP_MIN_IDEAL && temp <= TEMP_MAX_IDEAL) {
             return 100.0;
         } else if (temp >= TEMP_MIN_ACCEPTABLE && temp < TEMP_MIN_IDEAL) {
             double ratio = (temp - TEMP_MIN_ACCEPTABLE) / (TEMP_MIN_IDEAL - TEMP_MIN_ACCEPTABLE);
-            issues.add(String.format("Température fraîche (%.1f°C)", temp));
+            if (issues != null) issues.add(String.format("Température fraîche (%.1f°C)", temp));
             return 70 + (ratio * 30);
         } else if (temp > TEMP_MAX_IDEAL && temp <= TEMP_MAX_ACCEPTABLE) {
             double ratio = (TEMP_MAX_ACCEPTABLE - temp) / (TEMP_MAX_ACCEPTABLE - TEMP_MAX_IDEAL);
-            issues.add(String.format("Température élevée (%.1f°C)", temp));
+            if (issues != null) issues.add(String.format("Température élevée (%.1f°C)", temp));
             return 70 + (ratio * 30);
         } else if (temp < TEMP_MIN_ACCEPTABLE) {
-            issues.add(String.format("Température trop basse (%.1f°C)", temp));
+            if (issues != null) issues.add(String.format("Température trop basse (%.1f°C)", temp));
             return Math.max(0, 40);
         } else {
-            issues.add(String.format("Température critique (%.1f°C) - Stress thermique", temp));
+            if (issues != null) issues.add(String.format("Température critique (%.1f°C) - Stress thermique", temp));
             return Math.max(0, 20);
         }
     }
@@ -211,23 +540,23 @@ public class QualityCalculationService {
      * Score Turbidité (0-100)
      * Optimal: <1 NTU, Acceptable: <5 NTU, Mauvais: >10 NTU
      */
-    private double calculateTurbidityScore(Double turbidity, List<String> issues) {
-        if (turbidity == null) return 50.0;
+    static double calculateTurbidityScore(double turbidity, List<String> issues) {
+        if (Double.isNaN(turbidity)) return 50.0;
         
         if (turbidity <= TURBIDITY_IDEAL) {
             return 100.0;
         } else if (turbidity <= TURBIDITY_ACCEPTABLE) {
             double ratio = (TURBIDITY_ACCEPTABLE - turbidity) / (TURBIDITY_ACCEPTABLE - TURBIDITY_IDEAL);
-            if (turbidity > 3.0) {
+            if (issues != null && turbidity > 3.0) {
                 issues.add(String.format("Turbidité modérée (%.1f NTU)", turbidity));
             }
             return 60 + (ratio * 40);
         } else if (turbidity <= TURBIDITY_BAD) {
             double ratio = (TURBIDITY_BAD - turbidity) / (TURBIDITY_BAD - TURBIDITY_ACCEPTABLE);
-            issues.add(String.format("Turbidité élevée (%.1f NTU) - Dépasse norme OMS", turbidity));
+            if (issues != null) issues.add(String.format("Turbidité élevée (%.1f NTU) - Dépasse norme OMS", turbidity));
             return 30 + (ratio * 30);
         } else {
-            issues.add(String.format("Turbidité critique (%.1f NTU) - Eau non potable", turbidity));
+            if (issues != null) issues.add(String.format("Turbidité critique (%.1f NTU) - Eau non potable", turbidity));
             return Math.max(0, 30 - ((turbidity - TURBIDITY_BAD) * 3));
         }
     }
@@ -236,21 +565,21 @@ public class QualityCalculationService {
      * Score Oxygène Dissous (0-100)
      * Optimal: >8 mg/L, Acceptable: >6 mg/L, Critique: <4 mg/L
      */
-    private double calculateDissolvedOxygenScore(Double dissolvedOxygen, List<String> issues) {
-        if (dissolvedOxygen == null) return 50.0;
+    static double calculateDissolvedOxygenScore(double dissolvedOxygen, List<String> issues) {
+        if (Double.isNaN(dissolvedOxygen)) return 50.0;
         
         if (dissolvedOxygen >= DO_MIN_IDEAL) {
             return 100.0;
         } else if (dissolvedOxygen >= DO_MIN_ACCEPTABLE) {
             double ratio = (dissolvedOxygen - DO_MIN_ACCEPTABLE) / (DO_MIN_IDEAL - DO_MIN_ACCEPTABLE);
-            issues.add(String.format("Oxygène dissous modéré (%.1f mg/L)", dissolvedOxygen));
+            if (issues != null) issues.add(String.format("Oxygène dissous modéré (%.1f mg/L)", dissolvedOxygen));
             return 60 + (ratio * 40);
         } else if (dissolvedOxygen >= DO_MIN_CRITICAL) {
             double ratio = (dissolvedOxygen - DO_MIN_CRITICAL) / (DO_MIN_ACCEPTABLE - DO_MIN_CRITICAL);
-            issues.add(String.format("Oxygène dissous faible (%.1f mg/L) - Stress pour poissons", dissolvedOxygen));
+            if (issues != null) issues.add(String.format("Oxygène dissous faible (%.1f mg/L) - Stress pour poissons", dissolvedOxygen));
             return 30 + (ratio * 30);
         } else {
-            issues.add(String.format("Oxygène dissous critique (%.1f mg/L) - Zone morte potentielle", dissolvedOxygen));
+            if (issues != null) issues.add(String.format("Oxygène dissous critique (%.1f mg/L) - Zone morte potentielle", dissolvedOxygen));
             return Math.max(0, dissolvedOxygen * 7.5);
         }
     }
@@ -259,24 +588,24 @@ public class QualityCalculationService {
      * Score Conductivité (0-100)
      * Optimal: 200-500 µS/cm, Acceptable: <800 µS/cm
      */
-    private double calculateConductivityScore(Double conductivity, List<String> issues) {
-        if (conductivity == null) return 50.0;
+    static double calculateConductivityScore(double conductivity, List<String> issues) {
+        if (Double.isNaN(conductivity)) return 50.0;
         
         if (conductivity >= COND_MIN_IDEAL && conductivity <= COND_MAX_IDEAL) {
             return 100.0;
         } else if (conductivity < COND_MIN_IDEAL) {
             // Eau très peu minéralisée
             double ratio = conductivity / COND_MIN_IDEAL;
-            if (conductivity < 100) {
+            if (issues != null && conductivity < 100) {
                 issues.add(String.format("Conductivité faible (%.0f µS/cm) - Eau peu minéralisée", conductivity));
             }
             return 70 + (ratio * 30);
         } else if (conductivity <= COND_MAX_ACCEPTABLE) {
             double ratio = (COND_MAX_ACCEPTABLE - conductivity) / (COND_MAX_ACCEPTABLE - COND_MAX_IDEAL);
-            issues.add(String.format("Conductivité élevée (%.0f µS/cm)", conductivity));
+            if (issues != null) issues.add(String.format("Conductivité élevée (%.0f µS/cm)", conductivity));
             return 50 + (ratio * 50);
         } else {
-            issues.add(String.format("Conductivité très élevée (%.0f µS/cm) - Eau très minéralisée", conductivity));
+            if (issues != null) issues.add(String.format("Conductivité très élevée (%.0f µS/cm) - Eau très minéralisée", conductivity));
             return Math.max(0, 50 - ((conductivity - COND_MAX_ACCEPTABLE) / 20));
         }
     }
@@ -331,7 +660,31 @@ public class QualityCalculationService {
     // UTILITAIRES
     // ============================================
 
-    private QualityStatus determineStatus(double score) {
+    /**
+     * Score pondéré sans satellite (poids ramenés à 1), borné à [0, 100]
+     */
+    private static double predictionScore(double phScore, double tempScore, double turbidityScore,
+                                          double doScore, double condScore) {
+        double adjustedWeightSum = PH_WEIGHT + TEMP_WEIGHT + TURBIDITY_WEIGHT + DO_WEIGHT + COND_WEIGHT;
+        double totalScore = ((phScore * PH_WEIGHT) +
+                           (tempScore * TEMP_WEIGHT) +
+                           (turbidityScore * TURBIDITY_WEIGHT) +
+                           (doScore * DO_WEIGHT) +
+                           (condScore * COND_WEIGHT)) / adjustedWeightSum * 100 / 100;
+        return Math.max(0, Math.min(100, totalScore));
+    }
+
+    // 2 décimales
+    private static double roundScore(double score) {
+        return Math.round(score * 100.0) / 100.0;
+    }
+
+    // mesure absente : NaN, score neutre
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static QualityStatus determineStatus(double score) {
         if (score >= 70) {
             return QualityStatus.GOOD;
         } else if (score >= 40) {
@@ -372,6 +725,59 @@ public class QualityCalculationService {
         return observationRepository.findByStationIdOrderByTimestampDesc(stationId);
     }
 
+    // ============================================
+    // SCORE PAR LOTS (historiques, colonnes)
+    // ============================================
+
+    /**
+     * Score de prédiction de chaque ligne de colonnes de mesures, sur [from, to)
+     *
+     * Mêmes calculs que {@link #predictQuality} (score arrondi à 2 décimales, statut), sans
+     * texte d'alerte ni allocation dans la boucle. Valeur absente : NaN (null pour predictQuality).
+     * Tranches disjointes appelables depuis plusieurs threads sur les mêmes tableaux.
+     *
+     * @param scores   score de chaque ligne (sortie)
+     * @param statuses {@link QualityStatus#ordinal()} du statut de chaque ligne (sortie)
+     */
+    public static void scoreBatch(double[] ph, double[] temperature, double[] turbidity,
+                                  double[] dissolvedOxygen, double[] conductivity,
+                                  double[] scores, byte[] statuses, int from, int to) {
+        int length = scores.length;
+        if (ph.length != length || temperature.length != length || turbidity.length != length
+                || dissolvedOxygen.length != length || conductivity.length != length || statuses.length != length) {
+            throw new IllegalArgumentException("Colonnes de longueurs différentes");
+        }
+        Objects.checkFromToIndex(from, to, length);
+
+        for (int i = from; i < to; i++) {
+            double totalScore = predictionScore(
+                    calculatePhScore(ph[i], null),
+                    calculateTemperatureScore(temperature[i], null),
+                    calculateTurbidityScore(turbidity[i], null),
+                    calculateDissolvedOxygenScore(dissolvedOxygen[i], null),
+                    calculateConductivityScore(conductivity[i], null));
+            scores[i] = roundScore(totalScore);
+            statuses[i] = (byte) determineStatus(totalScore).ordinal();
+        }
+    }
+
+    /**
+     * {@link #scoreBatch} sur toutes les lignes, en tranches contiguës sur au plus
+     * {@code parallelism} threads
+     */
+    public static void scoreBatch(double[] ph, double[] temperature, double[] turbidity,
+                                  double[] dissolvedOxygen, double[] conductivity,
+                                  double[] scores, byte[] statuses, int parallelism) {
+        if (parallelism <= 1) {
+            scoreBatch(ph, temperature, turbidity, dissolvedOxygen, conductivity, scores, statuses, 0, scores.length);
+            return;
+        }
+        inSlices(scores.length, parallelism, (from, to) -> {
+            scoreBatch(ph, temperature, turbidity, dissolvedOxygen, conductivity, scores, statuses, from, to);
+            return null;
+        });
+    }
+
     // ============================================
     // PRÉDICTION DIRECTE (sans station)
     // ============================================
@@ -394,11 +800,11 @@ public class QualityCalculationService {
         java.util.Map<String, Double> parameterScores = new java.util.HashMap<>();
 
         // Calculer les sous-scores
-        double phScore = calculatePhScore(ph, issues);
-        double tempScore = calculateTemperatureScore(temperature, issues);
-        double turbidityScore = calculateTurbidityScore(turbidity, issues);
-        double doScore = calculateDissolvedOxygenScore(dissolvedOxygen, issues);
-        double condScore = calculateConductivityScore(conductivity, issues);
+        double phScore = calculatePhScore(orNaN(ph), issues);
+        double tempScore = calculateTemperatureScore(orNaN(temperature), issues);
+        double turbidityScore = calculateTurbidityScore(orNaN(turbidity), issues);
+        double doScore = calculateDissolvedOxygenScore(orNaN(dissolvedOxygen), issues);
+        double condScore = calculateConductivityScore(orNaN(conductivity), issues);
 
         parameterScores.put("ph", phScore);
         parameterScores.put("temperature", tempScore);
@@ -406,16 +812,8 @@ public class QualityCalculationService {
         parameterScores.put("dissolvedOxygen", doScore);
         parameterScores.put("conductivity", condScore);
 
-        // Calcul du score pondéré (WQI) - sans satellite pour prédiction
-        double adjustedWeightSum = PH_WEIGHT + TEMP_WEIGHT + TURBIDITY_WEIGHT + DO_WEIGHT + COND_WEIGHT;
-        double totalScore = ((phScore * PH_WEIGHT) +
-                           (tempScore * TEMP_WEIGHT) +
-                           (turbidityScore * TURBIDITY_WEIGHT) +
-                           (doScore * DO_WEIGHT) +
-                           (condScore * COND_WEIGHT)) / adjustedWeightSum * 100 / 100;
-
-        // Normaliser entre 0 et 100
-        totalScore = Math.max(0, Math.min(100, totalScore));
+        // Calcul du score pondéré (WQI) - sans satellite pour prédiction, normalisé entre 0 et 100
+        double totalScore = predictionScore(phScore, tempScore, turbidityScore, doScore, condScore);
 
         // Déterminer le statut
         QualityStatus status = determineStatus(totalScore);
@@ -429,7 +827,7 @@ public class QualityCalculationService {
         log.info("Prédiction - Score: {}, Status: {}", totalScore, status);
 
         return new PredictionResult(
-                Math.round(totalScore * 100.0) / 100.0,
+                roundScore(totalScore),
                 status,
                 details,
                 parameterScores,
@@ -437,7 +835,7 @@ public class QualityCalculationService {
         );
     }
 
-    private List<String> buildRecommendations(Double ph, Double temp, Double turbidity, 
+    List<String> buildRecommendations(Double ph, Double temp, Double turbidity, 
                                                Double dissolvedOxygen, Double conductivity, List<String> issues) {
         List<String> recommendations = new ArrayList<>();
 
@@ -472,7 +870,7 @@ public class QualityCalculationService {
         return recommendations;
     }
 
-    private String buildPredictionDetails(Double ph, Double temp, Double turbidity, 
+    String buildPredictionDetails(Double ph, Double temp, Double turbidity, 
                                           Double dissolvedOxygen, Double conductivity,
                                           double score, List<String> issues) {
         StringBuilder sb = new StringBuilder();
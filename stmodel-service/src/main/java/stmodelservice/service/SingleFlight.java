@@ -0,0 +1,84 @@
+package stmodelservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Regroupement des appels simultanés (single flight), par opération et clé
+ *
+ * Le premier appelant exécute le calcul sur son propre thread ; ceux qui arrivent pendant
+ * qu'il tourne attendent et reçoivent le même résultat (ou la même exception). Rien n'est
+ * gardé après la fin du calcul : un appel suivant relance un calcul.
+ *
+ * Le calcul ne doit pas rappeler la même opération avec la même clé (attente sans fin).
+ */
+@Component
+@RequiredArgsConstructor
+public class SingleFlight {
+
+    private final ConcurrentHashMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> call) {
+        FlightKey flightKey = new FlightKey(operation, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, flight);
+        if (running != null) {
+            calls(operation, "shared").increment();
+            return (T) join(running);
+        }
+
+        calls(operation, "leader").increment();
+        try {
+            T result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * @return nombre de calculs en cours
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static Object join(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private Counter calls(String operation, String role) {
+        return Counter.builder("stmodel.singleflight.calls")
+                .description("Appels regroupés : leader (calcul exécuté) ou shared (résultat partagé)")
+                .tag("operation", operation)
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+
+    private record FlightKey(String operation, Object key) {
+    }
+}
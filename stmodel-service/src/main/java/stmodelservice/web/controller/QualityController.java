@@ -9,6 +9,7 @@ import stmodelservice.web.dto.AlertDTO;
 import stmodelservice.web.dto.PredictionHistoryDTO;
 import stmodelservice.web.dto.PredictionRequest;
 import stmodelservice.web.dto.PredictionResponse;
+import stmodelservice.web.dto.QualityBatchResponse;
 import stmodelservice.web.dto.QualityObservationAlertDTO;
 import stmodelservice.web.dto.QualityObservationResponse;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -16,7 +17,9 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -47,6 +50,13 @@ public class QualityController {
                 .build();
     }
 
+    // recalcul de toutes les stations (entrées chargées en bloc, scores en parallèle)
+    @PostMapping("/compute-all")
+    public QualityBatchResponse computeAll() {
+        return qualityCalculationService.computeAllStations()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT, "Compute-all already running"));
+    }
+
     // retourne la dernière observation en base (sans recalcul obligatoire)
     @GetMapping("/latest")
     public QualityObservationResponse latest(@RequestParam Long stationId) {
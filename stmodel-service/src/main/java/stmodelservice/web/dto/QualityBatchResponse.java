@@ -0,0 +1,26 @@
+package stmodelservice.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Bilan d'un recalcul de qualité de toutes les stations (POST /api/quality/compute-all)
+ */
+@Data
+@Builder
+public class QualityBatchResponse {
+
+    private int stations;               // stations ayant une dernière mesure
+    private int computed;               // observations enregistrées
+    private boolean satelliteAvailable; // false : tout ou partie des scores calculés sans données satellite
+    private int parallelism;
+
+    // durées par étape
+    private long fetchSensorMs;
+    private long fetchSatelliteMs;
+    private long scoreMs;
+    private long persistMs;
+    private long durationMs;
+
+    private double stationsPerSecond;
+}
@@ -0,0 +1,103 @@
+package stmodelservice.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import stmodelservice.domain.entity.QualityObservation;
+import stmodelservice.domain.enums.QualityStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modèle de tendance de ForecastService : analyzeTrend et predictWithTrend
+ *
+ * Historiques de {@code history} observations (plus récente en tête, comme
+ * findByStationIdOrderByTimestampDesc), scores calculés par predictQuality sur des
+ * mesures tirées de « Water Quality Testing » (voir WaterQualitySamples), une observation
+ * toutes les 6 h. 1 024 historiques servis à tour de rôle ; predictWithTrend alterne les
+ * horizons 24, 48 et 72 h. Score en opérations par seconde ; allocations par opération
+ * dans gc.alloc.rate.norm (profileur GC activé par main).
+ *
+ * Lancement :
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath stmodelservice.service.ForecastTrendBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForecastTrendBenchmark {
+
+    private static final int HISTORIES = 1 << 10;
+    private static final int[] HORIZONS = {24, 48, 72};
+
+    // analyzeTrend ne lit que les 10 plus récentes
+    @Param({"10", "500"})
+    public int history;
+
+    private ForecastService forecastService;
+    private List<List<QualityObservation>> histories;
+    private ForecastService.TrendAnalysis[] trends;
+    private double[] latestScores;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        forecastService = new ForecastService(null, null, null, null);
+
+        WaterQualitySamples samples = WaterQualitySamples.draw(HISTORIES + history, 7);
+        double[] scores = new double[samples.ph.length];
+        QualityCalculationService.scoreBatch(samples.ph, samples.temperature, samples.turbidity,
+                samples.dissolvedOxygen, samples.conductivity, scores, new byte[scores.length], 0, scores.length);
+
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 0, 0);
+        histories = new ArrayList<>(HISTORIES);
+        trends = new ForecastService.TrendAnalysis[HISTORIES];
+        latestScores = new double[HISTORIES];
+        for (int h = 0; h < HISTORIES; h++) {
+            List<QualityObservation> observations = new ArrayList<>(history);
+            for (int i = 0; i < history; i++) {
+                observations.add(QualityObservation.builder()
+                        .stationId((long) h)
+                        .timestamp(now.minusHours(6L * i))
+                        .score(scores[h + i])
+                        .status(QualityStatus.GOOD)
+                        .build());
+            }
+            histories.add(observations);
+            trends[h] = forecastService.analyzeTrend(observations);
+            latestScores[h] = scores[h];
+        }
+    }
+
+    @Benchmark
+    public ForecastService.TrendAnalysis analyzeTrend() {
+        return forecastService.analyzeTrend(histories.get(next()));
+    }
+
+    @Benchmark
+    public double predictWithTrend() {
+        int h = next();
+        return forecastService.predictWithTrend(latestScores[h], HORIZONS[h % HORIZONS.length], trends[h]);
+    }
+
+    private int next() {
+        return cursor++ & (HISTORIES - 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ForecastTrendBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,170 @@
+package stmodelservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul de qualité d'une mesure : predictQuality et ses étapes, et score par lots
+ *
+ * 4 096 mesures tirées de « Water Quality Testing » (voir WaterQualitySamples), servies à
+ * tour de rôle, déjà en Double comme dans les DTO. Les sous-scores reçoivent une liste
+ * d'alertes vidée à chaque appel (comme dans predictQuality) ; buildRecommendations et
+ * buildPredictionDetails reçoivent les alertes et le score de la mesure, calculés d'avance.
+ * {@code scoreBatch} score les 4 096 mesures d'un appel (score par mesure).
+ * Logs ramenés à WARN : les log.info de predictQuality restent appelés, sans écriture.
+ * Score en opérations par seconde ; allocations par opération dans gc.alloc.rate.norm
+ * (profileur GC activé par main).
+ *
+ * Lancement :
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath stmodelservice.service.QualityCalculationBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QualityCalculationBenchmark {
+
+    private static final int SAMPLES = 1 << 12;
+
+    private QualityCalculationService service;
+    private WaterQualitySamples samples;
+    private Double[] ph;
+    private Double[] temperature;
+    private Double[] turbidity;
+    private Double[] dissolvedOxygen;
+    private Double[] conductivity;
+    private List<List<String>> issues;
+    private double[] scores;
+    private final double[] batchScores = new double[SAMPLES];
+    private final byte[] batchStatuses = new byte[SAMPLES];
+    private final List<String> scratchIssues = new ArrayList<>();
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service = new QualityCalculationService(null, null, null, registry, new SingleFlight(registry), 1);
+
+        samples = WaterQualitySamples.draw(SAMPLES, 42);
+        ph = boxed(samples.ph);
+        temperature = boxed(samples.temperature);
+        turbidity = boxed(samples.turbidity);
+        dissolvedOxygen = boxed(samples.dissolvedOxygen);
+        conductivity = boxed(samples.conductivity);
+
+        issues = new ArrayList<>(SAMPLES);
+        scores = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            QualityCalculationService.PredictionResult result = service.predictQuality(
+                    ph[i], temperature[i], turbidity[i], dissolvedOxygen[i], conductivity[i]);
+            List<String> rowIssues = new ArrayList<>();
+            QualityCalculationService.calculatePhScore(samples.ph[i], rowIssues);
+            QualityCalculationService.calculateTemperatureScore(samples.temperature[i], rowIssues);
+            QualityCalculationService.calculateTurbidityScore(samples.turbidity[i], rowIssues);
+            QualityCalculationService.calculateDissolvedOxygenScore(samples.dissolvedOxygen[i], rowIssues);
+            QualityCalculationService.calculateConductivityScore(samples.conductivity[i], rowIssues);
+            issues.add(rowIssues);
+            scores[i] = result.getScore();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.stopFetchPool();
+    }
+
+    @Benchmark
+    public QualityCalculationService.PredictionResult predictQuality() {
+        int i = next();
+        return service.predictQuality(ph[i], temperature[i], turbidity[i], dissolvedOxygen[i], conductivity[i]);
+    }
+
+    @Benchmark
+    public double phScore() {
+        scratchIssues.clear();
+        return QualityCalculationService.calculatePhScore(samples.ph[next()], scratchIssues);
+    }
+
+    @Benchmark
+    public double temperatureScore() {
+        scratchIssues.clear();
+        return QualityCalculationService.calculateTemperatureScore(samples.temperature[next()], scratchIssues);
+    }
+
+    @Benchmark
+    public double turbidityScore() {
+        scratchIssues.clear();
+        return QualityCalculationService.calculateTurbidityScore(samples.turbidity[next()], scratchIssues);
+    }
+
+    @Benchmark
+    public double dissolvedOxygenScore() {
+        scratchIssues.clear();
+        return QualityCalculationService.calculateDissolvedOxygenScore(samples.dissolvedOxygen[next()], scratchIssues);
+    }
+
+    @Benchmark
+    public double conductivityScore() {
+        scratchIssues.clear();
+        return QualityCalculationService.calculateConductivityScore(samples.conductivity[next()], scratchIssues);
+    }
+
+    @Benchmark
+    public List<String> buildRecommendations() {
+        int i = next();
+        return service.buildRecommendations(ph[i], temperature[i], turbidity[i], dissolvedOxygen[i],
+                conductivity[i], issues.get(i));
+    }
+
+    @Benchmark
+    public String buildPredictionDetails() {
+        int i = next();
+        return service.buildPredictionDetails(ph[i], temperature[i], turbidity[i], dissolvedOxygen[i],
+                conductivity[i], scores[i], issues.get(i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void scoreBatch(Blackhole blackhole) {
+        QualityCalculationService.scoreBatch(samples.ph, samples.temperature, samples.turbidity,
+                samples.dissolvedOxygen, samples.conductivity, batchScores, batchStatuses, 0, SAMPLES);
+        blackhole.consume(batchScores);
+        blackhole.consume(batchStatuses);
+    }
+
+    private int next() {
+        return cursor++ & (SAMPLES - 1);
+    }
+
+    private static Double[] boxed(double[] values) {
+        Double[] boxed = new Double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(QualityCalculationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -1,24 +1,35 @@
 package stmodelservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import stmodelservice.client.SatelliteClient;
 import stmodelservice.client.SensorClient;
 import stmodelservice.domain.entity.QualityObservation;
 import stmodelservice.domain.enums.QualityStatus;
 import stmodelservice.repository.QualityObservationRepository;
+import stmodelservice.web.dto.QualityBatchResponse;
 import stmodelservice.web.dto.SensorMeasurementDTO;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -41,7 +52,8 @@ class QualityCalculationServiceTest {
     @Mock
     private QualityObservationRepository observationRepository;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+
     private QualityCalculationService qualityCalculationService;
 
     private SensorMeasurementDTO goodMeasurement;
@@ -49,6 +61,11 @@ class QualityCalculationServiceTest {
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        qualityCalculationService = new QualityCalculationService(
+                sensorClient, satelliteClient, observationRepository, meterRegistry,
+                new SingleFlight(meterRegistry), 4);
+
         // Mesure de bonne qualité
         goodMeasurement = new SensorMeasurementDTO();
         goodMeasurement.setId(1L);
@@ -72,6 +89,11 @@ class QualityCalculationServiceTest {
         badMeasurement.setConductivity(1000.0);
     }
 
+    @AfterEach
+    void tearDown() {
+        qualityCalculationService.stopFetchPool();
+    }
+
     // ========== Tests computeCurrentQuality ==========
 
     @Test
@@ -113,6 +135,93 @@ class QualityCalculationServiceTest {
                 .isInstanceOf(IllegalStateException.class);
     }
 
+    @Test
+    @DisplayName("Satellite trop lent : abandonné, score calculé sans lui")
+    void shouldDropSlowSatelliteFetch() {
+        ReflectionTestUtils.setField(qualityCalculationService, "satelliteBudgetMs", 100L);
+        when(sensorClient.getLatestMeasurement(100L)).thenReturn(goodMeasurement);
+        when(satelliteClient.getLatestMetricsForStation(100L)).thenAnswer(inv -> {
+            Thread.sleep(2_000);
+            return new ArrayList<>();
+        });
+        when(observationRepository.save(any(QualityObservation.class)))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        long start = System.nanoTime();
+        QualityObservation result = qualityCalculationService.computeCurrentQuality(100L);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(result.getStatus()).isEqualTo(QualityStatus.GOOD);
+        assertThat(meterRegistry.get("stmodel.quality.fetch.dropped").tag("leg", "satellite").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("stmodel.quality.fetch").tags("leg", "sensor", "outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Pool saturé : satellite abandonné, capteurs interrogés sur le thread appelant")
+    void shouldRunSensorFetchOnCallerWhenPoolSaturated() throws Exception {
+        QualityCalculationService saturated = new QualityCalculationService(
+                sensorClient, satelliteClient, observationRepository, meterRegistry,
+                new SingleFlight(meterRegistry), 1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = (ExecutorService) ReflectionTestUtils.getField(saturated, "fetchPool");
+        // un thread et une place de file : tous deux occupés par des appels abandonnés
+        pool.submit(() -> release.await(5, TimeUnit.SECONDS));
+        pool.submit(() -> release.await(5, TimeUnit.SECONDS));
+        when(sensorClient.getLatestMeasurement(100L)).thenReturn(goodMeasurement);
+        when(observationRepository.save(any(QualityObservation.class)))
+                .thenAnswer(inv -> inv.getArgument(0));
+        try {
+            QualityObservation result = saturated.computeCurrentQuality(100L);
+
+            assertThat(result.getStatus()).isEqualTo(QualityStatus.GOOD);
+            verifyNoInteractions(satelliteClient);
+            assertThat(meterRegistry.get("stmodel.quality.fetch.saturated")
+                    .tags("leg", "sensor", "action", "caller-runs").counter().count()).isEqualTo(1.0);
+            assertThat(meterRegistry.get("stmodel.quality.fetch.saturated")
+                    .tags("leg", "satellite", "action", "dropped").counter().count()).isEqualTo(1.0);
+        } finally {
+            release.countDown();
+            saturated.stopFetchPool();
+        }
+    }
+
+    @Test
+    @DisplayName("Appels simultanés pour une station : un seul calcul partagé")
+    void shouldShareConcurrentComputationForSameStation() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(sensorClient.getLatestMeasurement(100L)).thenAnswer(inv -> {
+            fetching.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return goodMeasurement;
+        });
+        when(satelliteClient.getLatestMetricsForStation(100L)).thenReturn(new ArrayList<>());
+        when(observationRepository.save(any(QualityObservation.class)))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<QualityObservation> first = callers.submit(() -> qualityCalculationService.computeCurrentQuality(100L));
+            assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<QualityObservation> second = callers.submit(() -> qualityCalculationService.computeCurrentQuality(100L));
+            // le second appel attend le calcul en cours
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.find("stmodel.singleflight.calls").tag("role", "shared").counter() == null
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+        verify(sensorClient, times(1)).getLatestMeasurement(100L);
+        verify(observationRepository, times(1)).save(any(QualityObservation.class));
+    }
+
     // ========== Tests predictQuality ==========
 
     @Test
@@ -146,6 +255,106 @@ class QualityCalculationServiceTest {
         assertThat(result.getParameterScores()).containsKeys("ph", "temperature", "turbidity");
     }
 
+    // ========== Tests scoreBatch ==========
+
+    @Test
+    @DisplayName("Score par lots identique à predictQuality, valeurs absentes et seuils compris")
+    void shouldScoreBatchLikePredictQuality() {
+        double[][] bounds = {{4.0, 10.5}, {5.0, 35.0}, {0.0, 25.0}, {0.0, 12.0}, {20.0, 1500.0}};
+        // seuils de chaque paramètre, pour passer par toutes les branches
+        double[][] edges = {{6.0, 6.5, 8.5, 9.0}, {10.0, 15.0, 25.0, 30.0}, {1.0, 3.0, 5.0, 10.0},
+                {4.0, 6.0, 8.0, 0.0}, {100.0, 200.0, 500.0, 800.0}};
+        int n = 2_000;
+        double[][] columns = new double[5][n];
+        Random random = new Random(42);
+        for (int c = 0; c < 5; c++) {
+            for (int i = 0; i < n; i++) {
+                int draw = random.nextInt(20);
+                columns[c][i] = draw == 0 ? Double.NaN
+                        : draw < 4 ? edges[c][draw - 1]
+                        : bounds[c][0] + random.nextDouble() * (bounds[c][1] - bounds[c][0]);
+            }
+        }
+        double[] scores = new double[n];
+        byte[] statuses = new byte[n];
+        double[] parallelScores = new double[n];
+        byte[] parallelStatuses = new byte[n];
+
+        QualityCalculationService.scoreBatch(columns[0], columns[1], columns[2], columns[3], columns[4],
+                scores, statuses, 0, n);
+        QualityCalculationService.scoreBatch(columns[0], columns[1], columns[2], columns[3], columns[4],
+                parallelScores, parallelStatuses, 3);
+
+        for (int i = 0; i < n; i++) {
+            QualityCalculationService.PredictionResult expected = qualityCalculationService.predictQuality(
+                    boxed(columns[0][i]), boxed(columns[1][i]), boxed(columns[2][i]),
+                    boxed(columns[3][i]), boxed(columns[4][i]));
+            assertThat(scores[i]).as("ligne %d", i).isEqualTo(expected.getScore());
+            assertThat(QualityStatus.values()[statuses[i]]).as("ligne %d", i).isEqualTo(expected.getStatus());
+        }
+        assertThat(parallelScores).isEqualTo(scores);
+        assertThat(parallelStatuses).isEqualTo(statuses);
+    }
+
+    private static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    // ========== Tests computeAllStations ==========
+
+    @Test
+    @DisplayName("Recalcul groupé : deux appels en bloc, un saveAll")
+    @SuppressWarnings("unchecked")
+    void shouldComputeAllStationsInBulk() {
+        SensorMeasurementDTO other = new SensorMeasurementDTO();
+        other.setStationId(200L);
+        other.setPh(5.0);
+        other.setTemperature(35.0);
+        other.setTurbidity(15.0);
+        other.setDissolvedOxygen(3.0);
+        other.setConductivity(1000.0);
+        when(sensorClient.getAllLatestMeasurements()).thenReturn(List.of(goodMeasurement, other));
+        when(satelliteClient.getLatestMetricsForStations(List.of(100L, 200L)))
+                .thenThrow(new RuntimeException("satellite-service indisponible"));
+
+        QualityBatchResponse report = qualityCalculationService.computeAllStations().orElseThrow();
+
+        ArgumentCaptor<List<QualityObservation>> saved = ArgumentCaptor.forClass(List.class);
+        verify(observationRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(QualityObservation::getStationId).containsExactly(100L, 200L);
+        assertThat(saved.getValue()).extracting(QualityObservation::getStatus)
+                .containsExactly(QualityStatus.GOOD, QualityStatus.BAD);
+        assertThat(report.getComputed()).isEqualTo(2);
+        assertThat(report.isSatelliteAvailable()).isFalse();
+        assertThat(report.getParallelism()).isEqualTo(2);
+        verify(sensorClient, never()).getLatestMeasurement(any());
+        verify(satelliteClient, never()).getLatestMetricsForStation(any());
+    }
+
+    @Test
+    @DisplayName("Recalcul groupé : appels satellite par tranches bornées")
+    void shouldFetchSatelliteMetricsInChunks() {
+        ReflectionTestUtils.setField(qualityCalculationService, "satelliteChunkSize", 1);
+        SensorMeasurementDTO other = new SensorMeasurementDTO();
+        other.setStationId(200L);
+        other.setPh(7.0);
+        other.setTemperature(20.0);
+        other.setTurbidity(1.0);
+        other.setDissolvedOxygen(8.0);
+        other.setConductivity(300.0);
+        when(sensorClient.getAllLatestMeasurements()).thenReturn(List.of(goodMeasurement, other));
+        when(satelliteClient.getLatestMetricsForStations(List.of(100L))).thenReturn(List.of());
+        when(satelliteClient.getLatestMetricsForStations(List.of(200L)))
+                .thenThrow(new RuntimeException("satellite-service indisponible"));
+
+        QualityBatchResponse report = qualityCalculationService.computeAllStations().orElseThrow();
+
+        verify(satelliteClient).getLatestMetricsForStations(List.of(100L));
+        verify(satelliteClient).getLatestMetricsForStations(List.of(200L));
+        assertThat(report.getComputed()).isEqualTo(2);
+        assertThat(report.isSatelliteAvailable()).isFalse();
+    }
+
     // ========== Tests getters ==========
 
     @Test
@@ -0,0 +1,99 @@
+package stmodelservice.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mesures d'entrée des benchmarks, tirées du jeu « Water Quality Testing » (500 échantillons,
+ * copie dans src/test/resources/benchmark)
+ *
+ * Tirage avec remise de lignes entières (corrélations entre paramètres conservées), plus un
+ * bruit gaussien d'un demi écart-type par colonne pour ne pas rejouer 500 tuples exacts ;
+ * valeurs arrondies à la précision du fichier. Même graine, mêmes échantillons.
+ */
+final class WaterQualitySamples {
+
+    private static final String RESOURCE = "/benchmark/water-quality-testing.csv";
+    // pH, température, turbidité, oxygène dissous, conductivité
+    private static final double[] PRECISION = {100, 10, 10, 10, 1};
+
+    final double[] ph;
+    final double[] temperature;
+    final double[] turbidity;
+    final double[] dissolvedOxygen;
+    final double[] conductivity;
+
+    private WaterQualitySamples(int size) {
+        ph = new double[size];
+        temperature = new double[size];
+        turbidity = new double[size];
+        dissolvedOxygen = new double[size];
+        conductivity = new double[size];
+    }
+
+    static WaterQualitySamples draw(int size, long seed) {
+        List<double[]> rows = load();
+        double[] std = standardDeviations(rows);
+        Random random = new Random(seed);
+        WaterQualitySamples samples = new WaterQualitySamples(size);
+        double[][] columns = {samples.ph, samples.temperature, samples.turbidity,
+                samples.dissolvedOxygen, samples.conductivity};
+        for (int i = 0; i < size; i++) {
+            double[] row = rows.get(random.nextInt(rows.size()));
+            for (int c = 0; c < columns.length; c++) {
+                double value = Math.max(0, row[c] + random.nextGaussian() * std[c] * 0.5);
+                columns[c][i] = Math.round(value * PRECISION[c]) / PRECISION[c];
+            }
+        }
+        return samples;
+    }
+
+    private static List<double[]> load() {
+        InputStream in = WaterQualitySamples.class.getResourceAsStream(RESOURCE);
+        if (in == null) {
+            throw new IllegalStateException("Ressource introuvable: " + RESOURCE);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<double[]> rows = new ArrayList<>();
+            reader.readLine(); // en-tête
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                // Sample ID, pH, Temperature, Turbidity, Dissolved Oxygen, Conductivity
+                String[] fields = line.split(",");
+                double[] row = new double[5];
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = Double.parseDouble(fields[c + 1].trim());
+                }
+                rows.add(row);
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double[] standardDeviations(List<double[]> rows) {
+        double[] std = new double[5];
+        for (int c = 0; c < std.length; c++) {
+            double sum = 0;
+            double sumSquares = 0;
+            for (double[] row : rows) {
+                sum += row[c];
+                sumSquares += row[c] * row[c];
+            }
+            double mean = sum / rows.size();
+            std[c] = Math.sqrt(Math.max(0, sumSquares / rows.size() - mean * mean));
+        }
+        return std;
+    }
+}